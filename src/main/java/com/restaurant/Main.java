@@ -1,13 +1,30 @@
 package com.restaurant;
 
+import com.restaurant.config.AppConfig;
 import com.restaurant.config.DatabaseConfig;
 import com.restaurant.config.ErrorLogger;
+import com.restaurant.controller.MainController;
+import com.restaurant.event.RelaisTerminaux;
+import com.restaurant.journal.JournalCommandes;
+import com.restaurant.readmodel.VueCaisse;
+import com.restaurant.readmodel.VueCuisine;
+import com.restaurant.readmodel.VueSalle;
+import com.restaurant.service.ClotureService;
+import com.restaurant.service.MetriquesCuisine;
+import com.restaurant.service.PopularitePlats;
+import com.restaurant.service.SurveillanceUrgences;
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
 import javafx.stage.Stage;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 /**
  * Point d'entrée de l'application RestManager
@@ -18,23 +35,30 @@ public class Main extends Application {
     private static final int WINDOW_WIDTH = 1400;
     private static final int WINDOW_HEIGHT = 800;
 
+    // Démarrage scripté puis fermeture (mesure ou entraînement AppCDS, profil Maven cds)
+    public static final String CLE_SCENARIO = "demarrage.scenario";
+    public static final String SCENARIO_SALLE = "salle";
+    public static final String SCENARIO_ECRANS = "ecrans";
+
     @Override
     public void start(Stage primaryStage) {
+        MesureDemarrage mesure = new MesureDemarrage();
         try {
             System.out.println("╔═══════════════════════════════════════╗");
             System.out.println("║   RestManager - Démarrage...          ║");
             System.out.println("╚═══════════════════════════════════════╝");
 
-            // Initialiser la base de données
-            System.out.println("[1/3] Initialisation BD...");
-            initializeDatabase();
+            // La base démarre en arrière-plan pendant que la fenêtre s'affiche
+            System.out.println("[1/3] Initialisation BD (arrière-plan)...");
+            CompletableFuture<Void> base = DatabaseConfig.demarrerEnArrierePlan();
 
-            // Charger la vue principale
+            // Charger la vue principale (navigation inactive jusqu'à la base)
             System.out.println("[2/3] Chargement interface...");
             FXMLLoader loader = new FXMLLoader(
                     getClass().getResource("/views/main-view.fxml")
             );
             Parent root = loader.load();
+            MainController mainController = loader.getController();
 
             // Configurer la scène
             System.out.println("[3/3] Configuration UI...");
@@ -67,10 +91,26 @@ public class Main extends Application {
                 }
             });
 
+            mesure.interfaceChargee();
             primaryStage.show();
+            apresProchaineImage(scene, mesure::premiereImage);
 
-            System.out.println("✓ Application démarrée avec succès !");
-            System.out.println("══════════════════════════════════════════");
+            // Base prête : tâches de fond (arrière-plan), puis écran Salle (thread JavaFX)
+            base.thenRunAsync(this::demarrerTachesDeFond)
+                    .thenRun(mesure::baseDemarree)
+                    .whenComplete((ok, echec) -> Platform.runLater(() -> {
+                        if (echec != null) {
+                            Throwable cause = echec instanceof CompletionException ? echec.getCause() : echec;
+                            mainController.echecDemarrage(cause.getMessage());
+                            return;
+                        }
+                        mainController.demarrer();
+                        mesure.salleChargee();
+                        apresProchaineImage(scene, () -> {
+                            mesure.interactif();
+                            jouerScenario(mainController, scene);
+                        });
+                    }));
 
         } catch (IOException e) {
             ErrorLogger.logError("Main.start - IOException", e);
@@ -83,6 +123,87 @@ public class Main extends Application {
         }
     }
 
+    /**
+     * Une fois la base prête (thread de démarrage) : modèles abonnés au bus, tâches périodiques, relais
+     */
+    private void demarrerTachesDeFond() {
+        initializeDatabase();
+
+        // Abonnés au bus créés avant le premier écran : aucun événement manqué
+        VueSalle.getInstance();
+        VueCuisine.getInstance();
+        VueCaisse.getInstance();
+        MetriquesCuisine.getInstance();
+        SurveillanceUrgences.getInstance();
+
+        // Tickets Z des journées terminées (arrière-plan)
+        ClotureService.demarrerClotureAutomatique();
+        // Ordre « les plus commandés d'abord » de la prise de commande
+        PopularitePlats.demarrerSauvegarde();
+
+        // Notification des autres postes (salle, cuisine, caisse)
+        RelaisTerminaux relais = RelaisTerminaux.demarrer();
+        System.out.println(relais != null
+                ? "✓ Postes notifiés : " + relais.getDescription()
+                : "⚠ Notification entre postes indisponible (relecture périodique)");
+    }
+
+    /**
+     * demarrage.scenario : salle = fermer une fois l'écran Salle affiché,
+     * ecrans = ouvrir chaque écran (et la fenêtre de commande) puis fermer
+     */
+    private void jouerScenario(MainController mainController, Scene scene) {
+        String scenario = AppConfig.get(CLE_SCENARIO, null);
+        if (scenario == null) {
+            return;
+        }
+        List<Runnable> etapes = new ArrayList<>();
+        if (SCENARIO_ECRANS.equals(scenario)) {
+            etapes.add(() -> mainController.afficher(MainController.VUE_CARTE));
+            etapes.add(() -> mainController.afficher(MainController.VUE_CUISINE));
+            etapes.add(() -> mainController.afficher(MainController.VUE_CAISSE));
+            etapes.add(this::prechargerCommande);
+            etapes.add(() -> mainController.afficher(MainController.VUE_SALLE));
+        } else if (!SCENARIO_SALLE.equals(scenario)) {
+            ErrorLogger.logInfo("Scénario de démarrage inconnu : " + scenario + " (" + SCENARIO_SALLE
+                    + " ou " + SCENARIO_ECRANS + ")");
+        }
+        etapes.add(Platform::exit);
+        enchainer(scene, etapes.iterator());
+    }
+
+    private static void enchainer(Scene scene, Iterator<Runnable> etapes) {
+        etapes.next().run();
+        if (etapes.hasNext()) {
+            apresProchaineImage(scene, () -> enchainer(scene, etapes));
+        }
+    }
+
+    /**
+     * Fenêtre de commande (ouverte depuis la salle sur une commande) : chargée sans être affichée
+     */
+    private void prechargerCommande() {
+        try {
+            new FXMLLoader(getClass().getResource("/views/commande-view.fxml")).load();
+        } catch (IOException e) {
+            ErrorLogger.logError("Main.prechargerCommande", e);
+        }
+    }
+
+    /**
+     * Exécute l'action après la prochaine mise en page de la scène (image prête à être dessinée)
+     */
+    private static void apresProchaineImage(Scene scene, Runnable action) {
+        Runnable[] ecouteur = new Runnable[1];
+        ecouteur[0] = () -> {
+            // Retrait différé : la liste des écouteurs est en cours de parcours
+            Platform.runLater(() -> scene.removePostLayoutPulseListener(ecouteur[0]));
+            action.run();
+        };
+        scene.addPostLayoutPulseListener(ecouteur[0]);
+        Platform.requestNextPulse();
+    }
+
     /**
      * Affiche une boîte de dialogue d'erreur
      */
@@ -108,9 +229,9 @@ public class Main extends Application {
         try {
             // Tester la connexion BD
             DatabaseConfig.getEntityManager().close();
-            System.out.println("✓ Base de données initialisée");
-            System.out.println("  Fichier: ./data/restaurant.mv.db");
-            System.out.println("  URL: jdbc:h2:./data/restaurant");
+            System.out.println("✓ Base de données initialisée (" + DatabaseConfig.getDureeInitialisationMs() + " ms)");
+            System.out.println("  Mode: " + DatabaseConfig.getMode());
+            System.out.println("  URL: " + DatabaseConfig.getUrl());
         } catch (Exception e) {
             ErrorLogger.logError("Main.initializeDatabase", e);
             throw new RuntimeException("Impossible d'initialiser la BD: " + e.getMessage(), e);
@@ -124,6 +245,9 @@ public class Main extends Application {
         System.out.println("╚═══════════════════════════════════════╝");
 
         // Nettoyer les ressources
+        RelaisTerminaux.arreter();
+        ClotureService.arreterClotureAutomatique();
+        PopularitePlats.arreterSauvegarde();
         try {
             DatabaseConfig.shutdown();
             System.out.println("✓ Base de données fermée");
@@ -131,6 +255,7 @@ public class Main extends Application {
             ErrorLogger.logError("Main.stop - Database", e);
             System.err.println("⚠ Erreur fermeture BD: " + e.getMessage());
         }
+        JournalCommandes.getInstance().fermer();
 
         // Arrêter les services en cours
         try {
@@ -156,5 +281,10 @@ public class Main extends Application {
 
         // Lancer l'application JavaFX
         launch(args);
+
+        // Scénario joué : fermer même si des threads non démons restent (serveur H2, relais)
+        if (AppConfig.get(CLE_SCENARIO, null) != null) {
+            System.exit(0);
+        }
     }
 }
\ No newline at end of file
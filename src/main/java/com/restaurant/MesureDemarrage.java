@@ -0,0 +1,60 @@
+package com.restaurant;
+
+import com.restaurant.config.DatabaseConfig;
+import com.restaurant.config.ErrorLogger;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Chronologie du démarrage, en ms depuis le lancement de la JVM
+ * - javafx         : entrée dans Main.start (JVM, classes, boîte à outils JavaFX)
+ * - interface      : vue principale chargée (FXML, CSS)
+ * - premiere_image : première image de la fenêtre (attente de la base)
+ * - base           : factory prête et tâches de fond lancées (thread de démarrage, en parallèle)
+ * - salle          : écran Salle construit (services créés, plan des tables lu)
+ * - interactif     : première image de l'écran Salle
+ * Une ligne « Démarrage (ms) : ... » est journalisée une fois l'écran Salle affiché
+ */
+final class MesureDemarrage {
+
+    static final String PREFIXE = "Démarrage (ms) : ";
+
+    private final long lancement = ManagementFactory.getRuntimeMXBean().getStartTime();
+    private final long javafx = ecoule();
+    private volatile long interfaceChargee = -1;
+    private volatile long premiereImage = -1;
+    private volatile long base = -1;
+    private volatile long salle = -1;
+
+    private long ecoule() {
+        return System.currentTimeMillis() - lancement;
+    }
+
+    void interfaceChargee() {
+        interfaceChargee = ecoule();
+    }
+
+    void premiereImage() {
+        premiereImage = ecoule();
+    }
+
+    void baseDemarree() {
+        base = ecoule();
+    }
+
+    void salleChargee() {
+        salle = ecoule();
+    }
+
+    void interactif() {
+        long interactif = ecoule();
+        String ligne = PREFIXE + "javafx=" + javafx
+                + ", interface=" + interfaceChargee
+                + ", premiere_image=" + premiereImage
+                + ", base=" + base + " (factory " + DatabaseConfig.getDureeInitialisationMs() + ")"
+                + ", salle=" + salle
+                + ", interactif=" + interactif;
+        ErrorLogger.logInfo(ligne);
+        System.out.println("✓ " + ligne);
+    }
+}
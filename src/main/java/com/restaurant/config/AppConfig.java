@@ -0,0 +1,63 @@
+package com.restaurant.config;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Properties;
+
+/**
+ * Paramètres applicatifs : ./restaurant.properties (optionnel), surchargé par -Dcle=valeur
+ */
+public final class AppConfig {
+
+    private static final String FICHIER = "./restaurant.properties";
+    private static final Properties PROPRIETES = charger();
+
+    private AppConfig() {
+    }
+
+    private static Properties charger() {
+        Properties proprietes = new Properties();
+        Path chemin = Paths.get(FICHIER);
+        if (Files.isRegularFile(chemin)) {
+            try (InputStream in = new FileInputStream(chemin.toFile())) {
+                proprietes.load(in);
+            } catch (IOException e) {
+                ErrorLogger.logDebug("Lecture " + FICHIER + " impossible : " + e.getMessage());
+            }
+        }
+        return proprietes;
+    }
+
+    /**
+     * Valeur d'un paramètre (propriété système prioritaire), defaut si absent
+     */
+    public static String get(String cle, String defaut) {
+        String valeur = System.getProperty(cle);
+        if (valeur == null) {
+            valeur = PROPRIETES.getProperty(cle);
+        }
+        return valeur != null && !valeur.trim().isEmpty() ? valeur.trim() : defaut;
+    }
+
+    public static int getInt(String cle, int defaut) {
+        String valeur = get(cle, null);
+        if (valeur == null) {
+            return defaut;
+        }
+        try {
+            return Integer.parseInt(valeur);
+        } catch (NumberFormatException e) {
+            ErrorLogger.logDebug("Paramètre " + cle + " invalide : " + valeur);
+            return defaut;
+        }
+    }
+
+    public static boolean getBoolean(String cle, boolean defaut) {
+        String valeur = get(cle, null);
+        return valeur == null ? defaut : Boolean.parseBoolean(valeur);
+    }
+}
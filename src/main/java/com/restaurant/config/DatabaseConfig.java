@@ -1,31 +1,313 @@
 package com.restaurant.config;
 
+import com.restaurant.dao.CommandeDAO;
+import org.h2.engine.Constants;
+import org.h2.tools.Server;
+
 import javax.persistence.EntityManager;
 import javax.persistence.EntityManagerFactory;
 import javax.persistence.Persistence;
+import java.io.File;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 /**
  * Singleton pour gérer la connexion à la base de données
- * Crée une EntityManagerFactory au démarrage, la garde en mémoire
+ * Crée une EntityManagerFactory au premier usage (ou en arrière-plan : demarrerEnArrierePlan),
+ * la garde en mémoire
+ *
+ * Modes (db.mode dans restaurant.properties) :
+ * - auto    : AUTO_SERVER H2, le premier poste lancé sert les autres (historique)
+ * - serveur : ce poste ouvre la base en direct et démarre un serveur TCP pour les autres
+ * - client  : connexion TCP au poste serveur ou au processus dédié (ServeurBaseDeDonnees)
+ *
+ * app.production=true : schéma ni vérifié ni mis à jour au démarrage (hbm2ddl), ni reprise des données ;
+ * lancer une fois sans ce mode après une mise à jour de l'application
  */
 public class DatabaseConfig {
     private static EntityManagerFactory emf;
     private static final String PERSISTENCE_UNIT = "restaurantPU";
 
-    static {
+    public static final String CLE_MODE = "db.mode";
+    public static final String CLE_HOTE = "db.hote";
+    public static final String CLE_PORT = "db.port";
+    public static final String CLE_DISTANT = "db.serveur.distant";
+    public static final String CLE_CACHE = "db.cache.ko";
+    public static final String CLE_VERROU = "db.verrou.ms";
+    public static final String CLE_ECRITURE = "db.mvstore.ecriture.ms";
+    public static final String CLE_RETENTION = "db.mvstore.retention.ms";
+    public static final String CLE_COMPACTAGE = "db.mvstore.compactage.ms";
+    public static final String CLE_CONNEXION = "db.connexion.ms";
+    public static final String CLE_PRODUCTION = "app.production";
+
+    public static final String MODE_AUTO = "auto";
+    public static final String MODE_SERVEUR = "serveur";
+    public static final String MODE_CLIENT = "client";
+
+    public static final int PORT_DEFAUT = 9092;
+
+    private static String mode;
+    private static String url;
+    private static Server serveur;
+    // Démarrage unique, terminé (ou en échec) une fois la factory prête
+    private static CompletableFuture<Void> initialisation;
+    private static long dureeInitialisationMs = -1;
+
+    /**
+     * Démarre la base sur un thread dédié (l'interface s'affiche pendant ce temps)
+     * Sans effet si elle est déjà démarrée ou en cours de démarrage
+     */
+    public static synchronized CompletableFuture<Void> demarrerEnArrierePlan() {
+        if (initialisation == null) {
+            initialisation = new CompletableFuture<>();
+            Thread thread = new Thread(DatabaseConfig::initialiser, "demarrage-bd");
+            thread.setDaemon(true);
+            thread.start();
+        }
+        return initialisation;
+    }
+
+    /**
+     * Attend la base, en la démarrant sur le thread appelant si personne ne l'a fait
+     */
+    private static void attendreInitialisation() {
+        CompletableFuture<Void> attente;
+        synchronized (DatabaseConfig.class) {
+            if (initialisation == null) {
+                initialisation = new CompletableFuture<>();
+                initialiser();
+            }
+            attente = initialisation;
+        }
+        try {
+            attente.join();
+        } catch (CompletionException e) {
+            throw new IllegalStateException("Base de données indisponible : " + e.getCause().getMessage(),
+                    e.getCause());
+        }
+    }
+
+    private static void initialiser() {
+        long debut = System.nanoTime();
         try {
-            emf = Persistence.createEntityManagerFactory(PERSISTENCE_UNIT);
-            ErrorLogger.logInfo("✅ Base de données H2 initialisée avec succès");
+            demarrer();
+            dureeInitialisationMs = (System.nanoTime() - debut) / 1_000_000;
+            ErrorLogger.logInfo("✅ Base de données H2 initialisée avec succès (" + mode + ", "
+                    + dureeInitialisationMs + " ms)");
+            initialisation.complete(null);
         } catch (Exception e) {
             ErrorLogger.logError("❌ Erreur initialisation base de données", e);
-            throw new ExceptionInInitializerError();
+            initialisation.completeExceptionally(e);
+        }
+    }
+
+    private static void demarrer() throws Exception {
+        mode = AppConfig.get(CLE_MODE, MODE_AUTO).toLowerCase();
+        int port = AppConfig.getInt(CLE_PORT, PORT_DEFAUT);
+        verifierAvantOuverture(port);
+        boolean production = AppConfig.getBoolean(CLE_PRODUCTION, false);
+
+        url = construireUrl(port);
+        Map<String, Object> proprietes = new HashMap<>();
+        proprietes.put("javax.persistence.jdbc.url", url);
+        if (production) {
+            // Pas d'introspection du schéma (hbm2ddl=update lit toutes les tables à chaque lancement)
+            proprietes.put("hibernate.hbm2ddl.auto", "none");
+        }
+        emf = Persistence.createEntityManagerFactory(PERSISTENCE_UNIT, proprietes);
+
+        if (MODE_CLIENT.equals(mode)) {
+            verifierVersionServeur();
+        } else if (!production) {
+            migrerDonnees();
+        }
+        // Serveur ouvert une fois le schéma à jour : les clients ne voient jamais l'ancien
+        if (MODE_SERVEUR.equals(mode)) {
+            serveur = ServeurBaseDeDonnees.demarrer(port, AppConfig.getBoolean(CLE_DISTANT, true));
+        }
+    }
+
+    /**
+     * URL JDBC du mode configuré
+     * Réglages de la base (cache, MVStore) posés par le poste qui l'ouvre en direct ;
+     * un client ne règle que sa session. MULTI_THREADED n'existe plus en H2 2.x :
+     * le moteur MVStore est toujours multi-thread, avec verrous par ligne
+     */
+    private static String construireUrl(int port) {
+        String base = ServeurBaseDeDonnees.REPERTOIRE + "/" + ServeurBaseDeDonnees.NOM_BASE;
+        StringBuilder sb = new StringBuilder("jdbc:h2:");
+        switch (mode) {
+            case MODE_CLIENT:
+                sb.append("tcp://").append(AppConfig.get(CLE_HOTE, "localhost")).append(':').append(port)
+                        .append('/').append(ServeurBaseDeDonnees.NOM_BASE);
+                break;
+            case MODE_SERVEUR:
+                sb.append(base);
+                break;
+            default:
+                sb.append(base).append(";AUTO_SERVER=TRUE");
+                break;
+        }
+        if (!MODE_CLIENT.equals(mode)) {
+            parametre(sb, "CACHE_SIZE", CLE_CACHE);
+            parametre(sb, "WRITE_DELAY", CLE_ECRITURE);
+            parametre(sb, "RETENTION_TIME", CLE_RETENTION);
+            parametre(sb, "MAX_COMPACT_TIME", CLE_COMPACTAGE);
+        }
+        parametre(sb, "LOCK_TIMEOUT", CLE_VERROU);
+        if (AppConfig.get("db.multithreaded", null) != null) {
+            ErrorLogger.logInfo("db.multithreaded ignoré : H2 2.x (MVStore) est toujours multi-thread");
+        }
+        return sb.toString();
+    }
+
+    private static void parametre(StringBuilder url, String nom, String cle) {
+        int valeur = AppConfig.getInt(cle, -1);
+        if (valeur >= 0) {
+            url.append(';').append(nom).append('=').append(valeur);
+        }
+    }
+
+    /**
+     * Vérifications de démarrage, avec un message clair plutôt qu'une erreur JDBC
+     */
+    private static void verifierAvantOuverture(int port) {
+        switch (mode) {
+            case MODE_AUTO:
+            case MODE_SERVEUR:
+                File repertoire = new File(ServeurBaseDeDonnees.REPERTOIRE);
+                if (!repertoire.isDirectory() && !repertoire.mkdirs()) {
+                    throw new IllegalStateException("Répertoire de la base impossible à créer : "
+                            + repertoire.getAbsolutePath());
+                }
+                if (!repertoire.canWrite()) {
+                    throw new IllegalStateException("Répertoire de la base en lecture seule : "
+                            + repertoire.getAbsolutePath());
+                }
+                if (MODE_SERVEUR.equals(mode) && !ServeurBaseDeDonnees.portLibre(port)) {
+                    throw new IllegalStateException("Port " + port + " déjà utilisé : un autre serveur tourne-t-il ? "
+                            + "(sinon changer " + CLE_PORT + ")");
+                }
+                break;
+            case MODE_CLIENT:
+                String hote = AppConfig.get(CLE_HOTE, "localhost");
+                int delai = AppConfig.getInt(CLE_CONNEXION, 3000);
+                try (Socket socket = new Socket()) {
+                    socket.connect(new InetSocketAddress(hote, port), delai);
+                } catch (IOException e) {
+                    throw new IllegalStateException("Serveur de base de données injoignable : " + hote + ":" + port
+                            + " (" + e.getMessage() + ")");
+                }
+                break;
+            default:
+                throw new IllegalStateException("Mode de base inconnu : " + mode
+                        + " (" + MODE_AUTO + ", " + MODE_SERVEUR + " ou " + MODE_CLIENT + ")");
         }
     }
 
+    /**
+     * Client et serveur H2 de versions différentes : protocole ou format incompatibles
+     */
+    private static void verifierVersionServeur() {
+        EntityManager em = emf.createEntityManager();
+        try {
+            Object version = em.createNativeQuery("SELECT H2VERSION()").getSingleResult();
+            if (!Constants.VERSION.equals(String.valueOf(version))) {
+                ErrorLogger.logInfo("⚠ Version H2 du serveur " + version + " différente du client " + Constants.VERSION);
+            }
+        } finally {
+            em.close();
+        }
+    }
+
+    // Colonnes monétaires (table, colonne, précision) : les premières bases les ont créées en DOUBLE,
+    // et hbm2ddl=update ne change jamais le type d'une colonne existante
+    private static final String[][] COLONNES_MONTANT = {
+            {"plat", "prix", "12"},
+            {"ligne_commande", "prix", "12"},
+            {"paiement", "montant", "12"},
+            {"commande", "remiseAppliquee", "12"},
+            {"commande", "total", "12"},
+            {"commande", "montantPaye", "12"},
+            {"commande", "resteAPayer", "12"},
+            {"cloture_journee", "chiffreAffaires", "12"},
+            {"cloture_journee", "ventesBrutes", "12"},
+            {"cloture_journee", "remises", "12"},
+            {"cloture_ligne", "montant", "12"},
+            {"cumul_ventes", "montant", "14"},
+    };
+
+    /**
+     * Reprise des données après mise à jour du schéma (idempotent)
+     * - colonnes monétaires encore en virgule flottante converties en DECIMAL (centimes exacts)
+     * - total dénormalisé des commandes créées avant son introduction
+     * - montant encaissé et reste dû (paiements partiels)
+     */
+    private static void migrerDonnees() {
+        EntityManager em = emf.createEntityManager();
+        try {
+            int colonnes = convertirMontants(em);
+            if (colonnes > 0) {
+                ErrorLogger.logInfo("Montants convertis en DECIMAL : " + colonnes + " colonne(s)");
+            }
+            em.getTransaction().begin();
+            CommandeDAO commandeDAO = new CommandeDAO(em);
+            int commandes = commandeDAO.backfillTotaux();
+            int soldes = commandeDAO.backfillSoldes();
+            em.getTransaction().commit();
+            if (commandes > 0) {
+                ErrorLogger.logInfo("Totaux recalculés pour " + commandes + " commande(s)");
+            }
+            if (soldes > 0) {
+                ErrorLogger.logInfo("Soldes à payer initialisés pour " + soldes + " commande(s)");
+            }
+        } catch (Exception e) {
+            if (em.getTransaction().isActive()) {
+                em.getTransaction().rollback();
+            }
+            ErrorLogger.logError("Reprise des montants, totaux et soldes de commande", e);
+        } finally {
+            em.close();
+        }
+    }
+
+    /**
+     * Passe en DECIMAL(précision, 2) les colonnes monétaires d'un autre type (arrondi au centime)
+     * Sans effet sur une base déjà convertie ou créée avec Money
+     * @return nombre de colonnes converties
+     */
+    private static int convertirMontants(EntityManager em) {
+        int converties = 0;
+        for (String[] colonne : COLONNES_MONTANT) {
+            List<?> types = em.createNativeQuery("SELECT DATA_TYPE FROM INFORMATION_SCHEMA.COLUMNS " +
+                            "WHERE TABLE_SCHEMA = SCHEMA() AND TABLE_NAME = ?1 AND COLUMN_NAME = ?2")
+                    .setParameter(1, colonne[0].toUpperCase())
+                    .setParameter(2, colonne[1].toUpperCase())
+                    .getResultList();
+            if (types.isEmpty() || "NUMERIC".equals(types.get(0)) || "DECIMAL".equals(types.get(0))) {
+                continue;
+            }
+            em.getTransaction().begin();
+            em.createNativeQuery("ALTER TABLE " + colonne[0] + " ALTER COLUMN " + colonne[1]
+                    + " SET DATA TYPE DECIMAL(" + colonne[2] + ", 2)").executeUpdate();
+            em.getTransaction().commit();
+            ErrorLogger.logInfo("Colonne " + colonne[0] + "." + colonne[1] + " : " + types.get(0) + " → DECIMAL");
+            converties++;
+        }
+        return converties;
+    }
+
     /**
      * Obtenir une instance EntityManager pour une transaction
      */
     public static EntityManager getEntityManager() {
+        attendreInitialisation();
         if (emf == null || !emf.isOpen()) {
             throw new IllegalStateException("EntityManagerFactory n'est pas initialisée");
         }
@@ -36,6 +318,7 @@ public class DatabaseConfig {
      * Obtenir la EntityManagerFactory (rare)
      */
     public static EntityManagerFactory getEntityManagerFactory() {
+        attendreInitialisation();
         return emf;
     }
 
@@ -43,6 +326,14 @@ public class DatabaseConfig {
      * Fermer la factory (appeler une seule fois à l'arrêt de l'app)
      */
     public static void shutdown() {
+        CompletableFuture<Void> attente;
+        synchronized (DatabaseConfig.class) {
+            attente = initialisation;
+        }
+        if (attente != null) {
+            // Fermeture pendant le démarrage : la factory ne doit pas s'ouvrir après
+            attente.exceptionally(e -> null).join();
+        }
         try {
             if (emf != null && emf.isOpen()) {
                 emf.close();
@@ -51,6 +342,29 @@ public class DatabaseConfig {
         } catch (Exception e) {
             ErrorLogger.logError("Erreur fermeture base de données", e);
         }
+        if (serveur != null) {
+            serveur.stop();
+            serveur = null;
+            ErrorLogger.logInfo("Serveur H2 arrêté");
+        }
+    }
+
+    /**
+     * Mode effectif : auto, serveur ou client
+     */
+    public static String getMode() {
+        return mode;
+    }
+
+    public static String getUrl() {
+        return url;
+    }
+
+    /**
+     * Durée de création de la factory (connexion, schéma, reprise), -1 avant la fin du démarrage
+     */
+    public static long getDureeInitialisationMs() {
+        return dureeInitialisationMs;
     }
 
     /**
@@ -0,0 +1,63 @@
+package com.restaurant.config;
+
+import org.h2.tools.Server;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.sql.SQLException;
+
+/**
+ * Serveur TCP H2 de la base ./data/restaurant
+ * - intégré à un poste (db.mode=serveur) : ce poste accède à la base en direct, les autres en TCP
+ * - ou processus dédié (main), sans interface : tous les postes sont alors clients (db.mode=client)
+ */
+public final class ServeurBaseDeDonnees {
+
+    public static final String REPERTOIRE = "./data";
+    public static final String NOM_BASE = "restaurant";
+
+    private ServeurBaseDeDonnees() {
+    }
+
+    /**
+     * Démarre le serveur TCP sur une base existante
+     * @param distant vrai pour accepter les autres PC (sinon connexions locales uniquement)
+     */
+    public static Server demarrer(int port, boolean distant) throws SQLException {
+        Server serveur = distant
+                ? Server.createTcpServer("-tcpPort", String.valueOf(port), "-tcpAllowOthers",
+                        "-baseDir", REPERTOIRE, "-ifExists")
+                : Server.createTcpServer("-tcpPort", String.valueOf(port),
+                        "-baseDir", REPERTOIRE, "-ifExists");
+        serveur.start();
+        ErrorLogger.logInfo("Serveur H2 démarré : " + serveur.getURL() + (distant ? " (réseau local)" : " (local)"));
+        return serveur;
+    }
+
+    /**
+     * Vrai si le port est libre sur ce poste
+     */
+    public static boolean portLibre(int port) {
+        try (ServerSocket socket = new ServerSocket()) {
+            socket.setReuseAddress(true);
+            socket.bind(new InetSocketAddress(port));
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Processus de base de données dédié : ouvre la base (schéma à jour), sert les postes, attend l'arrêt
+     */
+    public static void main(String[] args) throws Exception {
+        System.setProperty(DatabaseConfig.CLE_MODE, DatabaseConfig.MODE_SERVEUR);
+        DatabaseConfig.getEntityManager().close();
+        System.out.println("Base " + REPERTOIRE + "/" + NOM_BASE + " servie sur le port "
+                + AppConfig.getInt(DatabaseConfig.CLE_PORT, DatabaseConfig.PORT_DEFAUT) + " (Ctrl+C pour arrêter)");
+
+        Runtime.getRuntime().addShutdownHook(new Thread(DatabaseConfig::shutdown, "arret-base"));
+        Thread.currentThread().join();
+    }
+}
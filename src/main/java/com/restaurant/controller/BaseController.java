@@ -9,19 +9,19 @@ public abstract class BaseController {
     protected CommandeService commandeService;
     protected CuisineService cuisineService;
     protected CaisseService caisseService;
+    protected ServicesPartages services;
 
-    public void setServices(
-            CarteService carteService,
-            SalleService salleService,
-            CommandeService commandeService,
-            CuisineService cuisineService,
-            CaisseService caisseService
-    ) {
-        this.carteService = carteService;
-        this.salleService = salleService;
-        this.commandeService = commandeService;
-        this.cuisineService = cuisineService;
-        this.caisseService = caisseService;
+    /**
+     * Injection à l'ouverture de l'écran : chaque écran ne demande que les services qu'il utilise
+     */
+    public void setServices(ServicesPartages services) {
+        this.services = services;
+    }
+
+    /**
+     * Appelé avant de quitter l'écran : arrêter les tâches et les abonnements
+     */
+    public void onSceneClose() {
     }
 
     protected void showError(String title, String message) {
@@ -1,10 +1,17 @@
 package com.restaurant.controller;
 
+import com.restaurant.event.EventBus;
+import com.restaurant.event.ModificationDistanteEvent;
+import com.restaurant.model.ClotureJournee;
 import com.restaurant.model.Commande;
+import com.restaurant.model.Money;
 import com.restaurant.model.Paiement;
+import com.restaurant.model.enums.StatutCommande;
+import com.restaurant.readmodel.CommandeAPayer;
 import com.restaurant.service.*;
 import com.restaurant.service.CaisseService.PlatVente;
-import com.restaurant.service.CaisseService.StatsJournee;
+import com.restaurant.util.ListeDiff;
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
@@ -12,11 +19,14 @@ import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.layout.VBox;
 import java.time.LocalDate;
+import java.time.Year;
+import java.time.YearMonth;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class CaisseController extends BaseController {
 
-    @FXML private TableView<Commande> commandesAPayerTable;
+    @FXML private TableView<CommandeAPayer> commandesAPayerTable;
     @FXML private TableView<Commande> commandesPayeesTable;
     @FXML private TableView<PlatVente> topPlatsTable;
 
@@ -25,16 +35,21 @@ public class CaisseController extends BaseController {
     @FXML private Label moyennePanierLabel;
 
     @FXML private TextField montantField;
+    @FXML private TextField partsField;
     @FXML private ComboBox<String> modePaiementCombo;
     @FXML private Label totalAPayerLabel;
     @FXML private Label renduLabel;
 
     @FXML private DatePicker rapportDatePicker;
 
-    private ObservableList<Commande> commandesAPayer = FXCollections.observableArrayList();
+    private ObservableList<CommandeAPayer> commandesAPayer = FXCollections.observableArrayList();
     private ObservableList<Commande> commandesPayees = FXCollections.observableArrayList();
     private ObservableList<PlatVente> topPlats = FXCollections.observableArrayList();
 
+    // File à payer redessinée une fois par rafale de changements venus des autres postes
+    private final AtomicBoolean rechargementPlanifie = new AtomicBoolean();
+    private Runnable desabonnementDistant;
+
     // Setters
     public void setCaisseService(CaisseService caisseService) {
         this.caisseService = caisseService;
@@ -45,14 +60,37 @@ public class CaisseController extends BaseController {
     }
 
     @Override
-    public void setServices(CarteService carteService,
-                            SalleService salleService,
-                            CommandeService commandeService,
-                            CuisineService cuisineService,
-                            CaisseService caisseService) {
-        this.caisseService = caisseService;
-        this.commandeService = commandeService;
+    public void setServices(ServicesPartages services) {
+        this.services = services;
+        this.caisseService = services.getCaisseService();
+        this.commandeService = services.getCommandeService();
+        caisseService.rafraichirFileAPayer(); // relecture complète à l'ouverture de l'écran
         loadData(); // Charger après injection
+
+        if (desabonnementDistant == null) {
+            desabonnementDistant = EventBus.getInstance().subscribe(ModificationDistanteEvent.class,
+                    this::surModificationDistante);
+        }
+    }
+
+    private void surModificationDistante(ModificationDistanteEvent evenement) {
+        if (evenement.isResynchroniser()) {
+            caisseService.rafraichirFileAPayer();
+        }
+        if (rechargementPlanifie.compareAndSet(false, true)) {
+            Platform.runLater(() -> {
+                rechargementPlanifie.set(false);
+                loadCommandesAPayer();
+            });
+        }
+    }
+
+    @Override
+    public void onSceneClose() {
+        if (desabonnementDistant != null) {
+            desabonnementDistant.run();
+            desabonnementDistant = null;
+        }
     }
 
     @FXML
@@ -70,32 +108,37 @@ public class CaisseController extends BaseController {
 
     private void setupTables() {
         // Tableau Commandes à Payer
-        TableColumn<Commande, Long> idCol = new TableColumn<>("ID");
+        TableColumn<CommandeAPayer, Long> idCol = new TableColumn<>("ID");
         idCol.setCellValueFactory(new PropertyValueFactory<>("id"));
         idCol.setPrefWidth(50);
 
-        TableColumn<Commande, Integer> tableCol = new TableColumn<>("Table");
-        tableCol.setCellValueFactory(cell ->
-                new javafx.beans.property.SimpleIntegerProperty(cell.getValue().getTable().getNumeroTable()).asObject());
+        TableColumn<CommandeAPayer, Integer> tableCol = new TableColumn<>("Table");
+        tableCol.setCellValueFactory(new PropertyValueFactory<>("numeroTable"));
         tableCol.setPrefWidth(60);
 
-        TableColumn<Commande, Double> totalCol = new TableColumn<>("Total");
+        TableColumn<CommandeAPayer, Money> totalCol = new TableColumn<>("Total");
         totalCol.setCellValueFactory(cell ->
-                new javafx.beans.property.SimpleDoubleProperty(cell.getValue().getTotalAvecRemise()).asObject());
+                new javafx.beans.property.SimpleObjectProperty<>(cell.getValue().getTotalAvecRemise()));
         totalCol.setPrefWidth(80);
-        totalCol.setCellFactory(col -> new TableCell<Commande, Double>() {
+        totalCol.setCellFactory(col -> new TableCell<CommandeAPayer, Money>() {
             @Override
-            protected void updateItem(Double item, boolean empty) {
+            protected void updateItem(Money item, boolean empty) {
                 super.updateItem(item, empty);
                 if (empty || item == null) {
                     setText(null);
                 } else {
-                    setText(String.format("%.2f€", item));
+                    setText(item.format());
                 }
             }
         });
 
-        commandesAPayerTable.getColumns().addAll(idCol, tableCol, totalCol);
+        TableColumn<CommandeAPayer, Money> resteCol = new TableColumn<>("Reste");
+        resteCol.setCellValueFactory(cell ->
+                new javafx.beans.property.SimpleObjectProperty<>(cell.getValue().getResteAPayer()));
+        resteCol.setPrefWidth(80);
+        resteCol.setCellFactory(totalCol.getCellFactory());
+
+        commandesAPayerTable.getColumns().addAll(idCol, tableCol, totalCol, resteCol);
         commandesAPayerTable.setItems(commandesAPayer);
 
         // Tableau Commandes Payées (similaire)
@@ -132,8 +175,9 @@ public class CaisseController extends BaseController {
 
     private void loadCommandesAPayer() {
         try {
-            List<Commande> commandes = caisseService.getCommandesAPayer();
-            commandesAPayer.setAll(commandes);
+            // Modèle de lecture : une commande inchangée garde la même instance
+            List<CommandeAPayer> commandes = caisseService.getCommandesAPayer();
+            ListeDiff.appliquer(commandesAPayer, commandes, CommandeAPayer::getId, (a, b) -> a == b);
         } catch (Exception e) {
             showError("Erreur", "Impossible de charger les commandes à payer");
         }
@@ -142,39 +186,59 @@ public class CaisseController extends BaseController {
     private void loadCommandesPayees() {
         try {
             List<Commande> commandes = caisseService.getCommandesPayeesAujourdhui();
-            commandesPayees.setAll(commandes);
+            ListeDiff.appliquer(commandesPayees, commandes, Commande::getId, Commande::memeVersion);
         } catch (Exception e) {
             showError("Erreur", "Impossible de charger les commandes payées");
         }
     }
 
     private void loadStats() {
-        try {
-            // Ventes du jour
-            Double totalVentes = caisseService.getTotalVentesAujourdhui();
-            totalVentesLabel.setText(String.format("%.2f€", totalVentes != null ? totalVentes : 0.0));
-
-            // Nombre de commandes payées
-            List<Commande> payees = caisseService.getCommandesPayeesAujourdhui();
-            commandesPayeesLabel.setText(String.valueOf(payees.size()));
-
-            // Moyenne panier
-            if (!payees.isEmpty() && totalVentes != null && totalVentes > 0) {
-                double moyenne = totalVentes / payees.size();
-                moyennePanierLabel.setText(String.format("%.2f€", moyenne));
-            } else {
-                moyennePanierLabel.setText("0.00€");
-            }
+        afficherTotaux();
+        loadTopPlats();
+    }
 
-            // Top plats
-            List<PlatVente> topPlatsList = caisseService.getTop5PlatsAujourdhui();
-            topPlats.setAll(topPlatsList);
+    /**
+     * Ventes, nombre de commandes et panier moyen, calculés sur la liste des commandes payées affichée
+     */
+    private void afficherTotaux() {
+        long totalCents = 0;
+        for (Commande commande : commandesPayees) {
+            totalCents += commande.getTotalAvecRemiseCents();
+        }
+        Money totalVentes = Money.ofCents(totalCents);
+        totalVentesLabel.setText(totalVentes.format());
+        commandesPayeesLabel.setText(String.valueOf(commandesPayees.size()));
+
+        // Moyenne panier
+        if (!commandesPayees.isEmpty() && totalVentes.isPositive()) {
+            moyennePanierLabel.setText(totalVentes.divide(commandesPayees.size()).format());
+        } else {
+            moyennePanierLabel.setText("0.00€");
+        }
+    }
 
+    private void loadTopPlats() {
+        try {
+            topPlats.setAll(caisseService.getTop5PlatsAujourdhui());
         } catch (Exception e) {
             showError("Erreur", "Impossible de charger les statistiques");
         }
     }
 
+    /**
+     * Après un encaissement : seules la ligne payée et les statistiques du jour sont rafraîchies
+     */
+    private void afficherEncaissement(Commande payee) {
+        loadCommandesAPayer();
+        if (payee != null && payee.getDateCreation() != null
+                && payee.getDateCreation().toLocalDate().equals(LocalDate.now())
+                && commandesPayees.stream().noneMatch(c -> c.getId().equals(payee.getId()))) {
+            commandesPayees.add(payee);
+        }
+        afficherTotaux();
+        loadTopPlats();
+    }
+
     private void setupListeners() {
         // Sélection d'une commande à payer
         commandesAPayerTable.getSelectionModel().selectedItemProperty().addListener(
@@ -191,17 +255,16 @@ public class CaisseController extends BaseController {
         });
     }
 
-    private void updatePaymentInfo(Commande commande) {
+    private void updatePaymentInfo(CommandeAPayer commande) {
         if (commande != null) {
-            Double total = commande.getTotalAvecRemise();
-            totalAPayerLabel.setText(String.format("%.2f€", total));
+            totalAPayerLabel.setText(commande.getResteAPayer().format());
             calculateRendu();
         }
     }
 
     private void calculateRendu() {
         try {
-            Commande selected = commandesAPayerTable.getSelectionModel().getSelectedItem();
+            CommandeAPayer selected = commandesAPayerTable.getSelectionModel().getSelectedItem();
             if (selected == null) {
                 renduLabel.setText("0.00€");
                 return;
@@ -213,14 +276,15 @@ public class CaisseController extends BaseController {
                 return;
             }
 
-            Double montant = Double.parseDouble(montantText);
-            Double total = selected.getTotalAvecRemise();
+            Money montant = Money.parse(montantText);
+            Money reste = selected.getResteAPayer();
 
-            if (montant >= total) {
-                Double rendu = caisseService.calculateRendu(selected, montant);
-                renduLabel.setText(String.format("%.2f€", rendu));
+            if (!montant.isLessThan(reste)) {
+                Money rendu = montant.minus(reste);
+                renduLabel.setText(rendu.format());
             } else {
-                renduLabel.setText("Insuffisant");
+                // Paiement partiel : la commande reste dans la file
+                renduLabel.setText("Reste ensuite: " + reste.minus(montant).format());
             }
         } catch (NumberFormatException e) {
             renduLabel.setText("Montant invalide");
@@ -231,7 +295,7 @@ public class CaisseController extends BaseController {
 
     @FXML
     private void handleProcessPayment() {
-        Commande commande = commandesAPayerTable.getSelectionModel().getSelectedItem();
+        CommandeAPayer commande = commandesAPayerTable.getSelectionModel().getSelectedItem();
         if (commande == null) {
             showError("Erreur", "Veuillez sélectionner une commande");
             return;
@@ -251,19 +315,28 @@ public class CaisseController extends BaseController {
         }
 
         try {
-            Double montant = Double.parseDouble(montantText);
+            Money montant = Money.parse(montantText);
 
-            // Enregistrer le paiement
+            // Enregistrer le paiement (une transaction courte, sans relire la commande)
             Paiement paiement = caisseService.recordPayment(commande, montant, modePaiement);
 
-            // Afficher reçu
-            showReceipt(commande, paiement);
-
-            // Recharger les données
-            loadData();
-            clearPaymentFields();
+            // Commande relue une fois, pour le ticket et la liste des commandes payées
+            Commande details = caisseService.getCommandeDetails(commande.getId());
+            if (details != null && details.getStatut() == StatutCommande.SERVI) {
+                // Paiement partiel : la ligne reste sélectionnée avec son nouveau solde
+                loadCommandesAPayer();
+                selectionner(commande.getId());
+                montantField.clear();
+                decrementerParts();
+            } else {
+                afficherEncaissement(details);
+                clearPaymentFields();
+            }
 
-            showInfo("Succès", "Paiement enregistré");
+            // Afficher reçu (confirme l'encaissement)
+            if (details != null) {
+                showReceipt(details, paiement, montant);
+            }
 
         } catch (NumberFormatException e) {
             showError("Erreur", "Montant invalide");
@@ -272,7 +345,46 @@ public class CaisseController extends BaseController {
         }
     }
 
-    private void showReceipt(Commande commande, Paiement paiement) {
+    /**
+     * Part de chacun : reste dû divisé par le nombre de parts restantes
+     */
+    @FXML
+    private void handleSplit() {
+        CommandeAPayer commande = commandesAPayerTable.getSelectionModel().getSelectedItem();
+        if (commande == null) {
+            showError("Erreur", "Veuillez sélectionner une commande");
+            return;
+        }
+        try {
+            int parts = Integer.parseInt(partsField.getText().trim());
+            montantField.setText(CaisseService.calculerPart(commande.getResteAPayer(), parts).toString());
+        } catch (NumberFormatException e) {
+            showError("Erreur", "Nombre de parts invalide");
+        } catch (Exception e) {
+            showError("Erreur", e.getMessage());
+        }
+    }
+
+    private void decrementerParts() {
+        try {
+            int parts = Integer.parseInt(partsField.getText().trim());
+            partsField.setText(String.valueOf(Math.max(1, parts - 1)));
+        } catch (NumberFormatException e) {
+            partsField.clear();
+        }
+    }
+
+    private void selectionner(long commandeId) {
+        for (CommandeAPayer c : commandesAPayer) {
+            if (c.getId() == commandeId) {
+                commandesAPayerTable.getSelectionModel().select(c);
+                updatePaymentInfo(c);
+                return;
+            }
+        }
+    }
+
+    private void showReceipt(Commande commande, Paiement paiement, Money recu) {
         Alert receipt = new Alert(Alert.AlertType.INFORMATION);
         receipt.setTitle("Reçu de Paiement");
         receipt.setHeaderText("Restaurant - Ticket de Caisse");
@@ -289,20 +401,26 @@ public class CaisseController extends BaseController {
         sb.append("Détails:\n");
         commande.getLignes().forEach(ligne -> {
             sb.append(String.format("%dx %s", ligne.getQuantite(), ligne.getPlat().getNom()))
-                    .append(String.format(" %6.2f€\n", ligne.getSousTotal()));
+                    .append(String.format(" %6s€\n", ligne.getSousTotal()));
         });
 
         sb.append("--------------------------------\n");
-        sb.append(String.format("Total:      %10.2f€\n", commande.getTotal()));
+        sb.append(String.format("Total:      %10s€\n", commande.getTotal()));
 
-        if (commande.getRemiseAppliquee() != null && commande.getRemiseAppliquee() > 0) {
-            sb.append(String.format("Remise:    -%9.2f€\n", commande.getRemiseAppliquee()));
+        if (commande.getRemiseAppliquee().isPositive()) {
+            sb.append(String.format("Remise:    -%9s€\n", commande.getRemiseAppliquee()));
         }
 
-        sb.append(String.format("À payer:    %10.2f€\n", commande.getTotalAvecRemise()));
+        sb.append(String.format("À payer:    %10s€\n", commande.getTotalAvecRemise()));
         sb.append("--------------------------------\n");
-        sb.append(String.format("Payé:       %10.2f€\n", paiement.getMontant()));
-        sb.append(String.format("Rendu:      %10.2f€\n", paiement.getMontant() - commande.getTotalAvecRemise()));
+        if (commande.getMontantPaye().compareTo(paiement.getMontant()) > 0) {
+            sb.append(String.format("Déjà réglé: %10s€\n", commande.getMontantPaye().minus(paiement.getMontant())));
+        }
+        sb.append(String.format("Payé:       %10s€\n", recu));
+        sb.append(String.format("Rendu:      %10s€\n", recu.minus(paiement.getMontant())));
+        if (commande.getResteAPayer().isPositive()) {
+            sb.append(String.format("Reste dû:   %10s€\n", commande.getResteAPayer()));
+        }
         sb.append("Mode: ").append(paiement.getModePaiement()).append("\n");
         sb.append("================================\n");
         sb.append("Merci de votre visite !\n");
@@ -330,44 +448,126 @@ public class CaisseController extends BaseController {
         }
 
         try {
-            StatsJournee stats = caisseService.getStatsJournee();
-
-            Alert report = new Alert(Alert.AlertType.INFORMATION);
-            report.setTitle("Rapport Journalier");
-            report.setHeaderText("Rapport du " + date);
-
-            StringBuilder sb = new StringBuilder();
-            sb.append("=== RAPPORT DU JOUR ===\n\n");
-            sb.append("Date: ").append(date).append("\n");
-            sb.append("Commandes totales: ").append(stats.getTotalCommandes()).append("\n");
-            sb.append("Commandes payées: ").append(stats.getCommandesPayees()).append("\n");
-            sb.append("Commandes en cours: ").append(stats.getCommandesEnCours()).append("\n");
-            sb.append("Chiffre d'affaires: ").append(String.format("%.2f€", stats.getChiffreAffaires())).append("\n");
-            sb.append("Panier moyen: ").append(String.format("%.2f€", stats.getMoyennePanier())).append("\n\n");
-
-            sb.append("=== TOP 5 PLATS ===\n");
-            if (stats.getTopPlats() != null && !stats.getTopPlats().isEmpty()) {
-                for (PlatVente plat : stats.getTopPlats()) {
-                    sb.append("- ").append(plat.getNomPlat())
-                            .append(": ").append(plat.getQuantiteVendue()).append(" unités\n");
-                }
-            } else {
-                sb.append("Aucune vente aujourd'hui\n");
-            }
+            showRapport("Rapport Journalier", "Rapport du " + date, caisseService.getRapportJour(date));
+        } catch (Exception e) {
+            showError("Erreur", "Impossible de générer le rapport: " + e.getMessage());
+        }
+    }
 
-            report.setContentText(sb.toString());
-            report.show();
+    @FXML
+    private void handleGenerateReportMois() {
+        LocalDate date = rapportDatePicker.getValue();
+        if (date == null) {
+            showError("Erreur", "Veuillez sélectionner une date");
+            return;
+        }
+
+        try {
+            YearMonth mois = YearMonth.from(date);
+            showRapport("Rapport Mensuel", "Rapport de " + mois, caisseService.getRapportMois(mois));
+        } catch (Exception e) {
+            showError("Erreur", "Impossible de générer le rapport: " + e.getMessage());
+        }
+    }
+
+    @FXML
+    private void handleGenerateReportAnnee() {
+        LocalDate date = rapportDatePicker.getValue();
+        if (date == null) {
+            showError("Erreur", "Veuillez sélectionner une date");
+            return;
+        }
 
+        try {
+            Year annee = Year.from(date);
+            showRapport("Rapport Annuel", "Rapport de " + annee, caisseService.getRapportAnnee(annee));
         } catch (Exception e) {
             showError("Erreur", "Impossible de générer le rapport: " + e.getMessage());
         }
     }
 
+    @FXML
+    private void handleCloturer() {
+        LocalDate date = rapportDatePicker.getValue();
+        if (date == null) {
+            showError("Erreur", "Veuillez sélectionner une date");
+            return;
+        }
+
+        try {
+            ClotureJournee cloture = caisseService.cloturerJournee(date);
+            showRapport("Clôture de caisse", "Ticket Z du " + cloture.getJour(), caisseService.getRapportJour(date));
+        } catch (Exception e) {
+            showError("Erreur", "Clôture impossible: " + e.getMessage());
+        }
+    }
+
+    private void showRapport(String titre, String entete, ClotureService.Rapport rapport) {
+        Alert report = new Alert(Alert.AlertType.INFORMATION);
+        report.setTitle(titre);
+        report.setHeaderText(entete);
+
+        StringBuilder sb = new StringBuilder();
+        sb.append("=== ").append(titre.toUpperCase()).append(" ===\n\n");
+        if (rapport.getDebut().equals(rapport.getFin())) {
+            sb.append("Date: ").append(rapport.getDebut()).append("\n");
+            sb.append(rapport.getDateCloture() != null
+                    ? "Clôturée le " + rapport.getDateCloture().toLocalDate() + "\n"
+                    : "Journée non clôturée (calculée)\n");
+        } else {
+            sb.append("Période: ").append(rapport.getDebut()).append(" → ").append(rapport.getFin()).append("\n");
+            sb.append("Jours clôturés: ").append(rapport.getJoursClos());
+            if (rapport.getJoursCalcules() > 0) {
+                sb.append(" (+ ").append(rapport.getJoursCalcules()).append(" en cours)");
+            }
+            sb.append("\n");
+        }
+        sb.append("Commandes totales: ").append(rapport.getNbCommandes()).append("\n");
+        sb.append("Commandes payées: ").append(rapport.getNbPayees()).append("\n");
+        sb.append("Commandes annulées: ").append(rapport.getNbAnnulees()).append("\n");
+        sb.append("Commandes en cours: ").append(rapport.getNbEnCours()).append("\n");
+        sb.append("Chiffre d'affaires: ").append(rapport.getChiffreAffaires().format()).append("\n");
+        sb.append("Remises: ").append(rapport.getRemises().format()).append("\n");
+        sb.append("Panier moyen: ").append(rapport.getPanierMoyen().format()).append("\n\n");
+
+        sb.append("=== PAIEMENTS ===\n");
+        if (rapport.getVentesParMode().isEmpty()) {
+            sb.append("Aucun paiement\n");
+        }
+        rapport.getVentesParMode().forEach((mode, montant) -> sb.append("- ").append(mode)
+                .append(" (").append(rapport.getNombrePaiements(mode)).append("): ")
+                .append(montant.format()).append("\n"));
+
+        sb.append("\n=== PAR HEURE ===\n");
+        rapport.getCAParHeure().forEach((heure, montant) -> sb.append(String.format("%02dh: ", heure))
+                .append(montant.format()).append("\n"));
+
+        sb.append("\n=== TOP 5 PLATS ===\n");
+        List<PlatVente> top = rapport.getTopPlats(5);
+        if (!top.isEmpty()) {
+            for (PlatVente plat : top) {
+                sb.append("- ").append(plat.getNomPlat())
+                        .append(": ").append(plat.getQuantiteVendue()).append(" unités\n");
+            }
+        } else {
+            sb.append("Aucune vente sur la période\n");
+        }
+
+        report.setContentText(sb.toString());
+        report.show();
+    }
+
     @FXML
     private void handleViewCommandeDetails() {
-        Commande selected = commandesAPayerTable.getSelectionModel().getSelectedItem();
-        if (selected == null) {
-            selected = commandesPayeesTable.getSelectionModel().getSelectedItem();
+        Commande selected = commandesPayeesTable.getSelectionModel().getSelectedItem();
+        CommandeAPayer aPayer = commandesAPayerTable.getSelectionModel().getSelectedItem();
+        if (aPayer != null) {
+            try {
+                selected = caisseService.getCommandeDetails(aPayer.getId());
+            } catch (Exception e) {
+                showError("Erreur", e.getMessage());
+                return;
+            }
         }
 
         if (selected != null) {
@@ -395,7 +595,7 @@ public class CaisseController extends BaseController {
         });
 
         sb.append("\nTotal: ").append(commande.getTotal()).append("€\n");
-        if (commande.getRemiseAppliquee() != null && commande.getRemiseAppliquee() > 0) {
+        if (commande.getRemiseAppliquee().isPositive()) {
             sb.append("Remise: -").append(commande.getRemiseAppliquee()).append("€\n");
         }
         sb.append("À payer: ").append(commande.getTotalAvecRemise()).append("€\n");
@@ -406,11 +606,13 @@ public class CaisseController extends BaseController {
 
     @FXML
     private void handleRefresh() {
+        caisseService.rafraichirFileAPayer();
         loadData();
     }
 
     private void clearPaymentFields() {
         montantField.clear();
+        partsField.clear();
         renduLabel.setText("0.00€");
         totalAPayerLabel.setText("0.00€");
         commandesAPayerTable.getSelectionModel().clearSelection();
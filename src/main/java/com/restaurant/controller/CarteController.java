@@ -1,14 +1,17 @@
 package com.restaurant.controller;
 
 import com.restaurant.model.Categorie;
+import com.restaurant.model.Money;
 import com.restaurant.model.Plat;
 import com.restaurant.exception.DatabaseException;
 import com.restaurant.exception.ValidationException;
 import com.restaurant.service.*;
+import javafx.animation.PauseTransition;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
 import javafx.scene.image.ImageView;
 import javafx.stage.FileChooser;
+import javafx.util.Duration;
 import java.io.File;
 import java.util.List;
 
@@ -28,9 +31,15 @@ public class CarteController extends BaseController {
     @FXML private ImageView platImageView;
     @FXML private Button uploadImageBtn;
 
+    @FXML private TextField searchPlatField;
+
     private File selectedImageFile;
     private CarteService carteService;
 
+    // Anti-rebond de la recherche : on attend une courte pause de frappe
+    private static final Duration SEARCH_DEBOUNCE = Duration.millis(150);
+    private final PauseTransition searchDebounce = new PauseTransition(SEARCH_DEBOUNCE);
+
     // Setter
     public void setCarteService(CarteService carteService) {
         this.carteService = carteService;
@@ -38,12 +47,9 @@ public class CarteController extends BaseController {
     }
 
     @Override
-    public void setServices(CarteService carteService,
-                            SalleService salleService,
-                            CommandeService commandeService,
-                            CuisineService cuisineService,
-                            CaisseService caisseService) {
-        this.carteService = carteService;
+    public void setServices(ServicesPartages services) {
+        this.services = services;
+        this.carteService = services.getCarteService();
         loadCategories(); // Charger après injection
     }
 
@@ -51,12 +57,34 @@ public class CarteController extends BaseController {
 
     @FXML
     private void initialize() {
+        setupSearch();
+
         // Ne plus charger ici, attendre setCarteService()
         if (carteService != null) {
             loadCategories();
         }
     }
 
+    private void setupSearch() {
+        searchDebounce.setOnFinished(e -> searchPlats(searchPlatField.getText()));
+        searchPlatField.textProperty().addListener((obs, oldVal, newVal) -> searchDebounce.playFromStart());
+    }
+
+    private void searchPlats(String term) {
+        if (carteService == null) {
+            return;
+        }
+        if (term == null || term.trim().isEmpty()) {
+            loadPlatsByCategorie();
+            return;
+        }
+        try {
+            platsList.getItems().setAll(carteService.searchPlatsByName(term));
+        } catch (DatabaseException e) {
+            showError("Erreur", "Recherche impossible");
+        }
+    }
+
 
     private void loadCategories() {
         try {
@@ -107,7 +135,7 @@ public class CarteController extends BaseController {
 
     private void displayPlatDetails(Plat plat) {
         nomPlatField.setText(plat.getNom());
-        prixPlatField.setText(String.valueOf(plat.getPrix()));
+        prixPlatField.setText(plat.getPrix().toString());
         descPlatField.setText(plat.getDescription());
 
         // Afficher l'image
@@ -200,7 +228,7 @@ public class CarteController extends BaseController {
         }
 
         try {
-            double prix = Double.parseDouble(prixText);
+            Money prix = Money.parse(prixText);
 
             Plat plat;
             if (selectedImageFile != null) {
@@ -233,7 +261,7 @@ public class CarteController extends BaseController {
         String desc = descPlatField.getText().trim();
 
         try {
-            double prix = Double.parseDouble(prixText);
+            Money prix = Money.parse(prixText);
             carteService.updatePlat(selected.getId(), nom, prix, categorie, desc, selectedImageFile);
 
             loadPlatsByCategorie();
@@ -286,6 +314,8 @@ public class CarteController extends BaseController {
 
     @FXML
     private void handleRefresh() {
+        carteService.refreshMenuCaches();
+        searchPlatField.clear();
         loadCategories();
         clearCategorieFields();
         clearPlatFields();
@@ -1,10 +1,12 @@
 package com.restaurant.controller;
 
+import com.restaurant.config.AppConfig;
 import com.restaurant.exception.DatabaseException;
 import com.restaurant.exception.ValidationException;
 import com.restaurant.model.Categorie;
 import com.restaurant.model.Commande;
 import com.restaurant.model.LigneCommande;
+import com.restaurant.model.Money;
 import com.restaurant.model.Plat;
 import com.restaurant.model.enums.StatutCommande;
 import com.restaurant.service.*;
@@ -19,6 +21,9 @@ import java.util.List;
 
 public class CommandeController extends BaseController {
 
+    // Ordre des plats par défaut : les plus commandés d'abord (sinon alphabétique)
+    public static final String CLE_TRI_POPULARITE = "commande.tri.popularite";
+
     @FXML private Label commandeLabel;
     @FXML private Label totalLabel;
     @FXML private Label totalAvecRemiseLabel;
@@ -27,6 +32,7 @@ public class CommandeController extends BaseController {
     @FXML private ListView<LigneCommande> lignesListView;
     @FXML private ComboBox<Categorie> categorieCombo;
     @FXML private ComboBox<Plat> platCombo;
+    @FXML private CheckBox triPopulariteCheck;
 
     @FXML private Spinner<Integer> quantiteSpinner;
     @FXML private Spinner<Integer> quantiteSpinnerAdd;
@@ -52,19 +58,16 @@ public class CommandeController extends BaseController {
 
         initializeCategorieCombo();
         initializePlatCombo();
+
+        triPopulariteCheck.setSelected(AppConfig.getBoolean(CLE_TRI_POPULARITE, true));
+        triPopulariteCheck.setOnAction(e -> loadPlats());
     }
 
     @Override
-    public void setServices(CarteService carteService,
-                            SalleService salleService,
-                            CommandeService commandeService,
-                            CuisineService cuisineService,
-                            CaisseService caisseService) {
-        this.carteService = carteService;
-        this.salleService = salleService;
-        this.commandeService = commandeService;
-        this.cuisineService = cuisineService;
-        this.caisseService = caisseService;
+    public void setServices(ServicesPartages services) {
+        this.services = services;
+        this.carteService = services.getCarteService();
+        this.commandeService = services.getCommandeService();
     }
 
     public void loadCommande(Commande commande) {
@@ -153,7 +156,7 @@ public class CommandeController extends BaseController {
 
     private void loadCategories() {
         try {
-            List<Categorie> categories = carteService.getAllCategories();
+            List<Categorie> categories = carteService.getMenuSnapshot().getCategories();
             categorieCombo.setItems(FXCollections.observableArrayList(categories));
         } catch (Exception e) {
             System.out.println("[ERROR] loadCategories: " + e.getMessage());
@@ -170,7 +173,11 @@ public class CommandeController extends BaseController {
                 return;
             }
 
-            List<Plat> plats = carteService.getPlatsByCategorie(selected);
+            // Lecture mémoire dans la photo du menu, pas de requête (popularité comprise)
+            List<Plat> plats = carteService.getMenuSnapshot().getPlats(selected);
+            if (triPopulariteCheck.isSelected()) {
+                plats = PopularitePlats.getInstance().trier(plats);
+            }
             platCombo.setItems(FXCollections.observableArrayList(plats));
         } catch (Exception e) {
             System.out.println("[ERROR] loadPlats: " + e.getMessage());
@@ -190,11 +197,11 @@ public class CommandeController extends BaseController {
             protected void updateItem(LigneCommande item, boolean empty) {
                 super.updateItem(item, empty);
                 setText(empty || item == null ? null :
-                        String.format("%dx %s - %.2f€ (%.2f€)",
+                        String.format("%dx %s - %s (%s)",
                                 item.getQuantite(),
                                 item.getPlat().getNom(),
-                                item.getPrix(),
-                                item.getSousTotal()));
+                                item.getPrix().format(),
+                                item.getSousTotal().format()));
             }
         });
     }
@@ -309,7 +316,7 @@ public class CommandeController extends BaseController {
                 return;
             }
 
-            double remise = Double.parseDouble(remiseText);
+            Money remise = Money.parse(remiseText);
             commandeService.applyDiscount(currentCommande, remise);
 
             currentCommande = commandeService.getCommandeById(currentCommande.getId());
@@ -369,10 +376,8 @@ public class CommandeController extends BaseController {
     }
 
     private void updateTotals() {
-        totalLabel.setText(String.format("Total: %.2f€",
-                commandeService.calculateTotal(currentCommande)));
+        totalLabel.setText("Total: " + commandeService.calculateTotal(currentCommande).format());
 
-        totalAvecRemiseLabel.setText(String.format("À payer: %.2f€",
-                commandeService.calculateTotalAvecRemise(currentCommande)));
+        totalAvecRemiseLabel.setText("À payer: " + commandeService.calculateTotalAvecRemise(currentCommande).format());
     }
 }
\ No newline at end of file
@@ -1,20 +1,41 @@
 package com.restaurant.controller;
 
+import com.restaurant.event.CommandeUrgenteEvent;
+import com.restaurant.event.EventBus;
+import com.restaurant.model.Categorie;
 import com.restaurant.model.Commande;
+import com.restaurant.model.enums.StatutCommande;
+import com.restaurant.readmodel.TicketCuisine;
 import com.restaurant.service.*;
+import com.restaurant.util.LatencyHistogram;
+import javafx.application.Platform;
+import javafx.beans.InvalidationListener;
+import javafx.beans.WeakInvalidationListener;
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
 
 public class CuisineController extends BaseController {
 
-    @FXML private TableView<Commande> attenteTable;
-    @FXML private TableView<Commande> preparationTable;
-    @FXML private TableView<Commande> pretTable;
-    @FXML private TableView<Commande> serviTable;
+    @FXML private TableView<TicketCuisine> attenteTable;
+    @FXML private TableView<TicketCuisine> preparationTable;
+    @FXML private TableView<TicketCuisine> pretTable;
+    @FXML private TableView<TicketCuisine> serviTable;
     @FXML private Label statsLabel;
+    @FXML private Label slaLabel;
 
     private CuisineService cuisineService;
+    private CarteService carteService;
+    private Runnable desabonnementUrgences;
+    // Compteurs et SLA à jour à chaque rafraîchissement (lecture en temps constant) ;
+    // retiré à la fermeture : les listes du service survivent à l'écran
+    private ListChangeListener<TicketCuisine> majStats;
 
     // Setter pour le service
     public void setCuisineService(CuisineService cuisineService) {
@@ -24,12 +45,10 @@ public class CuisineController extends BaseController {
 
     // OU si vous utilisez BaseController.setServices()
     @Override
-    public void setServices(CarteService carteService,
-                            SalleService salleService,
-                            CommandeService commandeService,
-                            CuisineService cuisineService,
-                            CaisseService caisseService) {
-        this.cuisineService = cuisineService;
+    public void setServices(ServicesPartages services) {
+        this.services = services;
+        this.cuisineService = services.getCuisineService();
+        this.carteService = services.getCarteService();
         initializeAfterInjection();
     }
 
@@ -43,114 +62,106 @@ public class CuisineController extends BaseController {
     private void initializeAfterInjection() {
         if (cuisineService != null) {
             loadCommandes();
+            if (majStats == null) {
+                majStats = change -> updateStats();
+                for (ObservableList<TicketCuisine> liste : listesService()) {
+                    liste.addListener(majStats);
+                }
+            }
+            // Alerte à l'instant où un ticket franchit son seuil (minuteur, pas de rafraîchissement)
+            if (desabonnementUrgences == null) {
+                desabonnementUrgences = EventBus.getInstance().subscribe(CommandeUrgenteEvent.class,
+                        evenement -> Platform.runLater(() -> {
+                            attenteTable.refresh();
+                            updateStats();
+                        }));
+            }
             cuisineService.startAutoRefresh();
         }
     }
 
     private void setupTables() {
-        // ==================== TABLE ATTENTE ====================
-        TableColumn<Commande, Integer> attenteIdCol = new TableColumn<>("ID");
-        attenteIdCol.setPrefWidth(40);
-        attenteIdCol.setCellValueFactory(cell ->
-                new javafx.beans.property.SimpleIntegerProperty(
-                        cell.getValue().getId().intValue()).asObject());
-
-        TableColumn<Commande, Integer> attenteTableCol = new TableColumn<>("Table");
-        attenteTableCol.setPrefWidth(50);
-        attenteTableCol.setCellValueFactory(cell ->
-                new javafx.beans.property.SimpleIntegerProperty(
-                        cell.getValue().getTable().getNumeroTable()).asObject());
-
-        TableColumn<Commande, String> attentePlatCol = new TableColumn<>("Plats");
-        attentePlatCol.setPrefWidth(120);
-        attentePlatCol.setCellValueFactory(cell -> {
-            Commande cmd = cell.getValue();
-            String plats = cmd.getLignes().stream()
-                    .map(l -> l.getQuantite() + "x " + l.getPlat().getNom())
-                    .reduce((a, b) -> a + ", " + b)
-                    .orElse("Vide");
-            return new javafx.beans.property.SimpleStringProperty(plats);
-        });
+        // Quatre tables identiques : ID, table, plats, temps passé dans l'étape
+        for (TableView<TicketCuisine> table : List.of(attenteTable, preparationTable, pretTable, serviTable)) {
+            table.getColumns().add(colonne("ID", 40, TicketCuisine::getIdTexte,
+                    Comparator.comparingLong(TicketCuisine::getId)));
+            table.getColumns().add(colonne("Table", 50, TicketCuisine::getTableTexte,
+                    Comparator.comparingInt(TicketCuisine::getNumeroTable)));
+            table.getColumns().add(colonne("Plats", 120, TicketCuisine::getResume,
+                    Comparator.comparing(TicketCuisine::getResume)));
+            table.getColumns().add(colonneAge());
+        }
 
-        attenteTable.getColumns().addAll(attenteIdCol, attenteTableCol, attentePlatCol);
-
-        // ==================== TABLE PRÉPARATION ====================
-        TableColumn<Commande, Integer> prepIdCol = new TableColumn<>("ID");
-        prepIdCol.setPrefWidth(40);
-        prepIdCol.setCellValueFactory(cell ->
-                new javafx.beans.property.SimpleIntegerProperty(
-                        cell.getValue().getId().intValue()).asObject());
-
-        TableColumn<Commande, Integer> prepTableCol = new TableColumn<>("Table");
-        prepTableCol.setPrefWidth(50);
-        prepTableCol.setCellValueFactory(cell ->
-                new javafx.beans.property.SimpleIntegerProperty(
-                        cell.getValue().getTable().getNumeroTable()).asObject());
-
-        TableColumn<Commande, String> prepPlatCol = new TableColumn<>("Plats");
-        prepPlatCol.setPrefWidth(120);
-        prepPlatCol.setCellValueFactory(cell -> {
-            Commande cmd = cell.getValue();
-            String plats = cmd.getLignes().stream()
-                    .map(l -> l.getQuantite() + "x " + l.getPlat().getNom())
-                    .reduce((a, b) -> a + ", " + b)
-                    .orElse("Vide");
-            return new javafx.beans.property.SimpleStringProperty(plats);
+        attenteTable.setRowFactory(table -> new TableRow<>() {
+            @Override
+            protected void updateItem(TicketCuisine ticket, boolean empty) {
+                super.updateItem(ticket, empty);
+                boolean urgente = !empty && cuisineService != null && cuisineService.isUrgente(ticket);
+                if (urgente) {
+                    if (!getStyleClass().contains("alerte-urgent")) {
+                        getStyleClass().add("alerte-urgent");
+                    }
+                } else {
+                    getStyleClass().remove("alerte-urgent");
+                }
+            }
         });
 
-        preparationTable.getColumns().addAll(prepIdCol, prepTableCol, prepPlatCol);
-
-        // ==================== TABLE PRÊT ====================
-        TableColumn<Commande, Integer> pretIdCol = new TableColumn<>("ID");
-        pretIdCol.setPrefWidth(40);
-        pretIdCol.setCellValueFactory(cell ->
-                new javafx.beans.property.SimpleIntegerProperty(
-                        cell.getValue().getId().intValue()).asObject());
-
-        TableColumn<Commande, Integer> pretTableCol = new TableColumn<>("Table");
-        pretTableCol.setPrefWidth(50);
-        pretTableCol.setCellValueFactory(cell ->
-                new javafx.beans.property.SimpleIntegerProperty(
-                        cell.getValue().getTable().getNumeroTable()).asObject());
-
-        TableColumn<Commande, String> pretPlatCol = new TableColumn<>("Plats");
-        pretPlatCol.setPrefWidth(120);
-        pretPlatCol.setCellValueFactory(cell -> {
-            Commande cmd = cell.getValue();
-            String plats = cmd.getLignes().stream()
-                    .map(l -> l.getQuantite() + "x " + l.getPlat().getNom())
-                    .reduce((a, b) -> a + ", " + b)
-                    .orElse("Vide");
-            return new javafx.beans.property.SimpleStringProperty(plats);
-        });
+        // Sélection multiple : envoi de plusieurs tickets en une fois
+        attenteTable.getSelectionModel().setSelectionMode(SelectionMode.MULTIPLE);
+        preparationTable.getSelectionModel().setSelectionMode(SelectionMode.MULTIPLE);
+        pretTable.getSelectionModel().setSelectionMode(SelectionMode.MULTIPLE);
+    }
 
-        pretTable.getColumns().addAll(pretIdCol, pretTableCol, pretPlatCol);
-
-        // ==================== TABLE SERVI ====================
-        TableColumn<Commande, Integer> serviIdCol = new TableColumn<>("ID");
-        serviIdCol.setPrefWidth(40);
-        serviIdCol.setCellValueFactory(cell ->
-                new javafx.beans.property.SimpleIntegerProperty(
-                        cell.getValue().getId().intValue()).asObject());
-
-        TableColumn<Commande, Integer> serviTableCol = new TableColumn<>("Table");
-        serviTableCol.setPrefWidth(50);
-        serviTableCol.setCellValueFactory(cell ->
-                new javafx.beans.property.SimpleIntegerProperty(
-                        cell.getValue().getTable().getNumeroTable()).asObject());
-
-        TableColumn<Commande, String> serviPlatCol = new TableColumn<>("Plats");
-        serviPlatCol.setPrefWidth(120);
-        serviPlatCol.setCellValueFactory(cell -> {
-            Commande cmd = cell.getValue();
-            String plats = cmd.getLignes().stream()
-                    .map(l -> l.getQuantite() + "x " + l.getPlat().getNom())
-                    .reduce((a, b) -> a + ", " + b)
-                    .orElse("Vide");
-            return new javafx.beans.property.SimpleStringProperty(plats);
+    /**
+     * Colonne texte lisant un champ précalculé du ticket (aucune allocation au rendu)
+     */
+    private static TableColumn<TicketCuisine, TicketCuisine> colonne(String titre, double largeur,
+                                                                     Function<TicketCuisine, String> texte,
+                                                                     Comparator<TicketCuisine> tri) {
+        TableColumn<TicketCuisine, TicketCuisine> col = new TableColumn<>(titre);
+        col.setPrefWidth(largeur);
+        col.setCellValueFactory(cell -> cell.getValue().valeur());
+        col.setComparator(tri);
+        col.setCellFactory(c -> new TableCell<>() {
+            @Override
+            protected void updateItem(TicketCuisine ticket, boolean empty) {
+                super.updateItem(ticket, empty);
+                setText(empty || ticket == null ? null : texte.apply(ticket));
+            }
         });
+        return col;
+    }
 
-        serviTable.getColumns().addAll(serviIdCol, serviTableCol, serviPlatCol);
+    /**
+     * Temps passé dans l'étape, recalculé à chaque tic de l'horloge du service
+     */
+    private TableColumn<TicketCuisine, TicketCuisine> colonneAge() {
+        TableColumn<TicketCuisine, TicketCuisine> col = new TableColumn<>("Depuis");
+        col.setPrefWidth(60);
+        col.setCellValueFactory(cell -> cell.getValue().valeur());
+        col.setComparator(Comparator.comparingLong(t -> t.getAgeMinutes(System.currentTimeMillis())));
+        col.setCellFactory(c -> new TableCell<>() {
+            // Référence forte tenue par la cellule : l'horloge du service ne retient pas l'écran
+            private final InvalidationListener tic = obs -> afficher(getItem());
+            {
+                if (cuisineService != null) {
+                    cuisineService.horlogeProperty().addListener(new WeakInvalidationListener(tic));
+                }
+            }
+
+            @Override
+            protected void updateItem(TicketCuisine ticket, boolean empty) {
+                super.updateItem(ticket, empty);
+                afficher(empty ? null : ticket);
+            }
+
+            private void afficher(TicketCuisine ticket) {
+                setText(ticket == null || cuisineService == null ? null
+                        : ticket.getAgeTexte(cuisineService.horlogeProperty().get()));
+            }
+        });
+        return col;
     }
 
     private void loadCommandes() {
@@ -182,57 +193,94 @@ public class CuisineController extends BaseController {
         statsLabel.setText("Attente: " + attente +
                 " | Préparation: " + preparation +
                 " | Prêt: " + pret +             // ✅ NOUVEAU
-                " | Servi: " + servi);           // ✅ NOUVEAU
+                " | Servi: " + servi +           // ✅ NOUVEAU
+                " | Urgentes: " + (cuisineService != null ? cuisineService.getCommandesUrgentes().size() : 0));
+
+        updateSla();
     }
 
-    @FXML
-    private void handleSendToPreparation() {
-        Commande selected = attenteTable.getSelectionModel().getSelectedItem();
-        if (selected == null) {
-            showError("Erreur", "Veuillez sélectionner une commande en attente");
+    /**
+     * p50/p95 du temps passé dans chaque étape, détail par catégorie en infobulle
+     */
+    private void updateSla() {
+        if (cuisineService == null) {
             return;
         }
+        slaLabel.setText("Attente " + formatPercentiles(StatutCommande.EN_ATTENTE) +
+                " | Préparation " + formatPercentiles(StatutCommande.EN_PREPARATION) +
+                " | Passe " + formatPercentiles(StatutCommande.PRET));
 
+        Map<Long, LatencyHistogram> parCategorie = cuisineService.getMetriques().getPreparationParCategorie();
+        if (parCategorie.isEmpty() || carteService == null) {
+            slaLabel.setTooltip(null);
+            return;
+        }
+        StringBuilder sb = new StringBuilder("Préparation par catégorie (p50 / p95) :");
         try {
-            cuisineService.envoyerEnPreparation(selected);
-            loadCommandes();
-            showInfo("Succès", "Commande envoyée en préparation");
+            for (Categorie categorie : carteService.getMenuSnapshot().getCategories()) {
+                LatencyHistogram h = parCategorie.get(categorie.getId());
+                if (h != null && h.getCount() > 0) {
+                    sb.append("\n").append(categorie.getNom()).append(" : ")
+                            .append(formatDuree(h.getPercentile(50))).append(" / ")
+                            .append(formatDuree(h.getPercentile(95)));
+                }
+            }
         } catch (Exception e) {
-            showError("Erreur", e.getMessage());
+            // Menu indisponible : pas de détail par catégorie
+        }
+        slaLabel.setTooltip(new Tooltip(sb.toString()));
+    }
+
+    private String formatPercentiles(StatutCommande statut) {
+        if (cuisineService.getMetriques().getHistogramme(statut).getCount() == 0) {
+            return "p50 - / p95 -";
         }
+        return "p50 " + formatDuree(cuisineService.getPercentileSecondes(statut, 50)) +
+                " / p95 " + formatDuree(cuisineService.getPercentileSecondes(statut, 95));
+    }
+
+    private static String formatDuree(long secondes) {
+        return secondes < 60 ? secondes + " s" : (secondes / 60) + " min";
+    }
+
+    @FXML
+    private void handleSendToPreparation() {
+        transitionnerSelection(attenteTable, StatutCommande.EN_PREPARATION,
+                "Veuillez sélectionner une commande en attente");
     }
 
     @FXML
     private void handleMarkReady() {
         // ✅ Chercher dans preparationTable (EN_PREPARATION → PRET)
-        Commande selected = preparationTable.getSelectionModel().getSelectedItem();
-        if (selected == null) {
-            showError("Erreur", "Veuillez sélectionner une commande en préparation");
-            return;
-        }
-
-        try {
-            cuisineService.marquerPrete(selected);
-            loadCommandes();
-            showInfo("Succès", "Commande marquée comme prête");
-        } catch (Exception e) {
-            showError("Erreur", e.getMessage());
-        }
+        transitionnerSelection(preparationTable, StatutCommande.PRET,
+                "Veuillez sélectionner une commande en préparation");
     }
 
     @FXML
     private void handleMarkServed() {
         // ✅ Chercher dans pretTable (PRET → SERVI)
-        Commande selected = pretTable.getSelectionModel().getSelectedItem();
-        if (selected == null) {
-            showError("Erreur", "Veuillez sélectionner une commande prête");
+        transitionnerSelection(pretTable, StatutCommande.SERVI,
+                "Veuillez sélectionner une commande prête");
+    }
+
+    /**
+     * Applique la transition à toutes les commandes sélectionnées (un seul aller-retour BD)
+     */
+    private void transitionnerSelection(TableView<TicketCuisine> table, StatutCommande cible, String messageVide) {
+        List<TicketCuisine> selection = new ArrayList<>(table.getSelectionModel().getSelectedItems());
+        if (selection.isEmpty()) {
+            showError("Erreur", messageVide);
             return;
         }
 
         try {
-            cuisineService.marquerServie(selected);
+            CuisineService.ResultatLot resultat = cuisineService.transitionnerTickets(selection, cible);
             loadCommandes();
-            showInfo("Succès", "Commande marquée comme servie");
+            if (resultat.isComplet()) {
+                showInfo("Succès", resultat.toString());
+            } else {
+                showError("Transition partielle", resultat.toString());
+            }
         } catch (Exception e) {
             showError("Erreur", e.getMessage());
         }
@@ -241,7 +289,7 @@ public class CuisineController extends BaseController {
     @FXML
     private void handleViewDetails() {
         // ✅ Chercher dans toutes les tables
-        Commande selected = attenteTable.getSelectionModel().getSelectedItem();
+        TicketCuisine selected = attenteTable.getSelectionModel().getSelectedItem();
         if (selected == null) {
             selected = preparationTable.getSelectionModel().getSelectedItem();
         }
@@ -253,7 +301,16 @@ public class CuisineController extends BaseController {
         }
 
         if (selected != null) {
-            showCommandeDetails(selected);
+            try {
+                Commande commande = cuisineService.getCommandeDetails(selected.getId());
+                if (commande != null) {
+                    showCommandeDetails(commande);
+                } else {
+                    showError("Erreur", "Commande introuvable");
+                }
+            } catch (Exception e) {
+                showError("Erreur", e.getMessage());
+            }
         } else {
             showError("Erreur", "Veuillez sélectionner une commande");
         }
@@ -284,11 +341,27 @@ public class CuisineController extends BaseController {
         details.show();
     }
 
+    @Override
     public void onSceneClose() {
         if (cuisineService != null) {
             System.out.println("[DEBUG] CuisineController - Arrêt du scheduler");
             cuisineService.stopAutoRefresh();
         }
+        if (desabonnementUrgences != null) {
+            desabonnementUrgences.run();
+            desabonnementUrgences = null;
+        }
+        if (majStats != null) {
+            for (ObservableList<TicketCuisine> liste : listesService()) {
+                liste.removeListener(majStats);
+            }
+            majStats = null;
+        }
+    }
+
+    private List<ObservableList<TicketCuisine>> listesService() {
+        return List.of(cuisineService.getCommandesEnAttenteList(), cuisineService.getCommandesEnPreparationList(),
+                cuisineService.getCommandesPretList(), cuisineService.getCommandesServiList());
     }
 
     @Override
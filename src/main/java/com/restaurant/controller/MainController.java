@@ -1,37 +1,49 @@
 package com.restaurant.controller;
 
-import com.restaurant.service.*;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
+import javafx.scene.control.Label;
 import javafx.scene.layout.BorderPane;
+import javafx.scene.layout.HBox;
 import java.io.IOException;
 
 public class MainController {
 
+    public static final String VUE_CARTE = "/views/carte-view.fxml";
+    public static final String VUE_SALLE = "/views/salle-view.fxml";
+    public static final String VUE_CUISINE = "/views/cuisine-view.fxml";
+    public static final String VUE_CAISSE = "/views/caisse-view.fxml";
+
     @FXML private BorderPane mainBorderPane;
+    @FXML private HBox navigationBar;
+    @FXML private Label statutDemarrage;
 
-    // Services partagés
-    private CarteService carteService;
-    private SalleService salleService;
-    private CommandeService commandeService;
-    private CuisineService cuisineService;
-    private CaisseService caisseService;
+    // Services partagés, créés au premier écran qui les utilise
+    private final ServicesPartages services = new ServicesPartages();
     private Object currentController;
 
-    public MainController() {
-        // Initialiser les services UNE SEULE FOIS
-        this.carteService = new CarteService();
-        this.salleService = new SalleService();
-        this.commandeService = new CommandeService();
-        this.cuisineService = new CuisineService();
-        this.caisseService = new CaisseService();
+    /**
+     * Base prête : active la navigation et charge l'écran d'accueil
+     * (la fenêtre s'affiche avant, sur l'attente de la base)
+     */
+    public void demarrer() {
+        navigationBar.setDisable(false);
+        switchToSalle();
     }
 
-    @FXML
-    private void initialize() {
-        // Charger l'écran d'accueil par défaut
-        switchToSalle();
+    /**
+     * Base indisponible : la fenêtre reste ouverte sur le message d'erreur
+     */
+    public void echecDemarrage(String message) {
+        statutDemarrage.setText("Base de données indisponible : " + message);
+    }
+
+    /**
+     * Affiche un écran (VUE_*), comme le bouton de navigation correspondant
+     */
+    public void afficher(String fxmlPath) {
+        loadView(fxmlPath);
     }
 
     private void loadView(String fxmlPath) {
@@ -39,21 +51,15 @@ public class MainController {
             FXMLLoader loader = new FXMLLoader(getClass().getResource(fxmlPath));
             Parent view = loader.load();
 
-            // ✅ Arrêter le scheduler Cuisine avant de changer de view
-            if (currentController instanceof CuisineController) {
-                ((CuisineController) currentController).onSceneClose();
+            // ✅ Arrêter le scheduler et les abonnements de l'écran avant de changer de view
+            if (currentController instanceof BaseController) {
+                ((BaseController) currentController).onSceneClose();
             }
 
             // Injecter les services
             Object controller = loader.getController();
             if (controller instanceof BaseController) {
-                ((BaseController) controller).setServices(
-                        carteService,
-                        salleService,
-                        commandeService,
-                        cuisineService,
-                        caisseService
-                );
+                ((BaseController) controller).setServices(services);
             }
 
             currentController = controller;
@@ -68,22 +74,22 @@ public class MainController {
 
     @FXML
     private void switchToCarte() {
-        loadView("/views/carte-view.fxml");
+        loadView(VUE_CARTE);
     }
 
     @FXML
     private void switchToSalle() {
-        loadView("/views/salle-view.fxml");
+        loadView(VUE_SALLE);
     }
 
     @FXML
     private void switchToCuisine() {
-        loadView("/views/cuisine-view.fxml");
+        loadView(VUE_CUISINE);
     }
 
     @FXML
     private void switchToCaisse() {
-        loadView("/views/caisse-view.fxml");
+        loadView(VUE_CAISSE);
     }
 
     @FXML
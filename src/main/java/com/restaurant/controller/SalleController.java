@@ -1,9 +1,11 @@
 package com.restaurant.controller;
 
+import com.restaurant.event.EventBus;
+import com.restaurant.event.ModificationDistanteEvent;
 import com.restaurant.model.Commande;
-import com.restaurant.model.TableResto;
 import com.restaurant.service.*;
-import com.restaurant.service.SalleService.TableAvecStatut;
+import com.restaurant.readmodel.TableSalle;
+import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
@@ -17,6 +19,7 @@ import javafx.scene.text.Text;
 import javafx.stage.Stage;
 
 import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class SalleController extends BaseController {
 
@@ -26,6 +29,10 @@ public class SalleController extends BaseController {
     @FXML private TextField tableCapacityField;
     @FXML private Label statusLabel;
 
+    // Plan redessiné une fois par rafale de changements venus des autres postes
+    private final AtomicBoolean rechargementPlanifie = new AtomicBoolean();
+    private Runnable desabonnementDistant;
+
     @FXML
     private void initialize() {
         // UI seulement - pas de données ici
@@ -33,26 +40,47 @@ public class SalleController extends BaseController {
     }
 
     @Override
-    public void setServices(CarteService carteService,
-                            SalleService salleService,
-                            CommandeService commandeService,
-                            CuisineService cuisineService,
-                            CaisseService caisseService) {
-        this.carteService = carteService;
-        this.salleService = salleService;
-        this.commandeService = commandeService;
-        this.cuisineService = cuisineService;
-        this.caisseService = caisseService;
-
-        // ✅ Charger les données APRÈS injection
+    public void setServices(ServicesPartages services) {
+        this.services = services;
+        this.salleService = services.getSalleService();
+        this.commandeService = services.getCommandeService();
+
+        // ✅ Charger les données APRÈS injection (relecture complète à l'ouverture de l'écran)
+        salleService.rafraichirPlan();
         loadTables();
         updateStatus();
+
+        if (desabonnementDistant == null) {
+            desabonnementDistant = EventBus.getInstance().subscribe(ModificationDistanteEvent.class,
+                    this::surModificationDistante);
+        }
+    }
+
+    private void surModificationDistante(ModificationDistanteEvent evenement) {
+        if (evenement.isResynchroniser()) {
+            salleService.rafraichirPlan();
+        }
+        if (rechargementPlanifie.compareAndSet(false, true)) {
+            Platform.runLater(() -> {
+                rechargementPlanifie.set(false);
+                loadTables();
+                updateStatus();
+            });
+        }
+    }
+
+    @Override
+    public void onSceneClose() {
+        if (desabonnementDistant != null) {
+            desabonnementDistant.run();
+            desabonnementDistant = null;
+        }
     }
 
     private void loadTables() {
         try {
-            // ✅ Récupère les tables AVEC les commandes chargées
-            List<TableAvecStatut> tables = salleService.getAllTablesWithStatus();
+            // ✅ Plan de salle projeté (aucune entité chargée)
+            List<TableSalle> tables = salleService.getAllTablesWithStatus();
             displayTables(tables);
         } catch (Exception e) {
             System.out.println("[ERROR] loadTables: " + e.getMessage());
@@ -61,23 +89,16 @@ public class SalleController extends BaseController {
         }
     }
 
-    private void displayTables(List<TableAvecStatut> tables) {
+    private void displayTables(List<TableSalle> tables) {
         tablesGrid.getChildren().clear();
 
         int col = 0;
         int row = 0;
         int maxCol = 4;
 
-        for (TableAvecStatut tableStatut : tables) {
-            TableResto table = tableStatut.getTable();
-            String statut = tableStatut.getStatut();
-
-            System.out.println("[DEBUG DISPLAY] Table " + table.getNumeroTable() +
-                    " - statut: " + statut +
-                    " - commandes.size(): " + table.getCommandes().size());
-
+        for (TableSalle table : tables) {
             // Créer une vue de table
-            StackPane tableView = createTableView(table, statut);
+            StackPane tableView = createTableView(table, table.getStatut());
 
             tablesGrid.add(tableView, col, row);
 
@@ -89,7 +110,7 @@ public class SalleController extends BaseController {
         }
     }
 
-    private StackPane createTableView(TableResto table, String statut) {
+    private StackPane createTableView(TableSalle table, String statut) {
         // Rectangle pour la table
         Rectangle rect = new Rectangle(80, 60);
 
@@ -129,16 +150,16 @@ public class SalleController extends BaseController {
         return stack;
     }
 
-    private void handleTableClick(TableResto table) {
+    private void handleTableClick(TableSalle table) {
         try {
             System.out.println("[DEBUG] handleTableClick - Table: " + table.getNumeroTable() +
-                    " - Commandes: " + table.getCommandes().size());
+                    " - Statut: " + table.getStatut());
 
             if (!table.isOccupee()) {
                 System.out.println("[DEBUG] Table LIBRE - Création nouvelle commande...");
 
                 // Créer nouvelle commande
-                Commande newCommande = salleService.startNewCommande(table);
+                Commande newCommande = salleService.startNewCommande(table.getId());
                 System.out.println("[SUCCESS] Commande créée #" + newCommande.getId());
 
                 // ✅ IMPORTANT: Recharger TOUS les tables (pas juste la couleur)
@@ -154,7 +175,9 @@ public class SalleController extends BaseController {
                 System.out.println("[DEBUG] Table OCCUPÉE - Voir commande existante");
 
                 // Voir commande existante
-                Commande activeCommande = salleService.getActiveCommande(table);
+                Commande activeCommande = table.getCommandeActiveId() != null
+                        ? salleService.getCommandeById(table.getCommandeActiveId())
+                        : null;
                 if (activeCommande != null) {
                     System.out.println("[DEBUG] Commande active #" + activeCommande.getId());
                     loadCommandeDetails(activeCommande);
@@ -169,7 +192,7 @@ public class SalleController extends BaseController {
         }
     }
 
-    private void loadCommandesForTable(TableResto table) {
+    private void loadCommandesForTable(TableSalle table) {
         try {
             List<Commande> commandes = commandeService.getCommandesByTable(table.getId());
             commandesList.getItems().setAll(commandes);
@@ -187,13 +210,7 @@ public class SalleController extends BaseController {
 
             // Injecter les services au CommandeController
             CommandeController commandeController = loader.getController();
-            commandeController.setServices(
-                    carteService,
-                    salleService,
-                    commandeService,
-                    cuisineService,
-                    caisseService
-            );
+            commandeController.setServices(services);
 
             // Charger la commande dans le controller
             commandeController.loadCommande(commande);
@@ -232,13 +249,14 @@ public class SalleController extends BaseController {
     @FXML
     private void handleRefresh() {
         System.out.println("[DEBUG] Refresh tables");
+        salleService.rafraichirPlan();
         loadTables();
         updateStatus();
     }
 
     @FXML
     private void handleLiberateTable() {
-        TableResto selected = getSelectedTableFromGrid();
+        TableSalle selected = getSelectedTableFromGrid();
         if (selected == null) {
             showError("Erreur", "Veuillez sélectionner une table");
             return;
@@ -250,7 +268,7 @@ public class SalleController extends BaseController {
 
         if (confirm.showAndWait().get() == ButtonType.OK) {
             try {
-                salleService.liberateTable(selected);
+                salleService.liberateTable(salleService.getTableById(selected.getId()));
                 loadTables();
                 updateStatus();
                 showInfo("Succès", "Table libérée");
@@ -260,7 +278,7 @@ public class SalleController extends BaseController {
         }
     }
 
-    private TableResto getSelectedTableFromGrid() {
+    private TableSalle getSelectedTableFromGrid() {
         return null;  // À implémenter selon les besoins
     }
 
@@ -0,0 +1,62 @@
+package com.restaurant.controller;
+
+import com.restaurant.config.ErrorLogger;
+import com.restaurant.service.*;
+
+import java.util.function.Supplier;
+
+/**
+ * Services partagés par les écrans, créés au premier écran qui en a besoin
+ * (chaque service ouvre son EntityManager : rien n'est ouvert pour un écran jamais affiché)
+ * À utiliser depuis le thread JavaFX, une fois la base démarrée
+ */
+public class ServicesPartages {
+
+    private CarteService carteService;
+    private SalleService salleService;
+    private CommandeService commandeService;
+    private CuisineService cuisineService;
+    private CaisseService caisseService;
+
+    public CarteService getCarteService() {
+        if (carteService == null) {
+            carteService = creer("CarteService", CarteService::new);
+        }
+        return carteService;
+    }
+
+    public SalleService getSalleService() {
+        if (salleService == null) {
+            salleService = creer("SalleService", SalleService::new);
+        }
+        return salleService;
+    }
+
+    public CommandeService getCommandeService() {
+        if (commandeService == null) {
+            commandeService = creer("CommandeService", CommandeService::new);
+        }
+        return commandeService;
+    }
+
+    public CuisineService getCuisineService() {
+        if (cuisineService == null) {
+            cuisineService = creer("CuisineService", CuisineService::new);
+        }
+        return cuisineService;
+    }
+
+    public CaisseService getCaisseService() {
+        if (caisseService == null) {
+            caisseService = creer("CaisseService", CaisseService::new);
+        }
+        return caisseService;
+    }
+
+    private static <S> S creer(String nom, Supplier<S> fabrique) {
+        long debut = System.nanoTime();
+        S service = fabrique.get();
+        ErrorLogger.logDebug(nom + " créé en " + (System.nanoTime() - debut) / 1_000_000 + " ms");
+        return service;
+    }
+}
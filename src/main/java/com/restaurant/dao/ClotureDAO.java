@@ -0,0 +1,233 @@
+package com.restaurant.dao;
+
+import com.restaurant.exception.DatabaseException;
+import com.restaurant.exception.ValidationException;
+import com.restaurant.model.ClotureJournee;
+import com.restaurant.model.Money;
+import com.restaurant.model.enums.StatutCommande;
+
+import javax.persistence.EntityManager;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Clôtures de caisse : agrégats d'une journée (calculés par la base, à la clôture)
+ * et lecture des clôtures figées (jour, ou somme d'une période)
+ */
+public class ClotureDAO extends GenericDAO<ClotureJournee> {
+
+    // Commandes réglées : PAYEE, puis FINALISEE une fois la table libérée
+    private static final String REGLEES = "('" + StatutCommande.PAYEE.name() + "', '"
+            + StatutCommande.FINALISEE.name() + "')";
+
+    // Commandes c soldées dans [?1, ?2[, datées par le paiement qui les solde (le dernier), comme le CA ;
+    // une commande réglée sans paiement (total nul) est datée de sa création.
+    // Une commande encore ouverte n'est comptée par aucune journée tant qu'elle n'est pas soldée
+    private static final String SOLDEES = "c.statut IN " + REGLEES + " AND c.id IN (" +
+            "SELECT p.commande_id FROM paiement p WHERE p.datePaiement >= ?1 AND p.datePaiement < ?2 " +
+            "UNION SELECT n.id FROM commande n WHERE n.dateCreation >= ?1 AND n.dateCreation < ?2 " +
+            "AND NOT EXISTS (SELECT 1 FROM paiement p WHERE p.commande_id = n.id)) " +
+            "AND NOT EXISTS (SELECT 1 FROM paiement p WHERE p.commande_id = c.id AND p.datePaiement >= ?2)";
+
+    public ClotureDAO(EntityManager entityManager) {
+        super(entityManager, ClotureJournee.class);
+    }
+
+    // ==================== CLÔTURES FIGÉES ====================
+
+    /**
+     * Clôture d'un jour avec ses lignes (index unique sur le jour), null si non clos
+     */
+    public ClotureJournee findByJour(LocalDate jour) throws DatabaseException {
+        try {
+            List<ClotureJournee> clotures = entityManager.createQuery(
+                            "SELECT DISTINCT j FROM ClotureJournee j LEFT JOIN FETCH j.lignes WHERE j.jour = :jour",
+                            ClotureJournee.class)
+                    .setParameter("jour", jour)
+                    .getResultList();
+            return clotures.isEmpty() ? null : clotures.get(0);
+        } catch (Exception e) {
+            throw new DatabaseException("Erreur lecture clôture du " + jour, e);
+        }
+    }
+
+    /**
+     * Jours clos dans [debut, fin]
+     */
+    public List<LocalDate> findJoursClos(LocalDate debut, LocalDate fin) throws DatabaseException {
+        try {
+            return entityManager.createQuery(
+                            "SELECT j.jour FROM ClotureJournee j WHERE j.jour BETWEEN :debut AND :fin ORDER BY j.jour",
+                            LocalDate.class)
+                    .setParameter("debut", debut)
+                    .setParameter("fin", fin)
+                    .getResultList();
+        } catch (Exception e) {
+            throw new DatabaseException("Erreur lecture des jours clos", e);
+        }
+    }
+
+    /**
+     * Somme des clôtures de [debut, fin] : jours clos, compteurs puis montants
+     * (nbCommandes, nbPayees, nbAnnulees, nbEnCours, nbPaiements, CA, ventes brutes, remises)
+     */
+    public Object[] sommerClotures(LocalDate debut, LocalDate fin) throws DatabaseException {
+        try {
+            return (Object[]) entityManager.createNativeQuery(
+                            "SELECT COUNT(*), COALESCE(SUM(nbCommandes), 0), COALESCE(SUM(nbPayees), 0), " +
+                                    "COALESCE(SUM(nbAnnulees), 0), COALESCE(SUM(nbEnCours), 0), " +
+                                    "COALESCE(SUM(nbPaiements), 0), COALESCE(SUM(chiffreAffaires), 0), " +
+                                    "COALESCE(SUM(ventesBrutes), 0), COALESCE(SUM(remises), 0) " +
+                                    "FROM cloture_journee WHERE jour BETWEEN ?1 AND ?2")
+                    .setParameter(1, debut)
+                    .setParameter(2, fin)
+                    .getSingleResult();
+        } catch (Exception e) {
+            throw new DatabaseException("Erreur somme des clôtures", e);
+        }
+    }
+
+    /**
+     * Lignes des clôtures de [debut, fin] sommées par (type, clé) : type, clé, quantité, montant
+     */
+    @SuppressWarnings("unchecked")
+    public List<Object[]> sommerLignes(LocalDate debut, LocalDate fin) throws DatabaseException {
+        try {
+            return entityManager.createNativeQuery(
+                            "SELECT l.type, l.cle, SUM(l.quantite), SUM(l.montant) " +
+                                    "FROM cloture_ligne l JOIN cloture_journee j ON j.id = l.cloture_id " +
+                                    "WHERE j.jour BETWEEN ?1 AND ?2 GROUP BY l.type, l.cle")
+                    .setParameter(1, debut)
+                    .setParameter(2, fin)
+                    .getResultList();
+        } catch (Exception e) {
+            throw new DatabaseException("Erreur somme des lignes de clôture", e);
+        }
+    }
+
+    // ==================== AGRÉGATS D'UNE JOURNÉE ====================
+
+    /**
+     * Première date d'activité (commande la plus ancienne), null si base vide
+     */
+    public LocalDateTime findPremiereActivite() throws DatabaseException {
+        try {
+            return entityManager.createQuery("SELECT MIN(c.dateCreation) FROM Commande c", LocalDateTime.class)
+                    .getSingleResult();
+        } catch (Exception e) {
+            throw new DatabaseException("Erreur lecture première commande", e);
+        }
+    }
+
+    /**
+     * Commandes créées dans [debut, fin[ comptées par statut (statut à la clôture) : statut, nombre
+     */
+    public List<Object[]> compterCommandesParStatut(LocalDateTime debut, LocalDateTime fin)
+            throws DatabaseException {
+        try {
+            return entityManager.createQuery(
+                            "SELECT c.statut, COUNT(c) FROM Commande c " +
+                                    "WHERE c.dateCreation >= :debut AND c.dateCreation < :fin GROUP BY c.statut",
+                            Object[].class)
+                    .setParameter("debut", debut)
+                    .setParameter("fin", fin)
+                    .getResultList();
+        } catch (Exception e) {
+            throw new DatabaseException("Erreur comptage des commandes", e);
+        }
+    }
+
+    /**
+     * Commandes soldées dans [debut, fin[ : nombre, total avant remise, remises
+     */
+    public Object[] sommerVentes(LocalDateTime debut, LocalDateTime fin) throws DatabaseException {
+        try {
+            return (Object[]) entityManager.createNativeQuery(
+                            "SELECT COUNT(*), COALESCE(SUM(c.total), 0), COALESCE(SUM(c.remiseAppliquee), 0) " +
+                                    "FROM commande c WHERE " + SOLDEES)
+                    .setParameter(1, debut)
+                    .setParameter(2, fin)
+                    .getSingleResult();
+        } catch (Exception e) {
+            throw new DatabaseException("Erreur somme des ventes", e);
+        }
+    }
+
+    /**
+     * Paiements de [debut, fin[ par mode : mode, nombre, montant
+     */
+    @SuppressWarnings("unchecked")
+    public List<Object[]> sommerPaiementsParMode(LocalDateTime debut, LocalDateTime fin) throws DatabaseException {
+        try {
+            return entityManager.createNativeQuery(
+                            "SELECT modePaiement, COUNT(*), SUM(montant) FROM paiement " +
+                                    "WHERE datePaiement >= ?1 AND datePaiement < ?2 GROUP BY modePaiement")
+                    .setParameter(1, debut)
+                    .setParameter(2, fin)
+                    .getResultList();
+        } catch (Exception e) {
+            throw new DatabaseException("Erreur somme des paiements par mode", e);
+        }
+    }
+
+    /**
+     * Paiements de [debut, fin[ par heure : heure, nombre, montant
+     */
+    @SuppressWarnings("unchecked")
+    public List<Object[]> sommerPaiementsParHeure(LocalDateTime debut, LocalDateTime fin) throws DatabaseException {
+        try {
+            return entityManager.createNativeQuery(
+                            "SELECT EXTRACT(HOUR FROM datePaiement), COUNT(*), SUM(montant) FROM paiement " +
+                                    "WHERE datePaiement >= ?1 AND datePaiement < ?2 " +
+                                    "GROUP BY EXTRACT(HOUR FROM datePaiement)")
+                    .setParameter(1, debut)
+                    .setParameter(2, fin)
+                    .getResultList();
+        } catch (Exception e) {
+            throw new DatabaseException("Erreur somme des paiements par heure", e);
+        }
+    }
+
+    /**
+     * Ventes par plat des commandes soldées dans [debut, fin[ : nom, quantité, montant
+     * Plat en LEFT JOIN (plat_id est obligatoire) : la lecture part des commandes de la période,
+     * pas de toutes les lignes de chaque plat
+     */
+    @SuppressWarnings("unchecked")
+    public List<Object[]> sommerVentesParPlat(LocalDateTime debut, LocalDateTime fin) throws DatabaseException {
+        try {
+            return entityManager.createNativeQuery(
+                            "SELECT p.nom, SUM(l.quantite), SUM(l.prix * l.quantite) FROM commande c " +
+                                    "JOIN ligne_commande l ON l.commande_id = c.id " +
+                                    "LEFT JOIN plat p ON p.id = l.plat_id " +
+                                    "WHERE " + SOLDEES + " GROUP BY p.id, p.nom")
+                    .setParameter(1, debut)
+                    .setParameter(2, fin)
+                    .getResultList();
+        } catch (Exception e) {
+            throw new DatabaseException("Erreur somme des ventes par plat", e);
+        }
+    }
+
+    /**
+     * Montant d'une somme SQL (NUMERIC)
+     */
+    public static Money montant(Object valeur) {
+        if (valeur == null) {
+            return Money.ZERO;
+        }
+        return Money.of(valeur instanceof BigDecimal ? (BigDecimal) valeur : new BigDecimal(valeur.toString()));
+    }
+
+    @Override
+    protected void validateEntity(ClotureJournee entity) throws ValidationException {
+        if (entity.getJour() == null) {
+            throw new ValidationException("Le jour de la clôture est requis");
+        }
+        if (entity.getDateCloture() == null) {
+            throw new ValidationException("La date de clôture est requise");
+        }
+    }
+}
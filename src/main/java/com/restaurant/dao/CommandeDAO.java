@@ -4,14 +4,24 @@ import com.restaurant.config.ErrorLogger;
 import com.restaurant.exception.DatabaseException;
 import com.restaurant.exception.ValidationException;
 import com.restaurant.model.Commande;
+import com.restaurant.model.Money;
 import com.restaurant.model.TableResto;
 import com.restaurant.model.enums.StatutCommande;
 import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
+import javax.persistence.Query;
 import javax.persistence.TypedQuery;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 public class CommandeDAO extends GenericDAO<Commande> {
 
+    // Commandes soldées : PAYEE, puis FINALISEE une fois la table libérée
+    private static final String SOLDEES = "('" + StatutCommande.PAYEE.name() + "', '"
+            + StatutCommande.FINALISEE.name() + "')";
+
     public CommandeDAO(EntityManager entityManager) {
         super(entityManager, Commande.class);
     }
@@ -37,6 +47,29 @@ public class CommandeDAO extends GenericDAO<Commande> {
             throw new DatabaseException("Erreur recherche commandes par statut", e);
         }
     }
+    /**
+     * Commandes par ids avec table, lignes et plats (relecture avant écriture)
+     */
+    public List<Commande> findByIdsWithLignes(Collection<Long> ids) throws DatabaseException {
+        if (ids == null || ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        try {
+            String query = "SELECT DISTINCT c FROM Commande c " +
+                    "LEFT JOIN FETCH c.table " +
+                    "LEFT JOIN FETCH c.lignes l " +
+                    "LEFT JOIN FETCH l.plat " +
+                    "WHERE c.id IN :ids " +
+                    "ORDER BY c.dateCreation";
+            TypedQuery<Commande> q = entityManager.createQuery(query, Commande.class);
+            q.setParameter("ids", ids);
+            return q.getResultList();
+        } catch (Exception e) {
+            ErrorLogger.logError("CommandeDAO.findByIdsWithLignes", e);
+            throw new DatabaseException("Erreur recherche commandes par ids", e);
+        }
+    }
+
     /**
      * Recherche les commandes par table (objet TableResto)
      */
@@ -123,14 +156,311 @@ public class CommandeDAO extends GenericDAO<Commande> {
     }
 
     /**
-     * Recherche les commandes non payées (en attente de paiement)
+     * Commandes créées dans [debut, fin[ (table chargée, lignes non chargées)
+     * Le total dénormalisé suffit pour lister et sommer
+     */
+    public List<Commande> findByPeriode(LocalDateTime debut, LocalDateTime fin) throws DatabaseException {
+        try {
+            String query = "SELECT c FROM Commande c LEFT JOIN FETCH c.table " +
+                    "WHERE c.dateCreation >= :debut AND c.dateCreation < :fin " +
+                    "ORDER BY c.dateCreation";
+            TypedQuery<Commande> q = entityManager.createQuery(query, Commande.class);
+            q.setParameter("debut", debut);
+            q.setParameter("fin", fin);
+            return q.getResultList();
+        } catch (Exception e) {
+            throw new DatabaseException("Erreur recherche commandes par période", e);
+        }
+    }
+
+    /**
+     * Commandes d'un statut créées dans [debut, fin[ (table chargée, lignes non chargées)
+     */
+    public List<Commande> findByStatutAndPeriode(StatutCommande statut, LocalDateTime debut, LocalDateTime fin)
+            throws DatabaseException {
+        try {
+            String query = "SELECT c FROM Commande c LEFT JOIN FETCH c.table " +
+                    "WHERE c.statut = :statut AND c.dateCreation >= :debut AND c.dateCreation < :fin " +
+                    "ORDER BY c.dateCreation";
+            TypedQuery<Commande> q = entityManager.createQuery(query, Commande.class);
+            q.setParameter("statut", statut);
+            q.setParameter("debut", debut);
+            q.setParameter("fin", fin);
+            return q.getResultList();
+        } catch (Exception e) {
+            throw new DatabaseException("Erreur recherche commandes par statut et période", e);
+        }
+    }
+
+    /**
+     * Idem avec lignes et plats chargés (rapports par plat)
+     */
+    public List<Commande> findByStatutAndPeriodeWithLignes(StatutCommande statut, LocalDateTime debut,
+                                                           LocalDateTime fin) throws DatabaseException {
+        try {
+            String query = "SELECT DISTINCT c FROM Commande c " +
+                    "LEFT JOIN FETCH c.lignes l " +
+                    "LEFT JOIN FETCH l.plat " +
+                    "WHERE c.statut = :statut AND c.dateCreation >= :debut AND c.dateCreation < :fin";
+            TypedQuery<Commande> q = entityManager.createQuery(query, Commande.class);
+            q.setParameter("statut", statut);
+            q.setParameter("debut", debut);
+            q.setParameter("fin", fin);
+            return q.getResultList();
+        } catch (Exception e) {
+            throw new DatabaseException("Erreur recherche commandes par statut et période", e);
+        }
+    }
+
+    /**
+     * Parmi les ids donnés, ceux encore au statut attendu, verrouillés (SELECT ... FOR UPDATE)
+     * jusqu'à la fin de la transaction courante
+     */
+    public List<Long> lockIdsByStatut(Collection<Long> ids, StatutCommande statut) throws DatabaseException {
+        try {
+            return entityManager.createQuery(
+                            "SELECT c.id FROM Commande c WHERE c.id IN :ids AND c.statut = :statut", Long.class)
+                    .setParameter("ids", ids)
+                    .setParameter("statut", statut)
+                    .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                    .getResultList();
+        } catch (Exception e) {
+            throw new DatabaseException("Erreur verrouillage commandes par statut", e);
+        }
+    }
+
+    /**
+     * Passe en une seule requête les commandes données du statut attendu au statut cible
+     * (UPDATE ... WHERE id IN (...) AND statut = :attendu), dans la transaction courante
+     * @return nombre de commandes modifiées
+     */
+    public int updateStatutLot(Collection<Long> ids, StatutCommande attendu, StatutCommande cible,
+                               LocalDateTime maintenant) throws DatabaseException {
+        try {
+            String query = "UPDATE Commande c SET c.statut = :cible, c.dateModification = :maintenant" +
+                    colonneDateEntree(cible) +
+                    " WHERE c.id IN :ids AND c.statut = :attendu";
+            int modifiees = entityManager.createQuery(query)
+                    .setParameter("cible", cible)
+                    .setParameter("maintenant", maintenant)
+                    .setParameter("ids", ids)
+                    .setParameter("attendu", attendu)
+                    .executeUpdate();
+            if (cible == StatutCommande.SERVI && modifiees > 0) {
+                ouvrirSoldes(ids);
+            }
+            return modifiees;
+        } catch (Exception e) {
+            throw new DatabaseException("Erreur mise à jour groupée du statut", e);
+        }
+    }
+
+    /**
+     * Paiement (partiel ou total) en une requête : solde décrémenté de façon incrémentale,
+     * la commande passe à PAYEE quand il atteint zéro
+     * Contrôle optimiste : seulement si la commande est SERVI avec le reste dû attendu
+     * (lu à l'écran) ; un paiement enregistré entre-temps sur un autre poste fait échouer la mise à jour
+     * @return 1 si le paiement est imputé, 0 sinon
+     */
+    public int updatePaiement(long id, Money resteAttendu, Money applique, LocalDateTime maintenant)
+            throws DatabaseException {
+        try {
+            return entityManager.createNativeQuery(
+                    "UPDATE commande SET montantPaye = COALESCE(montantPaye, 0) + ?1, " +
+                            "resteAPayer = resteAPayer - ?1, " +
+                            "statut = CASE WHEN resteAPayer = ?1 THEN ?2 ELSE statut END, " +
+                            "dateModification = ?3 " +
+                            "WHERE id = ?4 AND statut = ?5 AND resteAPayer = ?6")
+                    .setParameter(1, applique.toBigDecimal())
+                    .setParameter(2, StatutCommande.PAYEE.name())
+                    .setParameter(3, maintenant)
+                    .setParameter(4, id)
+                    .setParameter(5, StatutCommande.SERVI.name())
+                    .setParameter(6, resteAttendu.toBigDecimal())
+                    .executeUpdate();
+        } catch (Exception e) {
+            throw new DatabaseException("Erreur encaissement commande", e);
+        }
+    }
+
+    /**
+     * Statut et reste dû d'une commande (diagnostic d'un encaissement refusé), null si introuvable
+     */
+    public Object[] findEtatPaiement(long id) throws DatabaseException {
+        try {
+            List<Object[]> lignes = entityManager.createQuery(
+                            "SELECT c.statut, c.resteAPayer FROM Commande c WHERE c.id = :id", Object[].class)
+                    .setParameter("id", id)
+                    .getResultList();
+            return lignes.isEmpty() ? null : lignes.get(0);
+        } catch (Exception e) {
+            throw new DatabaseException("Erreur lecture état de paiement", e);
+        }
+    }
+
+    /**
+     * Quantités vendues par plat (nom, quantité) pour les commandes d'un statut créées dans [debut, fin[,
+     * agrégées par la base, les plus vendus d'abord (limite <= 0 : tous les plats)
+     * Plat en LEFT JOIN : la lecture part des commandes de la période (index sur la date de création)
+     */
+    public List<Object[]> findQuantitesParPlat(StatutCommande statut, LocalDateTime debut, LocalDateTime fin,
+                                               int limite) throws DatabaseException {
+        try {
+            String query = "SELECT p.nom, SUM(l.quantite) FROM Commande c JOIN c.lignes l LEFT JOIN l.plat p " +
+                    "WHERE c.statut = :statut AND c.dateCreation >= :debut AND c.dateCreation < :fin " +
+                    "GROUP BY p.id, p.nom ORDER BY SUM(l.quantite) DESC";
+            TypedQuery<Object[]> q = entityManager.createQuery(query, Object[].class)
+                    .setParameter("statut", statut)
+                    .setParameter("debut", debut)
+                    .setParameter("fin", fin);
+            if (limite > 0) {
+                q.setMaxResults(limite);
+            }
+            return q.getResultList();
+        } catch (Exception e) {
+            throw new DatabaseException("Erreur agrégation des ventes par plat", e);
+        }
+    }
+
+    /**
+     * Quantités vendues par commande et par plat des commandes soldées (PAYEE, FINALISEE) :
+     * id de la commande, jour de création, id du plat, nom, quantité
+     * commandeIds == null : commandes créées ou payées à partir de depuis (fenêtre suivie en détail)
+     */
+    @SuppressWarnings("unchecked")
+    public List<Object[]> sommerQuantitesParCommandeEtPlat(Collection<Long> commandeIds, LocalDateTime depuis)
+            throws DatabaseException {
+        if (commandeIds != null && commandeIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        try {
+            Query q = entityManager.createNativeQuery(
+                    "SELECT c.id, CAST(c.dateCreation AS DATE), l.plat_id, p.nom, SUM(l.quantite) FROM commande c " +
+                            "JOIN ligne_commande l ON l.commande_id = c.id LEFT JOIN plat p ON p.id = l.plat_id " +
+                            "WHERE c.statut IN " + SOLDEES +
+                            (commandeIds != null ? " AND c.id IN (:ids)"
+                                    : " AND (c.dateCreation >= :depuis OR EXISTS (SELECT 1 FROM paiement r " +
+                                    "WHERE r.commande_id = c.id AND r.datePaiement >= :depuis))") +
+                            " GROUP BY c.id, CAST(c.dateCreation AS DATE), l.plat_id, p.nom");
+            if (commandeIds != null) {
+                q.setParameter("ids", commandeIds);
+            } else {
+                q.setParameter("depuis", depuis);
+            }
+            return q.getResultList();
+        } catch (Exception e) {
+            throw new DatabaseException("Erreur agrégation des ventes par commande et par plat", e);
+        }
+    }
+
+    /**
+     * Quantités vendues par plat des commandes soldées créées avant la date et sans paiement depuis :
+     * id du plat, nom, quantité (complément exact de sommerQuantitesParCommandeEtPlat(null, avant))
+     */
+    @SuppressWarnings("unchecked")
+    public List<Object[]> sommerQuantitesParPlatAvant(LocalDateTime avant) throws DatabaseException {
+        try {
+            return entityManager.createNativeQuery(
+                            "SELECT l.plat_id, p.nom, SUM(l.quantite) FROM commande c " +
+                                    "JOIN ligne_commande l ON l.commande_id = c.id LEFT JOIN plat p ON p.id = l.plat_id " +
+                                    "WHERE c.statut IN " + SOLDEES + " AND c.dateCreation < ?1 " +
+                                    "AND NOT EXISTS (SELECT 1 FROM paiement r " +
+                                    "WHERE r.commande_id = c.id AND r.datePaiement >= ?1) " +
+                                    "GROUP BY l.plat_id, p.nom")
+                    .setParameter(1, avant)
+                    .getResultList();
+        } catch (Exception e) {
+            throw new DatabaseException("Erreur agrégation des ventes par plat", e);
+        }
+    }
+
+    /**
+     * Quantités vendues par plat des commandes soldées créées dans [debut, fin[ : id du plat, nom, quantité
+     * (même datation que PlatsPopulaires : jour de création de la commande)
+     */
+    @SuppressWarnings("unchecked")
+    public List<Object[]> sommerQuantitesParPlat(LocalDateTime debut, LocalDateTime fin) throws DatabaseException {
+        try {
+            return entityManager.createNativeQuery(
+                            "SELECT l.plat_id, p.nom, SUM(l.quantite) FROM commande c " +
+                                    "JOIN ligne_commande l ON l.commande_id = c.id LEFT JOIN plat p ON p.id = l.plat_id " +
+                                    "WHERE c.statut IN " + SOLDEES + " AND c.dateCreation >= ?1 AND c.dateCreation < ?2 " +
+                                    "GROUP BY l.plat_id, p.nom")
+                    .setParameter(1, debut)
+                    .setParameter(2, fin)
+                    .getResultList();
+        } catch (Exception e) {
+            throw new DatabaseException("Erreur agrégation des ventes par plat", e);
+        }
+    }
+
+    /**
+     * Horodatage d'entrée dans le statut cible pour la mise à jour groupée
+     */
+    private static String colonneDateEntree(StatutCommande cible) {
+        switch (cible) {
+            case EN_PREPARATION:
+                return ", c.dateEnPreparation = :maintenant";
+            case PRET:
+                return ", c.datePret = :maintenant";
+            case SERVI:
+                return ", c.dateServi = :maintenant";
+            default:
+                return "";
+        }
+    }
+
+    /**
+     * Reste dû fixé au service : total remisé moins ce qui est déjà encaissé
+     * (pendant de Commande.changerStatut pour la mise à jour groupée)
+     */
+    private void ouvrirSoldes(Collection<Long> ids) {
+        entityManager.createNativeQuery(
+                "UPDATE commande SET resteAPayer = GREATEST(COALESCE(total, 0) - COALESCE(remiseAppliquee, 0) " +
+                        "- COALESCE(montantPaye, 0), 0) WHERE id IN (:ids) AND statut = 'SERVI'")
+                .setParameter("ids", ids)
+                .executeUpdate();
+    }
+
+    /**
+     * Renseigne montant encaissé et reste dû des commandes antérieures aux colonnes
+     * (à exécuter dans une transaction, sans effet une fois la reprise faite)
+     * Une commande servie, ou payée sans paiement enregistré, garde un solde
+     */
+    public int backfillSoldes() {
+        String encaisse = "COALESCE((SELECT SUM(p.montant) FROM paiement p WHERE p.commande_id = c.id), 0)";
+        String du = "GREATEST(COALESCE(c.total, 0) - COALESCE(c.remiseAppliquee, 0), 0)";
+        return entityManager.createNativeQuery(
+                "UPDATE commande c SET montantPaye = LEAST(" + encaisse + ", " + du + "), " +
+                        "resteAPayer = CASE WHEN c.statut IN ('SERVI', 'PAYEE') " +
+                        "THEN GREATEST(" + du + " - " + encaisse + ", 0) ELSE 0 END " +
+                        "WHERE c.resteAPayer IS NULL")
+                .executeUpdate();
+    }
+
+    /**
+     * Renseigne le total dénormalisé des commandes antérieures à la colonne
+     * (à exécuter dans une transaction, sans effet une fois la reprise faite)
+     */
+    public int backfillTotaux() {
+        return entityManager.createNativeQuery(
+                "UPDATE commande c SET total = (SELECT COALESCE(SUM(l.prix * l.quantite), 0) " +
+                        "FROM ligne_commande l WHERE l.commande_id = c.id) WHERE c.total IS NULL")
+                .executeUpdate();
+    }
+
+    /**
+     * Recherche les commandes non payées (servies avec un reste dû, ou payées sans paiement)
+     * Lecture par l'index (resteAPayer, statut) : seules les commandes ayant un solde sont visitées
+     * Borne ">= 1 centime" et non "> 0" : H2 démarre une borne stricte sur la valeur exclue
+     * et parcourrait toutes les commandes soldées (reste = 0) avant la première due
      */
     public List<Commande> findCommandesNonPayees() throws DatabaseException {
         try {
-            String query = "FROM Commande c WHERE c.statut = :servi OR " +
-                    "(c.statut = :payee AND c NOT IN (SELECT p.commande FROM Paiement p)) " +
+            String query = "FROM Commande c WHERE c.resteAPayer >= :centime AND c.statut IN (:servi, :payee) " +
                     "ORDER BY c.dateCreation";
             TypedQuery<Commande> q = entityManager.createQuery(query, Commande.class);
+            q.setParameter("centime", Money.ofCents(1));
             q.setParameter("servi", StatutCommande.SERVI);
             q.setParameter("payee", StatutCommande.PAYEE);
             return q.getResultList();
@@ -154,15 +484,18 @@ public class CommandeDAO extends GenericDAO<Commande> {
     }
 
     /**
-     * Calcule le chiffre d'affaires total
+     * Calcule le chiffre d'affaires total (somme des lignes des commandes payées, moins les remises)
      */
-    public Double calculateTotalCA() throws DatabaseException {
+    public Money calculateTotalCA() throws DatabaseException {
         try {
-            String query = "SELECT SUM(c.remiseAppliquee) FROM Commande c WHERE c.statut = :payee";
-            TypedQuery<Double> q = entityManager.createQuery(query, Double.class);
+            String query = "FROM Commande c WHERE c.statut = :payee";
+            TypedQuery<Commande> q = entityManager.createQuery(query, Commande.class);
             q.setParameter("payee", StatutCommande.PAYEE);
-            Double result = q.getSingleResult();
-            return result != null ? result : 0.0;
+            long total = 0;
+            for (Commande commande : q.getResultList()) {
+                total += commande.getTotalAvecRemiseCents();
+            }
+            return Money.ofCents(total);
         } catch (Exception e) {
             throw new DatabaseException("Erreur calcul CA total", e);
         }
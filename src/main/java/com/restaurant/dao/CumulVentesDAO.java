@@ -0,0 +1,194 @@
+package com.restaurant.dao;
+
+import com.restaurant.exception.DatabaseException;
+import com.restaurant.model.enums.DimensionVentes;
+import com.restaurant.model.enums.Granularite;
+import com.restaurant.model.enums.StatutCommande;
+
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cumuls de ventes par tranche de temps
+ * - intégration ensembliste : les paiements d'un lot sont ajoutés à toutes les granularités
+ *   et dimensions en une requête MERGE par dimension (tranche créée au premier paiement)
+ * - lecture d'une série par l'index unique (granularité, dimension, début, clé)
+ * Tous les montants sont nets de remise : les plats et catégories d'une tranche somment à son total
+ */
+public class CumulVentesDAO {
+
+    public static final String CLE_TOTAL = "*";
+
+    // Une ligne par granularité, croisée avec chaque paiement
+    private static final String GRANULARITES;
+    // Début de tranche selon la granularité de la ligne
+    private static final String DEBUT_TRANCHE;
+
+    static {
+        StringBuilder valeurs = new StringBuilder("(VALUES ");
+        StringBuilder debut = new StringBuilder("CASE g.granularite");
+        for (Granularite granularite : Granularite.values()) {
+            if (granularite.ordinal() > 0) {
+                valeurs.append(", ");
+            }
+            valeurs.append("('").append(granularite.name()).append("')");
+            debut.append(" WHEN '").append(granularite.name()).append("' THEN DATE_TRUNC(")
+                    .append(granularite.getUniteSql()).append(", p.datePaiement)");
+        }
+        GRANULARITES = valeurs.append(") g(granularite)").toString();
+        DEBUT_TRANCHE = debut.append(" END").toString();
+    }
+
+    // Lignes d'une commande soldée, comptées une fois : au dernier paiement de la commande
+    private static final String LIGNES_SOLDEES = "JOIN commande c ON c.id = p.commande_id " +
+            "JOIN ligne_commande l ON l.commande_id = c.id ";
+    private static final String CONDITION_SOLDEE = " AND c.statut IN ('" + StatutCommande.PAYEE.name() + "', '" +
+            StatutCommande.FINALISEE.name() + "') " +
+            "AND p.id = (SELECT MAX(p2.id) FROM paiement p2 WHERE p2.commande_id = c.id)";
+
+    // Montant d'une ligne net de la remise de sa commande : la remise est répartie au prorata des lignes
+    // (montant de la ligne × (total − remise) / total), arrondie sur le cumul des lignes de la commande
+    // pour que leur somme soit exactement le net encaissé (comparable à TOTAL et MODE_PAIEMENT)
+    private static final String NET_COMMANDE = "GREATEST(c.total - COALESCE(c.remiseAppliquee, 0), 0)";
+    private static final String CUMUL_LIGNES =
+            "SUM(l.prix * l.quantite) OVER (PARTITION BY g.granularite, l.commande_id ORDER BY l.id)";
+    private static final String MONTANT_LIGNE_NET = "CASE WHEN c.total > 0 THEN " +
+            "ROUND(" + CUMUL_LIGNES + " * " + NET_COMMANDE + " / c.total, 2) - " +
+            "ROUND((" + CUMUL_LIGNES + " - l.prix * l.quantite) * " + NET_COMMANDE + " / c.total, 2) " +
+            "ELSE 0 END";
+
+    private final EntityManager entityManager;
+
+    public CumulVentesDAO(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    // ==================== INTÉGRATION ====================
+
+    /**
+     * Réserve pour le lot les plus anciens paiements en attente (à exécuter dans une transaction)
+     * Un paiement déjà réservé par un autre poste n'est pas repris : la condition est revérifiée
+     * après l'attente du verrou de ligne
+     * @return nombre de paiements réservés
+     */
+    public int reserver(long lot, int limite) throws DatabaseException {
+        try {
+            return entityManager.createNativeQuery(
+                            "UPDATE paiement SET lotCumul = ?1 WHERE lotCumul IS NULL AND id IN " +
+                                    "(SELECT id FROM paiement WHERE lotCumul IS NULL ORDER BY id FETCH FIRST ?2 ROWS ONLY)")
+                    .setParameter(1, lot)
+                    .setParameter(2, limite)
+                    .executeUpdate();
+        } catch (Exception e) {
+            throw new DatabaseException("Erreur réservation des paiements à cumuler", e);
+        }
+    }
+
+    /**
+     * Ajoute les paiements du lot aux cumuls, toutes granularités (à exécuter dans une transaction)
+     */
+    public void cumuler(long lot, LocalDateTime maintenant) throws DatabaseException {
+        try {
+            fusionner(DimensionVentes.TOTAL, "'" + CLE_TOTAL + "'", "1", "p.montant", "", "", lot, maintenant);
+            fusionner(DimensionVentes.MODE_PAIEMENT, "p.modePaiement", "1", "p.montant", "", "", lot, maintenant);
+            fusionner(DimensionVentes.PLAT, "CAST(l.plat_id AS VARCHAR)", "l.quantite", MONTANT_LIGNE_NET,
+                    LIGNES_SOLDEES, CONDITION_SOLDEE, lot, maintenant);
+            fusionner(DimensionVentes.CATEGORIE, "CAST(pl.categorie_id AS VARCHAR)", "l.quantite",
+                    MONTANT_LIGNE_NET, LIGNES_SOLDEES + "JOIN plat pl ON pl.id = l.plat_id ",
+                    CONDITION_SOLDEE, lot, maintenant);
+        } catch (Exception e) {
+            throw new DatabaseException("Erreur intégration des paiements aux cumuls", e);
+        }
+    }
+
+    private void fusionner(DimensionVentes dimension, String cle, String quantite, String montant,
+                           String jointures, String condition, long lot, LocalDateTime maintenant) {
+        String source = "SELECT x.granularite, x.debut, x.cle, SUM(x.quantite) AS quantite, " +
+                "SUM(x.montant) AS montant FROM (" +
+                "SELECT g.granularite AS granularite, " + DEBUT_TRANCHE + " AS debut, " + cle + " AS cle, " +
+                quantite + " AS quantite, " + montant + " AS montant " +
+                "FROM paiement p " + jointures + "CROSS JOIN " + GRANULARITES + " " +
+                "WHERE p.lotCumul = ?1" + condition + ") x GROUP BY x.granularite, x.debut, x.cle";
+        entityManager.createNativeQuery(
+                        "MERGE INTO cumul_ventes v USING (" + source + ") s " +
+                                "ON (v.granularite = s.granularite AND v.dimension = '" + dimension.name() + "' " +
+                                "AND v.debut = s.debut AND v.cle = s.cle) " +
+                                "WHEN MATCHED THEN UPDATE SET quantite = v.quantite + s.quantite, " +
+                                "montant = v.montant + s.montant, dateModification = ?2 " +
+                                "WHEN NOT MATCHED THEN INSERT (granularite, dimension, debut, cle, quantite, montant, " +
+                                "dateCreation, dateModification) VALUES (s.granularite, '" + dimension.name() + "', " +
+                                "s.debut, s.cle, s.quantite, s.montant, ?2, ?2)")
+                .setParameter(1, lot)
+                .setParameter(2, maintenant)
+                .executeUpdate();
+    }
+
+    /**
+     * Vide les cumuls et remet tous les paiements en attente (à exécuter dans une transaction)
+     * @return nombre de paiements à réintégrer
+     */
+    public int reinitialiser() throws DatabaseException {
+        try {
+            entityManager.createNativeQuery("DELETE FROM cumul_ventes").executeUpdate();
+            entityManager.createNativeQuery("UPDATE paiement SET lotCumul = NULL WHERE lotCumul IS NOT NULL")
+                    .executeUpdate();
+            return ((Number) entityManager.createNativeQuery("SELECT COUNT(*) FROM paiement")
+                    .getSingleResult()).intValue();
+        } catch (Exception e) {
+            throw new DatabaseException("Erreur réinitialisation des cumuls", e);
+        }
+    }
+
+    // ==================== LECTURE ====================
+
+    /**
+     * Série d'une granularité et d'une dimension sur [debut, fin[ : début, clé, quantité, montant
+     * cle == null : toutes les clés
+     */
+    public List<Object[]> findSerie(Granularite granularite, DimensionVentes dimension, LocalDateTime debut,
+                                    LocalDateTime fin, String cle) throws DatabaseException {
+        try {
+            TypedQuery<Object[]> q = entityManager.createQuery(
+                            "SELECT v.debut, v.cle, v.quantite, v.montant FROM CumulVentes v " +
+                                    "WHERE v.granularite = :granularite AND v.dimension = :dimension " +
+                                    "AND v.debut >= :debut AND v.debut < :fin" +
+                                    (cle != null ? " AND v.cle = :cle" : "") +
+                                    " ORDER BY v.debut, v.cle", Object[].class)
+                    .setParameter("granularite", granularite)
+                    .setParameter("dimension", dimension)
+                    .setParameter("debut", debut)
+                    .setParameter("fin", fin);
+            if (cle != null) {
+                q.setParameter("cle", cle);
+            }
+            return q.getResultList();
+        } catch (Exception e) {
+            throw new DatabaseException("Erreur lecture des cumuls de ventes", e);
+        }
+    }
+
+    /**
+     * Libellés des clés d'une dimension (nom du plat ou de la catégorie par identifiant)
+     */
+    public Map<String, String> findLibelles(DimensionVentes dimension) throws DatabaseException {
+        Map<String, String> libelles = new HashMap<>();
+        String entite = dimension == DimensionVentes.PLAT ? "Plat"
+                : dimension == DimensionVentes.CATEGORIE ? "Categorie" : null;
+        if (entite == null) {
+            return libelles;
+        }
+        try {
+            for (Object[] ligne : entityManager.createQuery("SELECT e.id, e.nom FROM " + entite + " e", Object[].class)
+                    .getResultList()) {
+                libelles.put(String.valueOf(ligne[0]), (String) ligne[1]);
+            }
+            return libelles;
+        } catch (Exception e) {
+            throw new DatabaseException("Erreur lecture des libellés " + dimension, e);
+        }
+    }
+}
@@ -27,7 +27,7 @@ public class PaiementDAO extends GenericDAO<Paiement> {
 
     @Override
     protected void validateEntity(Paiement entity) throws ValidationException {
-        if (entity.getMontant() == null || entity.getMontant() <= 0) {
+        if (entity.getMontant() == null || !entity.getMontant().isPositive()) {
             throw new ValidationException("Le montant du paiement doit être > 0");
         }
         if (entity.getModePaiement() == null || entity.getModePaiement().trim().isEmpty()) {
@@ -26,16 +26,14 @@ public class PlatDAO extends GenericDAO<Plat> {
     }
 
     /**
-     * Recherche simple de plats par nom (recherche insensible à la casse)
+     * Tous les plats avec leur catégorie chargée (photo du menu)
      */
-    public List<Plat> searchByName(String nomTerm) throws DatabaseException {
+    public List<Plat> findAllWithCategorie() throws DatabaseException {
         try {
-            String query = "FROM Plat p WHERE LOWER(p.nom) LIKE LOWER(:term) ORDER BY p.nom";
-            TypedQuery<Plat> q = entityManager.createQuery(query, Plat.class);
-            q.setParameter("term", "%" + nomTerm + "%");
-            return q.getResultList();
+            String query = "SELECT p FROM Plat p JOIN FETCH p.categorie ORDER BY p.nom";
+            return entityManager.createQuery(query, Plat.class).getResultList();
         } catch (Exception e) {
-            throw new DatabaseException("Erreur recherche plats par nom: " + nomTerm, e);
+            throw new DatabaseException("Erreur chargement du menu", e);
         }
     }
 
@@ -80,7 +78,7 @@ public class PlatDAO extends GenericDAO<Plat> {
         if (entity.getNom() == null || entity.getNom().trim().isEmpty()) {
             throw new ValidationException("Le nom du plat est requis");
         }
-        if (entity.getPrix() == null || entity.getPrix() <= 0) {
+        if (entity.getPrix() == null || !entity.getPrix().isPositive()) {
             throw new ValidationException("Le prix doit être > 0");
         }
         if (entity.getCategorie() == null) {
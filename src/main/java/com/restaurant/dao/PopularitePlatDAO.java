@@ -0,0 +1,59 @@
+package com.restaurant.dao;
+
+import com.restaurant.exception.DatabaseException;
+
+import javax.persistence.EntityManager;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Scores de popularité des plats
+ * - ajout ensembliste : le score en base est ramené à maintenant (décroissance) puis incrémenté,
+ *   ligne créée au premier ajout ; les incréments de plusieurs postes s'additionnent
+ */
+public class PopularitePlatDAO {
+
+    private final EntityManager entityManager;
+
+    public PopularitePlatDAO(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    /**
+     * Ajoute un incrément (valeur à maintenant) au score du plat (à exécuter dans une transaction)
+     * @param demiVie demi-vie du score en secondes
+     */
+    public void ajouter(long platId, double increment, LocalDateTime maintenant, double demiVie)
+            throws DatabaseException {
+        try {
+            entityManager.createNativeQuery(
+                            "MERGE INTO popularite_plat v USING (VALUES (CAST(?1 AS BIGINT), " +
+                                    "CAST(?2 AS DOUBLE PRECISION))) s(plat_id, increment) ON (v.plat_id = s.plat_id) " +
+                                    "WHEN MATCHED THEN UPDATE SET score = v.score * " +
+                                    "POWER(2, -GREATEST(0, DATEDIFF(SECOND, v.dateScore, ?3)) / ?4) + s.increment, " +
+                                    "dateScore = ?3, dateModification = ?3 " +
+                                    "WHEN NOT MATCHED THEN INSERT (plat_id, score, dateScore, dateCreation, " +
+                                    "dateModification) VALUES (s.plat_id, s.increment, ?3, ?3, ?3)")
+                    .setParameter(1, platId)
+                    .setParameter(2, increment)
+                    .setParameter(3, maintenant)
+                    .setParameter(4, demiVie)
+                    .executeUpdate();
+        } catch (Exception e) {
+            throw new DatabaseException("Erreur mise à jour popularité du plat " + platId, e);
+        }
+    }
+
+    /**
+     * Scores de tous les plats : id du plat, score, date du score
+     */
+    public List<Object[]> findScores() throws DatabaseException {
+        try {
+            return entityManager.createQuery(
+                            "SELECT p.platId, p.score, p.dateScore FROM PopularitePlat p", Object[].class)
+                    .getResultList();
+        } catch (Exception e) {
+            throw new DatabaseException("Erreur lecture popularité des plats", e);
+        }
+    }
+}
@@ -0,0 +1,278 @@
+package com.restaurant.dao;
+
+import com.restaurant.config.ErrorLogger;
+import com.restaurant.exception.DatabaseException;
+import com.restaurant.model.Money;
+import com.restaurant.model.enums.StatutCommande;
+import com.restaurant.readmodel.CommandeAPayer;
+import com.restaurant.readmodel.TableSalle;
+import com.restaurant.readmodel.TicketCuisine;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+import javax.persistence.TypedQuery;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Lectures des écrans (cuisine, salle, caisse) en projections plates
+ * Requêtes scalaires uniquement : aucune entité chargée, donc ni proxy,
+ * ni contexte de persistance à vérifier (dirty checking) au rafraîchissement
+ * ids == null : toute la vue, sinon uniquement les éléments demandés
+ */
+public class ProjectionDAO {
+
+    // Statuts qui occupent une table (cf. TableResto.isOccupee)
+    private static final EnumSet<StatutCommande> OCCUPANTS = EnumSet.of(StatutCommande.EN_ATTENTE,
+            StatutCommande.EN_PREPARATION, StatutCommande.PRET, StatutCommande.SERVI);
+
+    private final EntityManager entityManager;
+
+    public ProjectionDAO(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    // ==================== CUISINE ====================
+
+    /**
+     * Tickets cuisine des commandes aux statuts donnés (entêtes puis lignes, deux requêtes)
+     */
+    public List<TicketCuisine> findTicketsCuisine(Collection<StatutCommande> statuts, Collection<Long> ids)
+            throws DatabaseException {
+        if (ids != null && ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        try {
+            String query = "SELECT c.id, t.numeroTable, c.statut, c.dateCommande, c.dateCreation, " +
+                    "c.dateEnPreparation, c.datePret, c.dateServi, c.dateModification " +
+                    "FROM Commande c JOIN c.table t " +
+                    "WHERE c.statut IN :statuts" + (ids != null ? " AND c.id IN :ids" : "") +
+                    " ORDER BY c.dateCreation, c.id";
+            TypedQuery<Object[]> q = entityManager.createQuery(query, Object[].class);
+            q.setParameter("statuts", statuts);
+            if (ids != null) {
+                q.setParameter("ids", ids);
+            }
+            List<Object[]> entetes = q.getResultList();
+            if (entetes.isEmpty()) {
+                return new ArrayList<>();
+            }
+
+            List<Long> commandeIds = new ArrayList<>(entetes.size());
+            for (Object[] ligne : entetes) {
+                commandeIds.add((Long) ligne[0]);
+            }
+            Map<Long, Lignes> lignes = findLignes(commandeIds);
+
+            List<TicketCuisine> tickets = new ArrayList<>(entetes.size());
+            for (Object[] e : entetes) {
+                long id = (Long) e[0];
+                StatutCommande statut = (StatutCommande) e[2];
+                LocalDateTime entree;
+                switch (statut) {
+                    case EN_ATTENTE:
+                        entree = e[3] != null ? (LocalDateTime) e[3] : (LocalDateTime) e[4];
+                        break;
+                    case EN_PREPARATION:
+                        entree = (LocalDateTime) e[5];
+                        break;
+                    case PRET:
+                        entree = (LocalDateTime) e[6];
+                        break;
+                    case SERVI:
+                        entree = (LocalDateTime) e[7];
+                        break;
+                    default:
+                        entree = null;
+                }
+                Lignes l = lignes.getOrDefault(id, Lignes.VIDE);
+                tickets.add(new TicketCuisine(id, (Integer) e[1], l.resume.toString(), l.nombre, statut,
+                        entree, (LocalDateTime) e[8], l.categories()));
+            }
+            return tickets;
+        } catch (Exception e) {
+            ErrorLogger.logError("ProjectionDAO.findTicketsCuisine", e);
+            throw new DatabaseException("Erreur lecture tickets cuisine", e);
+        }
+    }
+
+    private Map<Long, Lignes> findLignes(List<Long> commandeIds) {
+        String query = "SELECT l.commande.id, l.quantite, p.nom, p.categorie.id " +
+                "FROM LigneCommande l JOIN l.plat p " +
+                "WHERE l.commande.id IN :ids ORDER BY l.commande.id, l.id";
+        TypedQuery<Object[]> q = entityManager.createQuery(query, Object[].class);
+        q.setParameter("ids", commandeIds);
+
+        Map<Long, Lignes> parCommande = new HashMap<>();
+        for (Object[] ligne : q.getResultList()) {
+            parCommande.computeIfAbsent((Long) ligne[0], k -> new Lignes())
+                    .ajouter((Integer) ligne[1], (String) ligne[2], (Long) ligne[3]);
+        }
+        return parCommande;
+    }
+
+    /**
+     * Accumulateur du résumé d'un ticket
+     */
+    private static final class Lignes {
+        static final Lignes VIDE = new Lignes();
+
+        final StringBuilder resume = new StringBuilder();
+        int nombre;
+        long[] categories = new long[4];
+        int nombreCategories;
+
+        void ajouter(Integer quantite, String nom, Long categorieId) {
+            if (nombre++ > 0) {
+                resume.append(", ");
+            }
+            resume.append(quantite).append("x ").append(nom);
+            if (categorieId == null) {
+                return;
+            }
+            for (int i = 0; i < nombreCategories; i++) {
+                if (categories[i] == categorieId) {
+                    return;
+                }
+            }
+            if (nombreCategories == categories.length) {
+                categories = Arrays.copyOf(categories, nombreCategories * 2);
+            }
+            categories[nombreCategories++] = categorieId;
+        }
+
+        long[] categories() {
+            return Arrays.copyOf(categories, nombreCategories);
+        }
+    }
+
+    // ==================== SALLE ====================
+
+    /**
+     * Plan de salle : tables et statut déduit des commandes qui les occupent
+     */
+    public List<TableSalle> findTablesSalle(Collection<Long> ids) throws DatabaseException {
+        if (ids != null && ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        try {
+            String query = "SELECT t.id, t.numeroTable, t.capacite FROM TableResto t" +
+                    (ids != null ? " WHERE t.id IN :ids" : "") + " ORDER BY t.numeroTable";
+            TypedQuery<Object[]> q = entityManager.createQuery(query, Object[].class);
+            if (ids != null) {
+                q.setParameter("ids", ids);
+            }
+            List<Object[]> tables = q.getResultList();
+
+            String queryCommandes = "SELECT c.table.id, c.id, c.statut FROM Commande c " +
+                    "WHERE c.statut IN :occupants" + (ids != null ? " AND c.table.id IN :ids" : "") +
+                    " ORDER BY c.id";
+            TypedQuery<Object[]> qc = entityManager.createQuery(queryCommandes, Object[].class);
+            qc.setParameter("occupants", OCCUPANTS);
+            if (ids != null) {
+                qc.setParameter("ids", ids);
+            }
+
+            // table id -> {servie ?, commande en cours}
+            Map<Long, Object[]> occupation = new HashMap<>();
+            for (Object[] c : qc.getResultList()) {
+                Object[] etat = occupation.computeIfAbsent((Long) c[0], k -> new Object[]{Boolean.FALSE, null});
+                StatutCommande statut = (StatutCommande) c[2];
+                if (statut == StatutCommande.SERVI) {
+                    etat[0] = Boolean.TRUE;
+                } else if (etat[1] == null && statut.estEnCours()) {
+                    etat[1] = c[1];
+                }
+            }
+
+            List<TableSalle> resultat = new ArrayList<>(tables.size());
+            for (Object[] t : tables) {
+                Object[] etat = occupation.get((Long) t[0]);
+                String statut = etat == null ? TableSalle.LIBRE
+                        : Boolean.TRUE.equals(etat[0]) ? TableSalle.ATTENTE_PAIEMENT : TableSalle.OCCUPEE;
+                resultat.add(new TableSalle((Long) t[0], (Integer) t[1], (Integer) t[2], statut,
+                        etat != null ? (Long) etat[1] : null));
+            }
+            return resultat;
+        } catch (Exception e) {
+            ErrorLogger.logError("ProjectionDAO.findTablesSalle", e);
+            throw new DatabaseException("Erreur lecture plan de salle", e);
+        }
+    }
+
+    // ==================== CAISSE ====================
+
+    /**
+     * File des commandes servies à encaisser
+     */
+    public List<CommandeAPayer> findCommandesAPayer(Collection<Long> ids) throws DatabaseException {
+        if (ids != null && ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        try {
+            String query = "SELECT c.id, t.id, t.numeroTable, c.total, c.remiseAppliquee, " +
+                    "c.montantPaye, c.resteAPayer, c.dateServi, c.dateModification " +
+                    "FROM Commande c JOIN c.table t WHERE c.statut = :statut" +
+                    (ids != null ? " AND c.id IN :ids" : "") + " ORDER BY c.dateServi, c.id";
+            TypedQuery<Object[]> q = entityManager.createQuery(query, Object[].class);
+            q.setParameter("statut", StatutCommande.SERVI);
+            if (ids != null) {
+                q.setParameter("ids", ids);
+            }
+            List<CommandeAPayer> resultat = new ArrayList<>();
+            for (Object[] c : q.getResultList()) {
+                resultat.add(new CommandeAPayer((Long) c[0], (Long) c[1], (Integer) c[2], (Money) c[3],
+                        (Money) c[4], (Money) c[5], (Money) c[6], (LocalDateTime) c[7], (LocalDateTime) c[8]));
+            }
+            return resultat;
+        } catch (Exception e) {
+            ErrorLogger.logError("ProjectionDAO.findCommandesAPayer", e);
+            throw new DatabaseException("Erreur lecture commandes à payer", e);
+        }
+    }
+
+    // ==================== ANALYSE ====================
+
+    /**
+     * Parcourt les lignes des commandes soldées (PAYEE, FINALISEE), groupées par commande :
+     * commande, table, n° de table, plat, nom du plat, quantité, prix, date et mode du dernier paiement
+     * Lecture en flux (aucune liste intermédiaire) ; ids == null : tout l'historique
+     */
+    public void parcourirLignesVendues(Collection<Long> ids, Consumer<Object[]> visiteur) throws DatabaseException {
+        if (ids != null && ids.isEmpty()) {
+            return;
+        }
+        try {
+            Query q = entityManager.createNativeQuery(
+                            "SELECT c.id, c.table_id, t.numeroTable, l.plat_id, pl.nom, l.quantite, l.prix, " +
+                                    "COALESCE(p.datePaiement, c.dateModification), COALESCE(p.modePaiement, '') " +
+                                    "FROM commande c JOIN table_resto t ON t.id = c.table_id " +
+                                    "JOIN ligne_commande l ON l.commande_id = c.id JOIN plat pl ON pl.id = l.plat_id " +
+                                    "LEFT JOIN (SELECT commande_id, MAX(id) AS id FROM paiement GROUP BY commande_id) d " +
+                                    "ON d.commande_id = c.id LEFT JOIN paiement p ON p.id = d.id " +
+                                    "WHERE c.statut IN ('" + StatutCommande.PAYEE.name() + "', '" +
+                                    StatutCommande.FINALISEE.name() + "')" +
+                                    (ids != null ? " AND c.id IN (:ids)" : "") +
+                                    " ORDER BY c.id")
+                    .setHint("org.hibernate.fetchSize", 1000)
+                    .setHint("org.hibernate.readOnly", true);
+            if (ids != null) {
+                q.setParameter("ids", ids);
+            }
+            try (Stream<?> lignes = q.getResultStream()) {
+                lignes.forEach(ligne -> visiteur.accept((Object[]) ligne));
+            }
+        } catch (Exception e) {
+            ErrorLogger.logError("ProjectionDAO.parcourirLignesVendues", e);
+            throw new DatabaseException("Erreur lecture des lignes vendues", e);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.restaurant.event;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * Canal en mémoire, substitut du réseau pour les tests et le poste unique
+ * Se comporte comme le multicast : tous les canaux d'un même réseau reçoivent chaque message,
+ * l'émetteur compris, de façon asynchrone (un thread de livraison par canal)
+ */
+public class CanalLocal implements CanalNotification {
+
+    private static final Map<String, List<CanalLocal>> RESEAUX = new ConcurrentHashMap<>();
+
+    private final String reseau;
+    private ExecutorService livraison;
+    private volatile Consumer<byte[]> reception;
+
+    public CanalLocal(String reseau) {
+        this.reseau = reseau;
+    }
+
+    @Override
+    public synchronized void ouvrir(Consumer<byte[]> reception) {
+        if (this.reception != null) {
+            return;
+        }
+        livraison = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "terminaux-local-" + reseau);
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.reception = reception;
+        RESEAUX.computeIfAbsent(reseau, k -> new CopyOnWriteArrayList<>()).add(this);
+    }
+
+    @Override
+    public void envoyer(byte[] message) {
+        List<CanalLocal> membres = RESEAUX.get(reseau);
+        if (membres == null) {
+            return;
+        }
+        for (CanalLocal membre : membres) {
+            membre.livrer(message.clone());
+        }
+    }
+
+    private void livrer(byte[] message) {
+        Consumer<byte[]> r = reception;
+        ExecutorService e = livraison;
+        if (r != null && e != null && !e.isShutdown()) {
+            e.execute(() -> r.accept(message));
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (reception == null) {
+            return;
+        }
+        List<CanalLocal> membres = RESEAUX.get(reseau);
+        if (membres != null) {
+            membres.remove(this);
+        }
+        reception = null;
+        livraison.shutdown();
+        livraison = null;
+    }
+
+    @Override
+    public String getDescription() {
+        return "local " + reseau;
+    }
+}
@@ -0,0 +1,129 @@
+package com.restaurant.event;
+
+import com.restaurant.config.ErrorLogger;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.MulticastSocket;
+import java.net.NetworkInterface;
+import java.net.SocketException;
+import java.net.StandardSocketOptions;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Canal UDP multicast du réseau local : chaque poste envoie au groupe et reçoit les autres
+ * - pas de serveur ni de connexion à maintenir ; un datagramme par événement
+ * - TTL 1 : les messages ne sortent pas du réseau local
+ * - boucle locale active : plusieurs instances sur un même PC se voient
+ */
+public class CanalMulticast implements CanalNotification {
+
+    // Un datagramme doit tenir dans une trame Ethernet
+    public static final int TAILLE_MAX = 1400;
+
+    private final InetSocketAddress groupe;
+    private final NetworkInterface interfaceReseau;
+
+    private MulticastSocket socket;
+    private Thread lecteur;
+    private volatile boolean ouvert;
+
+    /**
+     * @param interfaceReseau interface à utiliser, null pour celle par défaut du système
+     */
+    public CanalMulticast(String adresseGroupe, int port, String interfaceReseau) throws IOException {
+        InetAddress adresse = InetAddress.getByName(adresseGroupe);
+        if (!adresse.isMulticastAddress()) {
+            throw new IOException("Adresse multicast invalide : " + adresseGroupe);
+        }
+        this.groupe = new InetSocketAddress(adresse, port);
+        this.interfaceReseau = interfaceReseau != null ? NetworkInterface.getByName(interfaceReseau) : null;
+        if (interfaceReseau != null && this.interfaceReseau == null) {
+            throw new IOException("Interface réseau inconnue : " + interfaceReseau);
+        }
+    }
+
+    @Override
+    public synchronized void ouvrir(Consumer<byte[]> reception) throws IOException {
+        if (ouvert) {
+            return;
+        }
+        MulticastSocket s = new MulticastSocket(null);
+        try {
+            s.setReuseAddress(true);
+            s.bind(new InetSocketAddress(groupe.getPort()));
+            s.setTimeToLive(1);
+            s.setOption(StandardSocketOptions.IP_MULTICAST_LOOP, true);
+            if (interfaceReseau != null) {
+                s.setNetworkInterface(interfaceReseau);
+            }
+            s.joinGroup(groupe, interfaceReseau);
+        } catch (IOException e) {
+            s.close();
+            throw e;
+        }
+        socket = s;
+        ouvert = true;
+
+        lecteur = new Thread(() -> lire(s, reception), "terminaux-multicast");
+        lecteur.setDaemon(true);
+        lecteur.start();
+    }
+
+    private void lire(MulticastSocket s, Consumer<byte[]> reception) {
+        byte[] tampon = new byte[TAILLE_MAX];
+        DatagramPacket paquet = new DatagramPacket(tampon, tampon.length);
+        while (ouvert) {
+            try {
+                paquet.setLength(tampon.length);
+                s.receive(paquet);
+                reception.accept(Arrays.copyOfRange(tampon, paquet.getOffset(),
+                        paquet.getOffset() + paquet.getLength()));
+            } catch (SocketException e) {
+                // Fermeture du canal
+                if (ouvert) {
+                    ErrorLogger.logDebug("Canal multicast interrompu : " + e.getMessage());
+                }
+                return;
+            } catch (IOException | RuntimeException e) {
+                ErrorLogger.logDebug("Message multicast ignoré : " + e);
+            }
+        }
+    }
+
+    @Override
+    public void envoyer(byte[] message) throws IOException {
+        MulticastSocket s = socket;
+        if (!ouvert || s == null) {
+            throw new IOException("Canal multicast fermé");
+        }
+        if (message.length > TAILLE_MAX) {
+            throw new IOException("Message trop long : " + message.length + " octets");
+        }
+        s.send(new DatagramPacket(message, message.length, groupe));
+    }
+
+    @Override
+    public synchronized void close() {
+        if (!ouvert) {
+            return;
+        }
+        ouvert = false;
+        try {
+            socket.leaveGroup(groupe, interfaceReseau);
+        } catch (IOException e) {
+            ErrorLogger.logDebug("Sortie du groupe multicast : " + e.getMessage());
+        }
+        socket.close();
+        socket = null;
+    }
+
+    @Override
+    public String getDescription() {
+        return "multicast " + groupe.getAddress().getHostAddress() + ":" + groupe.getPort()
+                + (interfaceReseau != null ? " (" + interfaceReseau.getName() + ")" : "");
+    }
+}
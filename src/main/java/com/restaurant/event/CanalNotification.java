@@ -0,0 +1,25 @@
+package com.restaurant.event;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.function.Consumer;
+
+/**
+ * Transport des notifications entre postes (salle, cuisine, caisse)
+ * Messages courts, sans garantie de livraison : un message perdu est rattrapé
+ * par une relecture complète (cf. RelaisTerminaux)
+ */
+public interface CanalNotification extends Closeable {
+
+    /**
+     * Ouvre le canal ; reception est appelée dans le thread de lecture du canal
+     */
+    void ouvrir(Consumer<byte[]> reception) throws IOException;
+
+    void envoyer(byte[] message) throws IOException;
+
+    @Override
+    void close();
+
+    String getDescription();
+}
@@ -0,0 +1,69 @@
+package com.restaurant.event;
+
+import java.time.LocalDateTime;
+
+/**
+ * Création ou modification du contenu d'une commande (hors statut), publiée après commit
+ */
+public final class CommandeModifieeEvent {
+
+    public enum Nature {
+        CREEE,
+        LIGNES,
+        REMISE,
+        PAIEMENT,   // paiement partiel (le paiement soldant produit une transition)
+        SUPPRIMEE
+    }
+
+    private final long commandeId;
+    private final Long tableId;
+    private final Nature nature;
+    private final LocalDateTime horodatage;
+    private final LocalDateTime dateCommande;
+    private final long[] categorieIds;
+
+    public CommandeModifieeEvent(long commandeId, Long tableId, Nature nature, LocalDateTime horodatage,
+                                 LocalDateTime dateCommande, long[] categorieIds) {
+        this.commandeId = commandeId;
+        this.tableId = tableId;
+        this.nature = nature;
+        this.horodatage = horodatage;
+        this.dateCommande = dateCommande;
+        this.categorieIds = categorieIds;
+    }
+
+    public long getCommandeId() {
+        return commandeId;
+    }
+
+    public Long getTableId() {
+        return tableId;
+    }
+
+    public Nature getNature() {
+        return nature;
+    }
+
+    public LocalDateTime getHorodatage() {
+        return horodatage;
+    }
+
+    /**
+     * Date de prise de commande (début du ticket cuisine)
+     */
+    public LocalDateTime getDateCommande() {
+        return dateCommande;
+    }
+
+    /**
+     * Catégories des plats de la commande après modification (ne pas modifier)
+     */
+    public long[] getCategorieIds() {
+        return categorieIds;
+    }
+
+    @Override
+    public String toString() {
+        return "Commande #" + commandeId + " : " + nature + " (" + horodatage + ")";
+    }
+}
@@ -0,0 +1,39 @@
+package com.restaurant.event;
+
+import java.time.LocalDateTime;
+
+/**
+ * Ticket en attente ayant franchi son seuil d'urgence, publié par le minuteur cuisine
+ */
+public final class CommandeUrgenteEvent {
+
+    private final long commandeId;
+    private final LocalDateTime echeance;
+    private final int seuilMinutes;
+
+    public CommandeUrgenteEvent(long commandeId, LocalDateTime echeance, int seuilMinutes) {
+        this.commandeId = commandeId;
+        this.echeance = echeance;
+        this.seuilMinutes = seuilMinutes;
+    }
+
+    public long getCommandeId() {
+        return commandeId;
+    }
+
+    /**
+     * Instant où le seuil a été franchi
+     */
+    public LocalDateTime getEcheance() {
+        return echeance;
+    }
+
+    public int getSeuilMinutes() {
+        return seuilMinutes;
+    }
+
+    @Override
+    public String toString() {
+        return "Commande #" + commandeId + " urgente (> " + seuilMinutes + " min)";
+    }
+}
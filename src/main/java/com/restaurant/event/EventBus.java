@@ -0,0 +1,57 @@
+package com.restaurant.event;
+
+import com.restaurant.config.ErrorLogger;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Bus d'événements applicatif, synchrone et en mémoire
+ * Les services publient après commit ; les abonnés (métriques, projections, écrans)
+ * sont appelés dans le thread de publication et ne doivent pas bloquer
+ */
+public final class EventBus {
+
+    private static final EventBus INSTANCE = new EventBus();
+
+    private final Map<Class<?>, List<Consumer<Object>>> abonnes = new ConcurrentHashMap<>();
+
+    private EventBus() {
+    }
+
+    public static EventBus getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Abonne un consommateur à un type d'événement
+     * @return action de désabonnement
+     */
+    @SuppressWarnings("unchecked")
+    public <E> Runnable subscribe(Class<E> type, Consumer<? super E> abonne) {
+        Consumer<Object> consumer = evt -> abonne.accept((E) evt);
+        List<Consumer<Object>> liste = abonnes.computeIfAbsent(type, k -> new CopyOnWriteArrayList<>());
+        liste.add(consumer);
+        return () -> liste.remove(consumer);
+    }
+
+    /**
+     * Publie un événement ; une erreur d'un abonné n'empêche pas les suivants
+     */
+    public void publish(Object evenement) {
+        List<Consumer<Object>> liste = abonnes.get(evenement.getClass());
+        if (liste == null) {
+            return;
+        }
+        for (Consumer<Object> abonne : liste) {
+            try {
+                abonne.accept(evenement);
+            } catch (RuntimeException e) {
+                ErrorLogger.logDebug("Abonné en erreur sur " + evenement + " : " + e);
+            }
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.restaurant.event;
+
+/**
+ * Changement fait sur un autre poste, publié après l'événement métier reçu
+ * Les modèles de lecture sont déjà invalidés : les écrans n'ont plus qu'à se redessiner
+ */
+public final class ModificationDistanteEvent {
+
+    private final String terminal;
+    private final Object evenement;
+    private final boolean resynchroniser;
+
+    public ModificationDistanteEvent(String terminal, Object evenement, boolean resynchroniser) {
+        this.terminal = terminal;
+        this.evenement = evenement;
+        this.resynchroniser = resynchroniser;
+    }
+
+    /**
+     * Identifiant du poste émetteur
+     */
+    public String getTerminal() {
+        return terminal;
+    }
+
+    /**
+     * Événement métier reçu (TransitionEvent, CommandeModifieeEvent, TableModifieeEvent)
+     */
+    public Object getEvenement() {
+        return evenement;
+    }
+
+    /**
+     * Vrai si des messages de ce poste ont été perdus : relecture complète nécessaire
+     */
+    public boolean isResynchroniser() {
+        return resynchroniser;
+    }
+
+    @Override
+    public String toString() {
+        return "Poste " + terminal + " : " + evenement + (resynchroniser ? " (messages perdus)" : "");
+    }
+}
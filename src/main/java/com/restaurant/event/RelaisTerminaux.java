@@ -0,0 +1,326 @@
+package com.restaurant.event;
+
+import com.restaurant.config.AppConfig;
+import com.restaurant.config.ErrorLogger;
+import com.restaurant.model.enums.StatutCommande;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Relais des événements métier entre postes
+ * - émission : chaque événement publié après commit sur le bus local part sur le canal
+ * - réception : l'événement d'un autre poste est republié sur le bus local (modèles de
+ *   lecture, minuteur d'urgence, métriques), puis ModificationDistanteEvent pour les écrans
+ * - numéro de séquence par poste : un trou (datagramme perdu) demande une relecture complète ;
+ *   un message en retard ou en double (numéro déjà dépassé) est compté puis ignoré
+ * Format texte d'une ligne : RM1|poste|séquence|type|champs...
+ */
+public final class RelaisTerminaux {
+
+    public static final String CLE_ACTIF = "terminaux.notification";
+    public static final String CLE_GROUPE = "terminaux.groupe";
+    public static final String CLE_PORT = "terminaux.port";
+    public static final String CLE_INTERFACE = "terminaux.interface";
+
+    private static final String GROUPE_DEFAUT = "239.255.42.42";
+    private static final int PORT_DEFAUT = 47420;
+
+    private static final String ENTETE = "RM1";
+    private static final String SEPARATEUR = "|";
+    private static final String NUL = "-";
+
+    // Identifiant du poste, le même pour toute la vie du processus (événements locaux et messages émis)
+    private static final long ORIGINE_LOCALE = new SecureRandom().nextLong();
+    private static final String TERMINAL_LOCAL = Long.toHexString(ORIGINE_LOCALE);
+
+    private static volatile RelaisTerminaux actif;
+
+    private final CanalNotification canal;
+    private final long origine = ORIGINE_LOCALE;
+    private final String terminal = TERMINAL_LOCAL;
+    private final AtomicLong sequence = new AtomicLong();
+    private final Map<Long, Long> dernieresSequences = new ConcurrentHashMap<>();
+    // Vrai pendant la republication d'un message reçu : il ne doit pas repartir
+    private final ThreadLocal<Boolean> enReception = ThreadLocal.withInitial(() -> Boolean.FALSE);
+    private final List<Runnable> desabonnements = new ArrayList<>();
+
+    private final AtomicLong envoyes = new AtomicLong();
+    private final AtomicLong recus = new AtomicLong();
+    private final AtomicLong pertes = new AtomicLong();
+    private final AtomicLong horsSequence = new AtomicLong();
+
+    private RelaisTerminaux(CanalNotification canal) {
+        this.canal = canal;
+    }
+
+    // ==================== CYCLE DE VIE ====================
+
+    /**
+     * Démarre le relais configuré (multicast par défaut) ; null si désactivé ou indisponible,
+     * les écrans gardent alors leur relecture périodique
+     */
+    public static synchronized RelaisTerminaux demarrer() {
+        if (actif != null) {
+            return actif;
+        }
+        if (!AppConfig.getBoolean(CLE_ACTIF, true)) {
+            ErrorLogger.logDebug("Notification entre postes désactivée");
+            return null;
+        }
+        try {
+            CanalNotification canal = new CanalMulticast(AppConfig.get(CLE_GROUPE, GROUPE_DEFAUT),
+                    AppConfig.getInt(CLE_PORT, PORT_DEFAUT), AppConfig.get(CLE_INTERFACE, null));
+            return demarrer(canal);
+        } catch (IOException e) {
+            ErrorLogger.logError("RelaisTerminaux.demarrer", e);
+            return null;
+        }
+    }
+
+    /**
+     * Démarre le relais sur un canal donné (CanalLocal pour les tests)
+     */
+    public static synchronized RelaisTerminaux demarrer(CanalNotification canal) throws IOException {
+        arreter();
+        RelaisTerminaux relais = new RelaisTerminaux(canal);
+        canal.ouvrir(relais::recevoir);
+
+        EventBus bus = EventBus.getInstance();
+        relais.desabonnements.add(bus.subscribe(TransitionEvent.class, relais::emettre));
+        relais.desabonnements.add(bus.subscribe(CommandeModifieeEvent.class, relais::emettre));
+        relais.desabonnements.add(bus.subscribe(TableModifieeEvent.class, relais::emettre));
+        actif = relais;
+        ErrorLogger.logDebug("Notification entre postes : " + canal.getDescription() + ", poste " + relais.terminal);
+        return relais;
+    }
+
+    public static synchronized void arreter() {
+        RelaisTerminaux relais = actif;
+        if (relais == null) {
+            return;
+        }
+        actif = null;
+        relais.desabonnements.forEach(Runnable::run);
+        relais.desabonnements.clear();
+        relais.canal.close();
+    }
+
+    /**
+     * Vrai si les autres postes sont notifiés (les écrans peuvent espacer leurs relectures)
+     */
+    public static boolean isActif() {
+        return actif != null;
+    }
+
+    public static RelaisTerminaux getActif() {
+        return actif;
+    }
+
+    /**
+     * Identifiant de ce poste (en-tête des messages émis, TransitionEvent.getTerminal)
+     */
+    public static String getTerminalLocal() {
+        return TERMINAL_LOCAL;
+    }
+
+    // ==================== ÉMISSION / RÉCEPTION ====================
+
+    private void emettre(Object evenement) {
+        if (enReception.get()) {
+            return;
+        }
+        String message = encoder(origine, sequence.incrementAndGet(), evenement);
+        if (message == null) {
+            return;
+        }
+        try {
+            canal.envoyer(message.getBytes(StandardCharsets.UTF_8));
+            envoyes.incrementAndGet();
+        } catch (IOException e) {
+            // Les autres postes se resynchroniseront sur le trou de séquence
+            ErrorLogger.logDebug("Notification non envoyée (" + evenement + ") : " + e.getMessage());
+        }
+    }
+
+    private void recevoir(byte[] donnees) {
+        String[] champs = new String(donnees, StandardCharsets.UTF_8).split("\\|", -1);
+        if (champs.length < 4 || !ENTETE.equals(champs[0])) {
+            return;
+        }
+        try {
+            long emetteur = Long.parseUnsignedLong(champs[1], 16);
+            if (emetteur == origine) {
+                return;
+            }
+            long numero = Long.parseLong(champs[2]);
+            Object evenement = decoder(champs);
+            if (evenement == null) {
+                return;
+            }
+            recus.incrementAndGet();
+
+            // Un message dépassé ne s'applique pas : il écraserait un état plus récent et
+            // ramènerait la séquence en arrière (fausse perte au message suivant)
+            Long precedent = dernieresSequences.get(emetteur);
+            if (precedent != null && numero <= precedent) {
+                horsSequence.incrementAndGet();
+                return;
+            }
+            dernieresSequences.put(emetteur, numero);
+            boolean perte = precedent != null && numero > precedent + 1;
+            if (perte) {
+                pertes.addAndGet(numero - precedent - 1);
+            }
+
+            EventBus bus = EventBus.getInstance();
+            enReception.set(Boolean.TRUE);
+            try {
+                bus.publish(evenement);
+            } finally {
+                enReception.set(Boolean.FALSE);
+            }
+            bus.publish(new ModificationDistanteEvent(champs[1], evenement, perte));
+        } catch (RuntimeException e) {
+            ErrorLogger.logDebug("Notification illisible ignorée : " + e);
+        }
+    }
+
+    // ==================== FORMAT ====================
+
+    static String encoder(long origine, long numero, Object evenement) {
+        StringBuilder sb = new StringBuilder(96).append(ENTETE)
+                .append(SEPARATEUR).append(Long.toHexString(origine))
+                .append(SEPARATEUR).append(numero).append(SEPARATEUR);
+        if (evenement instanceof TransitionEvent) {
+            TransitionEvent t = (TransitionEvent) evenement;
+            sb.append('T');
+            champ(sb, t.getCommandeId());
+            champ(sb, t.getTableId());
+            champ(sb, t.getDepuis());
+            champ(sb, t.getVers());
+            champ(sb, t.getHorodatage());
+            champ(sb, t.isStatutFinal());
+            champ(sb, t.getEntreeDepuis());
+            champ(sb, categories(t.getCategorieIds()));
+        } else if (evenement instanceof CommandeModifieeEvent) {
+            CommandeModifieeEvent c = (CommandeModifieeEvent) evenement;
+            sb.append('C');
+            champ(sb, c.getCommandeId());
+            champ(sb, c.getTableId());
+            champ(sb, c.getNature());
+            champ(sb, c.getHorodatage());
+            champ(sb, c.getDateCommande());
+            champ(sb, categories(c.getCategorieIds()));
+        } else if (evenement instanceof TableModifieeEvent) {
+            TableModifieeEvent m = (TableModifieeEvent) evenement;
+            sb.append('M');
+            champ(sb, m.getTableId());
+            champ(sb, m.isSupprimee());
+        } else {
+            return null;
+        }
+        return sb.toString();
+    }
+
+    static Object decoder(String[] c) {
+        switch (c[3]) {
+            case "T":
+                return new TransitionEvent(Long.parseLong(c[4]), entierOuNul(c[5]),
+                        StatutCommande.valueOf(c[6]), StatutCommande.valueOf(c[7]), dateOuNulle(c[8]),
+                        c[1], Boolean.parseBoolean(c[9]), dateOuNulle(c[10]), categories(c[11]));
+            case "C":
+                return new CommandeModifieeEvent(Long.parseLong(c[4]), entierOuNul(c[5]),
+                        CommandeModifieeEvent.Nature.valueOf(c[6]), dateOuNulle(c[7]), dateOuNulle(c[8]),
+                        categories(c[9]));
+            case "M":
+                return new TableModifieeEvent(Long.parseLong(c[4]), Boolean.parseBoolean(c[5]));
+            default:
+                return null;
+        }
+    }
+
+    private static void champ(StringBuilder sb, Object valeur) {
+        if (valeur instanceof Enum) {
+            // toString() des statuts est leur libellé affiché
+            valeur = ((Enum<?>) valeur).name();
+        }
+        sb.append(SEPARATEUR).append(valeur != null ? valeur.toString() : NUL);
+    }
+
+    private static String categories(long[] ids) {
+        if (ids == null) {
+            return null;
+        }
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < ids.length; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append(ids[i]);
+        }
+        return sb.toString();
+    }
+
+    private static long[] categories(String texte) {
+        if (NUL.equals(texte)) {
+            return null;
+        }
+        if (texte.isEmpty()) {
+            return new long[0];
+        }
+        String[] parties = texte.split(",");
+        long[] ids = new long[parties.length];
+        for (int i = 0; i < parties.length; i++) {
+            ids[i] = Long.parseLong(parties[i]);
+        }
+        return ids;
+    }
+
+    private static Long entierOuNul(String texte) {
+        return NUL.equals(texte) ? null : Long.valueOf(texte);
+    }
+
+    private static LocalDateTime dateOuNulle(String texte) {
+        return NUL.equals(texte) ? null : LocalDateTime.parse(texte);
+    }
+
+    // ==================== STATISTIQUES ====================
+
+    public String getTerminal() {
+        return terminal;
+    }
+
+    public String getDescription() {
+        return canal.getDescription();
+    }
+
+    public long getEnvoyes() {
+        return envoyes.get();
+    }
+
+    public long getRecus() {
+        return recus.get();
+    }
+
+    /**
+     * Messages perdus détectés (trous de séquence)
+     */
+    public long getPertes() {
+        return pertes.get();
+    }
+
+    /**
+     * Messages arrivés en retard ou en double, ignorés
+     */
+    public long getHorsSequence() {
+        return horsSequence.get();
+    }
+}
@@ -0,0 +1,28 @@
+package com.restaurant.event;
+
+/**
+ * Création, modification ou suppression d'une table de la salle, publiée après commit
+ */
+public final class TableModifieeEvent {
+
+    private final long tableId;
+    private final boolean supprimee;
+
+    public TableModifieeEvent(long tableId, boolean supprimee) {
+        this.tableId = tableId;
+        this.supprimee = supprimee;
+    }
+
+    public long getTableId() {
+        return tableId;
+    }
+
+    public boolean isSupprimee() {
+        return supprimee;
+    }
+
+    @Override
+    public String toString() {
+        return "Table #" + tableId + (supprimee ? " supprimée" : " modifiée");
+    }
+}
@@ -0,0 +1,100 @@
+package com.restaurant.event;
+
+import com.restaurant.model.enums.StatutCommande;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Changement de statut d'une commande, publié après commit
+ * (de, vers, horodatage, poste d'origine : RelaisTerminaux.getTerminalLocal() ou l'émetteur du message relayé)
+ */
+public final class TransitionEvent {
+
+    private final long commandeId;
+    private final Long tableId;
+    private final StatutCommande depuis;
+    private final StatutCommande vers;
+    private final LocalDateTime horodatage;
+    private final String terminal;
+    private final boolean statutFinal;
+    private final LocalDateTime entreeDepuis;
+    private final long[] categorieIds;
+
+    public TransitionEvent(long commandeId, Long tableId, StatutCommande depuis, StatutCommande vers,
+                           LocalDateTime horodatage, String terminal, boolean statutFinal,
+                           LocalDateTime entreeDepuis, long[] categorieIds) {
+        this.commandeId = commandeId;
+        this.tableId = tableId;
+        this.depuis = depuis;
+        this.vers = vers;
+        this.horodatage = horodatage;
+        this.terminal = terminal;
+        this.statutFinal = statutFinal;
+        this.entreeDepuis = entreeDepuis;
+        this.categorieIds = categorieIds;
+    }
+
+    public long getCommandeId() {
+        return commandeId;
+    }
+
+    /**
+     * Table de la commande (null si inconnue)
+     */
+    public Long getTableId() {
+        return tableId;
+    }
+
+    public StatutCommande getDepuis() {
+        return depuis;
+    }
+
+    public StatutCommande getVers() {
+        return vers;
+    }
+
+    public LocalDateTime getHorodatage() {
+        return horodatage;
+    }
+
+    /**
+     * Poste qui a fait la transition
+     */
+    public String getTerminal() {
+        return terminal;
+    }
+
+    /**
+     * Vrai si la commande ne peut plus changer de statut
+     */
+    public boolean isStatutFinal() {
+        return statutFinal;
+    }
+
+    /**
+     * Date d'entrée dans le statut quitté (null si inconnue)
+     */
+    public LocalDateTime getEntreeDepuis() {
+        return entreeDepuis;
+    }
+
+    /**
+     * Durée passée dans le statut quitté, en secondes (-1 si inconnue)
+     */
+    public long getDureeDepuisSecondes() {
+        return entreeDepuis != null ? Math.max(0, Duration.between(entreeDepuis, horodatage).getSeconds()) : -1;
+    }
+
+    /**
+     * Catégories des plats de la commande (ne pas modifier)
+     */
+    public long[] getCategorieIds() {
+        return categorieIds;
+    }
+
+    @Override
+    public String toString() {
+        return "Commande #" + commandeId + " : " + depuis + " → " + vers + " (" + horodatage + ", poste " + terminal + ")";
+    }
+}
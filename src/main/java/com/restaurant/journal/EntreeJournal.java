@@ -0,0 +1,110 @@
+package com.restaurant.journal;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * Enregistrement du journal des commandes (une opération, ou le sort d'une transaction)
+ */
+public final class EntreeJournal {
+
+    public enum Type {
+        CREATION(1),        // commande, table, date de commande
+        LIGNE_AJOUTEE(2),   // commande, plat, quantité, prix unitaire (centimes), ligne
+        QUANTITE(3),        // commande, plat, nouvelle quantité, ligne
+        LIGNE_RETIREE(4),   // commande, plat, ligne
+        REMISE(5),          // commande, remise (centimes)
+        TRANSITION(6),      // commande, depuis, vers, horodatage
+        PAIEMENT(7),        // commande, paiement, montant (centimes), mode, date
+        SUPPRESSION(8),     // commande
+        VALIDE(9),          // séquences validées (commit)
+        ANNULE(10);         // séquences annulées (rollback)
+
+        private final byte code;
+
+        Type(int code) {
+            this.code = (byte) code;
+        }
+
+        public byte getCode() {
+            return code;
+        }
+
+        public boolean isMarqueur() {
+            return this == VALIDE || this == ANNULE;
+        }
+
+        public static Type deCode(byte code) {
+            for (Type type : values()) {
+                if (type.code == code) {
+                    return type;
+                }
+            }
+            throw new IllegalArgumentException("Type d'entrée inconnu : " + code);
+        }
+    }
+
+    static final String SEPARATEUR = "|";
+
+    private final String poste;
+    private final long sequence;
+    private final long horodatageMillis;
+    private final Type type;
+    private final String[] champs;
+
+    EntreeJournal(String poste, long sequence, long horodatageMillis, Type type, String[] champs) {
+        this.poste = poste;
+        this.sequence = sequence;
+        this.horodatageMillis = horodatageMillis;
+        this.type = type;
+        this.champs = champs;
+    }
+
+    /**
+     * Poste qui a écrit l'entrée (sous-répertoire du journal)
+     */
+    public String getPoste() {
+        return poste;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public long getHorodatageMillis() {
+        return horodatageMillis;
+    }
+
+    public LocalDateTime getHorodatage() {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(horodatageMillis), ZoneId.systemDefault());
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public int getNombreChamps() {
+        return champs.length;
+    }
+
+    public String get(int i) {
+        return champs[i];
+    }
+
+    public long getLong(int i) {
+        return Long.parseLong(champs[i]);
+    }
+
+    /**
+     * Commande concernée (-1 pour un marqueur de transaction)
+     */
+    public long getCommandeId() {
+        return type.isMarqueur() ? -1 : getLong(0);
+    }
+
+    @Override
+    public String toString() {
+        return poste + "#" + sequence + " " + getHorodatage() + " " + type + " " + String.join(" ", champs);
+    }
+}
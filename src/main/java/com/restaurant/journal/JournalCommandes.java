@@ -0,0 +1,332 @@
+package com.restaurant.journal;
+
+import com.restaurant.config.AppConfig;
+import com.restaurant.config.ErrorLogger;
+import com.restaurant.model.Commande;
+import com.restaurant.model.LigneCommande;
+import com.restaurant.model.Paiement;
+import com.restaurant.model.enums.StatutCommande;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32C;
+
+/**
+ * Journal des opérations sur les commandes, écrit AVANT le commit (write-ahead)
+ * - ajout seul, dans des segments projetés en mémoire (une écriture = une copie mémoire)
+ * - chaque enregistrement porte un CRC32C : une écriture interrompue est détectée à la relecture
+ * - les services marquent ensuite le sort de leur transaction (VALIDE ou ANNULE)
+ * - rotation à la taille du segment ou après journal.rotation.heures
+ * Un segment projeté survit à l'arrêt brutal du processus (cache du système) ;
+ * journal.sync=true force l'écriture disque à chaque transaction (coupure de courant)
+ * Le journal ne bloque jamais une vente : en cas d'erreur il se désactive et le signale
+ */
+public final class JournalCommandes {
+
+    public static final String CLE_ACTIF = "journal.actif";
+    public static final String CLE_REPERTOIRE = "journal.repertoire";
+    public static final String CLE_POSTE = "journal.poste";
+    public static final String CLE_SEGMENT = "journal.segment.mo";
+    public static final String CLE_ROTATION = "journal.rotation.heures";
+    public static final String CLE_SYNC = "journal.sync";
+
+    public static final String REPERTOIRE_DEFAUT = "./data/journal";
+
+    private static final JournalCommandes INSTANCE = new JournalCommandes();
+
+    private final boolean actif;
+    private final Path repertoire;
+    private final int tailleSegment;
+    private final long rotationMillis;
+    private final boolean sync;
+
+    private final CRC32C crc = new CRC32C();
+    // Séquences écrites par la transaction en cours du thread
+    private final ThreadLocal<List<Long>> enCours = ThreadLocal.withInitial(ArrayList::new);
+
+    private FileChannel verrouCanal;
+    private FileLock verrou;
+    private FileChannel canal;
+    private MappedByteBuffer zone;
+    private long debutSegmentMillis;
+    private long sequence;
+    private boolean ouvert;
+    private boolean horsService;
+
+    private JournalCommandes() {
+        this(AppConfig.getBoolean(CLE_ACTIF, true),
+                Paths.get(AppConfig.get(CLE_REPERTOIRE, REPERTOIRE_DEFAUT)).resolve(AppConfig.get(CLE_POSTE, nomPoste())),
+                Math.max(1, AppConfig.getInt(CLE_SEGMENT, 16)) * 1024 * 1024,
+                TimeUnit.HOURS.toMillis(Math.max(1, AppConfig.getInt(CLE_ROTATION, 24))),
+                AppConfig.getBoolean(CLE_SYNC, false));
+    }
+
+    /**
+     * Journal d'un répertoire de poste donné (tests : répertoire temporaire, petits segments)
+     */
+    JournalCommandes(boolean actif, Path repertoire, int tailleSegment, long rotationMillis, boolean sync) {
+        this.actif = actif;
+        this.repertoire = repertoire;
+        this.tailleSegment = tailleSegment;
+        this.rotationMillis = rotationMillis;
+        this.sync = sync;
+    }
+
+    public static JournalCommandes getInstance() {
+        return INSTANCE;
+    }
+
+    private static String nomPoste() {
+        try {
+            return InetAddress.getLocalHost().getHostName().replaceAll("[^A-Za-z0-9._-]", "_");
+        } catch (IOException e) {
+            return "poste";
+        }
+    }
+
+    // ==================== OPÉRATIONS ====================
+
+    public void creation(Commande commande) {
+        ecrire(EntreeJournal.Type.CREATION, commande.getId(),
+                commande.getTable() != null ? commande.getTable().getId() : null, commande.getDateCommande());
+    }
+
+    public void ligneAjoutee(Commande commande, LigneCommande ligne) {
+        ecrire(EntreeJournal.Type.LIGNE_AJOUTEE, commande.getId(), ligne.getPlat().getId(), ligne.getQuantite(),
+                ligne.getPrix().getCents(), ligne.getId());
+    }
+
+    public void quantite(Commande commande, LigneCommande ligne) {
+        ecrire(EntreeJournal.Type.QUANTITE, commande.getId(), ligne.getPlat().getId(), ligne.getQuantite(),
+                ligne.getId());
+    }
+
+    /**
+     * Ligne désignée par son identifiant : une commande peut porter deux lignes du même plat
+     */
+    public void ligneRetiree(Commande commande, LigneCommande ligne) {
+        ecrire(EntreeJournal.Type.LIGNE_RETIREE, commande.getId(), ligne.getPlat().getId(), ligne.getId());
+    }
+
+    public void remise(Commande commande) {
+        ecrire(EntreeJournal.Type.REMISE, commande.getId(), commande.getRemiseAppliquee().getCents());
+    }
+
+    public void transition(Commande commande, StatutCommande depuis, StatutCommande vers, LocalDateTime horodatage) {
+        transition(commande.getId(), depuis, vers, horodatage);
+    }
+
+    public void transition(long commandeId, StatutCommande depuis, StatutCommande vers, LocalDateTime horodatage) {
+        ecrire(EntreeJournal.Type.TRANSITION, commandeId, depuis.name(), vers.name(), horodatage);
+    }
+
+    public void paiement(Paiement paiement) {
+        ecrire(EntreeJournal.Type.PAIEMENT, paiement.getCommande().getId(), paiement.getId(),
+                paiement.getMontant().getCents(), paiement.getModePaiement(), paiement.getDatePaiement());
+    }
+
+    public void suppression(Commande commande) {
+        ecrire(EntreeJournal.Type.SUPPRESSION, commande.getId());
+    }
+
+    // ==================== TRANSACTIONS ====================
+
+    /**
+     * Après commit : les opérations du thread sont acquises
+     */
+    public void valider() {
+        marquer(EntreeJournal.Type.VALIDE);
+    }
+
+    /**
+     * Après rollback : les opérations du thread n'ont pas eu lieu
+     */
+    public void annuler() {
+        marquer(EntreeJournal.Type.ANNULE);
+    }
+
+    private void marquer(EntreeJournal.Type type) {
+        List<Long> sequences = enCours.get();
+        if (sequences.isEmpty()) {
+            return;
+        }
+        Object[] champs = sequences.toArray();
+        sequences.clear();
+        if (ajouter(type, champs) >= 0 && sync) {
+            forcer();
+        }
+    }
+
+    // ==================== ÉCRITURE ====================
+
+    private void ecrire(EntreeJournal.Type type, Object... champs) {
+        long numero = ajouter(type, champs);
+        if (numero >= 0) {
+            enCours.get().add(numero);
+        }
+    }
+
+    /**
+     * Ajoute un enregistrement ; -1 si le journal est désactivé
+     */
+    private synchronized long ajouter(EntreeJournal.Type type, Object[] champs) {
+        if (!actif || horsService) {
+            return -1;
+        }
+        try {
+            if (!ouvert) {
+                ouvrir();
+            }
+            long maintenant = System.currentTimeMillis();
+            long numero = sequence + 1;
+            byte[] donnees = joindre(champs).getBytes(StandardCharsets.UTF_8);
+            int longueur = LecteurJournal.CORPS_MIN + donnees.length;
+            if (LecteurJournal.ENTETE + longueur > tailleSegment) {
+                throw new IOException("Enregistrement trop long : " + longueur + " octets");
+            }
+            if (zone.position() + LecteurJournal.ENTETE + longueur > zone.limit()
+                    || maintenant - debutSegmentMillis >= rotationMillis) {
+                nouveauSegment(numero, maintenant);
+            }
+
+            ByteBuffer corps = ByteBuffer.allocate(longueur);
+            corps.putLong(numero).putLong(maintenant).put(type.getCode()).put(donnees);
+            crc.reset();
+            crc.update(corps.array());
+
+            // Longueur écrite en dernier : un lecteur ne voit jamais un enregistrement à moitié écrit
+            int position = zone.position();
+            zone.put(position + LecteurJournal.ENTETE, corps.array());
+            zone.putInt(position + 4, (int) crc.getValue());
+            zone.putInt(position, longueur);
+            zone.position(position + LecteurJournal.ENTETE + longueur);
+            sequence = numero;
+            return numero;
+        } catch (IOException | RuntimeException e) {
+            horsService = true;
+            ErrorLogger.logError("JournalCommandes : journal désactivé", e);
+            return -1;
+        }
+    }
+
+    private static String joindre(Object[] champs) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < champs.length; i++) {
+            if (i > 0) {
+                sb.append(EntreeJournal.SEPARATEUR);
+            }
+            Object champ = champs[i];
+            sb.append(champ == null ? "" : champ.toString().replace(EntreeJournal.SEPARATEUR, "/"));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Reprend le dernier segment du poste (ou en crée un) ; un seul processus par poste
+     */
+    private void ouvrir() throws IOException {
+        Files.createDirectories(repertoire);
+        verrouCanal = FileChannel.open(repertoire.resolve("journal.lock"),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        verrou = verrouCanal.tryLock();
+        if (verrou == null) {
+            verrouCanal.close();
+            throw new IOException("Journal " + repertoire + " déjà ouvert par une autre instance (changer "
+                    + CLE_POSTE + ")");
+        }
+
+        List<Path> segments = LecteurJournal.segments(repertoire);
+        long maintenant = System.currentTimeMillis();
+        if (segments.isEmpty()) {
+            ouvert = true;
+            nouveauSegment(1, maintenant);
+            return;
+        }
+        // Le nom d'un segment est sa première séquence : seul le dernier est relu
+        Path dernier = segments.get(segments.size() - 1);
+        LecteurJournal.Fin fin = LecteurJournal.lireSegment(dernier, null, null);
+        String nom = dernier.getFileName().toString();
+        sequence = fin.derniereSequence >= 0 ? fin.derniereSequence
+                : Long.parseLong(nom.substring(0, nom.length() - LecteurJournal.EXTENSION.length())) - 1;
+        ouvert = true;
+        if (fin.corrompue) {
+            // Fin illisible gardée telle quelle pour l'analyse, on repart sur un segment neuf
+            ErrorLogger.logInfo("Journal : fin de " + dernier.getFileName() + " illisible, nouveau segment");
+            nouveauSegment(sequence + 1, maintenant);
+            return;
+        }
+        canal = FileChannel.open(dernier, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        zone = canal.map(FileChannel.MapMode.READ_WRITE, 0, canal.size());
+        zone.position(fin.position);
+        debutSegmentMillis = fin.premierHorodatage > 0 ? fin.premierHorodatage : maintenant;
+    }
+
+    private void nouveauSegment(long premiereSequence, long maintenant) throws IOException {
+        fermerSegment();
+        Path fichier = repertoire.resolve(String.format("%016d%s", premiereSequence, LecteurJournal.EXTENSION));
+        canal = FileChannel.open(fichier, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        // Fichier pré-alloué : projeté d'un bloc, rempli de zéros (fin des données)
+        zone = canal.map(FileChannel.MapMode.READ_WRITE, 0, tailleSegment);
+        debutSegmentMillis = maintenant;
+    }
+
+    private void fermerSegment() throws IOException {
+        if (zone != null) {
+            zone.force();
+            zone = null;
+        }
+        if (canal != null) {
+            canal.close();
+            canal = null;
+        }
+    }
+
+    private synchronized void forcer() {
+        if (zone != null) {
+            zone.force();
+        }
+    }
+
+    /**
+     * Écrit le segment courant sur disque et libère le poste (arrêt de l'application)
+     */
+    public synchronized void fermer() {
+        try {
+            fermerSegment();
+            if (verrou != null) {
+                verrou.release();
+                verrouCanal.close();
+            }
+        } catch (IOException e) {
+            ErrorLogger.logError("JournalCommandes.fermer", e);
+        }
+        verrou = null;
+        ouvert = false;
+    }
+
+    public Path getRepertoire() {
+        return repertoire;
+    }
+
+    public synchronized long getSequence() {
+        return sequence;
+    }
+
+    public boolean isActif() {
+        return actif && !horsService;
+    }
+}
@@ -0,0 +1,158 @@
+package com.restaurant.journal;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Lecture séquentielle des segments du journal (fichiers projetés en mémoire)
+ * Format d'un enregistrement : longueur (int), CRC32C (int), puis le corps :
+ * séquence (long), horodatage (long), type (byte), champs UTF-8 séparés par '|'
+ * Une longueur nulle marque la fin des données ; un CRC faux, une écriture interrompue
+ */
+public final class LecteurJournal {
+
+    static final int ENTETE = 8;
+    static final int CORPS_MIN = 17;
+    static final String EXTENSION = ".seg";
+
+    private LecteurJournal() {
+    }
+
+    /**
+     * Bilan d'un parcours
+     */
+    public static final class Bilan {
+        private int segments;
+        private long entrees;
+        private long octets;
+        private final List<String> anomalies = new ArrayList<>();
+
+        public int getSegments() { return segments; }
+        public long getEntrees() { return entrees; }
+        public long getOctets() { return octets; }
+        public List<String> getAnomalies() { return anomalies; }
+    }
+
+    /**
+     * Fin des données valides d'un segment
+     */
+    static final class Fin {
+        int position;
+        long derniereSequence = -1;
+        long premierHorodatage = -1;
+        boolean corrompue;
+    }
+
+    /**
+     * Segments d'un poste, dans l'ordre d'écriture (nom = première séquence, sur 16 chiffres)
+     */
+    public static List<Path> segments(Path repertoirePoste) throws IOException {
+        if (!Files.isDirectory(repertoirePoste)) {
+            return new ArrayList<>();
+        }
+        try (Stream<Path> fichiers = Files.list(repertoirePoste)) {
+            return fichiers.filter(f -> f.getFileName().toString().endsWith(EXTENSION))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Sous-répertoires des postes (le répertoire lui-même s'il contient des segments)
+     */
+    public static List<Path> postes(Path repertoire) throws IOException {
+        List<Path> postes = new ArrayList<>();
+        if (!segments(repertoire).isEmpty()) {
+            postes.add(repertoire);
+        }
+        if (Files.isDirectory(repertoire)) {
+            try (Stream<Path> fichiers = Files.list(repertoire)) {
+                fichiers.filter(Files::isDirectory).sorted().forEach(postes::add);
+            }
+        }
+        return postes;
+    }
+
+    /**
+     * Parcourt toutes les entrées d'un poste, dans l'ordre
+     */
+    public static Bilan parcourir(Path repertoirePoste, Consumer<EntreeJournal> consommateur) throws IOException {
+        Bilan bilan = new Bilan();
+        String poste = repertoirePoste.getFileName().toString();
+        for (Path segment : segments(repertoirePoste)) {
+            bilan.segments++;
+            Fin fin = lireSegment(segment, poste, entree -> {
+                bilan.entrees++;
+                consommateur.accept(entree);
+            });
+            bilan.octets += fin.position;
+            if (fin.corrompue) {
+                bilan.anomalies.add(segment.getFileName() + " : enregistrement illisible à l'octet " + fin.position
+                        + " (écriture interrompue), suite du segment ignorée");
+            }
+        }
+        return bilan;
+    }
+
+    /**
+     * Lit un segment jusqu'à la fin de ses données valides
+     * @param consommateur null pour seulement localiser la fin
+     */
+    static Fin lireSegment(Path segment, String poste, Consumer<EntreeJournal> consommateur) throws IOException {
+        Fin fin = new Fin();
+        try (FileChannel canal = FileChannel.open(segment, StandardOpenOption.READ)) {
+            MappedByteBuffer zone = canal.map(FileChannel.MapMode.READ_ONLY, 0, canal.size());
+            CRC32C crc = new CRC32C();
+            int position = 0;
+            while (position + ENTETE <= zone.limit()) {
+                int longueur = zone.getInt(position);
+                if (longueur == 0) {
+                    break;
+                }
+                if (longueur < CORPS_MIN || position + ENTETE + longueur > zone.limit()) {
+                    fin.corrompue = true;
+                    break;
+                }
+                byte[] corps = new byte[longueur];
+                zone.get(position + ENTETE, corps);
+                crc.reset();
+                crc.update(corps);
+                if ((int) crc.getValue() != zone.getInt(position + 4)) {
+                    fin.corrompue = true;
+                    break;
+                }
+
+                ByteBuffer b = ByteBuffer.wrap(corps);
+                long sequence = b.getLong();
+                long horodatage = b.getLong();
+                EntreeJournal.Type type = EntreeJournal.Type.deCode(b.get());
+                fin.derniereSequence = sequence;
+                if (fin.premierHorodatage < 0) {
+                    fin.premierHorodatage = horodatage;
+                }
+                if (consommateur != null) {
+                    String donnees = new String(corps, CORPS_MIN, longueur - CORPS_MIN, StandardCharsets.UTF_8);
+                    String[] champs = donnees.isEmpty() ? new String[0]
+                            : donnees.split(Pattern.quote(EntreeJournal.SEPARATEUR), -1);
+                    consommateur.accept(new EntreeJournal(poste, sequence, horodatage, type, champs));
+                }
+                position += ENTETE + longueur;
+            }
+            fin.position = position;
+        }
+        return fin;
+    }
+}
@@ -0,0 +1,584 @@
+package com.restaurant.journal;
+
+import com.restaurant.config.DatabaseConfig;
+import com.restaurant.model.enums.StatutCommande;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Outil de relecture du journal des commandes (application arrêtée)
+ *
+ * Usage : RejeuJournal [--journal=./data/journal] [--suspens] commande [id]
+ * - verifier : CRC, segments, transactions sans issue connue
+ * - audit [id] : opérations dans l'ordre (d'une commande)
+ * - etat : état reconstruit des commandes (cuisine, salle, caisse) sans la base
+ * - comparer : écarts entre l'état reconstruit et la base
+ * - reparer : corrige la base (commandes manquantes, statuts, lignes, remises, paiements)
+ * --suspens : rejoue aussi les opérations dont le commit n'a pas été marqué (arrêt brutal)
+ */
+public final class RejeuJournal {
+
+    enum Issue { VALIDE, ANNULE, SUSPENS }
+
+    private final List<EntreeJournal> operations = new ArrayList<>();
+    private final Map<EntreeJournal, Issue> issues = new HashMap<>();
+    private final List<LecteurJournal.Bilan> bilans = new ArrayList<>();
+    private final List<String> postes = new ArrayList<>();
+
+    private RejeuJournal() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Path repertoire = Paths.get(JournalCommandes.REPERTOIRE_DEFAUT);
+        boolean suspens = false;
+        List<String> arguments = new ArrayList<>();
+        for (String arg : args) {
+            if (arg.startsWith("--journal=")) {
+                repertoire = Paths.get(arg.substring("--journal=".length()));
+            } else if (arg.equals("--suspens")) {
+                suspens = true;
+            } else {
+                arguments.add(arg);
+            }
+        }
+        if (arguments.isEmpty()) {
+            System.out.println("Usage : RejeuJournal [--journal=rep] [--suspens] verifier|audit [id]|etat|comparer|reparer");
+            return;
+        }
+
+        long debut = System.nanoTime();
+        RejeuJournal rejeu = charger(repertoire);
+        System.out.printf("Journal %s : %d poste(s), %d opération(s) lues en %.0f ms%n%n", repertoire,
+                rejeu.postes.size(), rejeu.operations.size(), (System.nanoTime() - debut) / 1e6);
+
+        switch (arguments.get(0)) {
+            case "verifier":
+                rejeu.verifier();
+                break;
+            case "audit":
+                rejeu.audit(arguments.size() > 1 ? Long.parseLong(arguments.get(1)) : null);
+                break;
+            case "etat":
+                rejeu.afficherEtat(rejeu.reconstruire(suspens));
+                break;
+            case "comparer":
+                rejeu.synchroniserBase(rejeu.reconstruire(suspens), false);
+                break;
+            case "reparer":
+                rejeu.synchroniserBase(rejeu.reconstruire(suspens), true);
+                break;
+            default:
+                System.out.println("Commande inconnue : " + arguments.get(0));
+        }
+        if (arguments.get(0).equals("comparer") || arguments.get(0).equals("reparer")) {
+            DatabaseConfig.shutdown();
+        }
+    }
+
+    // ==================== LECTURE ====================
+
+    /**
+     * Lit les journaux de tous les postes et résout l'issue de chaque opération
+     */
+    static RejeuJournal charger(Path repertoire) throws IOException {
+        RejeuJournal rejeu = new RejeuJournal();
+        for (Path poste : LecteurJournal.postes(repertoire)) {
+            List<EntreeJournal> entrees = new ArrayList<>();
+            Set<Long> valides = new HashSet<>();
+            Set<Long> annules = new HashSet<>();
+            LecteurJournal.Bilan bilan = LecteurJournal.parcourir(poste, entree -> {
+                if (entree.getType().isMarqueur()) {
+                    Set<Long> cible = entree.getType() == EntreeJournal.Type.VALIDE ? valides : annules;
+                    for (int i = 0; i < entree.getNombreChamps(); i++) {
+                        cible.add(entree.getLong(i));
+                    }
+                } else {
+                    entrees.add(entree);
+                }
+            });
+            for (EntreeJournal entree : entrees) {
+                Issue issue = valides.contains(entree.getSequence()) ? Issue.VALIDE
+                        : annules.contains(entree.getSequence()) ? Issue.ANNULE : Issue.SUSPENS;
+                rejeu.issues.put(entree, issue);
+            }
+            rejeu.operations.addAll(entrees);
+            rejeu.bilans.add(bilan);
+            rejeu.postes.add(poste.getFileName().toString());
+        }
+        // Ordre global : horodatage, puis ordre d'écriture de chaque poste
+        rejeu.operations.sort(Comparator.comparingLong(EntreeJournal::getHorodatageMillis)
+                .thenComparing(EntreeJournal::getPoste)
+                .thenComparingLong(EntreeJournal::getSequence));
+        return rejeu;
+    }
+
+    /**
+     * Opérations de tous les postes, dans l'ordre global
+     */
+    List<EntreeJournal> getOperations() {
+        return operations;
+    }
+
+    /**
+     * Sort de la transaction d'une opération (marqueur VALIDE ou ANNULE, sinon en suspens)
+     */
+    Issue getIssue(EntreeJournal operation) {
+        return issues.get(operation);
+    }
+
+    List<LecteurJournal.Bilan> getBilans() {
+        return bilans;
+    }
+
+    private void verifier() {
+        for (int i = 0; i < postes.size(); i++) {
+            LecteurJournal.Bilan bilan = bilans.get(i);
+            System.out.printf("Poste %s : %d segment(s), %d entrée(s), %d octets%n", postes.get(i),
+                    bilan.getSegments(), bilan.getEntrees(), bilan.getOctets());
+            bilan.getAnomalies().forEach(a -> System.out.println("   ⚠ " + a));
+        }
+        Map<Issue, Integer> parIssue = new EnumMap<>(Issue.class);
+        for (Issue issue : issues.values()) {
+            parIssue.merge(issue, 1, Integer::sum);
+        }
+        System.out.println("\nOpérations : " + parIssue);
+        for (EntreeJournal op : operations) {
+            if (issues.get(op) == Issue.SUSPENS) {
+                System.out.println("   en suspens (commit non marqué) : " + op);
+            }
+        }
+    }
+
+    private void audit(Long commandeId) {
+        for (EntreeJournal op : operations) {
+            if (commandeId == null || op.getCommandeId() == commandeId) {
+                System.out.println(op + (issues.get(op) != Issue.VALIDE ? "  [" + issues.get(op) + "]" : ""));
+            }
+        }
+    }
+
+    // ==================== RECONSTRUCTION ====================
+
+    /**
+     * État d'une commande d'après le journal
+     */
+    static final class EtatCommande {
+        final long id;
+        boolean complete;       // création journalisée : l'état est entier
+        boolean supprimee;
+        Long tableId;
+        StatutCommande statut = StatutCommande.EN_ATTENTE;
+        LocalDateTime dateCommande;
+        final Map<StatutCommande, LocalDateTime> dates = new EnumMap<>(StatutCommande.class);
+        long remiseCents;
+        boolean remiseConnue;
+        // ligne -> {quantité, prix unitaire en centimes, plat} ; clé -plat pour une ligne
+        // journalisée sans identifiant (journal antérieur)
+        final Map<Long, long[]> lignes = new LinkedHashMap<>();
+        boolean lignesConnues;
+        final Map<Long, Object[]> paiements = new LinkedHashMap<>();
+
+        EtatCommande(long id) {
+            this.id = id;
+        }
+
+        long totalCents() {
+            long total = 0;
+            for (long[] ligne : lignes.values()) {
+                total += ligne[0] * ligne[1];
+            }
+            return total;
+        }
+
+        long payeCents() {
+            long paye = 0;
+            for (Object[] paiement : paiements.values()) {
+                paye += (Long) paiement[0];
+            }
+            return paye;
+        }
+
+        /**
+         * Reste dû : ouvert au service, nul une fois payée
+         */
+        long resteCents() {
+            return statut == StatutCommande.SERVI
+                    ? Math.max(0, totalCents() - remiseCents - payeCents()) : 0;
+        }
+
+        /**
+         * Ligne visée par une opération : son identifiant (champ donné), sinon la première
+         * ligne du même plat, ou la clé -plat si aucune
+         */
+        long cleLigne(EntreeJournal op, int champ) {
+            if (op.getNombreChamps() > champ && !op.get(champ).isEmpty()) {
+                return op.getLong(champ);
+            }
+            long platId = op.getLong(1);
+            for (Map.Entry<Long, long[]> ligne : lignes.entrySet()) {
+                if (ligne.getValue()[2] == platId) {
+                    return ligne.getKey();
+                }
+            }
+            return -platId;
+        }
+
+        long[] ligne(EntreeJournal op, int champ) {
+            return lignes.computeIfAbsent(cleLigne(op, champ), k -> new long[]{0, 0, op.getLong(1)});
+        }
+    }
+
+    Map<Long, EtatCommande> reconstruire(boolean avecSuspens) {
+        Map<Long, EtatCommande> etats = new TreeMap<>();
+        for (EntreeJournal op : operations) {
+            Issue issue = issues.get(op);
+            if (issue == Issue.ANNULE || (issue == Issue.SUSPENS && !avecSuspens)) {
+                continue;
+            }
+            EtatCommande etat = etats.computeIfAbsent(op.getCommandeId(), EtatCommande::new);
+            switch (op.getType()) {
+                case CREATION:
+                    etat.complete = true;
+                    etat.lignesConnues = true;
+                    etat.remiseConnue = true;
+                    etat.tableId = op.get(1).isEmpty() ? null : op.getLong(1);
+                    etat.dateCommande = date(op.get(2));
+                    etat.dates.put(StatutCommande.EN_ATTENTE, etat.dateCommande);
+                    break;
+                case LIGNE_AJOUTEE:
+                    long[] ligne = etat.ligne(op, 4);
+                    ligne[0] += op.getLong(2);
+                    ligne[1] = op.getLong(3);
+                    break;
+                case QUANTITE:
+                    etat.ligne(op, 3)[0] = op.getLong(2);
+                    break;
+                case LIGNE_RETIREE:
+                    etat.lignes.remove(etat.cleLigne(op, 2));
+                    break;
+                case REMISE:
+                    etat.remiseCents = op.getLong(1);
+                    etat.remiseConnue = true;
+                    break;
+                case TRANSITION:
+                    etat.statut = StatutCommande.valueOf(op.get(2));
+                    etat.dates.put(etat.statut, date(op.get(3)));
+                    break;
+                case PAIEMENT:
+                    etat.paiements.put(op.getLong(1), new Object[]{op.getLong(2), op.get(3), date(op.get(4))});
+                    break;
+                case SUPPRESSION:
+                    etat.supprimee = true;
+                    break;
+                default:
+                    break;
+            }
+        }
+        return etats;
+    }
+
+    private void afficherEtat(Map<Long, EtatCommande> etats) {
+        Map<StatutCommande, Integer> parStatut = new EnumMap<>(StatutCommande.class);
+        for (EtatCommande etat : etats.values()) {
+            if (!etat.supprimee) {
+                parStatut.merge(etat.statut, 1, Integer::sum);
+            }
+        }
+        System.out.println("Commandes par statut : " + parStatut);
+        System.out.println("\nCommandes ouvertes (cuisine, salle, caisse) :");
+        for (EtatCommande etat : etats.values()) {
+            if (etat.supprimee || !(etat.statut.estEnCours() || etat.statut == StatutCommande.SERVI)) {
+                continue;
+            }
+            StringBuilder sb = new StringBuilder();
+            for (Map.Entry<Long, long[]> ligne : etat.lignes.entrySet()) {
+                sb.append(ligne.getValue()[0]).append("x plat#").append(ligne.getValue()[2]).append(' ');
+            }
+            System.out.printf("  #%d table#%s %s depuis %s : %s(total %s€%s)%n", etat.id, etat.tableId, etat.statut,
+                    etat.dates.get(etat.statut), sb,
+                    BigDecimal.valueOf(etat.totalCents(), 2), etat.complete ? "" : ", partiel");
+        }
+    }
+
+    // ==================== BASE ====================
+
+    /**
+     * Compare l'état reconstruit à la base ; corrige si appliquer
+     * Les commandes antérieures au journal (sans création) ne sont corrigées que sur le statut
+     */
+    private void synchroniserBase(Map<Long, EtatCommande> etats, boolean appliquer) {
+        EntityManager em = DatabaseConfig.getEntityManager();
+        int ecarts = 0;
+        try {
+            em.getTransaction().begin();
+            for (EtatCommande etat : etats.values()) {
+                ecarts += synchroniser(em, etat, appliquer);
+            }
+            if (appliquer && ecarts > 0) {
+                recalerIdentite(em, "COMMANDE");
+                recalerIdentite(em, "LIGNE_COMMANDE");
+                recalerIdentite(em, "PAIEMENT");
+            }
+            em.getTransaction().commit();
+        } catch (RuntimeException e) {
+            if (em.getTransaction().isActive()) {
+                em.getTransaction().rollback();
+            }
+            throw e;
+        } finally {
+            em.close();
+        }
+        System.out.println("\n" + ecarts + " écart(s)" + (appliquer ? " corrigé(s)" : " (reparer pour corriger)"));
+    }
+
+    private int synchroniser(EntityManager em, EtatCommande etat, boolean appliquer) {
+        @SuppressWarnings("unchecked")
+        List<Object[]> lignesBase = em.createNativeQuery(
+                "SELECT STATUT, REMISEAPPLIQUEE FROM COMMANDE WHERE ID = ?1")
+                .setParameter(1, etat.id).getResultList();
+        LocalDateTime maintenant = LocalDateTime.now();
+
+        if (lignesBase.isEmpty()) {
+            if (etat.supprimee || !etat.complete) {
+                return 0;
+            }
+            System.out.println("  #" + etat.id + " absente de la base → recréée " + etat.statut);
+            if (appliquer) {
+                em.createNativeQuery("INSERT INTO COMMANDE (ID, DATECREATION, DATEMODIFICATION, DATECOMMANDE, "
+                        + "DATEENPREPARATION, DATEPRET, DATESERVI, REMISEAPPLIQUEE, STATUT, TABLE_ID, TOTAL, "
+                        + "MONTANTPAYE, RESTEAPAYER) VALUES (?1, ?2, ?3, ?4, ?5, ?6, ?7, ?8, ?9, ?10, ?11, ?12, ?13)")
+                        .setParameter(1, etat.id)
+                        .setParameter(2, etat.dateCommande != null ? etat.dateCommande : maintenant)
+                        .setParameter(3, maintenant)
+                        .setParameter(4, etat.dateCommande)
+                        .setParameter(5, etat.dates.get(StatutCommande.EN_PREPARATION))
+                        .setParameter(6, etat.dates.get(StatutCommande.PRET))
+                        .setParameter(7, etat.dates.get(StatutCommande.SERVI))
+                        .setParameter(8, euros(etat.remiseCents))
+                        .setParameter(9, etat.statut.name())
+                        .setParameter(10, etat.tableId)
+                        .setParameter(11, euros(etat.totalCents()))
+                        .setParameter(12, euros(etat.payeCents()))
+                        .setParameter(13, euros(etat.resteCents()))
+                        .executeUpdate();
+                for (Map.Entry<Long, long[]> ligne : etat.lignes.entrySet()) {
+                    insererLigne(em, etat.id, ligne.getKey(), ligne.getValue(), maintenant);
+                }
+            }
+            // Paiements insérés sans toucher au solde, déjà calculé à la recréation
+            return 1 + synchroniserPaiements(em, etat, appliquer, maintenant, false);
+        }
+
+        int ecarts = 0;
+        StatutCommande statutBase = StatutCommande.valueOf((String) lignesBase.get(0)[0]);
+        if (etat.supprimee) {
+            if (statutBase == StatutCommande.EN_ATTENTE) {
+                System.out.println("  #" + etat.id + " supprimée au journal, présente en base → supprimée");
+                if (appliquer) {
+                    em.createNativeQuery("DELETE FROM LIGNE_COMMANDE WHERE COMMANDE_ID = ?1")
+                            .setParameter(1, etat.id).executeUpdate();
+                    em.createNativeQuery("DELETE FROM COMMANDE WHERE ID = ?1")
+                            .setParameter(1, etat.id).executeUpdate();
+                }
+                ecarts++;
+            }
+            return ecarts;
+        }
+
+        if (statutBase != etat.statut && etat.statut.ordinal() > statutBase.ordinal()
+                || statutBase != etat.statut && etat.statut == StatutCommande.ANNULEE) {
+            System.out.println("  #" + etat.id + " statut " + statutBase + " en base, " + etat.statut + " au journal");
+            if (appliquer) {
+                em.createNativeQuery("UPDATE COMMANDE SET STATUT = ?1, DATEENPREPARATION = COALESCE(?2, DATEENPREPARATION), "
+                        + "DATEPRET = COALESCE(?3, DATEPRET), DATESERVI = COALESCE(?4, DATESERVI), DATEMODIFICATION = ?5, "
+                        + "RESTEAPAYER = CASE WHEN ?1 = 'SERVI' THEN GREATEST(COALESCE(TOTAL, 0) "
+                        + "- COALESCE(REMISEAPPLIQUEE, 0) - COALESCE(MONTANTPAYE, 0), 0) ELSE 0 END "
+                        + "WHERE ID = ?6")
+                        .setParameter(1, etat.statut.name())
+                        .setParameter(2, etat.dates.get(StatutCommande.EN_PREPARATION))
+                        .setParameter(3, etat.dates.get(StatutCommande.PRET))
+                        .setParameter(4, etat.dates.get(StatutCommande.SERVI))
+                        .setParameter(5, maintenant)
+                        .setParameter(6, etat.id)
+                        .executeUpdate();
+            }
+            ecarts++;
+        }
+
+        if (etat.remiseConnue && euros(etat.remiseCents).compareTo(decimal(lignesBase.get(0)[1])) != 0) {
+            System.out.println("  #" + etat.id + " remise " + lignesBase.get(0)[1] + " en base, "
+                    + euros(etat.remiseCents) + " au journal");
+            if (appliquer) {
+                em.createNativeQuery("UPDATE COMMANDE SET REMISEAPPLIQUEE = ?1 WHERE ID = ?2")
+                        .setParameter(1, euros(etat.remiseCents)).setParameter(2, etat.id).executeUpdate();
+            }
+            ecarts++;
+        }
+
+        if (etat.lignesConnues) {
+            ecarts += synchroniserLignes(em, etat, appliquer, maintenant);
+        }
+        return ecarts + synchroniserPaiements(em, etat, appliquer, maintenant, true);
+    }
+
+    private int synchroniserLignes(EntityManager em, EtatCommande etat, boolean appliquer, LocalDateTime maintenant) {
+        @SuppressWarnings("unchecked")
+        List<Object[]> lignesBase = em.createNativeQuery(
+                "SELECT ID, PLAT_ID, QUANTITE FROM LIGNE_COMMANDE WHERE COMMANDE_ID = ?1 ORDER BY ID")
+                .setParameter(1, etat.id).getResultList();
+        // ligne -> {plat, quantité}
+        Map<Long, long[]> enBase = new LinkedHashMap<>();
+        for (Object[] ligne : lignesBase) {
+            enBase.put(((Number) ligne[0]).longValue(),
+                    new long[]{((Number) ligne[1]).longValue(), ((Number) ligne[2]).longValue()});
+        }
+        int ecarts = 0;
+        for (Map.Entry<Long, long[]> ligne : etat.lignes.entrySet()) {
+            long platId = ligne.getValue()[2];
+            Long id = ligneEnBase(enBase, ligne.getKey(), platId);
+            long[] base = id != null ? enBase.remove(id) : null;
+            if (base == null) {
+                System.out.println("  #" + etat.id + " ligne " + libelleLigne(ligne.getKey(), platId) + " manquante");
+                if (appliquer) {
+                    insererLigne(em, etat.id, ligne.getKey(), ligne.getValue(), maintenant);
+                }
+                ecarts++;
+            } else if (base[1] != ligne.getValue()[0]) {
+                System.out.println("  #" + etat.id + " ligne " + libelleLigne(id, platId) + " quantité " + base[1]
+                        + " en base, " + ligne.getValue()[0] + " au journal");
+                if (appliquer) {
+                    em.createNativeQuery("UPDATE LIGNE_COMMANDE SET QUANTITE = ?1, DATEMODIFICATION = ?2 WHERE ID = ?3")
+                            .setParameter(1, (int) ligne.getValue()[0]).setParameter(2, maintenant)
+                            .setParameter(3, id).executeUpdate();
+                }
+                ecarts++;
+            }
+        }
+        for (Map.Entry<Long, long[]> ligne : enBase.entrySet()) {
+            System.out.println("  #" + etat.id + " ligne " + libelleLigne(ligne.getKey(), ligne.getValue()[0])
+                    + " retirée au journal");
+            if (appliquer) {
+                em.createNativeQuery("DELETE FROM LIGNE_COMMANDE WHERE ID = ?1")
+                        .setParameter(1, ligne.getKey()).executeUpdate();
+            }
+            ecarts++;
+        }
+        if (ecarts > 0 && appliquer) {
+            em.createNativeQuery("UPDATE COMMANDE SET TOTAL = ?1 WHERE ID = ?2")
+                    .setParameter(1, euros(etat.totalCents())).setParameter(2, etat.id).executeUpdate();
+        }
+        return ecarts;
+    }
+
+    private int synchroniserPaiements(EntityManager em, EtatCommande etat, boolean appliquer, LocalDateTime maintenant,
+                                      boolean imputer) {
+        int ecarts = 0;
+        for (Map.Entry<Long, Object[]> paiement : etat.paiements.entrySet()) {
+            Number existe = (Number) em.createNativeQuery("SELECT COUNT(*) FROM PAIEMENT WHERE ID = ?1")
+                    .setParameter(1, paiement.getKey()).getSingleResult();
+            if (existe.longValue() > 0) {
+                continue;
+            }
+            Object[] p = paiement.getValue();
+            System.out.println("  #" + etat.id + " paiement#" + paiement.getKey() + " de "
+                    + euros((Long) p[0]) + "€ manquant");
+            if (appliquer) {
+                em.createNativeQuery("INSERT INTO PAIEMENT (ID, DATECREATION, DATEMODIFICATION, DATEPAIEMENT, "
+                        + "MODEPAIEMENT, MONTANT, COMMANDE_ID) VALUES (?1, ?2, ?3, ?4, ?5, ?6, ?7)")
+                        .setParameter(1, paiement.getKey())
+                        .setParameter(2, p[2] != null ? p[2] : maintenant)
+                        .setParameter(3, maintenant)
+                        .setParameter(4, p[2] != null ? p[2] : maintenant)
+                        .setParameter(5, p[1])
+                        .setParameter(6, euros((Long) p[0]))
+                        .setParameter(7, etat.id)
+                        .executeUpdate();
+                if (imputer) {
+                    em.createNativeQuery("UPDATE COMMANDE SET MONTANTPAYE = COALESCE(MONTANTPAYE, 0) + ?1, "
+                            + "RESTEAPAYER = GREATEST(COALESCE(RESTEAPAYER, 0) - ?1, 0) WHERE ID = ?2")
+                            .setParameter(1, euros((Long) p[0]))
+                            .setParameter(2, etat.id)
+                            .executeUpdate();
+                }
+            }
+            ecarts++;
+        }
+        return ecarts;
+    }
+
+    /**
+     * Ligne en base d'une ligne du journal : même identifiant, sinon (clé -plat, sans
+     * identifiant journalisé) la première ligne restante du même plat ; null si absente
+     */
+    private static Long ligneEnBase(Map<Long, long[]> enBase, long cle, long platId) {
+        if (cle > 0) {
+            return enBase.containsKey(cle) ? cle : null;
+        }
+        for (Map.Entry<Long, long[]> ligne : enBase.entrySet()) {
+            if (ligne.getValue()[0] == platId) {
+                return ligne.getKey();
+            }
+        }
+        return null;
+    }
+
+    private static String libelleLigne(long cle, long platId) {
+        return (cle > 0 ? "#" + cle + " " : "") + "plat#" + platId;
+    }
+
+    /**
+     * Insère une ligne du journal, sous son identifiant s'il est connu (clé positive)
+     */
+    private static void insererLigne(EntityManager em, long commandeId, long cle, long[] ligne,
+                                     LocalDateTime maintenant) {
+        Query q = cle > 0
+                ? em.createNativeQuery("INSERT INTO LIGNE_COMMANDE (DATECREATION, DATEMODIFICATION, PRIX, QUANTITE, "
+                        + "COMMANDE_ID, PLAT_ID, ID) VALUES (?1, ?2, ?3, ?4, ?5, ?6, ?7)").setParameter(7, cle)
+                : em.createNativeQuery("INSERT INTO LIGNE_COMMANDE (DATECREATION, DATEMODIFICATION, PRIX, QUANTITE, "
+                        + "COMMANDE_ID, PLAT_ID) VALUES (?1, ?2, ?3, ?4, ?5, ?6)");
+        q.setParameter(1, maintenant)
+                .setParameter(2, maintenant)
+                .setParameter(3, euros(ligne[1]))
+                .setParameter(4, (int) ligne[0])
+                .setParameter(5, commandeId)
+                .setParameter(6, ligne[2])
+                .executeUpdate();
+    }
+
+    /**
+     * Identités explicites insérées : le compteur doit repartir au-delà
+     */
+    private static void recalerIdentite(EntityManager em, String table) {
+        Number max = (Number) em.createNativeQuery("SELECT COALESCE(MAX(ID), 0) FROM " + table).getSingleResult();
+        Query q = em.createNativeQuery("ALTER TABLE " + table + " ALTER COLUMN ID RESTART WITH " + (max.longValue() + 1));
+        q.executeUpdate();
+    }
+
+    private static BigDecimal euros(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+
+    private static BigDecimal decimal(Object valeur) {
+        return valeur == null ? BigDecimal.ZERO.setScale(2) : new BigDecimal(valeur.toString());
+    }
+
+    private static LocalDateTime date(String texte) {
+        return texte == null || texte.isEmpty() ? null : LocalDateTime.parse(texte);
+    }
+}
@@ -0,0 +1,166 @@
+package com.restaurant.model;
+
+import javax.persistence.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Clôture de caisse d'une journée (ticket Z), figée une fois la journée terminée
+ * - encaissements datés du jour : chiffre d'affaires, ventilé par mode et par heure
+ * - commandes créées le jour : nombre, annulées, encore ouvertes à la clôture
+ * - commandes soldées le jour (date du paiement qui les solde, comme le CA) : réglées,
+ *   ventes brutes, remises, quantités par plat ; une commande créée la veille et réglée
+ *   après la clôture compte ainsi dans le ticket Z du jour de son règlement
+ * Le rapport d'un jour clos se lit en une requête ; mois et année somment les clôtures
+ */
+@Entity
+@Table(name = "cloture_journee", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_cloture_jour", columnNames = "jour")
+})
+public class ClotureJournee extends BaseEntity {
+
+    @Column(nullable = false)
+    private LocalDate jour;
+
+    @Column(nullable = false)
+    private LocalDateTime dateCloture;
+
+    @Column(nullable = false)
+    private int nbCommandes;
+
+    @Column(nullable = false)
+    private int nbPayees; // soldées le jour (PAYEE ou FINALISEE)
+
+    @Column(nullable = false)
+    private int nbAnnulees;
+
+    @Column(nullable = false)
+    private int nbEnCours; // créées le jour, ni réglées ni annulées à la clôture
+
+    @Column(nullable = false)
+    private int nbPaiements;
+
+    // Somme des paiements du jour (montants imputés, hors rendu monnaie)
+    @Column(nullable = false, precision = 12, scale = 2)
+    private Money chiffreAffaires = Money.ZERO;
+
+    // Total avant remise et remises des commandes soldées le jour
+    @Column(nullable = false, precision = 12, scale = 2)
+    private Money ventesBrutes = Money.ZERO;
+
+    @Column(nullable = false, precision = 12, scale = 2)
+    private Money remises = Money.ZERO;
+
+    @OneToMany(mappedBy = "cloture", cascade = CascadeType.ALL, orphanRemoval = true)
+    private List<ClotureLigne> lignes = new ArrayList<>();
+
+    // Constructeurs
+    public ClotureJournee() {
+    }
+
+    public ClotureJournee(LocalDate jour) {
+        this.jour = jour;
+        this.dateCloture = LocalDateTime.now();
+    }
+
+    public void addLigne(ClotureLigne ligne) {
+        ligne.setCloture(this);
+        lignes.add(ligne);
+    }
+
+    // Getters et Setters
+    public LocalDate getJour() {
+        return jour;
+    }
+
+    public void setJour(LocalDate jour) {
+        this.jour = jour;
+    }
+
+    public LocalDateTime getDateCloture() {
+        return dateCloture;
+    }
+
+    public void setDateCloture(LocalDateTime dateCloture) {
+        this.dateCloture = dateCloture;
+    }
+
+    public int getNbCommandes() {
+        return nbCommandes;
+    }
+
+    public void setNbCommandes(int nbCommandes) {
+        this.nbCommandes = nbCommandes;
+    }
+
+    public int getNbPayees() {
+        return nbPayees;
+    }
+
+    public void setNbPayees(int nbPayees) {
+        this.nbPayees = nbPayees;
+    }
+
+    public int getNbAnnulees() {
+        return nbAnnulees;
+    }
+
+    public void setNbAnnulees(int nbAnnulees) {
+        this.nbAnnulees = nbAnnulees;
+    }
+
+    public int getNbEnCours() {
+        return nbEnCours;
+    }
+
+    public void setNbEnCours(int nbEnCours) {
+        this.nbEnCours = nbEnCours;
+    }
+
+    public int getNbPaiements() {
+        return nbPaiements;
+    }
+
+    public void setNbPaiements(int nbPaiements) {
+        this.nbPaiements = nbPaiements;
+    }
+
+    public Money getChiffreAffaires() {
+        return chiffreAffaires;
+    }
+
+    public void setChiffreAffaires(Money chiffreAffaires) {
+        this.chiffreAffaires = chiffreAffaires;
+    }
+
+    public Money getVentesBrutes() {
+        return ventesBrutes;
+    }
+
+    public void setVentesBrutes(Money ventesBrutes) {
+        this.ventesBrutes = ventesBrutes;
+    }
+
+    public Money getRemises() {
+        return remises;
+    }
+
+    public void setRemises(Money remises) {
+        this.remises = remises;
+    }
+
+    public List<ClotureLigne> getLignes() {
+        return lignes;
+    }
+
+    public void setLignes(List<ClotureLigne> lignes) {
+        this.lignes = lignes;
+    }
+
+    @Override
+    public String toString() {
+        return "Clôture du " + jour + ": " + chiffreAffaires + "€ (" + nbPayees + " commandes réglées)";
+    }
+}
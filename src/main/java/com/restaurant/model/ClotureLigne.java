@@ -0,0 +1,89 @@
+package com.restaurant.model;
+
+import com.restaurant.model.enums.TypeLigneCloture;
+import javax.persistence.*;
+
+/**
+ * Ligne de détail d'une clôture : un mode de paiement, un plat ou une heure de la journée
+ * Le plat est gardé par son nom au moment de la clôture (le ticket Z ne change plus)
+ */
+@Entity
+@Table(name = "cloture_ligne", indexes = {
+        @Index(name = "idx_cloture_ligne_cloture", columnList = "cloture_id")
+})
+public class ClotureLigne extends BaseEntity {
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "cloture_id", nullable = false)
+    private ClotureJournee cloture;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private TypeLigneCloture type;
+
+    @Column(nullable = false, length = 100)
+    private String cle; // mode, nom du plat, ou heure ("0".."23")
+
+    @Column(nullable = false)
+    private long quantite; // paiements, ou unités vendues pour un plat
+
+    @Column(nullable = false, precision = 12, scale = 2)
+    private Money montant = Money.ZERO;
+
+    // Constructeurs
+    public ClotureLigne() {
+    }
+
+    public ClotureLigne(TypeLigneCloture type, String cle, long quantite, Money montant) {
+        this.type = type;
+        this.cle = cle;
+        this.quantite = quantite;
+        this.montant = montant;
+    }
+
+    // Getters et Setters
+    public ClotureJournee getCloture() {
+        return cloture;
+    }
+
+    public void setCloture(ClotureJournee cloture) {
+        this.cloture = cloture;
+    }
+
+    public TypeLigneCloture getType() {
+        return type;
+    }
+
+    public void setType(TypeLigneCloture type) {
+        this.type = type;
+    }
+
+    public String getCle() {
+        return cle;
+    }
+
+    public void setCle(String cle) {
+        this.cle = cle;
+    }
+
+    public long getQuantite() {
+        return quantite;
+    }
+
+    public void setQuantite(long quantite) {
+        this.quantite = quantite;
+    }
+
+    public Money getMontant() {
+        return montant;
+    }
+
+    public void setMontant(Money montant) {
+        this.montant = montant;
+    }
+
+    @Override
+    public String toString() {
+        return type + " " + cle + ": " + quantite + " / " + montant + "€";
+    }
+}
@@ -1,13 +1,20 @@
 package com.restaurant.model;
 
 import com.restaurant.model.enums.StatutCommande;
+import com.restaurant.util.LongObjectMap;
 import javax.persistence.*;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 
 @Entity
-@Table(name = "commande")
+@Table(name = "commande", indexes = {
+        // "Qui doit encore payer" : recherche par solde > 0 sans parcourir les paiements
+        @Index(name = "idx_commande_reste", columnList = "resteAPayer, statut"),
+        // Rapports et clôture : commandes créées dans une journée
+        @Index(name = "idx_commande_creation", columnList = "dateCreation")
+})
 public class Commande extends BaseEntity {
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -18,12 +25,31 @@ public class Commande extends BaseEntity {
     @Column(nullable = false)
     private StatutCommande statut = StatutCommande.EN_ATTENTE;
 
-    @Column
-    private Double remiseAppliquee = 0.0;
+    @Column(precision = 12, scale = 2)
+    private Money remiseAppliquee = Money.ZERO;
+
+    // Total des lignes (avant remise), dénormalisé : tenu à jour par addLigne/removeLigne
+    // et les modifications de quantité/prix, pour lister et sommer sans charger les lignes
+    @Column(precision = 12, scale = 2)
+    private Money total = Money.ZERO;
+
+    // Montant encaissé (paiements partiels cumulés) et reste dû, tenus à jour à chaque paiement
+    // par une mise à jour incrémentale ; le reste est fixé au service et vaut 0 hors SERVI
+    @Column(precision = 12, scale = 2)
+    private Money montantPaye = Money.ZERO;
+
+    @Column(precision = 12, scale = 2)
+    private Money resteAPayer = Money.ZERO;
 
     @Column
     private LocalDateTime dateCommande; // Date/heure de prise de commande
 
+    @Column
+    private LocalDateTime dateEnPreparation; // Date/heure d'envoi en cuisine
+
+    @Column
+    private LocalDateTime datePret; // Date/heure où la commande est prête
+
     @Column
     private LocalDateTime dateServi; // Date/heure de service
 
@@ -33,6 +59,18 @@ public class Commande extends BaseEntity {
     @OneToMany(mappedBy = "commande", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<Paiement> paiements = new ArrayList<>();
 
+    // Index plat id -> première ligne du plat (fusion des doublons sans parcourir les lignes)
+    // Valable pour la liste indexée tant que son nombre de lignes suit addLigne/removeLigne
+    @Transient
+    private transient LongObjectMap<LigneCommande> lignesParPlat;
+    @Transient
+    private transient List<LigneCommande> lignesIndexees;
+    @Transient
+    private transient int nbLignesIndexees;
+    // Plusieurs lignes d'un même plat : un retrait peut laisser la place à la suivante
+    @Transient
+    private transient boolean doublonsIndexes;
+
     // Constructeurs
     public Commande() {
         this.dateCommande = LocalDateTime.now();
@@ -58,20 +96,85 @@ public class Commande extends BaseEntity {
     }
 
     public void setStatut(StatutCommande statut) {
+        changerStatut(statut, LocalDateTime.now());
+    }
+
+    /**
+     * Change le statut et horodate l'entrée dans ce statut (si pas déjà fait)
+     */
+    public void changerStatut(StatutCommande statut, LocalDateTime horodatage) {
         this.statut = statut;
 
-        // Mettre à jour dateServi quand la commande est servie
-        if (statut == StatutCommande.SERVI && this.dateServi == null) {
-            this.dateServi = LocalDateTime.now();
+        if (statut == StatutCommande.EN_PREPARATION && this.dateEnPreparation == null) {
+            this.dateEnPreparation = horodatage;
+        } else if (statut == StatutCommande.PRET && this.datePret == null) {
+            this.datePret = horodatage;
+        } else if (statut == StatutCommande.SERVI && this.dateServi == null) {
+            // Mettre à jour dateServi quand la commande est servie
+            this.dateServi = horodatage;
+        }
+
+        // Le solde s'ouvre au service (contenu figé) et se ferme avec l'encaissement ou l'annulation
+        if (statut == StatutCommande.SERVI) {
+            recalculerResteAPayer();
+        } else if (statut == StatutCommande.PAYEE || statut == StatutCommande.ANNULEE) {
+            resteAPayer = Money.ZERO;
+        }
+    }
+
+    /**
+     * Date d'entrée dans un statut du service, null si inconnue ou non horodatée
+     */
+    public LocalDateTime getDateEntree(StatutCommande statut) {
+        switch (statut) {
+            case EN_ATTENTE:
+                return dateCommande != null ? dateCommande : getDateCreation();
+            case EN_PREPARATION:
+                return dateEnPreparation;
+            case PRET:
+                return datePret;
+            case SERVI:
+                return dateServi;
+            default:
+                return null;
         }
     }
 
-    public Double getRemiseAppliquee() {
-        return remiseAppliquee != null ? remiseAppliquee : 0.0;
+    public Money getRemiseAppliquee() {
+        return remiseAppliquee != null ? remiseAppliquee : Money.ZERO;
     }
 
-    public void setRemiseAppliquee(Double remiseAppliquee) {
+    /**
+     * Remise sur la commande ; solde ouvert (servie) : le reste dû suit la nouvelle remise
+     */
+    public void setRemiseAppliquee(Money remiseAppliquee) {
         this.remiseAppliquee = remiseAppliquee;
+        if (statut == StatutCommande.SERVI) {
+            recalculerResteAPayer();
+        }
+    }
+
+    private void recalculerResteAPayer() {
+        resteAPayer = Money.ofCents(Math.max(0, getTotalAvecRemiseCents() - getMontantPaye().getCents()));
+    }
+
+    public Money getMontantPaye() {
+        return montantPaye != null ? montantPaye : Money.ZERO;
+    }
+
+    public Money getResteAPayer() {
+        return resteAPayer != null ? resteAPayer : Money.ZERO;
+    }
+
+    /**
+     * Reflète en mémoire un paiement enregistré en base (partiel ou soldant la commande)
+     */
+    public void appliquerPaiement(Money applique, LocalDateTime horodatage) {
+        montantPaye = Money.ofCents(getMontantPaye().getCents() + applique.getCents());
+        resteAPayer = Money.ofCents(Math.max(0, getResteAPayer().getCents() - applique.getCents()));
+        if (!resteAPayer.isPositive()) {
+            changerStatut(StatutCommande.PAYEE, horodatage);
+        }
     }
 
     public LocalDateTime getDateCommande() {
@@ -82,6 +185,22 @@ public class Commande extends BaseEntity {
         this.dateCommande = dateCommande;
     }
 
+    public LocalDateTime getDateEnPreparation() {
+        return dateEnPreparation;
+    }
+
+    public void setDateEnPreparation(LocalDateTime dateEnPreparation) {
+        this.dateEnPreparation = dateEnPreparation;
+    }
+
+    public LocalDateTime getDatePret() {
+        return datePret;
+    }
+
+    public void setDatePret(LocalDateTime datePret) {
+        this.datePret = datePret;
+    }
+
     public LocalDateTime getDateServi() {
         return dateServi;
     }
@@ -96,6 +215,8 @@ public class Commande extends BaseEntity {
 
     public void setLignes(List<LigneCommande> lignes) {
         this.lignes = lignes;
+        this.lignesParPlat = null;
+        recalculerTotal();
     }
 
     public List<Paiement> getPaiements() {
@@ -107,30 +228,109 @@ public class Commande extends BaseEntity {
     }
 
     // Méthodes de calcul
-    public Double getTotal() {
-        if (lignes == null || lignes.isEmpty()) {
-            return 0.0;
+    public Money getTotal() {
+        return Money.ofCents(getTotalCents());
+    }
+
+    public Money getTotalAvecRemise() {
+        return Money.ofCents(getTotalAvecRemiseCents());
+    }
+
+    /**
+     * Total en centimes, lu depuis la colonne dénormalisée (ne charge pas les lignes)
+     */
+    public long getTotalCents() {
+        if (total == null) {
+            recalculerTotal();
         }
+        return total.getCents();
+    }
 
-        return lignes.stream()
-                .mapToDouble(LigneCommande::getSousTotal)
-                .sum();
+    /**
+     * Recalcule le total depuis les lignes (ancienne ligne sans total, contrôle)
+     */
+    public void recalculerTotal() {
+        long somme = 0;
+        if (lignes != null) {
+            for (int i = 0; i < lignes.size(); i++) {
+                somme += lignes.get(i).getSousTotalCents();
+            }
+        }
+        total = Money.ofCents(somme);
     }
 
-    public Double getTotalAvecRemise() {
-        double total = getTotal();
-        double remise = getRemiseAppliquee();
-        return Math.max(0, total - remise);
+    /**
+     * Appelé par LigneCommande quand sa quantité ou son prix change
+     */
+    void ajusterTotal(long deltaCents) {
+        if (deltaCents != 0) {
+            total = Money.ofCents(getTotalCents() + deltaCents);
+        }
+    }
+
+    public long getTotalAvecRemiseCents() {
+        return Math.max(0, getTotalCents() - getRemiseAppliquee().getCents());
     }
 
     public void addLigne(LigneCommande ligne) {
         lignes.add(ligne);
         ligne.setCommande(this);
+        ajusterTotal(ligne.getSousTotalCents());
+        if (lignesParPlat != null) {
+            indexer(lignesParPlat, ligne);
+            nbLignesIndexees++;
+        }
     }
 
     public void removeLigne(LigneCommande ligne) {
-        lignes.remove(ligne);
+        boolean retiree = lignes.remove(ligne);
+        if (retiree) {
+            ajusterTotal(-ligne.getSousTotalCents());
+        }
         ligne.setCommande(null);
+        if (lignesParPlat != null && retiree) {
+            nbLignesIndexees--;
+            if (doublonsIndexes) {
+                lignesParPlat = null;
+            } else if (ligne.getPlat() != null && ligne.getPlat().getId() != null
+                    && lignesParPlat.get(ligne.getPlat().getId()) == ligne) {
+                lignesParPlat.remove(ligne.getPlat().getId());
+            }
+        }
+    }
+
+    /**
+     * Ligne existante pour ce plat (la première s'il y en a plusieurs), ou null
+     */
+    public LigneCommande findLigneByPlatId(long platId) {
+        LongObjectMap<LigneCommande> index = lignesParPlat;
+        if (index != null && lignesIndexees == lignes && nbLignesIndexees == lignes.size()) {
+            LigneCommande ligne = index.get(platId);
+            if (ligne == null || ligne.getCommande() == this) {
+                return ligne;
+            }
+        }
+        // Index absent ou périmé (liste modifiée hors addLigne/removeLigne) : reconstruction
+        index = new LongObjectMap<>(lignes.size());
+        doublonsIndexes = false;
+        for (LigneCommande ligne : lignes) {
+            indexer(index, ligne);
+        }
+        lignesParPlat = index;
+        lignesIndexees = lignes;
+        nbLignesIndexees = lignes.size();
+        return index.get(platId);
+    }
+
+    private void indexer(LongObjectMap<LigneCommande> index, LigneCommande ligne) {
+        if (ligne.getPlat() == null || ligne.getPlat().getId() == null) {
+            return;
+        }
+        if (index.get(ligne.getPlat().getId()) == null) {
+            index.put(ligne.getPlat().getId(), ligne);
+        } else {
+            doublonsIndexes = true;
+        }
     }
 
     public void addPaiement(Paiement paiement) {
@@ -143,9 +343,32 @@ public class Commande extends BaseEntity {
         paiement.setCommande(null);
     }
 
+    /**
+     * Vrai si les deux lectures de la même commande sont identiques pour l'affichage
+     * (version = date de modification, statut, total, remise, reste dû et nombre de lignes chargées)
+     */
+    public boolean memeVersion(Commande autre) {
+        if (autre == this) {
+            return true;
+        }
+        if (autre == null || getId() == null || !getId().equals(autre.getId())) {
+            return false;
+        }
+        if (statut != autre.statut
+                || !Objects.equals(getDateModification(), autre.getDateModification())
+                || getTotalCents() != autre.getTotalCents()
+                || getRemiseAppliquee().getCents() != autre.getRemiseAppliquee().getCents()
+                || getResteAPayer().getCents() != autre.getResteAPayer().getCents()) {
+            return false;
+        }
+        PersistenceUtil util = Persistence.getPersistenceUtil();
+        return !util.isLoaded(this, "lignes") || !util.isLoaded(autre, "lignes")
+                || lignes.size() == autre.lignes.size();
+    }
+
     @Override
     public String toString() {
         return "Commande #" + getId() + " - Table " + (table != null ? table.getNumeroTable() : "?")
-                + " - " + statut + " - " + getTotalAvecRemise() + "€";
+                + " - " + statut + " - " + Money.format(getTotalAvecRemiseCents());
     }
 }
\ No newline at end of file
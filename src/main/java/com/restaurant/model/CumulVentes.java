@@ -0,0 +1,71 @@
+package com.restaurant.model;
+
+import com.restaurant.model.enums.DimensionVentes;
+import com.restaurant.model.enums.Granularite;
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Cumul des ventes d'une tranche de temps (heure, jour, semaine, mois) pour une dimension
+ * - TOTAL et MODE_PAIEMENT : nombre et montant des paiements
+ * - PLAT et CATEGORIE (clé = identifiant) : unités et montant des lignes, comptés
+ *   au paiement qui solde la commande
+ * Tenu à jour par CumulVentesService (jamais modifié par entité)
+ */
+@Entity
+@Table(name = "cumul_ventes", uniqueConstraints = {
+        // Clé du cumul, et lecture d'une série : granularité, dimension puis plage de dates
+        @UniqueConstraint(name = "uk_cumul_ventes", columnNames = {"granularite", "dimension", "debut", "cle"})
+})
+public class CumulVentes extends BaseEntity {
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private Granularite granularite;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private DimensionVentes dimension;
+
+    @Column(nullable = false)
+    private LocalDateTime debut; // début de la tranche
+
+    @Column(nullable = false, length = 100)
+    private String cle; // "*" (total), mode, id du plat ou de la catégorie
+
+    @Column(nullable = false)
+    private long quantite;
+
+    @Column(nullable = false, precision = 14, scale = 2)
+    private Money montant = Money.ZERO;
+
+    // Getters
+    public Granularite getGranularite() {
+        return granularite;
+    }
+
+    public DimensionVentes getDimension() {
+        return dimension;
+    }
+
+    public LocalDateTime getDebut() {
+        return debut;
+    }
+
+    public String getCle() {
+        return cle;
+    }
+
+    public long getQuantite() {
+        return quantite;
+    }
+
+    public Money getMontant() {
+        return montant;
+    }
+
+    @Override
+    public String toString() {
+        return granularite + " " + debut + " " + dimension + " " + cle + ": " + quantite + " / " + montant + "€";
+    }
+}
@@ -17,8 +17,8 @@ public class LigneCommande extends BaseEntity {
     @Column(nullable = false)
     private Integer quantite;
 
-    @Column(nullable = false)
-    private Double prix;
+    @Column(nullable = false, precision = 12, scale = 2)
+    private Money prix;
 
     // Constructeurs
     public LigneCommande() {
@@ -53,23 +53,43 @@ public class LigneCommande extends BaseEntity {
     }
 
     public void setQuantite(Integer quantite) {
+        long avant = getSousTotalCents();
         this.quantite = quantite;
+        reporterSurCommande(avant);
     }
 
-    public Double getPrix() {
+    public Money getPrix() {
         return prix;
     }
 
-    public void setPrix(Double prix) {
+    public void setPrix(Money prix) {
+        long avant = getSousTotalCents();
         this.prix = prix;
+        reporterSurCommande(avant);
+    }
+
+    public Money getSousTotal() {
+        return Money.ofCents(getSousTotalCents());
+    }
+
+    /**
+     * Sous-total en centimes (sans allocation, pour les sommes)
+     */
+    public long getSousTotalCents() {
+        return prix != null && quantite != null ? prix.getCents() * quantite : 0;
     }
 
-    public Double getSousTotal() {
-        return prix * quantite;
+    /**
+     * Répercute la variation du sous-total sur le total dénormalisé de la commande
+     */
+    private void reporterSurCommande(long sousTotalAvant) {
+        if (commande != null) {
+            commande.ajusterTotal(getSousTotalCents() - sousTotalAvant);
+        }
     }
 
     @Override
     public String toString() {
-        return quantite + "x " + (plat != null ? plat.getNom() : "?") + " - " + getSousTotal() + "€";
+        return quantite + "x " + (plat != null ? plat.getNom() : "?") + " - " + getSousTotal().format();
     }
 }
\ No newline at end of file
@@ -0,0 +1,147 @@
+package com.restaurant.model;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Montant en euros stocké en centimes (long) : calculs exacts, pas de dérive d'arrondi
+ * Immuable. Les boucles de calcul travaillent directement sur getCents()
+ */
+public final class Money implements Comparable<Money>, Serializable {
+
+    public static final Money ZERO = new Money(0);
+
+    private final long cents;
+
+    private Money(long cents) {
+        this.cents = cents;
+    }
+
+    // ==================== CRÉATION ====================
+
+    public static Money ofCents(long cents) {
+        return cents == 0 ? ZERO : new Money(cents);
+    }
+
+    /**
+     * Depuis un BigDecimal en euros (arrondi au centime, demi supérieur)
+     */
+    public static Money of(BigDecimal euros) {
+        return ofCents(euros.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact());
+    }
+
+    /**
+     * Saisie utilisateur : "12.5", "12,50", " 8 " -> Money
+     * @throws NumberFormatException si le texte n'est pas un montant
+     */
+    public static Money parse(String texte) {
+        if (texte == null || texte.trim().isEmpty()) {
+            throw new NumberFormatException("Montant vide");
+        }
+        return of(new BigDecimal(texte.trim().replace(',', '.')));
+    }
+
+    // ==================== CALCULS ====================
+
+    public long getCents() {
+        return cents;
+    }
+
+    public Money plus(Money autre) {
+        return ofCents(cents + autre.cents);
+    }
+
+    public Money minus(Money autre) {
+        return ofCents(cents - autre.cents);
+    }
+
+    /**
+     * Division arrondie au centime le plus proche, demi-centime en s'éloignant de zéro
+     * (HALF_UP, comme of) ; calcul entier, sans passer par un double (ex: panier moyen)
+     */
+    public Money divide(long diviseur) {
+        if (diviseur == 0) {
+            return ZERO;
+        }
+        long quotient = cents / diviseur;
+        long reste = cents % diviseur;
+        if (Math.abs(reste) * 2 >= Math.abs(diviseur)) {
+            quotient += (cents < 0) == (diviseur < 0) ? 1 : -1;
+        }
+        return ofCents(quotient);
+    }
+
+    public boolean isPositive() {
+        return cents > 0;
+    }
+
+    public boolean isNegative() {
+        return cents < 0;
+    }
+
+    public boolean isGreaterThan(Money autre) {
+        return cents > autre.cents;
+    }
+
+    public boolean isLessThan(Money autre) {
+        return cents < autre.cents;
+    }
+
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(cents, 2);
+    }
+
+    // ==================== AFFICHAGE ====================
+
+    /**
+     * "12.50€"
+     */
+    public String format() {
+        return format(cents);
+    }
+
+    /**
+     * Formatage sans String.format, utilisable directement sur des centimes
+     */
+    public static String format(long cents) {
+        return toPlainString(cents) + "€";
+    }
+
+    private static String toPlainString(long cents) {
+        long abs = Math.abs(cents);
+        long centimes = abs % 100;
+        StringBuilder sb = new StringBuilder(12);
+        if (cents < 0) {
+            sb.append('-');
+        }
+        sb.append(abs / 100).append('.');
+        if (centimes < 10) {
+            sb.append('0');
+        }
+        return sb.append(centimes).toString();
+    }
+
+    @Override
+    public int compareTo(Money autre) {
+        return Long.compare(cents, autre.cents);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o || (o instanceof Money && ((Money) o).cents == cents);
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(cents);
+    }
+
+    /**
+     * "12.50" (sans symbole, pour les concaténations existantes "... + €")
+     */
+    @Override
+    public String toString() {
+        return toPlainString(cents);
+    }
+}
@@ -0,0 +1,23 @@
+package com.restaurant.model;
+
+import javax.persistence.AttributeConverter;
+import javax.persistence.Converter;
+import java.math.BigDecimal;
+
+/**
+ * Money <-> colonne numérique en euros (DECIMAL(12,2))
+ * Compatible avec les anciennes colonnes DOUBLE : la valeur reste exprimée en euros
+ */
+@Converter(autoApply = true)
+public class MoneyConverter implements AttributeConverter<Money, BigDecimal> {
+
+    @Override
+    public BigDecimal convertToDatabaseColumn(Money money) {
+        return money != null ? money.toBigDecimal() : null;
+    }
+
+    @Override
+    public Money convertToEntityAttribute(BigDecimal valeur) {
+        return valeur != null ? Money.of(valeur) : null;
+    }
+}
@@ -4,15 +4,20 @@ import javax.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "paiement")
+@Table(name = "paiement", indexes = {
+        // Clôture de caisse : paiements d'une journée
+        @Index(name = "idx_paiement_date", columnList = "datePaiement"),
+        // Paiements pas encore intégrés aux cumuls de ventes (lotCumul null)
+        @Index(name = "idx_paiement_lot_cumul", columnList = "lotCumul")
+})
 public class Paiement extends BaseEntity {
 
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "commande_id", nullable = false)
     private Commande commande;
 
-    @Column(nullable = false)
-    private Double montant;
+    @Column(nullable = false, precision = 12, scale = 2)
+    private Money montant;
 
     @Column(nullable = false, length = 50)
     private String modePaiement; // "ESPECES", "CARTE", "TICKET_RESTO"
@@ -23,12 +28,17 @@ public class Paiement extends BaseEntity {
     @Column(nullable = false)
     private LocalDateTime datePaiement;
 
+    // Lot des cumuls de ventes qui a intégré ce paiement, null tant qu'il est en attente
+    // (réservé par une mise à jour : un paiement n'est cumulé qu'une fois, même à plusieurs postes)
+    @Column
+    private Long lotCumul;
+
     // Constructeurs
     public Paiement() {
         this.datePaiement = LocalDateTime.now();
     }
 
-    public Paiement(Commande commande, Double montant, String modePaiement) {
+    public Paiement(Commande commande, Money montant, String modePaiement) {
         this.commande = commande;
         this.montant = montant;
         this.modePaiement = modePaiement;
@@ -44,11 +54,11 @@ public class Paiement extends BaseEntity {
         this.commande = commande;
     }
 
-    public Double getMontant() {
+    public Money getMontant() {
         return montant;
     }
 
-    public void setMontant(Double montant) {
+    public void setMontant(Money montant) {
         this.montant = montant;
     }
 
@@ -76,6 +86,10 @@ public class Paiement extends BaseEntity {
         this.datePaiement = datePaiement;
     }
 
+    public Long getLotCumul() {
+        return lotCumul;
+    }
+
     @Override
     public String toString() {
         return "Paiement: " + montant + "€ par " + modePaiement + " le " + datePaiement;
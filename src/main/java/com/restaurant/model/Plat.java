@@ -13,8 +13,8 @@ public class Plat extends BaseEntity {
     @Column(nullable = false, length = 100)
     private String nom;
 
-    @Column(nullable = false)
-    private Double prix;
+    @Column(nullable = false, precision = 12, scale = 2)
+    private Money prix;
 
     @Column(length = 500)
     private String description;
@@ -36,7 +36,7 @@ public class Plat extends BaseEntity {
     public Plat() {
     }
 
-    public Plat(String nom, Double prix, String description, Categorie categorie) {
+    public Plat(String nom, Money prix, String description, Categorie categorie) {
         this.nom = nom;
         this.prix = prix;
         this.description = description;
@@ -52,11 +52,11 @@ public class Plat extends BaseEntity {
         this.nom = nom;
     }
 
-    public Double getPrix() {
+    public Money getPrix() {
         return prix;
     }
 
-    public void setPrix(Double prix) {
+    public void setPrix(Money prix) {
         this.prix = prix;
     }
 
@@ -108,6 +108,6 @@ public class Plat extends BaseEntity {
 
     @Override
     public String toString() {
-        return nom + " (" + prix + "€)";
+        return nom + " (" + (prix != null ? prix.format() : "?") + ")";
     }
 }
\ No newline at end of file
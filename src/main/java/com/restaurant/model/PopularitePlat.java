@@ -0,0 +1,44 @@
+package com.restaurant.model;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Popularité d'un plat à la prise de commande : score décroissant dans le temps,
+ * valable à dateScore (divisé par deux à chaque demi-vie écoulée depuis)
+ * Tenu à jour par PopularitePlats (incréments ajoutés en base, jamais modifié par entité) ;
+ * le plat est référencé par son id (une ligne orpheline est sans effet)
+ */
+@Entity
+@Table(name = "popularite_plat", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_popularite_plat", columnNames = {"plat_id"})
+})
+public class PopularitePlat extends BaseEntity {
+
+    @Column(name = "plat_id", nullable = false)
+    private Long platId;
+
+    @Column(nullable = false)
+    private double score;
+
+    @Column(nullable = false)
+    private LocalDateTime dateScore;
+
+    // Getters
+    public Long getPlatId() {
+        return platId;
+    }
+
+    public double getScore() {
+        return score;
+    }
+
+    public LocalDateTime getDateScore() {
+        return dateScore;
+    }
+
+    @Override
+    public String toString() {
+        return "Plat " + platId + ": " + score + " (" + dateScore + ")";
+    }
+}
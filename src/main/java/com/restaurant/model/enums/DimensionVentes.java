@@ -0,0 +1,23 @@
+package com.restaurant.model.enums;
+
+public enum DimensionVentes {
+    TOTAL("Total"),
+    MODE_PAIEMENT("Mode de paiement"),
+    PLAT("Plat"),
+    CATEGORIE("Catégorie");
+
+    private final String libelle;
+
+    DimensionVentes(String libelle) {
+        this.libelle = libelle;
+    }
+
+    public String getLibelle() {
+        return libelle;
+    }
+
+    @Override
+    public String toString() {
+        return libelle;
+    }
+}
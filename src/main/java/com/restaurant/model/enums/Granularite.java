@@ -0,0 +1,70 @@
+package com.restaurant.model.enums;
+
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+
+/**
+ * Tranches de temps des cumuls de ventes, de la plus fine à la plus large
+ * (semaine ISO : du lundi au dimanche)
+ */
+public enum Granularite {
+    HEURE("Heure", "HOUR"),
+    JOUR("Jour", "DAY"),
+    SEMAINE("Semaine", "ISO_WEEK"),
+    MOIS("Mois", "MONTH");
+
+    private final String libelle;
+    private final String uniteSql; // champ de DATE_TRUNC (H2)
+
+    Granularite(String libelle, String uniteSql) {
+        this.libelle = libelle;
+        this.uniteSql = uniteSql;
+    }
+
+    public String getLibelle() {
+        return libelle;
+    }
+
+    public String getUniteSql() {
+        return uniteSql;
+    }
+
+    /**
+     * Début de la tranche contenant l'instant
+     */
+    public LocalDateTime debut(LocalDateTime instant) {
+        switch (this) {
+            case HEURE:
+                return instant.truncatedTo(ChronoUnit.HOURS);
+            case JOUR:
+                return instant.truncatedTo(ChronoUnit.DAYS);
+            case SEMAINE:
+                return instant.truncatedTo(ChronoUnit.DAYS).with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            default:
+                return instant.truncatedTo(ChronoUnit.DAYS).withDayOfMonth(1);
+        }
+    }
+
+    /**
+     * Début de la tranche suivante
+     */
+    public LocalDateTime suivante(LocalDateTime debut) {
+        switch (this) {
+            case HEURE:
+                return debut.plusHours(1);
+            case JOUR:
+                return debut.plusDays(1);
+            case SEMAINE:
+                return debut.plusWeeks(1);
+            default:
+                return debut.plusMonths(1);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return libelle;
+    }
+}
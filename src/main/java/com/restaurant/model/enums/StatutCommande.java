@@ -40,10 +40,6 @@ public enum StatutCommande {
         return this == FINALISEE;
     }
 
-    public boolean peutEtreAnnulee() {
-        return this == EN_ATTENTE || this == EN_PREPARATION;
-    }
-
     @Override
     public String toString() {
         return libelle;
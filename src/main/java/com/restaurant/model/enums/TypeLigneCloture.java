@@ -0,0 +1,22 @@
+package com.restaurant.model.enums;
+
+public enum TypeLigneCloture {
+    MODE_PAIEMENT("Mode de paiement"),
+    PLAT("Plat"),
+    HEURE("Heure");
+
+    private final String libelle;
+
+    TypeLigneCloture(String libelle) {
+        this.libelle = libelle;
+    }
+
+    public String getLibelle() {
+        return libelle;
+    }
+
+    @Override
+    public String toString() {
+        return libelle;
+    }
+}
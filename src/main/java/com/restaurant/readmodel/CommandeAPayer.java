@@ -0,0 +1,92 @@
+package com.restaurant.readmodel;
+
+import com.restaurant.model.Money;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * Commande servie en attente d'encaissement (projection plate, sans entité JPA)
+ */
+public final class CommandeAPayer {
+
+    private final long id;
+    private final long tableId;
+    private final int numeroTable;
+    private final Money total;
+    private final Money remise;
+    private final Money montantPaye;
+    private final Money resteAPayer;
+    private final LocalDateTime dateServi;
+    private final LocalDateTime dateModification;
+
+    public CommandeAPayer(long id, long tableId, int numeroTable, Money total, Money remise, Money montantPaye,
+                          Money resteAPayer, LocalDateTime dateServi, LocalDateTime dateModification) {
+        this.id = id;
+        this.tableId = tableId;
+        this.numeroTable = numeroTable;
+        this.total = total != null ? total : Money.ZERO;
+        this.remise = remise != null ? remise : Money.ZERO;
+        this.montantPaye = montantPaye != null ? montantPaye : Money.ZERO;
+        this.resteAPayer = resteAPayer != null ? resteAPayer : Money.ZERO;
+        this.dateServi = dateServi;
+        this.dateModification = dateModification;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public long getTableId() {
+        return tableId;
+    }
+
+    public int getNumeroTable() {
+        return numeroTable;
+    }
+
+    public Money getTotal() {
+        return total;
+    }
+
+    public Money getRemise() {
+        return remise;
+    }
+
+    /**
+     * Montant dû (jamais négatif)
+     */
+    public Money getTotalAvecRemise() {
+        return Money.ofCents(Math.max(0, total.getCents() - remise.getCents()));
+    }
+
+    /**
+     * Déjà encaissé (paiements partiels)
+     */
+    public Money getMontantPaye() {
+        return montantPaye;
+    }
+
+    /**
+     * Reste dû, base du contrôle optimiste de l'encaissement
+     */
+    public Money getResteAPayer() {
+        return resteAPayer;
+    }
+
+    public LocalDateTime getDateServi() {
+        return dateServi;
+    }
+
+    public boolean memeVersion(CommandeAPayer autre) {
+        return autre == this || (autre != null && id == autre.id && numeroTable == autre.numeroTable
+                && total.equals(autre.total) && remise.equals(autre.remise)
+                && resteAPayer.equals(autre.resteAPayer)
+                && Objects.equals(dateModification, autre.dateModification));
+    }
+
+    @Override
+    public String toString() {
+        return "Commande #" + id + " - Table " + numeroTable + " - " + resteAPayer.format();
+    }
+}
@@ -0,0 +1,68 @@
+package com.restaurant.readmodel;
+
+import java.util.Objects;
+
+/**
+ * Table du plan de salle avec son statut (projection plate, sans entité JPA)
+ */
+public final class TableSalle {
+
+    public static final String LIBRE = "LIBRE";
+    public static final String OCCUPEE = "OCCUPEE";
+    public static final String ATTENTE_PAIEMENT = "ATTENTE_PAIEMENT";
+
+    private final long id;
+    private final int numeroTable;
+    private final int capacite;
+    private final String statut;
+    private final Long commandeActiveId;
+
+    public TableSalle(long id, int numeroTable, int capacite, String statut, Long commandeActiveId) {
+        this.id = id;
+        this.numeroTable = numeroTable;
+        this.capacite = capacite;
+        this.statut = statut;
+        this.commandeActiveId = commandeActiveId;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public int getNumeroTable() {
+        return numeroTable;
+    }
+
+    public int getCapacite() {
+        return capacite;
+    }
+
+    /**
+     * "LIBRE", "OCCUPEE" ou "ATTENTE_PAIEMENT"
+     */
+    public String getStatut() {
+        return statut;
+    }
+
+    public boolean isOccupee() {
+        return !LIBRE.equals(statut);
+    }
+
+    /**
+     * Commande en cours (attente, préparation, prête), null sinon
+     */
+    public Long getCommandeActiveId() {
+        return commandeActiveId;
+    }
+
+    public boolean memeVersion(TableSalle autre) {
+        return autre == this || (autre != null && id == autre.id && numeroTable == autre.numeroTable
+                && capacite == autre.capacite && statut.equals(autre.statut)
+                && Objects.equals(commandeActiveId, autre.commandeActiveId));
+    }
+
+    @Override
+    public String toString() {
+        return "Table " + numeroTable + " - " + statut;
+    }
+}
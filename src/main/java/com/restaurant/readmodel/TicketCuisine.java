@@ -0,0 +1,140 @@
+package com.restaurant.readmodel;
+
+import com.restaurant.model.enums.StatutCommande;
+import javafx.beans.property.ReadOnlyObjectWrapper;
+import javafx.beans.value.ObservableValue;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ticket cuisine prêt à afficher (projection plate, sans entité JPA)
+ * - textes (id, table, plats) précalculés : les cellules n'allouent rien au rendu
+ * - construit une fois par version de commande, réutilisé tant qu'elle ne change pas
+ */
+public final class TicketCuisine {
+
+    private static final int MINUTES_LIBELLEES = 1000;
+    private static final String[] LIBELLES_MINUTES = new String[MINUTES_LIBELLEES];
+
+    static {
+        for (int i = 0; i < MINUTES_LIBELLEES; i++) {
+            LIBELLES_MINUTES[i] = i + " min";
+        }
+    }
+
+    private final long id;
+    private final String idTexte;
+    private final int numeroTable;
+    private final String tableTexte;
+    private final String resume;
+    private final int nombreLignes;
+    private final StatutCommande statut;
+    private final LocalDateTime entree;
+    private final long entreeMillis;
+    private final LocalDateTime dateModification;
+    private final long[] categorieIds;
+    private final ObservableValue<TicketCuisine> valeur;
+
+    public TicketCuisine(long id, int numeroTable, String resume, int nombreLignes, StatutCommande statut,
+                         LocalDateTime entree, LocalDateTime dateModification, long[] categorieIds) {
+        this.id = id;
+        this.idTexte = String.valueOf(id);
+        this.numeroTable = numeroTable;
+        this.tableTexte = String.valueOf(numeroTable);
+        this.resume = nombreLignes > 0 ? resume : "Vide";
+        this.nombreLignes = nombreLignes;
+        this.statut = statut;
+        this.entree = entree;
+        this.entreeMillis = entree != null ? entree.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() : -1;
+        this.dateModification = dateModification;
+        this.categorieIds = categorieIds;
+        this.valeur = new ReadOnlyObjectWrapper<>(this).getReadOnlyProperty();
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String getIdTexte() {
+        return idTexte;
+    }
+
+    public int getNumeroTable() {
+        return numeroTable;
+    }
+
+    public String getTableTexte() {
+        return tableTexte;
+    }
+
+    /**
+     * Plats du ticket : "2x Pâtes, 1x Soupe"
+     */
+    public String getResume() {
+        return resume;
+    }
+
+    public int getNombreLignes() {
+        return nombreLignes;
+    }
+
+    public StatutCommande getStatut() {
+        return statut;
+    }
+
+    /**
+     * Date d'entrée dans le statut courant (null si inconnue)
+     */
+    public LocalDateTime getEntree() {
+        return entree;
+    }
+
+    /**
+     * Catégories des plats du ticket (ne pas modifier)
+     */
+    public long[] getCategorieIds() {
+        return categorieIds;
+    }
+
+    /**
+     * Vrai si les deux projections décrivent la même version de la commande
+     */
+    public boolean memeVersion(TicketCuisine autre) {
+        return autre == this || (autre != null && id == autre.id && statut == autre.statut
+                && Objects.equals(dateModification, autre.dateModification)
+                && nombreLignes == autre.nombreLignes && resume.equals(autre.resume));
+    }
+
+    /**
+     * Minutes passées dans le statut courant (-1 si date d'entrée inconnue)
+     */
+    public long getAgeMinutes(long maintenantMillis) {
+        return entreeMillis < 0 ? -1 : TimeUnit.MILLISECONDS.toMinutes(Math.max(0, maintenantMillis - entreeMillis));
+    }
+
+    /**
+     * Âge affiché ("12 min"), libellés partagés
+     */
+    public String getAgeTexte(long maintenantMillis) {
+        long minutes = getAgeMinutes(maintenantMillis);
+        if (minutes < 0) {
+            return "-";
+        }
+        return minutes < MINUTES_LIBELLEES ? LIBELLES_MINUTES[(int) minutes] : minutes + " min";
+    }
+
+    /**
+     * Valeur observable constante, pour les cellValueFactory (aucune allocation par cellule)
+     */
+    public ObservableValue<TicketCuisine> valeur() {
+        return valeur;
+    }
+
+    @Override
+    public String toString() {
+        return "Ticket #" + id + " - Table " + numeroTable + " - " + resume;
+    }
+}
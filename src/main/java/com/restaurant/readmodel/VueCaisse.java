@@ -0,0 +1,53 @@
+package com.restaurant.readmodel;
+
+import com.restaurant.dao.ProjectionDAO;
+import com.restaurant.event.CommandeModifieeEvent;
+import com.restaurant.event.EventBus;
+import com.restaurant.event.TransitionEvent;
+import com.restaurant.exception.DatabaseException;
+import com.restaurant.model.enums.StatutCommande;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * File des commandes servies à encaisser
+ */
+public final class VueCaisse extends VueLecture<CommandeAPayer> {
+
+    private static final VueCaisse INSTANCE = new VueCaisse();
+
+    private VueCaisse() {
+        super(Comparator.comparing(CommandeAPayer::getDateServi,
+                        Comparator.nullsFirst(Comparator.<LocalDateTime>naturalOrder()))
+                .thenComparingLong(CommandeAPayer::getId));
+        EventBus bus = EventBus.getInstance();
+        bus.subscribe(TransitionEvent.class, e -> {
+            if (e.getDepuis() == StatutCommande.SERVI || e.getVers() == StatutCommande.SERVI) {
+                invalider(e.getCommandeId());
+            }
+        });
+        bus.subscribe(CommandeModifieeEvent.class, e -> invalider(e.getCommandeId()));
+    }
+
+    public static VueCaisse getInstance() {
+        return INSTANCE;
+    }
+
+    @Override
+    protected long cle(CommandeAPayer commande) {
+        return commande.getId();
+    }
+
+    @Override
+    protected boolean memeVersion(CommandeAPayer affiche, CommandeAPayer lu) {
+        return affiche.memeVersion(lu);
+    }
+
+    @Override
+    protected List<CommandeAPayer> projeter(ProjectionDAO dao, Collection<Long> ids) throws DatabaseException {
+        return dao.findCommandesAPayer(ids);
+    }
+}
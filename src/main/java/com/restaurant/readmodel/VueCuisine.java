@@ -0,0 +1,64 @@
+package com.restaurant.readmodel;
+
+import com.restaurant.dao.ProjectionDAO;
+import com.restaurant.event.CommandeModifieeEvent;
+import com.restaurant.event.EventBus;
+import com.restaurant.event.TransitionEvent;
+import com.restaurant.exception.DatabaseException;
+import com.restaurant.model.enums.StatutCommande;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.List;
+
+/**
+ * Tickets de la cuisine (attente, préparation, prêt, servi)
+ */
+public final class VueCuisine extends VueLecture<TicketCuisine> {
+
+    private static final EnumSet<StatutCommande> STATUTS = EnumSet.of(StatutCommande.EN_ATTENTE,
+            StatutCommande.EN_PREPARATION, StatutCommande.PRET, StatutCommande.SERVI);
+
+    private static final VueCuisine INSTANCE = new VueCuisine();
+
+    private VueCuisine() {
+        super(Comparator.comparingLong(TicketCuisine::getId));
+        EventBus bus = EventBus.getInstance();
+        bus.subscribe(TransitionEvent.class, e -> invalider(e.getCommandeId()));
+        bus.subscribe(CommandeModifieeEvent.class, e -> invalider(e.getCommandeId()));
+    }
+
+    public static VueCuisine getInstance() {
+        return INSTANCE;
+    }
+
+    @Override
+    protected long cle(TicketCuisine ticket) {
+        return ticket.getId();
+    }
+
+    @Override
+    protected boolean memeVersion(TicketCuisine affiche, TicketCuisine lu) {
+        return affiche.memeVersion(lu);
+    }
+
+    @Override
+    protected List<TicketCuisine> projeter(ProjectionDAO dao, Collection<Long> ids) throws DatabaseException {
+        return dao.findTicketsCuisine(STATUTS, ids);
+    }
+
+    /**
+     * Tickets d'un statut, dans l'ordre d'arrivée
+     */
+    public static List<TicketCuisine> filtrer(List<TicketCuisine> tickets, StatutCommande statut) {
+        List<TicketCuisine> resultat = new ArrayList<>();
+        for (TicketCuisine ticket : tickets) {
+            if (ticket.getStatut() == statut) {
+                resultat.add(ticket);
+            }
+        }
+        return resultat;
+    }
+}
@@ -0,0 +1,123 @@
+package com.restaurant.readmodel;
+
+import com.restaurant.config.DatabaseConfig;
+import com.restaurant.dao.ProjectionDAO;
+import com.restaurant.exception.DatabaseException;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Modèle de lecture d'un écran, tenu à jour par les événements du côté écriture
+ * - les événements marquent des éléments périmés (sans requête, sans verrou)
+ * - la lecture suivante ne reprojette que ces éléments ; chargement complet au premier accès
+ *   ou après invaliderTout() (autres postes, bouton Actualiser)
+ * - un élément inchangé garde la même instance : les écrans comparent par identité
+ */
+public abstract class VueLecture<V> {
+
+    private final Map<Long, V> elements = new HashMap<>();
+    private final Set<Long> perimes = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean aRecharger = new AtomicBoolean(true);
+    private final Comparator<V> ordre;
+    private List<V> liste = Collections.emptyList();
+
+    protected VueLecture(Comparator<V> ordre) {
+        this.ordre = ordre;
+    }
+
+    /**
+     * Identifiant d'un élément de la vue
+     */
+    protected abstract long cle(V element);
+
+    protected abstract boolean memeVersion(V affiche, V lu);
+
+    /**
+     * Projection des éléments demandés (ids == null : toute la vue)
+     * Un id demandé mais absent du résultat sort de la vue
+     */
+    protected abstract List<V> projeter(ProjectionDAO dao, Collection<Long> ids) throws DatabaseException;
+
+    // ==================== INVALIDATION ====================
+
+    public void invalider(long id) {
+        perimes.add(id);
+    }
+
+    public void invaliderTout() {
+        aRecharger.set(true);
+    }
+
+    // ==================== LECTURE ====================
+
+    /**
+     * Contenu à jour de la vue (liste immuable, même instance si rien n'a changé)
+     */
+    public synchronized List<V> lister() throws DatabaseException {
+        boolean complet = aRecharger.getAndSet(false);
+        if (!complet && perimes.isEmpty()) {
+            return liste;
+        }
+
+        List<Long> ids = new ArrayList<>(perimes);
+        perimes.removeAll(ids);
+
+        EntityManager localEM = DatabaseConfig.getEntityManager();
+        try {
+            List<V> lus = projeter(new ProjectionDAO(localEM), complet ? null : ids);
+            if (fusionner(lus, complet ? null : ids)) {
+                List<V> triee = new ArrayList<>(elements.values());
+                triee.sort(ordre);
+                liste = Collections.unmodifiableList(triee);
+            }
+            return liste;
+        } catch (DatabaseException e) {
+            // Rien n'est perdu : la prochaine lecture recommencera
+            if (complet) {
+                aRecharger.set(true);
+            }
+            perimes.addAll(ids);
+            throw e;
+        } finally {
+            if (localEM.isOpen()) {
+                localEM.close();
+            }
+        }
+    }
+
+    /**
+     * Intègre une projection ; vrai si la vue a changé
+     */
+    private boolean fusionner(List<V> lus, Collection<Long> ids) {
+        boolean change = false;
+        Set<Long> presents = new HashSet<>();
+        for (V lu : lus) {
+            long k = cle(lu);
+            presents.add(k);
+            V affiche = elements.get(k);
+            if (affiche == null || !memeVersion(affiche, lu)) {
+                elements.put(k, lu);
+                change = true;
+            }
+        }
+
+        Collection<Long> candidats = ids != null ? ids : new ArrayList<>(elements.keySet());
+        for (Long k : candidats) {
+            if (!presents.contains(k) && elements.remove(k) != null) {
+                change = true;
+            }
+        }
+        return change;
+    }
+}
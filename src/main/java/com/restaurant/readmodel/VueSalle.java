@@ -0,0 +1,55 @@
+package com.restaurant.readmodel;
+
+import com.restaurant.dao.ProjectionDAO;
+import com.restaurant.event.CommandeModifieeEvent;
+import com.restaurant.event.EventBus;
+import com.restaurant.event.TableModifieeEvent;
+import com.restaurant.event.TransitionEvent;
+import com.restaurant.exception.DatabaseException;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Plan de salle : tables et leur statut
+ */
+public final class VueSalle extends VueLecture<TableSalle> {
+
+    private static final VueSalle INSTANCE = new VueSalle();
+
+    private VueSalle() {
+        super(Comparator.comparingInt(TableSalle::getNumeroTable));
+        EventBus bus = EventBus.getInstance();
+        bus.subscribe(TransitionEvent.class, e -> invaliderTable(e.getTableId()));
+        bus.subscribe(CommandeModifieeEvent.class, e -> invaliderTable(e.getTableId()));
+        bus.subscribe(TableModifieeEvent.class, e -> invalider(e.getTableId()));
+    }
+
+    public static VueSalle getInstance() {
+        return INSTANCE;
+    }
+
+    private void invaliderTable(Long tableId) {
+        if (tableId != null) {
+            invalider(tableId);
+        } else {
+            invaliderTout();
+        }
+    }
+
+    @Override
+    protected long cle(TableSalle table) {
+        return table.getId();
+    }
+
+    @Override
+    protected boolean memeVersion(TableSalle affiche, TableSalle lu) {
+        return affiche.memeVersion(lu);
+    }
+
+    @Override
+    protected List<TableSalle> projeter(ProjectionDAO dao, Collection<Long> ids) throws DatabaseException {
+        return dao.findTablesSalle(ids);
+    }
+}
@@ -0,0 +1,687 @@
+package com.restaurant.service;
+
+import com.restaurant.config.DatabaseConfig;
+import com.restaurant.dao.ProjectionDAO;
+import com.restaurant.event.EventBus;
+import com.restaurant.event.ModificationDistanteEvent;
+import com.restaurant.event.TransitionEvent;
+import com.restaurant.exception.DatabaseException;
+import com.restaurant.model.Money;
+import com.restaurant.model.enums.StatutCommande;
+import com.restaurant.util.LongIntMap;
+
+import javax.persistence.EntityManager;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.TextStyle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Cache analytique des ventes réglées, rangé en colonnes de types primitifs
+ * - une ligne vendue : minute (epoch, heure locale), plat, quantité, prix en centimes, table,
+ *   mode de paiement, commande ; plats, tables et modes codés en entiers denses
+ * - filtres et regroupements en boucles simples sur les tableaux, par blocs en parallèle (fork/join)
+ * - chargé au premier usage, puis complété par les commandes soldées (TransitionEvent vers PAYEE,
+ *   y compris celles des autres postes) ; relu en entier si des messages de poste sont perdus
+ * Une commande est datée et rattachée au mode de son dernier paiement (celui qui la solde)
+ */
+public final class AnalyseVentes {
+
+    private static final AnalyseVentes INSTANCE = new AnalyseVentes();
+
+    private static final int TAILLE_BLOC = 1 << 16;
+    // En dessous, une tâche parcourt ses lignes sans se découper
+    private static final int SEUIL = 1 << 13;
+    private static final int MINUTES_JOUR = 24 * 60;
+    private static final int TOUS_JOURS = 0x7F;
+    private static final int TOUTES_HEURES = 0xFFFFFF;
+
+    /**
+     * Critère de regroupement d'une analyse
+     */
+    public enum Regroupement {
+        PLAT, TABLE, MODE_PAIEMENT, JOUR_SEMAINE, HEURE, JOUR
+    }
+
+    // Colonnes par blocs de taille fixe : ajout sans recopie, lignes jamais modifiées
+    private List<Bloc> blocs = new ArrayList<>();
+    private int lignes;
+    private int minuteMin = Integer.MAX_VALUE;
+    private int minuteMax = Integer.MIN_VALUE;
+
+    // Codes denses : plat, table (identifiant -> code), mode (libellé -> code)
+    private Dictionnaire plats = new Dictionnaire();
+    private Dictionnaire tables = new Dictionnaire();
+    private Map<String, Integer> codesModes = new HashMap<>();
+    private List<String> modes = new ArrayList<>();
+
+    // Commandes déjà rangées : une commande soldée n'est ajoutée qu'une fois
+    private LongIntMap chargees = new LongIntMap(1024);
+    private final Set<Long> aAjouter = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean aRecharger = new AtomicBoolean(true);
+
+    private AnalyseVentes() {
+        EventBus bus = EventBus.getInstance();
+        bus.subscribe(TransitionEvent.class, e -> {
+            if (e.getVers() == StatutCommande.PAYEE) {
+                aAjouter.add(e.getCommandeId());
+            }
+        });
+        bus.subscribe(ModificationDistanteEvent.class, e -> {
+            if (e.isResynchroniser()) {
+                invaliderTout();
+            }
+        });
+    }
+
+    public static AnalyseVentes getInstance() {
+        return INSTANCE;
+    }
+
+    public void invaliderTout() {
+        aRecharger.set(true);
+    }
+
+    // ==================== ANALYSE ====================
+
+    /**
+     * Filtre puis regroupe les lignes vendues ; groupes par montant décroissant
+     * (ordre chronologique pour JOUR_SEMAINE, HEURE et JOUR)
+     */
+    public List<Groupe> analyser(Filtre filtre, Regroupement par) throws DatabaseException {
+        Instantane instantane = actualiser();
+        Criteres criteres = new Criteres(filtre != null ? filtre : new Filtre(), instantane);
+        int groupes = nombreGroupes(par, instantane, criteres);
+        if (groupes <= 0 || instantane.blocs.length == 0) {
+            return new ArrayList<>();
+        }
+
+        Partiel total = ForkJoinPool.commonPool().invoke(
+                new TacheBlocs(instantane, criteres, par, groupes, 0, instantane.blocs.length));
+
+        List<Groupe> resultat = new ArrayList<>();
+        for (int g = 0; g < groupes; g++) {
+            if (total.lignes[g] > 0) {
+                resultat.add(groupe(par, g, instantane, criteres, total));
+            }
+        }
+        if (par == Regroupement.PLAT || par == Regroupement.TABLE || par == Regroupement.MODE_PAIEMENT) {
+            resultat.sort(Comparator.comparing(Groupe::getMontant).reversed());
+        }
+        return resultat;
+    }
+
+    /**
+     * Nombre de lignes vendues en cache (à jour)
+     */
+    public int getNombreLignes() throws DatabaseException {
+        return actualiser().lignes;
+    }
+
+    private static int nombreGroupes(Regroupement par, Instantane instantane, Criteres criteres) {
+        switch (par) {
+            case PLAT:
+                return instantane.plats.taille;
+            case TABLE:
+                return instantane.tables.taille;
+            case MODE_PAIEMENT:
+                return instantane.modes.length;
+            case JOUR_SEMAINE:
+                return 7;
+            case HEURE:
+                return 24;
+            default:
+                int premier = Math.max(criteres.minuteMin, instantane.minuteMin) / MINUTES_JOUR;
+                int dernier = (Math.min(criteres.minuteMax - 1, instantane.minuteMax)) / MINUTES_JOUR;
+                criteres.jourBase = premier;
+                return dernier - premier + 1;
+        }
+    }
+
+    private static Groupe groupe(Regroupement par, int g, Instantane instantane, Criteres criteres, Partiel p) {
+        long cle;
+        String libelle;
+        switch (par) {
+            case PLAT:
+                cle = instantane.plats.ids[g];
+                libelle = instantane.plats.libelles[g];
+                break;
+            case TABLE:
+                cle = instantane.tables.ids[g];
+                libelle = instantane.tables.libelles[g];
+                break;
+            case MODE_PAIEMENT:
+                cle = g;
+                libelle = instantane.modes[g];
+                break;
+            case JOUR_SEMAINE:
+                cle = g + 1;
+                libelle = DayOfWeek.of(g + 1).getDisplayName(TextStyle.FULL, Locale.FRENCH);
+                break;
+            case HEURE:
+                cle = g;
+                libelle = String.format("%02dh", g);
+                break;
+            default:
+                cle = criteres.jourBase + g;
+                libelle = LocalDate.ofEpochDay(cle).toString();
+                break;
+        }
+        return new Groupe(cle, libelle, p.quantite[g], Money.ofCents(p.montant[g]), p.lignes[g], p.commandes[g]);
+    }
+
+    // ==================== CHARGEMENT ====================
+
+    /**
+     * Complète le cache (commandes soldées depuis la dernière lecture, ou tout l'historique)
+     * et fige l'état lu par l'analyse : les lignes ajoutées ensuite ne sont pas vues
+     */
+    private synchronized Instantane actualiser() throws DatabaseException {
+        boolean complet = aRecharger.getAndSet(false);
+        List<Long> ids = null;
+        if (complet) {
+            aAjouter.clear();
+            blocs = new ArrayList<>();
+            lignes = 0;
+            minuteMin = Integer.MAX_VALUE;
+            minuteMax = Integer.MIN_VALUE;
+            plats = new Dictionnaire();
+            tables = new Dictionnaire();
+            codesModes = new HashMap<>();
+            modes = new ArrayList<>();
+            chargees = new LongIntMap(1024);
+        } else if (!aAjouter.isEmpty()) {
+            ids = new ArrayList<>(aAjouter);
+            aAjouter.removeAll(ids);
+        }
+
+        if (complet || ids != null) {
+            EntityManager localEM = DatabaseConfig.getEntityManager();
+            try {
+                List<Object[]> commande = new ArrayList<>();
+                new ProjectionDAO(localEM).parcourirLignesVendues(ids, ligne -> {
+                    if (!commande.isEmpty() && !commande.get(0)[0].equals(ligne[0])) {
+                        ranger(commande);
+                        commande.clear();
+                    }
+                    commande.add(ligne);
+                });
+                ranger(commande);
+            } catch (DatabaseException e) {
+                // Rien n'est perdu : la prochaine analyse recommencera
+                if (complet) {
+                    aRecharger.set(true);
+                } else {
+                    aAjouter.addAll(ids);
+                }
+                throw e;
+            } finally {
+                localEM.close();
+            }
+        }
+        return new Instantane(this);
+    }
+
+    /**
+     * Range les lignes d'une commande, d'un seul tenant dans un bloc
+     */
+    private void ranger(List<Object[]> commande) {
+        if (commande.isEmpty()) {
+            return;
+        }
+        long commandeId = ((Number) commande.get(0)[0]).longValue();
+        if (chargees.containsKey(commandeId)) {
+            return;
+        }
+        chargees.put(commandeId, 1);
+
+        Bloc bloc = blocs.isEmpty() ? null : blocs.get(blocs.size() - 1);
+        if (bloc == null || bloc.taille + commande.size() > TAILLE_BLOC && bloc.taille > 0) {
+            bloc = new Bloc();
+            blocs.add(bloc);
+        }
+        for (Object[] ligne : commande) {
+            if (bloc.taille == TAILLE_BLOC) {
+                bloc = new Bloc();
+                blocs.add(bloc);
+            }
+            int i = bloc.taille;
+            int minute = minute(ligne[7]);
+            bloc.commande[i] = commandeId;
+            bloc.table[i] = tables.code(((Number) ligne[1]).longValue(), "Table " + ligne[2]);
+            bloc.plat[i] = plats.code(((Number) ligne[3]).longValue(), (String) ligne[4]);
+            bloc.quantite[i] = ((Number) ligne[5]).intValue();
+            bloc.prix[i] = (int) Money.of((BigDecimal) ligne[6]).getCents();
+            bloc.minute[i] = minute;
+            bloc.mode[i] = (byte) codeMode((String) ligne[8]);
+            bloc.taille++;
+            lignes++;
+            minuteMin = Math.min(minuteMin, minute);
+            minuteMax = Math.max(minuteMax, minute);
+        }
+    }
+
+    private int codeMode(String mode) {
+        Integer code = codesModes.get(mode);
+        if (code == null) {
+            code = modes.size();
+            codesModes.put(mode, code);
+            modes.add(mode);
+        }
+        return code;
+    }
+
+    /**
+     * Minutes depuis 1970 en heure locale (pas de décalage d'heure d'été : jour et heure par division)
+     */
+    static int minute(Object date) {
+        LocalDateTime dateHeure = date instanceof Timestamp ? ((Timestamp) date).toLocalDateTime()
+                : (LocalDateTime) date;
+        return (int) (dateHeure.toEpochSecond(ZoneOffset.UTC) / 60);
+    }
+
+    // ==================== PARCOURS PARALLÈLE ====================
+
+    /**
+     * Découpe par blocs, puis chaque bloc par lignes
+     */
+    private static final class TacheBlocs extends RecursiveTask<Partiel> {
+        private final Instantane instantane;
+        private final Criteres criteres;
+        private final Regroupement par;
+        private final int groupes;
+        private final int debut;
+        private final int fin;
+
+        TacheBlocs(Instantane instantane, Criteres criteres, Regroupement par, int groupes, int debut, int fin) {
+            this.instantane = instantane;
+            this.criteres = criteres;
+            this.par = par;
+            this.groupes = groupes;
+            this.debut = debut;
+            this.fin = fin;
+        }
+
+        @Override
+        protected Partiel compute() {
+            if (fin - debut == 1) {
+                return new TacheLignes(instantane.blocs[debut], criteres, par, groupes, 0,
+                        instantane.tailles[debut]).compute();
+            }
+            int milieu = (debut + fin) >>> 1;
+            TacheBlocs gauche = new TacheBlocs(instantane, criteres, par, groupes, debut, milieu);
+            gauche.fork();
+            Partiel droite = new TacheBlocs(instantane, criteres, par, groupes, milieu, fin).compute();
+            return gauche.join().ajouter(droite);
+        }
+    }
+
+    private static final class TacheLignes extends RecursiveTask<Partiel> {
+        private final Bloc bloc;
+        private final Criteres c;
+        private final Regroupement par;
+        private final int groupes;
+        private final int debut;
+        private final int fin;
+
+        TacheLignes(Bloc bloc, Criteres criteres, Regroupement par, int groupes, int debut, int fin) {
+            this.bloc = bloc;
+            this.c = criteres;
+            this.par = par;
+            this.groupes = groupes;
+            this.debut = debut;
+            this.fin = fin;
+        }
+
+        @Override
+        protected Partiel compute() {
+            if (fin - debut > SEUIL) {
+                // Coupure entre deux commandes : chaque commande est comptée par une seule tâche
+                int milieu = (debut + fin) >>> 1;
+                while (milieu < fin && bloc.commande[milieu] == bloc.commande[milieu - 1]) {
+                    milieu++;
+                }
+                if (milieu < fin) {
+                    TacheLignes gauche = new TacheLignes(bloc, c, par, groupes, debut, milieu);
+                    gauche.fork();
+                    Partiel droite = new TacheLignes(bloc, c, par, groupes, milieu, fin).compute();
+                    return gauche.join().ajouter(droite);
+                }
+            }
+            return parcourir();
+        }
+
+        private Partiel parcourir() {
+            Partiel p = new Partiel(groupes);
+            long[] derniere = new long[groupes];
+            Arrays.fill(derniere, -1);
+            int[] minutes = bloc.minute;
+            for (int i = debut; i < fin; i++) {
+                int m = minutes[i];
+                if (m < c.minuteMin || m >= c.minuteMax) {
+                    continue;
+                }
+                int jour = m / MINUTES_JOUR;
+                int jourSemaine = (jour + 3) % 7; // 1970-01-01 : jeudi (lundi = 0)
+                int heure = (m - jour * MINUTES_JOUR) / 60;
+                if ((c.joursSemaine & (1 << jourSemaine)) == 0 || (c.heures & (1 << heure)) == 0) {
+                    continue;
+                }
+                if (c.dates != null && !c.dates.contains(jour)) {
+                    continue;
+                }
+                int plat = bloc.plat[i];
+                int table = bloc.table[i];
+                int mode = bloc.mode[i];
+                if ((c.plats != null && (plat >= c.plats.length || !c.plats[plat]))
+                        || (c.tables != null && (table >= c.tables.length || !c.tables[table]))
+                        || (c.modes != null && (mode >= c.modes.length || !c.modes[mode]))) {
+                    continue;
+                }
+
+                int g;
+                switch (par) {
+                    case PLAT:
+                        g = plat;
+                        break;
+                    case TABLE:
+                        g = table;
+                        break;
+                    case MODE_PAIEMENT:
+                        g = mode;
+                        break;
+                    case JOUR_SEMAINE:
+                        g = jourSemaine;
+                        break;
+                    case HEURE:
+                        g = heure;
+                        break;
+                    default:
+                        g = jour - c.jourBase;
+                        break;
+                }
+                if (g < 0 || g >= groupes) {
+                    continue;
+                }
+                int quantite = bloc.quantite[i];
+                p.quantite[g] += quantite;
+                p.montant[g] += (long) bloc.prix[i] * quantite;
+                p.lignes[g]++;
+                long commande = bloc.commande[i];
+                if (derniere[g] != commande) {
+                    derniere[g] = commande;
+                    p.commandes[g]++;
+                }
+            }
+            return p;
+        }
+    }
+
+    /**
+     * Agrégats partiels d'une tâche, combinés par addition (ordre indifférent)
+     */
+    private static final class Partiel {
+        final long[] quantite;
+        final long[] montant;
+        final long[] lignes;
+        final long[] commandes;
+
+        Partiel(int groupes) {
+            quantite = new long[groupes];
+            montant = new long[groupes];
+            lignes = new long[groupes];
+            commandes = new long[groupes];
+        }
+
+        Partiel ajouter(Partiel autre) {
+            for (int g = 0; g < quantite.length; g++) {
+                quantite[g] += autre.quantite[g];
+                montant[g] += autre.montant[g];
+                lignes[g] += autre.lignes[g];
+                commandes[g] += autre.commandes[g];
+            }
+            return this;
+        }
+    }
+
+    // ==================== STRUCTURES ====================
+
+    private static final class Bloc {
+        final int[] minute = new int[TAILLE_BLOC];
+        final int[] plat = new int[TAILLE_BLOC];
+        final int[] quantite = new int[TAILLE_BLOC];
+        final int[] prix = new int[TAILLE_BLOC];
+        final int[] table = new int[TAILLE_BLOC];
+        final byte[] mode = new byte[TAILLE_BLOC];
+        final long[] commande = new long[TAILLE_BLOC];
+        int taille;
+    }
+
+    /**
+     * Identifiants (plats, tables) codés en entiers denses, avec leur libellé au chargement
+     */
+    private static final class Dictionnaire {
+        final LongIntMap codes = new LongIntMap(64);
+        long[] ids = new long[64];
+        String[] libelles = new String[64];
+        int taille;
+
+        int code(long id, String libelle) {
+            int code = codes.get(id);
+            if (code < 0) {
+                code = taille++;
+                if (code == ids.length) {
+                    ids = Arrays.copyOf(ids, code * 2);
+                    libelles = Arrays.copyOf(libelles, code * 2);
+                }
+                ids[code] = id;
+                libelles[code] = libelle;
+                codes.put(id, code);
+            }
+            return code;
+        }
+
+        Dictionnaire copie() {
+            Dictionnaire copie = new Dictionnaire();
+            copie.ids = Arrays.copyOf(ids, taille);
+            copie.libelles = Arrays.copyOf(libelles, taille);
+            copie.taille = taille;
+            return copie;
+        }
+    }
+
+    /**
+     * État figé lu par une analyse (blocs et tailles à l'instant de la lecture)
+     */
+    private static final class Instantane {
+        final Bloc[] blocs;
+        final int[] tailles;
+        final int lignes;
+        final int minuteMin;
+        final int minuteMax;
+        final Dictionnaire plats;
+        final Dictionnaire tables;
+        final String[] modes;
+        final Map<String, Integer> codesModes;
+
+        Instantane(AnalyseVentes cache) {
+            blocs = cache.blocs.toArray(new Bloc[0]);
+            tailles = new int[blocs.length];
+            for (int b = 0; b < blocs.length; b++) {
+                tailles[b] = blocs[b].taille;
+            }
+            lignes = cache.lignes;
+            minuteMin = cache.minuteMin;
+            minuteMax = cache.minuteMax;
+            plats = cache.plats.copie();
+            tables = cache.tables.copie();
+            modes = cache.modes.toArray(new String[0]);
+            codesModes = new HashMap<>(cache.codesModes);
+        }
+    }
+
+    /**
+     * Filtre traduit en bornes, masques et codes
+     */
+    private static final class Criteres {
+        final int minuteMin;
+        final int minuteMax;
+        final int joursSemaine;
+        final int heures;
+        final Set<Integer> dates;
+        final boolean[] plats;
+        final boolean[] tables;
+        final boolean[] modes;
+        int jourBase;
+
+        Criteres(Filtre filtre, Instantane instantane) {
+            minuteMin = filtre.debut != null ? minute(filtre.debut) : Integer.MIN_VALUE;
+            minuteMax = filtre.fin != null ? minute(filtre.fin) : Integer.MAX_VALUE;
+            joursSemaine = filtre.joursSemaine;
+            heures = filtre.heures;
+            if (filtre.dates != null) {
+                dates = new HashSet<>();
+                for (LocalDate date : filtre.dates) {
+                    dates.add((int) date.toEpochDay());
+                }
+            } else {
+                dates = null;
+            }
+            plats = codes(filtre.platIds, instantane.plats);
+            tables = codes(filtre.tableIds, instantane.tables);
+            if (filtre.modes != null) {
+                modes = new boolean[instantane.modes.length];
+                for (String mode : filtre.modes) {
+                    Integer code = instantane.codesModes.get(mode);
+                    if (code != null) {
+                        modes[code] = true;
+                    }
+                }
+            } else {
+                modes = null;
+            }
+        }
+
+        private static boolean[] codes(Set<Long> ids, Dictionnaire dictionnaire) {
+            if (ids == null) {
+                return null;
+            }
+            boolean[] retenus = new boolean[dictionnaire.taille];
+            for (int code = 0; code < dictionnaire.taille; code++) {
+                retenus[code] = ids.contains(dictionnaire.ids[code]);
+            }
+            return retenus;
+        }
+    }
+
+    // ==================== DTOs ====================
+
+    /**
+     * Filtre d'une analyse : tout est retenu par défaut
+     */
+    public static final class Filtre {
+        private LocalDateTime debut;
+        private LocalDateTime fin;
+        private int joursSemaine = TOUS_JOURS;
+        private int heures = TOUTES_HEURES;
+        private Set<LocalDate> dates;
+        private Set<Long> platIds;
+        private Set<Long> tableIds;
+        private Set<String> modes;
+
+        /** Ventes réglées dans [debut, fin[ */
+        public Filtre periode(LocalDateTime debut, LocalDateTime fin) {
+            this.debut = debut;
+            this.fin = fin;
+            return this;
+        }
+
+        public Filtre joursSemaine(DayOfWeek... jours) {
+            joursSemaine = 0;
+            for (DayOfWeek jour : jours) {
+                joursSemaine |= 1 << (jour.getValue() - 1);
+            }
+            return this;
+        }
+
+        /** Heures de règlement dans [de, a[ */
+        public Filtre heures(int de, int a) {
+            heures = 0;
+            for (int heure = Math.max(0, de); heure < Math.min(24, a); heure++) {
+                heures |= 1 << heure;
+            }
+            return this;
+        }
+
+        /** Jours précis (jours de pluie, de match...) */
+        public Filtre dates(Collection<LocalDate> dates) {
+            this.dates = new HashSet<>(dates);
+            return this;
+        }
+
+        public Filtre plats(Collection<Long> platIds) {
+            this.platIds = new HashSet<>(platIds);
+            return this;
+        }
+
+        public Filtre tables(Collection<Long> tableIds) {
+            this.tableIds = new HashSet<>(tableIds);
+            return this;
+        }
+
+        public Filtre modes(Collection<String> modes) {
+            this.modes = new HashSet<>(modes);
+            return this;
+        }
+    }
+
+    /**
+     * Résultat d'un regroupement (clé : id du plat ou de la table, jour ISO, heure, jour epoch)
+     */
+    public static final class Groupe {
+        private final long cle;
+        private final String libelle;
+        private final long quantite;
+        private final Money montant;
+        private final long lignes;
+        private final long commandes;
+
+        Groupe(long cle, String libelle, long quantite, Money montant, long lignes, long commandes) {
+            this.cle = cle;
+            this.libelle = libelle;
+            this.quantite = quantite;
+            this.montant = montant;
+            this.lignes = lignes;
+            this.commandes = commandes;
+        }
+
+        public long getCle() { return cle; }
+        public String getLibelle() { return libelle; }
+        public long getQuantite() { return quantite; }
+        public Money getMontant() { return montant; }
+        public long getLignes() { return lignes; }
+        public long getCommandes() { return commandes; }
+
+        @Override
+        public String toString() {
+            return String.format("%s: %d unités, %s (%d commandes)", libelle, quantite, montant.format(), commandes);
+        }
+    }
+}
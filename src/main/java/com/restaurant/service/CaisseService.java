@@ -3,17 +3,31 @@ package com.restaurant.service;
 import com.restaurant.config.DatabaseConfig;
 import com.restaurant.config.ErrorLogger;
 import com.restaurant.dao.*;
+import com.restaurant.event.CommandeModifieeEvent;
+import com.restaurant.event.TransitionEvent;
 import com.restaurant.exception.DatabaseException;
 import com.restaurant.exception.ValidationException;
+import com.restaurant.journal.JournalCommandes;
+import com.restaurant.model.ClotureJournee;
 import com.restaurant.model.Commande;
+import com.restaurant.model.Money;
 import com.restaurant.model.Paiement;
+import com.restaurant.model.enums.DimensionVentes;
+import com.restaurant.model.enums.Granularite;
 import com.restaurant.model.enums.StatutCommande;
+import com.restaurant.readmodel.CommandeAPayer;
+import com.restaurant.readmodel.VueCaisse;
 
 import javax.persistence.EntityManager;
 import javax.persistence.EntityTransaction;
+import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.util.Comparator;
+import java.time.Year;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -26,8 +40,12 @@ public class CaisseService {
     private PlatDAO platDAO;
     private CategorieDAO categorieDAO;
     private TableDAO tableDAO;
+    private ClotureService clotureService;
+    private CumulVentesService cumulVentesService;
 
-    private CommandeService commandeService;
+    private final CommandeWorkflow workflow = CommandeWorkflow.getInstance();
+    private final JournalCommandes journal = JournalCommandes.getInstance();
+    private final VueCaisse vueCaisse = VueCaisse.getInstance();
 
     public CaisseService() {
         this.entityManager = DatabaseConfig.getEntityManager();
@@ -36,7 +54,8 @@ public class CaisseService {
         this.platDAO = new PlatDAO(entityManager);
         this.categorieDAO = new CategorieDAO(entityManager);
         this.tableDAO = new TableDAO(entityManager);
-        this.commandeService = new CommandeService();
+        this.clotureService = new ClotureService(entityManager);
+        this.cumulVentesService = new CumulVentesService(entityManager);
     }
 
     /**
@@ -52,17 +71,20 @@ public class CaisseService {
             T result = callback.execute();
 
             transaction.commit();
+            journal.valider();
             return result;
 
         } catch (ValidationException ve) {
             if (transaction != null && transaction.isActive()) {
                 transaction.rollback();
             }
+            journal.annuler();
             throw ve;
         } catch (Exception e) {
             if (transaction != null && transaction.isActive()) {
                 transaction.rollback();
             }
+            journal.annuler();
             ErrorLogger.logError(context, e);
             throw new DatabaseException("Erreur lors de l'opération: " + context, e);
         }
@@ -74,16 +96,49 @@ public class CaisseService {
     }
 
     /**
-     * Enregistre un paiement pour une commande
+     * Enregistre un paiement (partiel ou total) pour une commande chargée
+     * L'entité reflète ensuite le paiement (montant encaissé, reste, PAYEE si soldée)
      */
-    public Paiement recordPayment(Commande commande, Double montant, String modePaiement)
+    public Paiement recordPayment(Commande commande, Money montant, String modePaiement)
+            throws ValidationException, DatabaseException {
+
+        if (commande == null || commande.getId() == null) {
+            throw new ValidationException("Commande requise");
+        }
+
+        Long tableId = commande.getTable() != null ? commande.getTable().getId() : null;
+        Paiement paiement = enregistrerPaiement(commande.getId(), tableId, commande.getDateEntree(StatutCommande.SERVI),
+                commande.getResteAPayer(), montant, modePaiement);
+        commande.appliquerPaiement(paiement.getMontant(), paiement.getDatePaiement());
+        return paiement;
+    }
+
+    /**
+     * Enregistre un paiement (partiel ou total) pour une commande de la file à payer
+     * Le paiement retourné ne référence que l'identifiant de la commande (getCommandeDetails pour le ticket)
+     */
+    public Paiement recordPayment(CommandeAPayer commande, Money montant, String modePaiement)
             throws ValidationException, DatabaseException {
 
         if (commande == null) {
             throw new ValidationException("Commande requise");
         }
+        return enregistrerPaiement(commande.getId(), commande.getTableId(), commande.getDateServi(),
+                commande.getResteAPayer(), montant, modePaiement);
+    }
+
+    /**
+     * Encaissement en une transaction courte, sans relire la commande :
+     * - UPDATE conditionnel du solde (reste dû attendu), PAYEE quand il atteint zéro
+     * - INSERT du paiement (commande référencée par son identifiant)
+     * Le paiement porte le montant imputé (au plus le reste dû) ; l'excédent est rendu au client
+     * La raison d'un refus n'est lue qu'en cas d'échec
+     */
+    private Paiement enregistrerPaiement(long commandeId, Long tableId, LocalDateTime dateServi, Money resteAttendu,
+                                         Money montant, String modePaiement)
+            throws ValidationException, DatabaseException {
 
-        if (montant == null || montant <= 0) {
+        if (montant == null || !montant.isPositive()) {
             throw new ValidationException("Montant doit être > 0");
         }
 
@@ -91,63 +146,138 @@ public class CaisseService {
             throw new ValidationException("Mode de paiement requis");
         }
 
-        // Vérifier statut commande (doit être SERVI)
-        if (!commande.getStatut().equals(StatutCommande.SERVI)) {
-            throw new ValidationException(
-                    "Paiement impossible, commande statut: " + commande.getStatut()
-            );
+        if (resteAttendu == null || !resteAttendu.isPositive()) {
+            throw new ValidationException("Total à payer doit être > 0");
         }
 
-        // Calculer le total à payer
-        Double totalAPayer = commandeService.calculateTotalAvecRemise(commande);
-
-        if (montant < totalAPayer) {
-            throw new ValidationException(
-                    String.format("Montant insuffisant. Dû: %.2f€, Reçu: %.2f€", totalAPayer, montant)
-            );
-        }
+        Money applique = montant.isLessThan(resteAttendu) ? montant : resteAttendu;
+        boolean solde = applique.equals(resteAttendu);
+        LocalDateTime maintenant = LocalDateTime.now();
+        Object[] evenement = new Object[1];
+        Paiement enregistre = executeWithTransaction("CaisseService.recordPayment", () -> {
+            if (commandeDAO.updatePaiement(commandeId, resteAttendu, applique, maintenant) == 0) {
+                refusPaiement(commandeId);
+            }
 
-        return executeWithTransaction("CaisseService.recordPayment", () -> {
             // Créer le paiement
             Paiement paiement = new Paiement();
-            paiement.setCommande(commande);
-            paiement.setMontant(montant);
+            paiement.setCommande(entityManager.getReference(Commande.class, commandeId));
+            paiement.setMontant(applique);
             paiement.setModePaiement(modePaiement.trim());
-            paiement.setDatePaiement(LocalDateTime.now());
+            paiement.setDatePaiement(maintenant);
 
-            // Sauvegarder paiement
             Paiement savedPaiement = paiementDAO.save(paiement);
-
-            // Mettre à jour statut commande
-            commande.setStatut(StatutCommande.PAYEE);
-            commandeDAO.save(commande);
-
+            journal.paiement(savedPaiement);
+            evenement[0] = solde
+                    ? workflow.appliquer(commandeId, tableId, StatutCommande.SERVI, StatutCommande.PAYEE,
+                            maintenant, dateServi)
+                    : workflow.modification(commandeId, tableId, CommandeModifieeEvent.Nature.PAIEMENT);
             return savedPaiement;
         });
+        // Seule la commande payée est écartée (elle garderait son ancien solde) : les autres entités
+        // du contexte, tenues par les écrans, restent attachées
+        entityManager.detach(enregistre);
+        entityManager.detach(enregistre.getCommande());
+        integrerCumuls();
+        if (solde) {
+            workflow.publier((TransitionEvent) evenement[0]);
+        } else {
+            workflow.publier((CommandeModifieeEvent) evenement[0]);
+        }
+        return enregistre;
+    }
+
+    /**
+     * Ajoute l'encaissement aux cumuls de ventes, hors transaction du paiement :
+     * un échec est journalisé et rattrapé par l'intégration suivante
+     */
+    private void integrerCumuls() {
+        try {
+            cumulVentesService.integrerPaiementsRecents();
+        } catch (DatabaseException e) {
+            ErrorLogger.logDebug("Cumuls de ventes différés : " + e.getMessage());
+        }
+    }
+
+    /**
+     * Explique un encaissement refusé par la mise à jour conditionnelle
+     */
+    private void refusPaiement(long commandeId) throws ValidationException, DatabaseException {
+        Object[] etat = commandeDAO.findEtatPaiement(commandeId);
+        if (etat == null) {
+            throw new ValidationException("Commande introuvable");
+        }
+        StatutCommande statut = (StatutCommande) etat[0];
+        if (!workflow.peutTransitionner(statut, StatutCommande.PAYEE)) {
+            throw new ValidationException("Paiement impossible, commande statut: " + statut);
+        }
+        Money reste = etat[1] != null ? (Money) etat[1] : Money.ZERO;
+        throw new ValidationException(
+                "Solde modifié entre-temps sur un autre poste, reste dû: " + reste.format()
+        );
     }
 
     /**
-     * Récupère le rendu de monnaie
+     * Commande complète (table, lignes, plats) relue en base, null si introuvable
      */
-    public Double calculateRendu(Commande commande, Double montantPaye) throws ValidationException {
+    public Commande getCommandeDetails(long commandeId) throws DatabaseException {
+        EntityManager localEM = DatabaseConfig.getEntityManager();
+        try {
+            List<Commande> commandes = new CommandeDAO(localEM).findByIdsWithLignes(List.of(commandeId));
+            return commandes.isEmpty() ? null : commandes.get(0);
+        } finally {
+            localEM.close();
+        }
+    }
+
+    /**
+     * Récupère le rendu de monnaie (montant reçu au-delà du reste dû)
+     */
+    public Money calculateRendu(Commande commande, Money montantPaye) throws ValidationException {
         if (commande == null) {
             throw new ValidationException("Commande requise");
         }
 
-        Double totalAPayer = commandeService.calculateTotalAvecRemise(commande);
+        Money resteAPayer = commande.getResteAPayer();
 
-        if (montantPaye < totalAPayer) {
+        if (montantPaye == null || montantPaye.isLessThan(resteAPayer)) {
             throw new ValidationException("Montant insuffisant");
         }
 
-        return montantPaye - totalAPayer;
+        return montantPaye.minus(resteAPayer);
+    }
+
+    /**
+     * Part de chacun pour un reste dû partagé en parts égales (arrondie au centime supérieur :
+     * la dernière part, calculée sur le reste, est exacte)
+     */
+    public static Money calculerPart(Money resteAPayer, int parts) throws ValidationException {
+        if (parts < 1) {
+            throw new ValidationException("Nombre de parts doit être >= 1");
+        }
+        long cents = resteAPayer.getCents();
+        return Money.ofCents((cents + parts - 1) / parts);
     }
 
     /**
      * Récupère toutes les commandes servies (en attente de paiement)
      */
-    public List<Commande> getCommandesAPayer() throws DatabaseException {
-        return commandeDAO.findByStatut(StatutCommande.SERVI);
+    public List<CommandeAPayer> getCommandesAPayer() throws DatabaseException {
+        return vueCaisse.lister();
+    }
+
+    /**
+     * Force une relecture complète de la file (encaissements faits sur d'autres postes)
+     */
+    public void rafraichirFileAPayer() {
+        vueCaisse.invaliderTout();
+    }
+
+    /**
+     * Commandes qui doivent encore être réglées (reste dû > 0), lues par l'index du solde
+     */
+    public List<Commande> getCommandesNonPayees() throws DatabaseException {
+        return commandeDAO.findCommandesNonPayees();
     }
 
     /**
@@ -162,88 +292,195 @@ public class CaisseService {
      */
     public List<Commande> getCommandesPayeesAujourdhui() throws DatabaseException {
         LocalDate aujourdhui = LocalDate.now();
-
-        return commandeDAO.findByStatut(StatutCommande.PAYEE).stream()
-                .filter(c -> c.getDateCreation() != null)
-                .filter(c -> c.getDateCreation().toLocalDate().equals(aujourdhui))
-                .collect(Collectors.toList());
+        return commandeDAO.findByStatutAndPeriode(StatutCommande.PAYEE,
+                aujourdhui.atStartOfDay(), aujourdhui.plusDays(1).atStartOfDay());
     }
 
     /**
      * Rapport : Total des ventes du jour
      */
-    public Double getTotalVentesAujourdhui() throws DatabaseException {
-        return getCommandesPayeesAujourdhui().stream()
-                .mapToDouble(commandeService::calculateTotalAvecRemise)
-                .sum();
+    public Money getTotalVentesAujourdhui() throws DatabaseException {
+        long total = 0;
+        for (Commande commande : getCommandesPayeesAujourdhui()) {
+            total += commande.getTotalAvecRemiseCents();
+        }
+        return Money.ofCents(total);
     }
 
     /**
      * Rapport : Total des ventes par mode de paiement
      */
-    public Map<String, Double> getVentesParModePaiement(LocalDate date) throws DatabaseException {
+    public Map<String, Money> getVentesParModePaiement(LocalDate date) throws DatabaseException {
         List<Commande> commandesDuJour = getAllCommandesDuJour(date);
 
-        return commandesDuJour.stream()
-                .filter(c -> c.getStatut().equals(StatutCommande.PAYEE))
-                .flatMap(c -> c.getPaiements().stream())
-                .collect(Collectors.groupingBy(
-                        Paiement::getModePaiement,
-                        Collectors.summingDouble(Paiement::getMontant)
-                ));
+        Map<String, long[]> cumuls = new LinkedHashMap<>();
+        for (Commande commande : commandesDuJour) {
+            if (!commande.getStatut().equals(StatutCommande.PAYEE)) {
+                continue;
+            }
+            for (Paiement paiement : commande.getPaiements()) {
+                cumuls.computeIfAbsent(paiement.getModePaiement(), k -> new long[1])[0]
+                        += paiement.getMontant().getCents();
+            }
+        }
+
+        Map<String, Money> ventes = new LinkedHashMap<>();
+        cumuls.forEach((mode, cents) -> ventes.put(mode, Money.ofCents(cents[0])));
+        return ventes;
     }
 
     /**
-     * Top 5 plats les plus vendus (toutes dates)
+     * Top 5 plats les plus vendus (toutes dates), tenu en continu (approché au-delà de 64 plats)
      */
     public List<PlatVente> getTop5Plats() throws DatabaseException {
-        List<Commande> toutesCommandes = commandeDAO.findAll();
-
-        return toutesCommandes.stream()
-                .filter(c -> c.getStatut().equals(StatutCommande.PAYEE))
-                .flatMap(c -> c.getLignes().stream())
-                .collect(Collectors.groupingBy(
-                        ligne -> ligne.getPlat().getNom(),
-                        Collectors.summingInt(ligne -> ligne.getQuantite())
-                ))
-                .entrySet().stream()
-                .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
-                .limit(5)
-                .map(entry -> new PlatVente(entry.getKey(), entry.getValue()))
-                .collect(Collectors.toList());
+        return versPlatVentes(PlatsPopulaires.getInstance().getTop(5));
     }
 
     /**
-     * Top 5 plats les plus vendus aujourd'hui
+     * Top 5 plats les plus vendus aujourd'hui, tenu en continu
      */
     public List<PlatVente> getTop5PlatsAujourdhui() throws DatabaseException {
-        List<Commande> commandesAujourdhui = getCommandesPayeesAujourdhui();
-
-        return commandesAujourdhui.stream()
-                .flatMap(c -> c.getLignes().stream())
-                .collect(Collectors.groupingBy(
-                        ligne -> ligne.getPlat().getNom(),
-                        Collectors.summingInt(ligne -> ligne.getQuantite())
-                ))
-                .entrySet().stream()
-                .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
-                .limit(5)
-                .map(entry -> new PlatVente(entry.getKey(), entry.getValue()))
+        LocalDate aujourdhui = LocalDate.now();
+        List<PlatsPopulaires.Classement> top = PlatsPopulaires.getInstance().getTopJour(aujourdhui, 5);
+        return top != null ? versPlatVentes(top) : auditerTopPlats(aujourdhui, aujourdhui, 5);
+    }
+
+    /**
+     * Plats les plus vendus sur [debut, fin] (null : depuis la première commande, jusqu'à aujourd'hui),
+     * recalculés exactement depuis les commandes soldées : contrôle du classement tenu en continu
+     * Mêmes clés et même datation que PlatsPopulaires : par plat (id), commandes datées de leur création
+     * La période est découpée en tranches de dates agrégées en parallèle, puis les cumuls fusionnés
+     */
+    public List<PlatVente> auditerTopPlats(LocalDate debut, LocalDate fin, int limite) throws DatabaseException {
+        if (debut == null) {
+            LocalDateTime premiere = new ClotureDAO(entityManager).findPremiereActivite();
+            if (premiere == null) {
+                return new ArrayList<>();
+            }
+            debut = premiere.toLocalDate();
+        }
+        LocalDate dernier = fin != null ? fin : LocalDate.now();
+        Map<Long, PlatVente> ventes = RapportsParalleles.agreger(
+                RapportsParalleles.decouper(debut.atStartOfDay(), dernier.plusDays(1).atStartOfDay()),
+                (em, tranche) -> {
+                    Map<Long, PlatVente> partiel = new HashMap<>();
+                    for (Object[] ligne : new CommandeDAO(em).sommerQuantitesParPlat(tranche[0], tranche[1])) {
+                        partiel.put(((Number) ligne[0]).longValue(),
+                                new PlatVente((String) ligne[1], ((Number) ligne[2]).intValue()));
+                    }
+                    return partiel;
+                },
+                (a, b) -> {
+                    b.forEach((platId, vente) -> a.merge(platId, vente, (x, y) -> {
+                        x.setQuantiteVendue(x.getQuantiteVendue() + y.getQuantiteVendue());
+                        return x;
+                    }));
+                    return a;
+                },
+                HashMap::new);
+
+        return ventes.entrySet().stream()
+                .sorted((a, b) -> !a.getValue().getQuantiteVendue().equals(b.getValue().getQuantiteVendue())
+                        ? Integer.compare(b.getValue().getQuantiteVendue(), a.getValue().getQuantiteVendue())
+                        : Long.compare(a.getKey(), b.getKey()))
+                .limit(limite)
+                .map(Map.Entry::getValue)
                 .collect(Collectors.toList());
     }
 
+    private static List<PlatVente> versPlatVentes(List<PlatsPopulaires.Classement> classement) {
+        List<PlatVente> ventes = new ArrayList<>(classement.size());
+        for (PlatsPopulaires.Classement plat : classement) {
+            ventes.add(new PlatVente(plat.getNom(), (int) plat.getQuantite()));
+        }
+        return ventes;
+    }
+
     /**
-     * Chiffre d'affaires par heure (aujourd'hui)
+     * Encaissements par heure (aujourd'hui), lus dans les cumuls horaires
      */
-    public Map<Integer, Double> getCAByHour() throws DatabaseException {
-        List<Commande> commandesAujourdhui = getCommandesPayeesAujourdhui();
+    public Map<Integer, Money> getCAByHour() throws DatabaseException {
+        LocalDateTime debut = LocalDate.now().atStartOfDay();
+        Map<Integer, Money> ca = new LinkedHashMap<>();
+        try {
+            for (Map.Entry<LocalDateTime, Money> tranche : cumulVentesService.getTendance(Granularite.HEURE,
+                    debut, debut.plusDays(1)).entrySet()) {
+                if (tranche.getValue().isPositive()) {
+                    ca.put(tranche.getKey().getHour(), tranche.getValue());
+                }
+            }
+        } catch (ValidationException e) {
+            throw new DatabaseException(e.getMessage(), e);
+        }
+        return ca;
+    }
 
-        return commandesAujourdhui.stream()
-                .filter(c -> c.getDateCreation() != null)
-                .collect(Collectors.groupingBy(
-                        c -> c.getDateCreation().getHour(),
-                        Collectors.summingDouble(commandeService::calculateTotalAvecRemise)
-                ));
+    /**
+     * Tendance des encaissements (heure, jour, semaine ou mois) sur [debut, fin[
+     */
+    public Map<LocalDateTime, Money> getTendanceVentes(Granularite granularite, LocalDateTime debut,
+                                                       LocalDateTime fin)
+            throws ValidationException, DatabaseException {
+        return cumulVentesService.getTendance(granularite, debut, fin);
+    }
+
+    /**
+     * Ventes par tranche pour un plat, une catégorie ou un mode de paiement
+     */
+    public List<CumulVentesService.PointVentes> getSerieVentes(Granularite granularite, DimensionVentes dimension,
+                                                               LocalDateTime debut, LocalDateTime fin)
+            throws ValidationException, DatabaseException {
+        return cumulVentesService.getSerie(granularite, dimension, debut, fin);
+    }
+
+    /**
+     * Totaux d'une dimension sur une plage quelconque (montants décroissants)
+     */
+    public List<CumulVentesService.PointVentes> getTotauxVentes(DimensionVentes dimension, LocalDateTime debut,
+                                                                LocalDateTime fin)
+            throws ValidationException, DatabaseException {
+        return cumulVentesService.getTotaux(dimension, debut, fin);
+    }
+
+    /**
+     * Reconstruit les cumuls de ventes depuis l'historique des paiements
+     */
+    public int recalculerCumulsVentes() throws DatabaseException {
+        return cumulVentesService.recalculer();
+    }
+
+    // ==================== ANALYSE DES VENTES ====================
+
+    /**
+     * Analyse libre des ventes réglées (cache en colonnes) : filtre puis regroupement
+     */
+    public List<AnalyseVentes.Groupe> analyserVentes(AnalyseVentes.Filtre filtre,
+                                                     AnalyseVentes.Regroupement regroupement)
+            throws ValidationException, DatabaseException {
+        if (regroupement == null) {
+            throw new ValidationException("Regroupement requis");
+        }
+        return AnalyseVentes.getInstance().analyser(filtre, regroupement);
+    }
+
+    /**
+     * Rotation des tables sur [debut, fin] : commandes, couverts vendus et montant par table
+     */
+    public List<AnalyseVentes.Groupe> getRotationTables(LocalDate debut, LocalDate fin)
+            throws ValidationException, DatabaseException {
+        return analyserVentes(new AnalyseVentes.Filtre().periode(debut.atStartOfDay(),
+                fin.plusDays(1).atStartOfDay()), AnalyseVentes.Regroupement.TABLE);
+    }
+
+    /**
+     * Plats vendus un jour de la semaine donné sur [debut, fin] (ex. les mardis du trimestre)
+     */
+    public List<AnalyseVentes.Groupe> getPlatsParJourSemaine(DayOfWeek jour, LocalDate debut, LocalDate fin)
+            throws ValidationException, DatabaseException {
+        return analyserVentes(new AnalyseVentes.Filtre()
+                        .periode(debut.atStartOfDay(), fin.plusDays(1).atStartOfDay())
+                        .joursSemaine(jour),
+                AnalyseVentes.Regroupement.PLAT);
     }
 
     /**
@@ -279,7 +516,7 @@ public class CaisseService {
                 .count();
 
         if (nbCommandesPayees > 0) {
-            stats.setMoyennePanier(stats.getChiffreAffaires() / nbCommandesPayees);
+            stats.setMoyennePanier(stats.getChiffreAffaires().divide(nbCommandesPayees));
         }
 
         // Top plats
@@ -288,13 +525,40 @@ public class CaisseService {
         return stats;
     }
 
+    // ==================== CLÔTURE (TICKET Z) ====================
+
+    /**
+     * Rapport du jour choisi : lu dans sa clôture si la journée est figée
+     */
+    public ClotureService.Rapport getRapportJour(LocalDate date) throws ValidationException, DatabaseException {
+        return clotureService.getRapportJour(date);
+    }
+
+    /**
+     * Rapport du mois : somme des clôtures journalières
+     */
+    public ClotureService.Rapport getRapportMois(YearMonth mois) throws ValidationException, DatabaseException {
+        return clotureService.getRapportMois(mois);
+    }
+
+    /**
+     * Rapport de l'année : somme des clôtures journalières
+     */
+    public ClotureService.Rapport getRapportAnnee(Year annee) throws ValidationException, DatabaseException {
+        return clotureService.getRapportAnnee(annee);
+    }
+
+    /**
+     * Clôture manuelle d'une journée terminée
+     */
+    public ClotureJournee cloturerJournee(LocalDate date) throws ValidationException, DatabaseException {
+        return clotureService.cloturer(date);
+    }
+
     // ==================== HELPER METHODS ====================
 
     private List<Commande> getAllCommandesDuJour(LocalDate date) throws DatabaseException {
-        return commandeDAO.findAll().stream()
-                .filter(c -> c.getDateCreation() != null)
-                .filter(c -> c.getDateCreation().toLocalDate().equals(date))
-                .collect(Collectors.toList());
+        return commandeDAO.findByPeriode(date.atStartOfDay(), date.plusDays(1).atStartOfDay());
     }
 
     // ==================== DTOs ====================
@@ -332,8 +596,8 @@ public class CaisseService {
         private int totalCommandes;
         private int commandesPayees;
         private int commandesEnCours;
-        private double chiffreAffaires;
-        private double moyennePanier;
+        private Money chiffreAffaires = Money.ZERO;
+        private Money moyennePanier = Money.ZERO;
         private List<PlatVente> topPlats;
 
         // Getters et Setters
@@ -349,11 +613,11 @@ public class CaisseService {
         public int getCommandesEnCours() { return commandesEnCours; }
         public void setCommandesEnCours(int commandesEnCours) { this.commandesEnCours = commandesEnCours; }
 
-        public double getChiffreAffaires() { return chiffreAffaires; }
-        public void setChiffreAffaires(double chiffreAffaires) { this.chiffreAffaires = chiffreAffaires; }
+        public Money getChiffreAffaires() { return chiffreAffaires; }
+        public void setChiffreAffaires(Money chiffreAffaires) { this.chiffreAffaires = chiffreAffaires; }
 
-        public double getMoyennePanier() { return moyennePanier; }
-        public void setMoyennePanier(double moyennePanier) { this.moyennePanier = moyennePanier; }
+        public Money getMoyennePanier() { return moyennePanier; }
+        public void setMoyennePanier(Money moyennePanier) { this.moyennePanier = moyennePanier; }
 
         public List<PlatVente> getTopPlats() { return topPlats; }
         public void setTopPlats(List<PlatVente> topPlats) { this.topPlats = topPlats; }
@@ -361,8 +625,9 @@ public class CaisseService {
         @Override
         public String toString() {
             return String.format(
-                    "Stats Journée %s: %d commandes (payées: %d, en cours: %d), %.2f€ CA, %.2f€ panier moyen",
-                    date, totalCommandes, commandesPayees, commandesEnCours, chiffreAffaires, moyennePanier
+                    "Stats Journée %s: %d commandes (payées: %d, en cours: %d), %s CA, %s panier moyen",
+                    date, totalCommandes, commandesPayees, commandesEnCours,
+                    chiffreAffaires.format(), moyennePanier.format()
             );
         }
     }
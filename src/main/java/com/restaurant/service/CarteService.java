@@ -8,11 +8,18 @@ import com.restaurant.dao.PlatDAO;
 import com.restaurant.exception.DatabaseException;
 import com.restaurant.exception.ValidationException;
 import com.restaurant.model.Categorie;
+import com.restaurant.model.Money;
 import com.restaurant.model.Plat;
 import javax.persistence.EntityManager;
 import javax.persistence.EntityTransaction;
 import java.io.File;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Service métier pour gestion du menu (catégories + plats)
@@ -24,6 +31,14 @@ public class CarteService {
     private CategorieDAO categorieDAO;
     private PlatDAO platDAO;
 
+    // Index de recherche en mémoire (construit au premier appel)
+    private final MenuSearchIndex searchIndex = new MenuSearchIndex();
+    private static final int SEARCH_LIMIT = 50;
+
+    // Photo du menu partagée par tous les écrans, remplacée atomiquement
+    private static final AtomicReference<MenuSnapshot> MENU_SNAPSHOT = new AtomicReference<>();
+    private static final AtomicLong MENU_VERSION = new AtomicLong();
+
     public CarteService() {
         this.entityManager = DatabaseConfig.getEntityManager();
         this.categorieDAO = new CategorieDAO(entityManager);
@@ -92,10 +107,12 @@ public class CarteService {
             throw new ValidationException("La catégorie '" + nomTrim + "' existe déjà");
         }
 
-        return executeWithTransaction("CarteService.addCategorie", () -> {
+        Categorie saved = executeWithTransaction("CarteService.addCategorie", () -> {
             Categorie categorie = new Categorie(nomTrim, description);
             return categorieDAO.save(categorie);
         });
+        menuChanged();
+        return saved;
     }
 
     /**
@@ -125,11 +142,13 @@ public class CarteService {
             }
         }
 
-        return executeWithTransaction("CarteService.updateCategorie", () -> {
+        Categorie saved = executeWithTransaction("CarteService.updateCategorie", () -> {
             categorie.setNom(nomTrim);
             categorie.setDescription(description);
             return categorieDAO.save(categorie);
         });
+        menuChanged();
+        return saved;
     }
 
     /**
@@ -153,6 +172,7 @@ public class CarteService {
             categorieDAO.delete(id);
             return null;
         });
+        menuChanged();
     }
 
     // ==================== PLATS ====================
@@ -188,7 +208,7 @@ public class CarteService {
     /**
      * Ajoute un plat (version simplifiée sans image)
      */
-    public Plat addPlat(String nom, Double prix, Categorie categorie, String description)
+    public Plat addPlat(String nom, Money prix, Categorie categorie, String description)
             throws ValidationException, DatabaseException {
 
         // Validation
@@ -196,7 +216,7 @@ public class CarteService {
             throw new ValidationException("Le nom du plat est requis");
         }
 
-        if (prix == null || prix <= 0) {
+        if (prix == null || !prix.isPositive()) {
             throw new ValidationException("Le prix doit être supérieur à 0");
         }
 
@@ -206,7 +226,7 @@ public class CarteService {
 
         String nomTrim = nom.trim();
 
-        return executeWithTransaction("CarteService.addPlat", () -> {
+        return indexPlat(executeWithTransaction("CarteService.addPlat", () -> {
             Plat plat = new Plat();
             plat.setNom(nomTrim);
             plat.setPrix(prix);
@@ -214,13 +234,13 @@ public class CarteService {
             plat.setDescription(description);
 
             return platDAO.save(plat);
-        });
+        }));
     }
 
     /**
      * Ajoute un plat avec image (fichier)
      */
-    public Plat addPlatWithImage(String nom, Double prix, Categorie categorie,
+    public Plat addPlatWithImage(String nom, Money prix, Categorie categorie,
                                  String description, File imageFile)
             throws ValidationException, DatabaseException {
 
@@ -229,7 +249,7 @@ public class CarteService {
             throw new ValidationException("Le nom du plat est requis");
         }
 
-        if (prix == null || prix <= 0) {
+        if (prix == null || !prix.isPositive()) {
             throw new ValidationException("Le prix doit être supérieur à 0");
         }
 
@@ -258,7 +278,7 @@ public class CarteService {
 
         String finalImageBase6 = imageBase64;
         String finalImagePath = imagePath;
-        return executeWithTransaction("CarteService.addPlatWithImage", () -> {
+        return indexPlat(executeWithTransaction("CarteService.addPlatWithImage", () -> {
             Plat plat = new Plat();
             plat.setNom(nomTrim);
             plat.setPrix(prix);
@@ -268,13 +288,13 @@ public class CarteService {
             plat.setImagePath(finalImagePath);
 
             return platDAO.save(plat);
-        });
+        }));
     }
 
     /**
      * Met à jour un plat
      */
-    public Plat updatePlat(Long id, String nom, Double prix, Categorie categorie,
+    public Plat updatePlat(Long id, String nom, Money prix, Categorie categorie,
                            String description, File imageFile)
             throws ValidationException, DatabaseException {
 
@@ -283,7 +303,7 @@ public class CarteService {
             throw new ValidationException("Le nom du plat est requis");
         }
 
-        if (prix == null || prix <= 0) {
+        if (prix == null || !prix.isPositive()) {
             throw new ValidationException("Le prix doit être supérieur à 0");
         }
 
@@ -323,7 +343,7 @@ public class CarteService {
 
         String finalImageBase6 = imageBase64;
         String finalImagePath = imagePath;
-        return executeWithTransaction("CarteService.updatePlat", () -> {
+        return indexPlat(executeWithTransaction("CarteService.updatePlat", () -> {
             plat.setNom(nomTrim);
             plat.setPrix(prix);
             plat.setCategorie(categorie);
@@ -332,7 +352,7 @@ public class CarteService {
             plat.setImagePath(finalImagePath);
 
             return platDAO.save(plat);
-        });
+        }));
     }
 
     /**
@@ -361,6 +381,8 @@ public class CarteService {
             platDAO.delete(id);
             return null;
         });
+        searchIndex.remove(id);
+        menuChanged();
     }
 
     /**
@@ -402,21 +424,119 @@ public class CarteService {
     }
 
     /**
-     * Recherche des plats par nom (recherche partielle)
+     * Recherche des plats par nom/description (type-ahead)
+     * Index en mémoire : préfixe, sous-chaîne, fautes de frappe, sans accents
      */
     public List<Plat> searchPlatsByName(String searchTerm) throws DatabaseException {
         if (searchTerm == null || searchTerm.trim().isEmpty()) {
             return getAllPlats();
         }
 
-        return platDAO.searchByName(searchTerm.trim());
+        ensureSearchIndex();
+        return searchIndex.search(searchTerm, SEARCH_LIMIT);
+    }
+
+    /**
+     * Force la reconstruction de l'index et de la photo du menu
+     * (ex: menu modifié depuis un autre poste)
+     */
+    public void refreshMenuCaches() {
+        searchIndex.invalidate();
+        menuChanged();
+    }
+
+    private void ensureSearchIndex() throws DatabaseException {
+        if (!searchIndex.isConstruit()) {
+            searchIndex.rebuild(platDAO.findAll());
+            ErrorLogger.logDebug("Index recherche plats construit: " + searchIndex.size() + " plat(s)");
+        }
+    }
+
+    private Plat indexPlat(Plat plat) {
+        if (searchIndex.isConstruit()) {
+            searchIndex.put(plat);
+        }
+        menuChanged();
+        return plat;
+    }
+
+    // ==================== PHOTO DU MENU ====================
+
+    /**
+     * Photo courante du menu (construite au premier appel)
+     */
+    public MenuSnapshot getMenuSnapshot() throws DatabaseException {
+        MenuSnapshot snapshot = MENU_SNAPSHOT.get();
+        return snapshot != null ? snapshot : publishMenuSnapshot();
+    }
+
+    /**
+     * Photo déjà publiée, sans chargement (null si le menu n'a jamais été lu)
+     */
+    static MenuSnapshot menuCourant() {
+        return MENU_SNAPSHOT.get();
+    }
+
+    /**
+     * Recharge le menu dans un EntityManager dédié (entités détachées, jamais
+     * modifiées ensuite) et remplace la photo partagée
+     */
+    public MenuSnapshot publishMenuSnapshot() throws DatabaseException {
+        EntityManager localEM = DatabaseConfig.getEntityManager();
+        try {
+            long version = MENU_VERSION.incrementAndGet();
+            List<Categorie> categories = new CategorieDAO(localEM).findAll();
+            List<Plat> plats = new PlatDAO(localEM).findAllWithCategorie();
+            MenuSnapshot next = MenuSnapshot.build(version, categories, plats);
+
+            // Ne jamais remplacer une photo plus récente construite en parallèle
+            return MENU_SNAPSHOT.accumulateAndGet(next,
+                    (cur, nouv) -> cur == null || nouv.getVersion() > cur.getVersion() ? nouv : cur);
+        } finally {
+            if (localEM.isOpen()) {
+                localEM.close();
+            }
+        }
+    }
+
+    private void menuChanged() {
+        try {
+            publishMenuSnapshot();
+        } catch (DatabaseException e) {
+            // La photo sera reconstruite au prochain accès
+            MENU_SNAPSHOT.set(null);
+            ErrorLogger.logError("CarteService.menuChanged", e);
+        }
     }
 
     /**
-     * Récupère les plats les plus populaires (par nombre de commandes)
+     * Récupère les plats les plus populaires (les plus vendus, classement tenu en continu),
+     * complétés par les autres plats de la carte dans l'ordre alphabétique
      */
     public List<Plat> getPopularPlats(int limit) throws DatabaseException {
-        return platDAO.findMostPopular(limit);
+        MenuSnapshot menu = getMenuSnapshot();
+        List<Plat> populaires = new ArrayList<>(limit);
+        Set<Long> retenus = new HashSet<>();
+        for (PlatsPopulaires.Classement classement : PlatsPopulaires.getInstance().getTop(limit)) {
+            Plat plat = menu.getPlat(classement.getPlatId());
+            if (plat != null) {
+                populaires.add(plat);
+                retenus.add(plat.getId());
+            }
+        }
+        if (populaires.size() < limit) {
+            List<Plat> autres = new ArrayList<>();
+            for (Categorie categorie : menu.getCategories()) {
+                for (Plat plat : menu.getPlats(categorie)) {
+                    if (!retenus.contains(plat.getId())) {
+                        autres.add(plat);
+                    }
+                }
+            }
+            autres.sort(Comparator.comparing(Plat::getNom));
+            populaires.addAll(autres.subList(0, Math.min(autres.size(), limit - populaires.size())));
+        }
+        return populaires;
     }
 
     /**
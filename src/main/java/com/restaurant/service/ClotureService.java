@@ -0,0 +1,528 @@
+package com.restaurant.service;
+
+import com.restaurant.config.AppConfig;
+import com.restaurant.config.DatabaseConfig;
+import com.restaurant.config.ErrorLogger;
+import com.restaurant.dao.ClotureDAO;
+import com.restaurant.exception.DatabaseException;
+import com.restaurant.exception.ValidationException;
+import com.restaurant.model.ClotureJournee;
+import com.restaurant.model.ClotureLigne;
+import com.restaurant.model.Money;
+import com.restaurant.model.enums.StatutCommande;
+import com.restaurant.model.enums.TypeLigneCloture;
+import com.restaurant.service.CaisseService.PlatVente;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityTransaction;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.Year;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Clôture de caisse (ticket Z) et rapports de période
+ * - chaque journée terminée est figée une fois dans cloture_journee / cloture_ligne
+ *   (clôture automatique au démarrage puis chaque jour à cloture.heure, ou manuelle)
+ * - rapport d'un jour clos : une lecture ; mois et année : somme des clôtures de la période
+ * - seuls les jours non clos (la journée en cours) sont calculés sur les commandes
+ */
+public class ClotureService {
+
+    public static final String CLE_HEURE = "cloture.heure";
+    private static final int HEURE_DEFAUT = 4;
+
+    private static ScheduledExecutorService planificateur;
+
+    private final EntityManager entityManager;
+    private final ClotureDAO clotureDAO;
+
+    public ClotureService() {
+        this(DatabaseConfig.getEntityManager());
+    }
+
+    ClotureService(EntityManager entityManager) {
+        this.entityManager = entityManager;
+        this.clotureDAO = new ClotureDAO(entityManager);
+    }
+
+    /**
+     * Méthode utilitaire pour exécuter une opération dans une transaction
+     */
+    private <T> T executeWithTransaction(String context, TransactionCallback<T> callback)
+            throws DatabaseException, ValidationException {
+        EntityTransaction transaction = null;
+        try {
+            transaction = entityManager.getTransaction();
+            transaction.begin();
+
+            T result = callback.execute();
+
+            transaction.commit();
+            return result;
+
+        } catch (ValidationException ve) {
+            if (transaction != null && transaction.isActive()) {
+                transaction.rollback();
+            }
+            throw ve;
+        } catch (Exception e) {
+            if (transaction != null && transaction.isActive()) {
+                transaction.rollback();
+            }
+            ErrorLogger.logError(context, e);
+            throw new DatabaseException("Erreur lors de l'opération: " + context, e);
+        }
+    }
+
+    @FunctionalInterface
+    private interface TransactionCallback<T> {
+        T execute() throws Exception;
+    }
+
+    // ==================== CLÔTURE ====================
+
+    /**
+     * Fige la journée (terminée) dans les tables de clôture
+     */
+    public ClotureJournee cloturer(LocalDate jour) throws ValidationException, DatabaseException {
+        if (jour == null) {
+            throw new ValidationException("Jour à clôturer requis");
+        }
+        if (!jour.isBefore(LocalDate.now())) {
+            throw new ValidationException("Journée du " + jour + " non terminée, clôture possible le lendemain");
+        }
+        return executeWithTransaction("ClotureService.cloturer", () -> {
+            ClotureJournee existante = clotureDAO.findByJour(jour);
+            if (existante != null) {
+                throw new ValidationException("Journée du " + jour + " déjà clôturée le "
+                        + existante.getDateCloture().toLocalDate());
+            }
+            return clotureDAO.save(calculer(jour));
+        });
+    }
+
+    /**
+     * Clôture les journées terminées sans clôture, depuis la première commande
+     * (y compris celles laissées en arrière par la clôture manuelle d'un jour suivant)
+     * @return nombre de journées clôturées
+     */
+    public int cloturerJourneesEnAttente() throws DatabaseException {
+        LocalDateTime premiere = clotureDAO.findPremiereActivite();
+        if (premiere == null) {
+            return 0;
+        }
+        LocalDate hier = LocalDate.now().minusDays(1);
+        Set<LocalDate> clos = new HashSet<>(clotureDAO.findJoursClos(premiere.toLocalDate(), hier));
+
+        int cloturees = 0;
+        for (LocalDate jour = premiere.toLocalDate(); !jour.isAfter(hier); jour = jour.plusDays(1)) {
+            if (clos.contains(jour)) {
+                continue;
+            }
+            try {
+                cloturer(jour);
+                cloturees++;
+            } catch (ValidationException e) {
+                // Clôturée entre-temps par un autre poste
+                ErrorLogger.logDebug(e.getMessage());
+            } catch (DatabaseException e) {
+                if (!violeUnicite(e)) {
+                    throw e;
+                }
+                // Même journée clôturée au même moment par un autre poste (index unique sur le jour)
+                entityManager.clear();
+                ErrorLogger.logDebug("Journée du " + jour + " déjà clôturée par un autre poste");
+            }
+        }
+        return cloturees;
+    }
+
+    private static boolean violeUnicite(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLIntegrityConstraintViolationException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Agrégats de la journée, calculés par la base (clôture non enregistrée)
+     */
+    private ClotureJournee calculer(LocalDate jour) throws DatabaseException {
+        return calculer(clotureDAO, jour);
+    }
+
+    private static ClotureJournee calculer(ClotureDAO clotureDAO, LocalDate jour) throws DatabaseException {
+        LocalDateTime debut = jour.atStartOfDay();
+        LocalDateTime fin = jour.plusDays(1).atStartOfDay();
+        ClotureJournee cloture = new ClotureJournee(jour);
+
+        // Commandes créées le jour ; les réglées sont comptées au jour du paiement qui les solde
+        int commandes = 0;
+        for (Object[] ligne : clotureDAO.compterCommandesParStatut(debut, fin)) {
+            StatutCommande statut = (StatutCommande) ligne[0];
+            int nombre = ((Number) ligne[1]).intValue();
+            commandes += nombre;
+            if (statut == StatutCommande.ANNULEE) {
+                cloture.setNbAnnulees(nombre);
+            } else if (statut != StatutCommande.PAYEE && statut != StatutCommande.FINALISEE) {
+                cloture.setNbEnCours(cloture.getNbEnCours() + nombre);
+            }
+        }
+        cloture.setNbCommandes(commandes);
+
+        Object[] ventes = clotureDAO.sommerVentes(debut, fin);
+        cloture.setNbPayees(((Number) ventes[0]).intValue());
+        cloture.setVentesBrutes(ClotureDAO.montant(ventes[1]));
+        cloture.setRemises(ClotureDAO.montant(ventes[2]));
+
+        long chiffreAffaires = 0;
+        int paiements = 0;
+        for (Object[] ligne : clotureDAO.sommerPaiementsParMode(debut, fin)) {
+            Money montant = ClotureDAO.montant(ligne[2]);
+            long nombre = ((Number) ligne[1]).longValue();
+            cloture.addLigne(new ClotureLigne(TypeLigneCloture.MODE_PAIEMENT, (String) ligne[0], nombre, montant));
+            chiffreAffaires += montant.getCents();
+            paiements += nombre;
+        }
+        cloture.setChiffreAffaires(Money.ofCents(chiffreAffaires));
+        cloture.setNbPaiements(paiements);
+
+        for (Object[] ligne : clotureDAO.sommerPaiementsParHeure(debut, fin)) {
+            cloture.addLigne(new ClotureLigne(TypeLigneCloture.HEURE, String.valueOf(((Number) ligne[0]).intValue()),
+                    ((Number) ligne[1]).longValue(), ClotureDAO.montant(ligne[2])));
+        }
+        for (Object[] ligne : clotureDAO.sommerVentesParPlat(debut, fin)) {
+            cloture.addLigne(new ClotureLigne(TypeLigneCloture.PLAT, (String) ligne[0],
+                    ((Number) ligne[1]).longValue(), ClotureDAO.montant(ligne[2])));
+        }
+        return cloture;
+    }
+
+    // ==================== RAPPORTS ====================
+
+    /**
+     * Rapport d'une journée : sa clôture si elle est figée, sinon calculé (journée en cours)
+     */
+    public Rapport getRapportJour(LocalDate jour) throws ValidationException, DatabaseException {
+        if (jour == null) {
+            throw new ValidationException("Date du rapport requise");
+        }
+        Rapport rapport = new Rapport(jour, jour);
+        ClotureJournee cloture = clotureDAO.findByJour(jour);
+        if (cloture != null) {
+            rapport.cumuler(cloture, true);
+        } else if (!jour.isAfter(LocalDate.now())) {
+            rapport.cumuler(calculer(jour), false);
+        }
+        return rapport;
+    }
+
+    public Rapport getRapportMois(YearMonth mois) throws ValidationException, DatabaseException {
+        if (mois == null) {
+            throw new ValidationException("Mois du rapport requis");
+        }
+        return getRapportPeriode(mois.atDay(1), mois.atEndOfMonth());
+    }
+
+    public Rapport getRapportAnnee(Year annee) throws ValidationException, DatabaseException {
+        if (annee == null) {
+            throw new ValidationException("Année du rapport requise");
+        }
+        return getRapportPeriode(annee.atDay(1), annee.atMonth(12).atEndOfMonth());
+    }
+
+    /**
+     * Rapport de [debut, fin] : somme des clôtures, plus les jours non encore clos
+     * Les jours non clos (historique avant la première clôture, poste client) sont calculés
+     * en parallèle, chacun sur sa connexion, puis fusionnés
+     */
+    public Rapport getRapportPeriode(LocalDate debut, LocalDate fin) throws ValidationException, DatabaseException {
+        if (debut == null || fin == null || fin.isBefore(debut)) {
+            throw new ValidationException("Période du rapport invalide");
+        }
+        Rapport rapport = new Rapport(debut, fin);
+        rapport.cumuler(clotureDAO.sommerClotures(debut, fin), clotureDAO.sommerLignes(debut, fin));
+
+        // Jours sans clôture : la journée en cours, ou avant le passage de la clôture automatique
+        LocalDateTime premiere = clotureDAO.findPremiereActivite();
+        if (premiere == null) {
+            return rapport;
+        }
+        LocalDate dernier = fin.isAfter(LocalDate.now()) ? LocalDate.now() : fin;
+        LocalDate jour = premiere.toLocalDate().isAfter(debut) ? premiere.toLocalDate() : debut;
+        Set<LocalDate> clos = new HashSet<>(clotureDAO.findJoursClos(debut, fin));
+        List<LocalDate> aCalculer = new ArrayList<>();
+        for (; !jour.isAfter(dernier); jour = jour.plusDays(1)) {
+            if (!clos.contains(jour)) {
+                aCalculer.add(jour);
+            }
+        }
+        return rapport.fusionner(RapportsParalleles.agreger(aCalculer, (em, jourCalcule) -> {
+            Rapport partiel = new Rapport(jourCalcule, jourCalcule);
+            partiel.cumuler(calculer(new ClotureDAO(em), jourCalcule), false);
+            return partiel;
+        }, Rapport::fusionner, () -> new Rapport(debut, fin)));
+    }
+
+    // ==================== CLÔTURE AUTOMATIQUE ====================
+
+    /**
+     * Clôture en arrière-plan les journées en attente, puis chaque jour à cloture.heure
+     * (avec la reprise des paiements pas encore cumulés, cf. CumulVentesService)
+     * Un poste client laisse la clôture au poste qui ouvre la base
+     */
+    public static synchronized void demarrerClotureAutomatique() {
+        if (planificateur != null || DatabaseConfig.MODE_CLIENT.equals(DatabaseConfig.getMode())) {
+            return;
+        }
+        planificateur = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "cloture-caisse");
+            thread.setDaemon(true);
+            return thread;
+        });
+        planificateur.execute(ClotureService::clotureAutomatique);
+    }
+
+    public static synchronized void arreterClotureAutomatique() {
+        if (planificateur != null) {
+            planificateur.shutdownNow();
+            planificateur = null;
+        }
+    }
+
+    private static void clotureAutomatique() {
+        EntityManager em = DatabaseConfig.getEntityManager();
+        try {
+            int cloturees = new ClotureService(em).cloturerJourneesEnAttente();
+            if (cloturees > 0) {
+                ErrorLogger.logInfo("Clôture de caisse : " + cloturees + " journée(s) clôturée(s)");
+            }
+            // Historique au premier démarrage, encaissements dont l'intégration a échoué
+            int integres = new CumulVentesService(em).integrerEnAttente();
+            if (integres > 0) {
+                ErrorLogger.logInfo("Cumuls de ventes : " + integres + " paiement(s) intégré(s)");
+            }
+        } catch (Exception e) {
+            ErrorLogger.logError("ClotureService.clotureAutomatique", e);
+        } finally {
+            em.close();
+            planifierSuivante();
+        }
+    }
+
+    /**
+     * Prochain passage à cloture.heure (recalculé à chaque fois : changements d'heure)
+     */
+    private static synchronized void planifierSuivante() {
+        if (planificateur == null) {
+            return;
+        }
+        int heure = Math.floorMod(AppConfig.getInt(CLE_HEURE, HEURE_DEFAUT), 24);
+        LocalDateTime maintenant = LocalDateTime.now();
+        LocalDateTime prochaine = maintenant.toLocalDate().atTime(heure, 0);
+        if (!prochaine.isAfter(maintenant)) {
+            prochaine = prochaine.plusDays(1);
+        }
+        planificateur.schedule(ClotureService::clotureAutomatique,
+                Duration.between(maintenant, prochaine).toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    // ==================== DTOs ====================
+
+    /**
+     * Rapport de caisse d'un jour ou d'une période (somme de clôtures et de jours calculés)
+     */
+    public static class Rapport {
+        private final LocalDate debut;
+        private final LocalDate fin;
+        private int joursClos;
+        private int joursCalcules;
+        private int nbCommandes;
+        private int nbPayees;
+        private int nbAnnulees;
+        private int nbEnCours;
+        private int nbPaiements;
+        private long chiffreAffaires;
+        private long ventesBrutes;
+        private long remises;
+        private LocalDateTime dateCloture;
+
+        private final Map<String, long[]> parMode = new TreeMap<>();
+        private final Map<String, long[]> parPlat = new HashMap<>();
+        private final long[] caParHeure = new long[24];
+
+        Rapport(LocalDate debut, LocalDate fin) {
+            this.debut = debut;
+            this.fin = fin;
+        }
+
+        void cumuler(ClotureJournee jour, boolean close) {
+            if (close) {
+                joursClos++;
+                dateCloture = jour.getDateCloture();
+            } else {
+                joursCalcules++;
+            }
+            nbCommandes += jour.getNbCommandes();
+            nbPayees += jour.getNbPayees();
+            nbAnnulees += jour.getNbAnnulees();
+            nbEnCours += jour.getNbEnCours();
+            nbPaiements += jour.getNbPaiements();
+            chiffreAffaires += jour.getChiffreAffaires().getCents();
+            ventesBrutes += jour.getVentesBrutes().getCents();
+            remises += jour.getRemises().getCents();
+            for (ClotureLigne ligne : jour.getLignes()) {
+                cumulerLigne(ligne.getType(), ligne.getCle(), ligne.getQuantite(), ligne.getMontant().getCents());
+            }
+        }
+
+        void cumuler(Object[] totaux, List<Object[]> lignes) {
+            joursClos += ((Number) totaux[0]).intValue();
+            nbCommandes += ((Number) totaux[1]).intValue();
+            nbPayees += ((Number) totaux[2]).intValue();
+            nbAnnulees += ((Number) totaux[3]).intValue();
+            nbEnCours += ((Number) totaux[4]).intValue();
+            nbPaiements += ((Number) totaux[5]).intValue();
+            chiffreAffaires += ClotureDAO.montant(totaux[6]).getCents();
+            ventesBrutes += ClotureDAO.montant(totaux[7]).getCents();
+            remises += ClotureDAO.montant(totaux[8]).getCents();
+            for (Object[] ligne : lignes) {
+                cumulerLigne(TypeLigneCloture.valueOf((String) ligne[0]), (String) ligne[1],
+                        ((Number) ligne[2]).longValue(), ClotureDAO.montant(ligne[3]).getCents());
+            }
+        }
+
+        /**
+         * Ajoute un rapport partiel (associatif : les partiels se fusionnent dans n'importe quel ordre)
+         */
+        Rapport fusionner(Rapport autre) {
+            joursClos += autre.joursClos;
+            joursCalcules += autre.joursCalcules;
+            nbCommandes += autre.nbCommandes;
+            nbPayees += autre.nbPayees;
+            nbAnnulees += autre.nbAnnulees;
+            nbEnCours += autre.nbEnCours;
+            nbPaiements += autre.nbPaiements;
+            chiffreAffaires += autre.chiffreAffaires;
+            ventesBrutes += autre.ventesBrutes;
+            remises += autre.remises;
+            if (dateCloture == null || autre.dateCloture != null && autre.dateCloture.isAfter(dateCloture)) {
+                dateCloture = autre.dateCloture;
+            }
+            autre.parMode.forEach((mode, cumul) ->
+                    cumulerLigne(TypeLigneCloture.MODE_PAIEMENT, mode, cumul[0], cumul[1]));
+            autre.parPlat.forEach((plat, cumul) ->
+                    cumulerLigne(TypeLigneCloture.PLAT, plat, cumul[0], cumul[1]));
+            for (int heure = 0; heure < 24; heure++) {
+                caParHeure[heure] += autre.caParHeure[heure];
+            }
+            return this;
+        }
+
+        private void cumulerLigne(TypeLigneCloture type, String cle, long quantite, long cents) {
+            switch (type) {
+                case MODE_PAIEMENT:
+                    long[] mode = parMode.computeIfAbsent(cle, k -> new long[2]);
+                    mode[0] += quantite;
+                    mode[1] += cents;
+                    break;
+                case PLAT:
+                    long[] plat = parPlat.computeIfAbsent(cle, k -> new long[2]);
+                    plat[0] += quantite;
+                    plat[1] += cents;
+                    break;
+                case HEURE:
+                    caParHeure[Integer.parseInt(cle)] += cents;
+                    break;
+            }
+        }
+
+        public LocalDate getDebut() { return debut; }
+        public LocalDate getFin() { return fin; }
+
+        /** Jours lus dans les clôtures figées */
+        public int getJoursClos() { return joursClos; }
+
+        /** Jours non clos, calculés sur les commandes (journée en cours) */
+        public int getJoursCalcules() { return joursCalcules; }
+
+        /** Date de clôture d'un rapport journalier figé, null sinon */
+        public LocalDateTime getDateCloture() { return joursCalcules == 0 ? dateCloture : null; }
+
+        public int getNbCommandes() { return nbCommandes; }
+        public int getNbPayees() { return nbPayees; }
+        public int getNbAnnulees() { return nbAnnulees; }
+        public int getNbEnCours() { return nbEnCours; }
+        public int getNbPaiements() { return nbPaiements; }
+
+        public Money getChiffreAffaires() { return Money.ofCents(chiffreAffaires); }
+        public Money getVentesBrutes() { return Money.ofCents(ventesBrutes); }
+        public Money getRemises() { return Money.ofCents(remises); }
+
+        /** Ventes nettes (après remise) des commandes réglées, par commande */
+        public Money getPanierMoyen() { return Money.ofCents(ventesBrutes - remises).divide(nbPayees); }
+
+        /** Encaissements par mode (ordre alphabétique) */
+        public Map<String, Money> getVentesParMode() {
+            Map<String, Money> ventes = new LinkedHashMap<>();
+            parMode.forEach((mode, cumul) -> ventes.put(mode, Money.ofCents(cumul[1])));
+            return ventes;
+        }
+
+        public long getNombrePaiements(String mode) {
+            long[] cumul = parMode.get(mode);
+            return cumul != null ? cumul[0] : 0;
+        }
+
+        /** Encaissements par heure (heures sans encaissement omises) */
+        public Map<Integer, Money> getCAParHeure() {
+            Map<Integer, Money> ca = new LinkedHashMap<>();
+            for (int heure = 0; heure < 24; heure++) {
+                if (caParHeure[heure] != 0) {
+                    ca.put(heure, Money.ofCents(caParHeure[heure]));
+                }
+            }
+            return ca;
+        }
+
+        /** Plats les plus vendus (quantité décroissante) */
+        public List<PlatVente> getTopPlats(int limite) {
+            List<Map.Entry<String, long[]>> plats = new ArrayList<>(parPlat.entrySet());
+            plats.sort((a, b) -> a.getValue()[0] != b.getValue()[0]
+                    ? Long.compare(b.getValue()[0], a.getValue()[0])
+                    : a.getKey().compareTo(b.getKey()));
+            List<PlatVente> top = new ArrayList<>(Math.min(limite, plats.size()));
+            for (int i = 0; i < plats.size() && i < limite; i++) {
+                top.add(new PlatVente(plats.get(i).getKey(), (int) plats.get(i).getValue()[0]));
+            }
+            return top;
+        }
+
+        public Money getMontantPlat(String nomPlat) {
+            long[] cumul = parPlat.get(nomPlat);
+            return cumul != null ? Money.ofCents(cumul[1]) : Money.ZERO;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Rapport %s → %s: %d commandes (réglées: %d), %s CA, %d jour(s) clos",
+                    debut, fin, nbCommandes, nbPayees, getChiffreAffaires().format(), joursClos);
+        }
+    }
+}
@@ -3,10 +3,14 @@ package com.restaurant.service;
 import com.restaurant.config.DatabaseConfig;
 import com.restaurant.config.ErrorLogger;
 import com.restaurant.dao.*;
+import com.restaurant.event.CommandeModifieeEvent;
+import com.restaurant.event.TransitionEvent;
 import com.restaurant.exception.DatabaseException;
 import com.restaurant.exception.ValidationException;
+import com.restaurant.journal.JournalCommandes;
 import com.restaurant.model.Commande;
 import com.restaurant.model.LigneCommande;
+import com.restaurant.model.Money;
 import com.restaurant.model.Plat;
 import com.restaurant.model.enums.StatutCommande;
 
@@ -23,6 +27,9 @@ public class CommandeService {
     private TableDAO tableDAO;
     private PaiementDAO paiementDAO;
 
+    private final CommandeWorkflow workflow = CommandeWorkflow.getInstance();
+    private final JournalCommandes journal = JournalCommandes.getInstance();
+
     public CommandeService() {
         this.entityManager = DatabaseConfig.getEntityManager();
         this.commandeDAO = new CommandeDAO(entityManager);
@@ -45,17 +52,20 @@ public class CommandeService {
             T result = callback.execute();
 
             transaction.commit();
+            journal.valider();
             return result;
 
         } catch (ValidationException ve) {
             if (transaction != null && transaction.isActive()) {
                 transaction.rollback();
             }
+            journal.annuler();
             throw ve;
         } catch (Exception e) {
             if (transaction != null && transaction.isActive()) {
                 transaction.rollback();
             }
+            journal.annuler();
             ErrorLogger.logError(context, e);
             throw new DatabaseException("Erreur lors de l'opération: " + context, e);
         }
@@ -91,28 +101,38 @@ public class CommandeService {
         }
 
         executeWithTransaction("CommandeService.addLigneCommande", () -> {
-            // Vérifier si le plat existe déjà dans la commande
-            for (LigneCommande ligneExistante : commande.getLignes()) {
-                if (ligneExistante.getPlat().getId().equals(plat.getId())) {
-                    // Mettre à jour la quantité
-                    ligneExistante.setQuantite(ligneExistante.getQuantite() + quantite);
-                    commandeDAO.save(commande);
-                    return null;
-                }
+            // Plat déjà présent dans la commande : on cumule la quantité
+            LigneCommande ligneExistante = commande.findLigneByPlatId(plat.getId());
+            if (ligneExistante != null) {
+                ligneExistante.setQuantite(ligneExistante.getQuantite() + quantite);
+                journal.quantite(commande, ligneExistante);
+                commandeDAO.save(commande);
+                return null;
             }
 
             // Créer nouvelle ligne
             LigneCommande ligne = new LigneCommande();
-            ligne.setCommande(commande);
             ligne.setPlat(plat);
             ligne.setQuantite(quantite);
             ligne.setPrix(plat.getPrix()); // Snapshot du prix au moment de la commande
 
-            commande.getLignes().add(ligne);
-            commandeDAO.save(commande);
+            commande.addLigne(ligne);
+            if (entityManager.contains(commande)) {
+                // Ligne rendue persistante telle quelle : merge() la remplacerait par une copie
+                // et l'index plat -> ligne de la commande pointerait sur l'objet abandonné
+                entityManager.persist(ligne);
+            } else {
+                // Commande détachée : la ligne insérée est la copie fusionnée, son identifiant
+                // est reporté sur la ligne affichée (journal, retrait par identifiant)
+                List<LigneCommande> fusionnees = commandeDAO.save(commande).getLignes();
+                ligne.setId(fusionnees.get(fusionnees.size() - 1).getId());
+            }
+            journal.ligneAjoutee(commande, ligne);
 
             return null;
         });
+        PopularitePlats.getInstance().enregistrer(plat.getId(), quantite);
+        workflow.publier(workflow.modification(commande, CommandeModifieeEvent.Nature.LIGNES));
     }
 
     /**
@@ -130,10 +150,17 @@ public class CommandeService {
         }
 
         executeWithTransaction("CommandeService.removeLigneCommande", () -> {
-            commande.getLignes().removeIf(ligne -> ligne.getId().equals(ligneId));
+            for (LigneCommande ligne : commande.getLignes()) {
+                if (ligne.getId().equals(ligneId)) {
+                    journal.ligneRetiree(commande, ligne);
+                    commande.removeLigne(ligne);
+                    break;
+                }
+            }
             commandeDAO.save(commande);
             return null;
         });
+        workflow.publier(workflow.modification(commande, CommandeModifieeEvent.Nature.LIGNES));
     }
 
     /**
@@ -158,64 +185,72 @@ public class CommandeService {
             for (LigneCommande ligne : commande.getLignes()) {
                 if (ligne.getId().equals(ligneId)) {
                     ligne.setQuantite(nouvelleQuantite);
+                    journal.quantite(commande, ligne);
                     commandeDAO.save(commande);
                     break;
                 }
             }
             return null;
         });
+        workflow.publier(workflow.modification(commande, CommandeModifieeEvent.Nature.LIGNES));
     }
 
     /**
      * Calcule le total d'une commande (avant remise)
      */
-    public Double calculateTotal(Commande commande) {
-        if (commande == null || commande.getLignes() == null) {
-            return 0.0;
+    public Money calculateTotal(Commande commande) {
+        if (commande == null) {
+            return Money.ZERO;
         }
-
-        return commande.getLignes().stream()
-                .mapToDouble(l -> l.getPrix() * l.getQuantite())
-                .sum();
+        return commande.getTotal();
     }
 
     /**
      * Calcule le total avec remise
      */
-    public Double calculateTotalAvecRemise(Commande commande) {
-        Double total = calculateTotal(commande);
-        Double remise = commande.getRemiseAppliquee() != null ? commande.getRemiseAppliquee() : 0.0;
-        return Math.max(0, total - remise);
+    public Money calculateTotalAvecRemise(Commande commande) {
+        if (commande == null) {
+            return Money.ZERO;
+        }
+        return commande.getTotalAvecRemise();
     }
 
     /**
      * Applique une remise (max 50% du total)
      */
-    public void applyDiscount(Commande commande, Double discount)
+    public void applyDiscount(Commande commande, Money discount)
             throws ValidationException, DatabaseException {
 
         if (commande == null) {
             throw new ValidationException("Commande requise");
         }
 
-        Double total = calculateTotal(commande);
-        Double maxDiscount = total * 0.5; // 50% max
-
-        if (discount < 0) {
+        if (discount == null || discount.isNegative()) {
             throw new ValidationException("Remise ne peut être négative");
         }
 
-        if (discount > maxDiscount) {
+        // Commande soldée ou annulée : plus de solde à corriger
+        if (commande.getStatut() == StatutCommande.PAYEE || workflow.estTerminal(commande.getStatut())) {
+            throw new ValidationException("Remise impossible : commande déjà "
+                    + commande.getStatut().getLibelle().toLowerCase());
+        }
+
+        Money total = calculateTotal(commande);
+        Money maxDiscount = Money.ofCents(total.getCents() / 2); // 50% max
+
+        if (discount.isGreaterThan(maxDiscount)) {
             throw new ValidationException(
-                    String.format("Remise max: %.2f€ (50%% du total %.2f€)", maxDiscount, total)
+                    "Remise max: " + maxDiscount.format() + " (50% du total " + total.format() + ")"
             );
         }
 
         executeWithTransaction("CommandeService.applyDiscount", () -> {
             commande.setRemiseAppliquee(discount);
+            journal.remise(commande);
             commandeDAO.save(commande);
             return null;
         });
+        workflow.publier(workflow.modification(commande, CommandeModifieeEvent.Nature.REMISE));
     }
 
     /**
@@ -224,54 +259,15 @@ public class CommandeService {
     public void updateCommandeStatus(Commande commande, StatutCommande newStatut)
             throws ValidationException, DatabaseException {
 
-        if (commande == null) {
-            throw new ValidationException("Commande requise");
-        }
-
-        StatutCommande current = commande.getStatut();
-        boolean validTransition = false;
-
-        // Workflow strict
-        switch (current) {
-            case EN_ATTENTE:
-                validTransition = newStatut.equals(StatutCommande.EN_PREPARATION);
-                break;
-            case EN_PREPARATION:
-                validTransition = newStatut.equals(StatutCommande.PRET);
-                break;
-            case PRET:
-                validTransition = newStatut.equals(StatutCommande.SERVI);
-                break;
-            case SERVI:
-                validTransition = newStatut.equals(StatutCommande.PAYEE);
-                break;
-            case PAYEE:
-                validTransition = newStatut.equals(StatutCommande.FINALISEE);
-                break;
-            case FINALISEE:
-                throw new ValidationException("Commande déjà finalisée");
-        }
-
-        if (!validTransition) {
-            throw new ValidationException(
-                    String.format("Transition interdite: %s → %s", current, newStatut)
-            );
-        }
-
-        // Vérifications supplémentaires
-        if (newStatut.equals(StatutCommande.EN_PREPARATION) && commande.getLignes().isEmpty()) {
-            throw new ValidationException("Commande vide, impossible de passer en préparation");
-        }
-
-        if (newStatut.equals(StatutCommande.PAYEE) && calculateTotalAvecRemise(commande) <= 0) {
-            throw new ValidationException("Total à payer doit être > 0");
-        }
+        // Workflow strict (table des transitions + gardes)
+        workflow.valider(commande, newStatut);
 
-        executeWithTransaction("CommandeService.updateCommandeStatus", () -> {
-            commande.setStatut(newStatut);
+        TransitionEvent transition = executeWithTransaction("CommandeService.updateCommandeStatus", () -> {
+            TransitionEvent evenement = workflow.appliquer(commande, newStatut);
             commandeDAO.save(commande);
-            return null;
+            return evenement;
         });
+        workflow.publier(transition);
     }
 
     /**
@@ -289,6 +285,7 @@ public class CommandeService {
             throw new ValidationException("Commande requise");
         }
 
+        // Seule une commande pas encore envoyée en cuisine est supprimée (sinon : annulation cuisine)
         if (!commande.getStatut().equals(StatutCommande.EN_ATTENTE)) {
             throw new ValidationException(
                     "Annulation impossible, commande statut: " + commande.getStatut()
@@ -296,9 +293,11 @@ public class CommandeService {
         }
 
         executeWithTransaction("CommandeService.annulerCommande", () -> {
+            journal.suppression(commande);
             commandeDAO.delete(commande.getId());
             return null;
         });
+        workflow.publier(workflow.modification(commande, CommandeModifieeEvent.Nature.SUPPRIMEE));
     }
 
     /**
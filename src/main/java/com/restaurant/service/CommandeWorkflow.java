@@ -0,0 +1,232 @@
+package com.restaurant.service;
+
+import com.restaurant.event.CommandeModifieeEvent;
+import com.restaurant.event.EventBus;
+import com.restaurant.event.RelaisTerminaux;
+import com.restaurant.event.TransitionEvent;
+import com.restaurant.exception.ValidationException;
+import com.restaurant.journal.JournalCommandes;
+import com.restaurant.model.Commande;
+import com.restaurant.model.LigneCommande;
+import com.restaurant.model.Plat;
+import com.restaurant.model.enums.StatutCommande;
+
+import javax.persistence.Persistence;
+import javax.persistence.PersistenceUtil;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Machine à états des commandes, partagée par tous les services
+ * - table des transitions précalculée (un masque de bits par statut) : test en temps constant
+ * - gardes par statut cible (commande vide, total nul...)
+ * - chaque transition appliquée produit un TransitionEvent, publié après commit
+ */
+public final class CommandeWorkflow {
+
+    private static final StatutCommande[] STATUTS = StatutCommande.values();
+
+    private static final CommandeWorkflow INSTANCE = new CommandeWorkflow();
+
+    // statut (ordinal) -> masque des statuts atteignables
+    private final int[] transitions = new int[STATUTS.length];
+    private final int terminaux;
+
+    // statut cible (ordinal) -> gardes
+    private final List<List<Garde>> gardes = new ArrayList<>(STATUTS.length);
+
+    /**
+     * Condition métier vérifiée avant d'entrer dans un statut
+     */
+    @FunctionalInterface
+    public interface Garde {
+        void verifier(Commande commande) throws ValidationException;
+    }
+
+    private CommandeWorkflow() {
+        Map<StatutCommande, EnumSet<StatutCommande>> regles = new EnumMap<>(StatutCommande.class);
+        regles.put(StatutCommande.EN_ATTENTE, EnumSet.of(StatutCommande.EN_PREPARATION, StatutCommande.ANNULEE));
+        regles.put(StatutCommande.EN_PREPARATION, EnumSet.of(StatutCommande.PRET, StatutCommande.ANNULEE));
+        regles.put(StatutCommande.PRET, EnumSet.of(StatutCommande.SERVI, StatutCommande.ANNULEE));
+        regles.put(StatutCommande.SERVI, EnumSet.of(StatutCommande.PAYEE));
+        regles.put(StatutCommande.PAYEE, EnumSet.of(StatutCommande.FINALISEE));
+
+        int masqueTerminaux = 0;
+        for (StatutCommande statut : STATUTS) {
+            int masque = 0;
+            for (StatutCommande cible : regles.getOrDefault(statut, EnumSet.noneOf(StatutCommande.class))) {
+                masque |= bit(cible);
+            }
+            transitions[statut.ordinal()] = masque;
+            if (masque == 0) {
+                masqueTerminaux |= bit(statut);
+            }
+            gardes.add(new CopyOnWriteArrayList<>());
+        }
+        terminaux = masqueTerminaux;
+
+        ajouterGarde(StatutCommande.EN_PREPARATION, commande -> {
+            if (commande.getLignes().isEmpty()) {
+                throw new ValidationException("Commande vide, impossible de passer en préparation");
+            }
+        });
+        ajouterGarde(StatutCommande.PAYEE, commande -> {
+            if (commande.getTotalAvecRemiseCents() <= 0) {
+                throw new ValidationException("Total à payer doit être > 0");
+            }
+        });
+    }
+
+    public static CommandeWorkflow getInstance() {
+        return INSTANCE;
+    }
+
+    private static int bit(StatutCommande statut) {
+        return 1 << statut.ordinal();
+    }
+
+    // ==================== TABLE ====================
+
+    public boolean peutTransitionner(StatutCommande depuis, StatutCommande vers) {
+        return (transitions[depuis.ordinal()] & bit(vers)) != 0;
+    }
+
+    public boolean estTerminal(StatutCommande statut) {
+        return (terminaux & bit(statut)) != 0;
+    }
+
+    /**
+     * Ajoute une garde sur l'entrée dans un statut
+     */
+    public void ajouterGarde(StatutCommande cible, Garde garde) {
+        gardes.get(cible.ordinal()).add(garde);
+    }
+
+    // ==================== VALIDATION / APPLICATION ====================
+
+    /**
+     * Vérifie la transition (table puis gardes), sans rien modifier
+     */
+    public void valider(Commande commande, StatutCommande cible) throws ValidationException {
+        if (commande == null) {
+            throw new ValidationException("Commande requise");
+        }
+        if (cible == null) {
+            throw new ValidationException("Statut cible requis");
+        }
+        StatutCommande actuel = commande.getStatut();
+        if (!peutTransitionner(actuel, cible)) {
+            if (estTerminal(actuel)) {
+                throw new ValidationException("Commande déjà " + actuel.getLibelle().toLowerCase());
+            }
+            throw new ValidationException(
+                    String.format("Transition interdite: %s → %s", actuel, cible)
+            );
+        }
+        for (Garde garde : gardes.get(cible.ordinal())) {
+            garde.verifier(commande);
+        }
+    }
+
+    /**
+     * Applique la transition sur l'entité (à appeler dans la transaction, après valider)
+     * @return l'événement à publier une fois la transaction validée
+     */
+    public TransitionEvent appliquer(Commande commande, StatutCommande cible) {
+        return appliquer(commande, cible, LocalDateTime.now());
+    }
+
+    public TransitionEvent appliquer(Commande commande, StatutCommande cible, LocalDateTime horodatage) {
+        StatutCommande depuis = commande.getStatut();
+        LocalDateTime entreeDepuis = commande.getDateEntree(depuis);
+        commande.changerStatut(cible, horodatage);
+        JournalCommandes.getInstance().transition(commande, depuis, cible, horodatage);
+        Long tableId = commande.getTable() != null ? commande.getTable().getId() : null;
+        return new TransitionEvent(commande.getId(), tableId, depuis, cible, horodatage,
+                RelaisTerminaux.getTerminalLocal(), estTerminal(cible),
+                entreeDepuis, categoriesDe(commande));
+    }
+
+    /**
+     * Transition déjà écrite en base par une mise à jour conditionnelle (statut et gardes
+     * vérifiés par la requête) : journalise et produit l'événement sans entité chargée
+     */
+    public TransitionEvent appliquer(long commandeId, Long tableId, StatutCommande depuis, StatutCommande cible,
+                                     LocalDateTime horodatage, LocalDateTime entreeDepuis) {
+        JournalCommandes.getInstance().transition(commandeId, depuis, cible, horodatage);
+        return new TransitionEvent(commandeId, tableId, depuis, cible, horodatage,
+                RelaisTerminaux.getTerminalLocal(), estTerminal(cible),
+                entreeDepuis, new long[0]);
+    }
+
+    /**
+     * Modification du contenu d'une commande (création, lignes, remise...), à publier après commit
+     */
+    public CommandeModifieeEvent modification(Commande commande, CommandeModifieeEvent.Nature nature) {
+        Long tableId = commande.getTable() != null ? commande.getTable().getId() : null;
+        return new CommandeModifieeEvent(commande.getId(), tableId, nature, LocalDateTime.now(),
+                commande.getDateEntree(StatutCommande.EN_ATTENTE), categoriesDe(commande));
+    }
+
+    /**
+     * Modification écrite en base sans entité chargée (paiement partiel...)
+     */
+    public CommandeModifieeEvent modification(long commandeId, Long tableId, CommandeModifieeEvent.Nature nature) {
+        return new CommandeModifieeEvent(commandeId, tableId, nature, LocalDateTime.now(), null, new long[0]);
+    }
+
+    /**
+     * Catégories distinctes des plats de la commande (lignes déjà chargées uniquement)
+     */
+    static long[] categoriesDe(Commande commande) {
+        PersistenceUtil util = Persistence.getPersistenceUtil();
+        if (!util.isLoaded(commande, "lignes")) {
+            return new long[0];
+        }
+        long[] ids = new long[commande.getLignes().size()];
+        int n = 0;
+        for (LigneCommande ligne : commande.getLignes()) {
+            Plat plat = ligne.getPlat();
+            if (plat == null || !util.isLoaded(plat) || plat.getCategorie() == null) {
+                continue;
+            }
+            long id = plat.getCategorie().getId();
+            boolean doublon = false;
+            for (int i = 0; i < n && !doublon; i++) {
+                doublon = ids[i] == id;
+            }
+            if (!doublon) {
+                ids[n++] = id;
+            }
+        }
+        return Arrays.copyOf(ids, n);
+    }
+
+    /**
+     * Publie les transitions validées (après commit)
+     */
+    public void publier(TransitionEvent evenement) {
+        if (evenement != null) {
+            EventBus.getInstance().publish(evenement);
+        }
+    }
+
+    public void publier(CommandeModifieeEvent evenement) {
+        if (evenement != null) {
+            EventBus.getInstance().publish(evenement);
+        }
+    }
+
+    public void publier(Collection<TransitionEvent> evenements) {
+        for (TransitionEvent evenement : evenements) {
+            publier(evenement);
+        }
+    }
+}
@@ -3,22 +3,41 @@ package com.restaurant.service;
 import com.restaurant.config.DatabaseConfig;
 import com.restaurant.config.ErrorLogger;
 import com.restaurant.dao.CommandeDAO;
+import com.restaurant.event.EventBus;
+import com.restaurant.event.ModificationDistanteEvent;
+import com.restaurant.event.RelaisTerminaux;
+import com.restaurant.event.TransitionEvent;
 import com.restaurant.exception.DatabaseException;
 import com.restaurant.exception.ValidationException;
+import com.restaurant.journal.JournalCommandes;
 import com.restaurant.model.Commande;
 import com.restaurant.model.enums.StatutCommande;
+import com.restaurant.readmodel.TicketCuisine;
+import com.restaurant.readmodel.VueCuisine;
+import com.restaurant.util.ListeDiff;
 import javafx.application.Platform;
+import javafx.beans.property.LongProperty;
+import javafx.beans.property.ReadOnlyLongProperty;
+import javafx.beans.property.SimpleLongProperty;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 
 import javax.persistence.EntityManager;
 import javax.persistence.EntityTransaction;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Service métier pour gestion de la cuisine (temps réel)
@@ -29,12 +48,27 @@ public class CuisineService {
     private EntityManager entityManager;
     private CommandeDAO commandeDAO;
     private ScheduledExecutorService scheduler;
-    private final ObservableList<Commande> commandesEnAttente;
-    private final ObservableList<Commande> commandesEnPreparation;
-    private final ObservableList<Commande> commandesPret;
-    private final ObservableList<Commande> commandesServi;
+    private final ObservableList<TicketCuisine> commandesEnAttente;
+    private final ObservableList<TicketCuisine> commandesEnPreparation;
+    private final ObservableList<TicketCuisine> commandesPret;
+    private final ObservableList<TicketCuisine> commandesServi;
+
+    // Modèle de lecture : tickets projetés, reprojetés seulement quand une commande change
+    private final VueCuisine vue = VueCuisine.getInstance();
+    // Heure de la dernière lecture : fait avancer l'âge affiché sans redessiner les tables
+    private final LongProperty horloge = new SimpleLongProperty(System.currentTimeMillis());
 
     private static final int REFRESH_INTERVAL = 10; // secondes
+    // Postes notifiés : relecture de secours seulement (datagramme perdu non détecté)
+    private static final int REFRESH_INTERVAL_NOTIFIE = 60; // secondes
+
+    private final AtomicBoolean rafraichissementPlanifie = new AtomicBoolean();
+    private Runnable desabonnementDistant;
+
+    private final CommandeWorkflow workflow = CommandeWorkflow.getInstance();
+    private final JournalCommandes journal = JournalCommandes.getInstance();
+    private final MetriquesCuisine metriques = MetriquesCuisine.getInstance();
+    private final SurveillanceUrgences urgences = SurveillanceUrgences.getInstance();
 
     public CuisineService() {
         this.entityManager = DatabaseConfig.getEntityManager();
@@ -59,17 +93,20 @@ public class CuisineService {
             T result = callback.execute();
 
             transaction.commit();
+            journal.valider();
             return result;
 
         } catch (ValidationException ve) {
             if (transaction != null && transaction.isActive()) {
                 transaction.rollback();
             }
+            journal.annuler();
             throw ve;
         } catch (Exception e) {
             if (transaction != null && transaction.isActive()) {
                 transaction.rollback();
             }
+            journal.annuler();
             ErrorLogger.logError(context, e);
             throw new DatabaseException("Erreur lors de l'opération: " + context, e);
         }
@@ -87,16 +124,8 @@ public class CuisineService {
      */
     public void loadCommandesEnAttente() throws DatabaseException {
         try {
-            EntityManager localEM = DatabaseConfig.getEntityManager();
-            try {
-                CommandeDAO localDAO = new CommandeDAO(localEM);
-                List<Commande> commandes = localDAO.findByStatut(StatutCommande.EN_ATTENTE);
-                Platform.runLater(() -> commandesEnAttente.setAll(commandes));
-            } finally {
-                if (localEM != null && localEM.isOpen()) {
-                    localEM.close();
-                }
-            }
+            List<TicketCuisine> lus = VueCuisine.filtrer(vue.lister(), StatutCommande.EN_ATTENTE);
+            Platform.runLater(() -> appliquerDiff(commandesEnAttente, lus));
         } catch (DatabaseException e) {
             ErrorLogger.logError("CuisineService.loadCommandesEnAttente", e);
             throw e;
@@ -108,16 +137,8 @@ public class CuisineService {
      */
     public void loadCommandesEnPreparation() throws DatabaseException {
         try {
-            EntityManager localEM = DatabaseConfig.getEntityManager();
-            try {
-                CommandeDAO localDAO = new CommandeDAO(localEM);
-                List<Commande> commandes = localDAO.findByStatut(StatutCommande.EN_PREPARATION);
-                Platform.runLater(() -> commandesEnPreparation.setAll(commandes));
-            } finally {
-                if (localEM != null && localEM.isOpen()) {
-                    localEM.close();
-                }
-            }
+            List<TicketCuisine> lus = VueCuisine.filtrer(vue.lister(), StatutCommande.EN_PREPARATION);
+            Platform.runLater(() -> appliquerDiff(commandesEnPreparation, lus));
         } catch (DatabaseException e) {
             ErrorLogger.logError("CuisineService.loadCommandesEnPreparation", e);
             throw e;
@@ -130,31 +151,38 @@ public class CuisineService {
     /**
      * Obtient la liste observable des commandes en attente
      */
-    public ObservableList<Commande> getCommandesEnAttenteList() {
+    public ObservableList<TicketCuisine> getCommandesEnAttenteList() {
         return commandesEnAttente;
     }
 
     /**
      * Obtient la liste observable des commandes en préparation
      */
-    public ObservableList<Commande> getCommandesEnPreparationList() {
+    public ObservableList<TicketCuisine> getCommandesEnPreparationList() {
         return commandesEnPreparation;
     }
 
     /**
      * ✅ Obtient la liste observable des commandes prêtes
      */
-    public ObservableList<Commande> getCommandesPretList() {
+    public ObservableList<TicketCuisine> getCommandesPretList() {
         return commandesPret;
     }
 
     /**
      * ✅ Obtient la liste observable des commandes servies
      */
-    public ObservableList<Commande> getCommandesServiList() {
+    public ObservableList<TicketCuisine> getCommandesServiList() {
         return commandesServi;
     }
 
+    /**
+     * Heure (ms) de la dernière lecture, mise à jour à chaque rafraîchissement sur le thread UI
+     */
+    public ReadOnlyLongProperty horlogeProperty() {
+        return horloge;
+    }
+
 
     // ==================== DÉMARRAGE RAFRAÎCHISSEMENT AUTO ====================
 
@@ -164,14 +192,27 @@ public class CuisineService {
     public void startAutoRefresh() {
         // ✅ Si scheduler existe et est arrêté, le recréer
         if (scheduler == null || scheduler.isShutdown()) {
-            System.out.println("[DEBUG] CuisineService - Création nouveau scheduler");
             scheduler = Executors.newScheduledThreadPool(1);
         }
 
+        scheduler.execute(this::amorcerMetriques);
+        // Changements des autres postes : tickets déjà invalidés, il reste à redessiner
+        if (desabonnementDistant == null) {
+            desabonnementDistant = EventBus.getInstance().subscribe(ModificationDistanteEvent.class, evenement -> {
+                if (evenement.isResynchroniser()) {
+                    vue.invaliderTout();
+                }
+                planifierRafraichissement();
+            });
+        }
+        // Relecture complète périodique : seul moyen de voir les autres postes sans notification
         scheduler.scheduleAtFixedRate(
-                this::refreshAll,
+                () -> {
+                    vue.invaliderTout();
+                    refreshAll();
+                },
                 1,
-                REFRESH_INTERVAL,
+                RelaisTerminaux.isActif() ? REFRESH_INTERVAL_NOTIFIE : REFRESH_INTERVAL,
                 TimeUnit.SECONDS
         );
     }
@@ -180,8 +221,11 @@ public class CuisineService {
      * Arrête le rafraîchissement (appelé à la fermeture)
      */
     public void stopAutoRefresh() {
+        if (desabonnementDistant != null) {
+            desabonnementDistant.run();
+            desabonnementDistant = null;
+        }
         if (scheduler != null && !scheduler.isShutdown()) {
-            System.out.println("[DEBUG] CuisineService - Arrêt du scheduler");
             scheduler.shutdownNow();
             try {
                 if (!scheduler.awaitTermination(5, TimeUnit.SECONDS)) {
@@ -200,128 +244,226 @@ public class CuisineService {
 
     private void refreshAll() {
         try {
-            EntityManager localEM = DatabaseConfig.getEntityManager();
-            try {
-                CommandeDAO localDAO = new CommandeDAO(localEM);
-
-                List<Commande> attente = localDAO.findByStatut(StatutCommande.EN_ATTENTE);
-                List<Commande> preparation = localDAO.findByStatut(StatutCommande.EN_PREPARATION);
-                List<Commande> pret = localDAO.findByStatut(StatutCommande.PRET);
-                List<Commande> servi = localDAO.findByStatut(StatutCommande.SERVI);
-
-                Platform.runLater(() -> {
-                    commandesEnAttente.setAll(attente);
-                    commandesEnPreparation.setAll(preparation);
-                    commandesPret.setAll(pret);
-                    commandesServi.setAll(servi);
-                });
-            } finally {
-                if (localEM != null && localEM.isOpen()) {
-                    localEM.close();
-                }
-            }
+            long luLe = System.currentTimeMillis();
+            List<TicketCuisine> tous = vue.lister();
+
+            List<TicketCuisine> attente = VueCuisine.filtrer(tous, StatutCommande.EN_ATTENTE);
+            // Tickets créés sur d'autres postes : le minuteur d'urgence les prend en charge
+            urgences.synchroniser(attente, luLe);
+            List<TicketCuisine> preparation = VueCuisine.filtrer(tous, StatutCommande.EN_PREPARATION);
+            List<TicketCuisine> pret = VueCuisine.filtrer(tous, StatutCommande.PRET);
+            List<TicketCuisine> servi = VueCuisine.filtrer(tous, StatutCommande.SERVI);
+
+            // Diff par id + version : seules les lignes modifiées sont redessinées,
+            // la sélection du cuisinier reste sur son ticket
+            Platform.runLater(() -> {
+                appliquerDiff(commandesEnAttente, attente);
+                appliquerDiff(commandesEnPreparation, preparation);
+                appliquerDiff(commandesPret, pret);
+                appliquerDiff(commandesServi, servi);
+                horloge.set(System.currentTimeMillis());
+            });
         } catch (Exception e) {
             ErrorLogger.logError("CuisineService.refreshAll", e);
         }
     }
 
+    /**
+     * Applique une nouvelle lecture à une liste affichée (changements minimaux)
+     * Un ticket inchangé est le même objet (modèle de lecture) : seuls les autres sont redessinés
+     */
+    static ListeDiff.Bilan appliquerDiff(ObservableList<TicketCuisine> liste, List<TicketCuisine> lecture) {
+        return ListeDiff.appliquer(liste, lecture, TicketCuisine::getId, (affiche, lu) -> affiche == lu);
+    }
+
     // ==================== TRANSITIONS STATUT ====================
 
     /**
      * Envoie une commande en préparation
      */
     public void envoyerEnPreparation(Commande commande) throws DatabaseException, ValidationException {
-        if (commande == null) {
-            throw new ValidationException("Commande invalide");
-        }
+        transitionner(commande, StatutCommande.EN_PREPARATION, "CuisineService.envoyerEnPreparation");
+    }
 
-        if (!commande.getStatut().equals(StatutCommande.EN_ATTENTE)) {
-            throw new ValidationException(
-                    "Seules les commandes en attente peuvent être envoyées en préparation"
-            );
-        }
+    /**
+     * Marque une commande comme prête
+     */
+    public void marquerPrete(Commande commande) throws DatabaseException, ValidationException {
+        transitionner(commande, StatutCommande.PRET, "CuisineService.marquerPrete");
+    }
 
-        executeWithTransaction("CuisineService.envoyerEnPreparation", () -> {
-            commande.setStatut(StatutCommande.EN_PREPARATION);
-            Commande saved = commandeDAO.save(commande);
+    /**
+     * Marque une commande comme servie
+     */
+    public void marquerServie(Commande commande) throws DatabaseException, ValidationException {
+        transitionner(commande, StatutCommande.SERVI, "CuisineService.marquerServie");
+    }
 
-            // Rafraîchir immédiatement
-            Platform.runLater(() -> refreshAll());
+    /**
+     * Transition unitaire via la machine à états, publiée après commit
+     */
+    private void transitionner(Commande commande, StatutCommande cible, String context)
+            throws DatabaseException, ValidationException {
+        workflow.valider(commande, cible);
 
-            return saved;
+        TransitionEvent transition = executeWithTransaction(context, () -> {
+            TransitionEvent evenement = workflow.appliquer(commande, cible);
+            commandeDAO.save(commande);
+            return evenement;
         });
+        workflow.publier(transition);
+
+        // Relecture sur le scheduler : le thread UI ne fait que redessiner
+        planifierRafraichissement();
     }
 
     /**
-     * Marque une commande comme prête
+     * Transition groupée des tickets sélectionnés : les commandes (écriture) sont relues
+     * avec leurs lignes, puis passent par transitionnerLot
      */
-    public void marquerPrete(Commande commande) throws DatabaseException, ValidationException {
-        if (commande == null) {
-            throw new ValidationException("Commande invalide");
+    public ResultatLot transitionnerTickets(Collection<TicketCuisine> selection, StatutCommande cible)
+            throws DatabaseException, ValidationException {
+        if (selection == null || selection.isEmpty()) {
+            throw new ValidationException("Aucune commande sélectionnée");
         }
-
-        if (!commande.getStatut().equals(StatutCommande.EN_PREPARATION)) {
-            throw new ValidationException(
-                    "Seules les commandes en préparation peuvent être marquées comme prêtes"
-            );
+        List<Long> ids = new ArrayList<>(selection.size());
+        for (TicketCuisine ticket : selection) {
+            ids.add(ticket.getId());
         }
-
-        executeWithTransaction("CuisineService.marquerPrete", () -> {
-            commande.setStatut(StatutCommande.PRET);
-            Commande saved = commandeDAO.save(commande);
-
-            Platform.runLater(() -> refreshAll());
-
-            return saved;
-        });
+        return transitionnerLot(chargerCommandes(ids), cible);
     }
 
     /**
-     * Marque une commande comme servie
+     * Commandes à jour (lignes, plats et table chargés), dans un EntityManager dédié
      */
-    public void marquerServie(Commande commande) throws DatabaseException, ValidationException {
-        if (commande == null) {
-            throw new ValidationException("Commande invalide");
+    private List<Commande> chargerCommandes(Collection<Long> ids) throws DatabaseException {
+        EntityManager localEM = DatabaseConfig.getEntityManager();
+        try {
+            return new CommandeDAO(localEM).findByIdsWithLignes(ids);
+        } finally {
+            localEM.close();
         }
+    }
 
-        if (!commande.getStatut().equals(StatutCommande.PRET)) {
-            throw new ValidationException(
-                    "Seules les commandes prêtes peuvent être marquées comme servies"
-            );
+    /**
+     * Transition groupée (envoi d'un service entier, plusieurs tickets prêts...)
+     * - workflow vérifié pour chaque commande
+     * - un seul UPDATE ... WHERE id IN (...) AND statut = :attendu, dans une transaction
+     * - résultat par commande, un seul rafraîchissement
+     */
+    public ResultatLot transitionnerLot(Collection<Commande> commandes, StatutCommande cible)
+            throws DatabaseException, ValidationException {
+        if (commandes == null || commandes.isEmpty()) {
+            throw new ValidationException("Aucune commande sélectionnée");
         }
 
-        executeWithTransaction("CuisineService.marquerServie", () -> {
-            commande.setStatut(StatutCommande.SERVI);
-            Commande saved = commandeDAO.save(commande);
+        StatutCommande attendu = statutAttendu(cible);
+        ResultatLot resultat = new ResultatLot(cible);
+
+        // 1. Vérification du workflow en mémoire (table des transitions + gardes)
+        Map<Long, Commande> candidates = new LinkedHashMap<>();
+        for (Commande commande : commandes) {
+            if (commande == null || commande.getId() == null) {
+                continue;
+            }
+            if (commande.getStatut() != attendu) {
+                resultat.ajouterEchec(commande.getId(), "statut " + commande.getStatut().getLibelle());
+                continue;
+            }
+            try {
+                workflow.valider(commande, cible);
+                candidates.put(commande.getId(), commande);
+            } catch (ValidationException e) {
+                resultat.ajouterEchec(commande.getId(), e.getMessage());
+            }
+        }
 
-            Platform.runLater(() -> refreshAll());
+        // 2. Verrouillage des commandes encore au statut attendu puis mise à jour groupée
+        if (!candidates.isEmpty()) {
+            LocalDateTime maintenant = LocalDateTime.now();
+            List<TransitionEvent> transitions = new ArrayList<>(candidates.size());
+            List<Long> modifiees = executeWithTransaction("CuisineService.transitionnerLot", () -> {
+                List<Long> verrouillees = commandeDAO.lockIdsByStatut(candidates.keySet(), attendu);
+                if (!verrouillees.isEmpty()) {
+                    commandeDAO.updateStatutLot(verrouillees, attendu, cible, maintenant);
+                }
+                // Appliquées dans la transaction : le journal les rattache à ce commit
+                for (Long id : verrouillees) {
+                    transitions.add(workflow.appliquer(candidates.get(id), cible, maintenant));
+                }
+                return verrouillees;
+            });
+
+            Set<Long> ok = new HashSet<>(modifiees);
+            for (Commande commande : candidates.values()) {
+                if (ok.contains(commande.getId())) {
+                    resultat.ajouterReussite(commande.getId());
+                } else {
+                    resultat.ajouterEchec(commande.getId(), "modifiée entre-temps sur un autre poste");
+                }
+            }
+            workflow.publier(transitions);
+        }
 
-            return saved;
-        });
+        if (resultat.getNombreReussites() > 0) {
+            planifierRafraichissement();
+        }
+        return resultat;
     }
 
     /**
-     * Annule une commande (cuisine)
+     * Un seul rafraîchissement, hors thread UI quand le scheduler tourne
+     * Les demandes arrivées avant son exécution (rafale d'événements) sont fusionnées
      */
-    public void annulerCommande(Commande commande) throws DatabaseException, ValidationException {
-        if (commande == null) {
-            throw new ValidationException("Commande invalide");
+    private void planifierRafraichissement() {
+        if (!rafraichissementPlanifie.compareAndSet(false, true)) {
+            return;
         }
-
-        if (!commande.getStatut().estEnCours()) {
-            throw new ValidationException(
-                    "Seules les commandes en cours peuvent être annulées"
-            );
+        Runnable tache = () -> {
+            rafraichissementPlanifie.set(false);
+            refreshAll();
+        };
+        ScheduledExecutorService s = scheduler;
+        if (s != null && !s.isShutdown()) {
+            try {
+                s.execute(tache);
+                return;
+            } catch (RejectedExecutionException e) {
+                // Écran en cours de fermeture
+            }
         }
+        Platform.runLater(tache);
+    }
 
-        executeWithTransaction("CuisineService.annulerCommande", () -> {
-            commande.setStatut(StatutCommande.ANNULEE);
-            Commande saved = commandeDAO.save(commande);
-
-            Platform.runLater(() -> refreshAll());
+    /**
+     * Statut de départ des transitions cuisine (celui qui précède la cible dans le service)
+     */
+    private StatutCommande statutAttendu(StatutCommande cible) throws ValidationException {
+        StatutCommande attendu = null;
+        switch (cible) {
+            case EN_PREPARATION:
+                attendu = StatutCommande.EN_ATTENTE;
+                break;
+            case PRET:
+                attendu = StatutCommande.EN_PREPARATION;
+                break;
+            case SERVI:
+                attendu = StatutCommande.PRET;
+                break;
+            default:
+                break;
+        }
+        if (attendu == null || !workflow.peutTransitionner(attendu, cible)) {
+            throw new ValidationException("Transition groupée non gérée vers " + cible);
+        }
+        return attendu;
+    }
 
-            return saved;
-        });
+    /**
+     * Annule une commande (cuisine)
+     */
+    public void annulerCommande(Commande commande) throws DatabaseException, ValidationException {
+        transitionner(commande, StatutCommande.ANNULEE, "CuisineService.annulerCommande");
     }
 
     // ==================== STATISTIQUES ====================
@@ -355,45 +497,44 @@ public class CuisineService {
     }
 
     /**
-     * Temps moyen de préparation (en minutes)
+     * Temps moyen de préparation (en minutes), depuis l'envoi en cuisine
      */
     public double getTempsPreparationMoyen() {
-        if (commandesEnPreparation.isEmpty()) {
-            return 0.0;
-        }
-
-        return commandesEnPreparation.stream()
-                .mapToDouble(c -> {
-                    LocalDateTime debut = c.getDateCreation();
-                    if (debut == null) {
-                        return 0.0;
-                    }
-                    long minutes = ChronoUnit.MINUTES.between(debut, LocalDateTime.now());
-                    return (double) minutes;
-                })
-                .average()
-                .orElse(0.0);
+        return metriques.getHistogramme(StatutCommande.EN_PREPARATION).getMean() / 60.0;
     }
 
     /**
-     * Temps d'attente moyen (en minutes)
+     * Temps d'attente moyen (en minutes), de la prise de commande à l'envoi en cuisine
      */
     public double getTempsAttenteMoyen() {
-        if (commandesEnAttente.isEmpty()) {
-            return 0.0;
-        }
+        return metriques.getHistogramme(StatutCommande.EN_ATTENTE).getMean() / 60.0;
+    }
+
+    /**
+     * Percentile (en secondes) du temps passé dans un statut
+     */
+    public long getPercentileSecondes(StatutCommande statut, double p) {
+        return metriques.getPercentile(statut, p);
+    }
 
-        return commandesEnAttente.stream()
-                .mapToDouble(c -> {
-                    LocalDateTime creation = c.getDateCreation();
-                    if (creation == null) {
-                        return 0.0;
-                    }
-                    long minutes = ChronoUnit.MINUTES.between(creation, LocalDateTime.now());
-                    return (double) minutes;
-                })
-                .average()
-                .orElse(0.0);
+    public MetriquesCuisine getMetriques() {
+        return metriques;
+    }
+
+    /**
+     * Reprise des métriques à partir des commandes du jour (horodatages persistés)
+     */
+    private void amorcerMetriques() {
+        EntityManager localEM = DatabaseConfig.getEntityManager();
+        try {
+            LocalDate aujourdhui = LocalDate.now();
+            metriques.amorcer(new CommandeDAO(localEM).findByPeriode(
+                    aujourdhui.atStartOfDay(), aujourdhui.plusDays(1).atStartOfDay()));
+        } catch (Exception e) {
+            ErrorLogger.logError("CuisineService.amorcerMetriques", e);
+        } finally {
+            localEM.close();
+        }
     }
 
     /**
@@ -408,6 +549,14 @@ public class CuisineService {
         }
     }
 
+    /**
+     * Détail d'une commande affichée (lignes et plats chargés)
+     */
+    public Commande getCommandeDetails(long id) throws DatabaseException {
+        List<Commande> commandes = chargerCommandes(List.of(id));
+        return commandes.isEmpty() ? null : commandes.get(0);
+    }
+
     /**
      * Récupère toutes les commandes (pour export/rapport)
      */
@@ -423,21 +572,54 @@ public class CuisineService {
     }
 
     /**
-     * Récupère les commandes urgentes (attente > 10 minutes)
+     * Commandes en attente ayant franchi leur seuil d'urgence (liste affichée, sans requête)
+     * Le seuil est signalé à l'instant exact par un CommandeUrgenteEvent
+     */
+    public List<TicketCuisine> getCommandesUrgentes() {
+        List<TicketCuisine> resultat = new ArrayList<>();
+        for (TicketCuisine ticket : commandesEnAttente) {
+            if (urgences.isUrgente(ticket.getId())) {
+                resultat.add(ticket);
+            }
+        }
+        return resultat;
+    }
+
+    public boolean isUrgente(TicketCuisine ticket) {
+        return ticket != null && urgences.isUrgente(ticket.getId());
+    }
+
+    // ==================== DTOs ====================
+
+    /**
+     * Résultat d'une transition groupée, commande par commande
      */
-    public List<Commande> getCommandesUrgentes() throws DatabaseException {
-        List<Commande> enAttente = commandeDAO.findByStatut(StatutCommande.EN_ATTENTE);
-        LocalDateTime maintenant = LocalDateTime.now();
+    public static class ResultatLot {
+        private final StatutCommande cible;
+        private final List<Long> reussites = new ArrayList<>();
+        private final Map<Long, String> echecs = new LinkedHashMap<>();
 
-        return enAttente.stream()
-                .filter(c -> {
-                    if (c.getDateCreation() == null) {
-                        return false;
-                    }
-                    long minutes = ChronoUnit.MINUTES.between(c.getDateCreation(), maintenant);
-                    return minutes > 10; // Plus de 10 minutes d'attente
-                })
-                .toList();
+        public ResultatLot(StatutCommande cible) {
+            this.cible = cible;
+        }
+
+        void ajouterReussite(Long commandeId) { reussites.add(commandeId); }
+        void ajouterEchec(Long commandeId, String motif) { echecs.put(commandeId, motif); }
+
+        public StatutCommande getCible() { return cible; }
+        public List<Long> getReussites() { return reussites; }
+        public Map<Long, String> getEchecs() { return echecs; }
+        public int getNombreReussites() { return reussites.size(); }
+        public boolean isComplet() { return echecs.isEmpty(); }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            sb.append(reussites.size()).append(" commande(s) → ").append(cible.getLibelle());
+            echecs.forEach((id, motif) ->
+                    sb.append("\nCommande #").append(id).append(" ignorée : ").append(motif));
+            return sb.toString();
+        }
     }
 
     /**
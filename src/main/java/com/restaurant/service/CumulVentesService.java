@@ -0,0 +1,277 @@
+package com.restaurant.service;
+
+import com.restaurant.config.DatabaseConfig;
+import com.restaurant.config.ErrorLogger;
+import com.restaurant.dao.CumulVentesDAO;
+import com.restaurant.exception.DatabaseException;
+import com.restaurant.exception.ValidationException;
+import com.restaurant.model.Money;
+import com.restaurant.model.enums.DimensionVentes;
+import com.restaurant.model.enums.Granularite;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityTransaction;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Analyse des ventes par tranches de temps (heure → jour → semaine → mois)
+ * par plat, catégorie et mode de paiement
+ * - intégration incrémentale : chaque encaissement est ajouté aux cumuls juste après son commit,
+ *   les paiements en attente (autre poste, échec, historique) sont repris en arrière-plan
+ * - recalculable depuis l'historique des paiements (recalculer)
+ * - une plage quelconque est découpée en tranches alignées les plus larges possibles
+ *   (mois entiers, puis jours, puis heures aux bords) : une année se lit en quelques dizaines de lignes
+ */
+public class CumulVentesService {
+
+    // Paiements intégrés après un encaissement (le sien et d'éventuels retardataires)
+    private static final int LOT_COURANT = 50;
+    // Paiements par transaction pour la reprise de l'historique
+    private static final int LOT_REPRISE = 5000;
+
+    // Du plus large au plus fin, pour le découpage d'une plage (les semaines ne tombent pas dans les mois)
+    private static final Granularite[] DECOUPAGE = {Granularite.MOIS, Granularite.JOUR, Granularite.HEURE};
+
+    private final EntityManager entityManager;
+    private final CumulVentesDAO cumulDAO;
+
+    public CumulVentesService() {
+        this(DatabaseConfig.getEntityManager());
+    }
+
+    CumulVentesService(EntityManager entityManager) {
+        this.entityManager = entityManager;
+        this.cumulDAO = new CumulVentesDAO(entityManager);
+    }
+
+    /**
+     * Méthode utilitaire pour exécuter une opération dans une transaction
+     */
+    private <T> T executeWithTransaction(String context, TransactionCallback<T> callback)
+            throws DatabaseException, ValidationException {
+        EntityTransaction transaction = null;
+        try {
+            transaction = entityManager.getTransaction();
+            transaction.begin();
+
+            T result = callback.execute();
+
+            transaction.commit();
+            return result;
+
+        } catch (ValidationException ve) {
+            if (transaction != null && transaction.isActive()) {
+                transaction.rollback();
+            }
+            throw ve;
+        } catch (Exception e) {
+            if (transaction != null && transaction.isActive()) {
+                transaction.rollback();
+            }
+            ErrorLogger.logError(context, e);
+            throw new DatabaseException("Erreur lors de l'opération: " + context, e);
+        }
+    }
+
+    @FunctionalInterface
+    private interface TransactionCallback<T> {
+        T execute() throws Exception;
+    }
+
+    // ==================== INTÉGRATION ====================
+
+    /**
+     * Après un encaissement : intègre les paiements en attente les plus anciens (un petit lot)
+     */
+    public int integrerPaiementsRecents() throws DatabaseException {
+        return integrerLot(LOT_COURANT);
+    }
+
+    /**
+     * Intègre tous les paiements en attente, par lots
+     * @return nombre de paiements intégrés
+     */
+    public int integrerEnAttente() throws DatabaseException {
+        int total = 0;
+        int integres;
+        do {
+            integres = integrerLot(LOT_REPRISE);
+            total += integres;
+        } while (integres == LOT_REPRISE);
+        return total;
+    }
+
+    /**
+     * Recalcule tous les cumuls depuis l'historique des paiements
+     * @return nombre de paiements intégrés
+     */
+    public int recalculer() throws DatabaseException {
+        try {
+            executeWithTransaction("CumulVentesService.recalculer", cumulDAO::reinitialiser);
+        } catch (ValidationException e) {
+            throw new DatabaseException(e.getMessage(), e);
+        }
+        return integrerEnAttente();
+    }
+
+    /**
+     * Réserve un lot de paiements et l'ajoute aux cumuls, dans une même transaction
+     */
+    private int integrerLot(int limite) throws DatabaseException {
+        try {
+            return executeWithTransaction("CumulVentesService.integrer", () -> {
+                long lot = ThreadLocalRandom.current().nextLong(1, Long.MAX_VALUE);
+                int reserves = cumulDAO.reserver(lot, limite);
+                if (reserves > 0) {
+                    cumulDAO.cumuler(lot, LocalDateTime.now());
+                }
+                return reserves;
+            });
+        } catch (ValidationException e) {
+            throw new DatabaseException(e.getMessage(), e);
+        }
+    }
+
+    // ==================== LECTURE ====================
+
+    /**
+     * Tranches d'une dimension sur [debut, fin[ (tranches commençant dans la plage)
+     */
+    public List<PointVentes> getSerie(Granularite granularite, DimensionVentes dimension, LocalDateTime debut,
+                                      LocalDateTime fin) throws ValidationException, DatabaseException {
+        verifierPlage(granularite, dimension, debut, fin);
+        Map<String, String> libelles = cumulDAO.findLibelles(dimension);
+        List<PointVentes> serie = new ArrayList<>();
+        for (Object[] ligne : cumulDAO.findSerie(granularite, dimension, granularite.debut(debut), fin, null)) {
+            String cle = (String) ligne[1];
+            serie.add(new PointVentes((LocalDateTime) ligne[0], cle, libelles.getOrDefault(cle, cle),
+                    ((Number) ligne[2]).longValue(), (Money) ligne[3]));
+        }
+        return serie;
+    }
+
+    /**
+     * Courbe des encaissements : une valeur par tranche de [debut, fin[, tranches vides à zéro
+     */
+    public Map<LocalDateTime, Money> getTendance(Granularite granularite, LocalDateTime debut, LocalDateTime fin)
+            throws ValidationException, DatabaseException {
+        verifierPlage(granularite, DimensionVentes.TOTAL, debut, fin);
+        Map<LocalDateTime, Money> tendance = new LinkedHashMap<>();
+        for (LocalDateTime tranche = granularite.debut(debut); tranche.isBefore(fin);
+             tranche = granularite.suivante(tranche)) {
+            tendance.put(tranche, Money.ZERO);
+        }
+        for (Object[] ligne : cumulDAO.findSerie(granularite, DimensionVentes.TOTAL, granularite.debut(debut), fin,
+                CumulVentesDAO.CLE_TOTAL)) {
+            tendance.put((LocalDateTime) ligne[0], (Money) ligne[3]);
+        }
+        return tendance;
+    }
+
+    /**
+     * Totaux par clé d'une dimension sur [debut, fin[ (à l'heure près), montants décroissants
+     * La plage est lue en mois entiers, puis jours, puis heures aux bords
+     */
+    public List<PointVentes> getTotaux(DimensionVentes dimension, LocalDateTime debut, LocalDateTime fin)
+            throws ValidationException, DatabaseException {
+        verifierPlage(Granularite.HEURE, dimension, debut, fin);
+        LocalDateTime a = Granularite.HEURE.debut(debut);
+        LocalDateTime b = Granularite.HEURE.debut(fin).equals(fin) ? fin
+                : Granularite.HEURE.suivante(Granularite.HEURE.debut(fin));
+
+        Map<String, long[]> cumuls = new HashMap<>();
+        for (Object[] tranche : decouper(a, b)) {
+            for (Object[] ligne : cumulDAO.findSerie((Granularite) tranche[0], dimension,
+                    (LocalDateTime) tranche[1], (LocalDateTime) tranche[2], null)) {
+                long[] cumul = cumuls.computeIfAbsent((String) ligne[1], k -> new long[2]);
+                cumul[0] += ((Number) ligne[2]).longValue();
+                cumul[1] += ((Money) ligne[3]).getCents();
+            }
+        }
+
+        Map<String, String> libelles = cumulDAO.findLibelles(dimension);
+        List<PointVentes> totaux = new ArrayList<>(cumuls.size());
+        cumuls.forEach((cle, cumul) -> totaux.add(new PointVentes(a, cle, libelles.getOrDefault(cle, cle),
+                cumul[0], Money.ofCents(cumul[1]))));
+        totaux.sort((x, y) -> y.getMontant().compareTo(x.getMontant()));
+        return totaux;
+    }
+
+    /**
+     * Découpe [debut, fin[ (alignés sur l'heure) en plages de tranches : granularité, début, fin
+     */
+    static List<Object[]> decouper(LocalDateTime debut, LocalDateTime fin) {
+        List<Object[]> plages = new ArrayList<>();
+        decouper(debut, fin, 0, plages);
+        return plages;
+    }
+
+    private static void decouper(LocalDateTime debut, LocalDateTime fin, int niveau, List<Object[]> plages) {
+        if (!debut.isBefore(fin)) {
+            return;
+        }
+        Granularite granularite = DECOUPAGE[niveau];
+        if (niveau == DECOUPAGE.length - 1) {
+            plages.add(new Object[]{granularite, debut, fin});
+            return;
+        }
+        LocalDateTime premiere = granularite.debut(debut).equals(debut) ? debut
+                : granularite.suivante(granularite.debut(debut));
+        LocalDateTime derniere = granularite.debut(fin);
+        if (!premiere.isBefore(derniere)) {
+            decouper(debut, fin, niveau + 1, plages);
+            return;
+        }
+        decouper(debut, premiere, niveau + 1, plages);
+        plages.add(new Object[]{granularite, premiere, derniere});
+        decouper(derniere, fin, niveau + 1, plages);
+    }
+
+    private static void verifierPlage(Granularite granularite, DimensionVentes dimension, LocalDateTime debut,
+                                      LocalDateTime fin) throws ValidationException {
+        if (granularite == null || dimension == null) {
+            throw new ValidationException("Granularité et dimension requises");
+        }
+        if (debut == null || fin == null || !debut.isBefore(fin)) {
+            throw new ValidationException("Plage de dates invalide");
+        }
+    }
+
+    // ==================== DTOs ====================
+
+    /**
+     * Cumul d'une tranche (ou d'une plage) pour une clé : plat, catégorie, mode ou total
+     */
+    public static class PointVentes {
+        private final LocalDateTime debut;
+        private final String cle;
+        private final String libelle;
+        private final long quantite;
+        private final Money montant;
+
+        public PointVentes(LocalDateTime debut, String cle, String libelle, long quantite, Money montant) {
+            this.debut = debut;
+            this.cle = cle;
+            this.libelle = libelle;
+            this.quantite = quantite;
+            this.montant = montant;
+        }
+
+        public LocalDateTime getDebut() { return debut; }
+        public String getCle() { return cle; }
+        public String getLibelle() { return libelle; }
+        public long getQuantite() { return quantite; }
+        public Money getMontant() { return montant; }
+
+        @Override
+        public String toString() {
+            return String.format("%s %s: %d / %s", debut, libelle, quantite, montant.format());
+        }
+    }
+}
@@ -0,0 +1,331 @@
+package com.restaurant.service;
+
+import com.restaurant.model.Plat;
+
+import java.text.Normalizer;
+import java.util.*;
+
+/**
+ * Index de recherche en mémoire sur les plats (nom + description)
+ * - Insensible à la casse et aux accents ("pates" trouve "Pâtes")
+ * - Préfixe via TreeMap, sous-chaîne et approximatif via trigrammes
+ * - Mis à jour plat par plat (put/remove), pas de requête BD à la frappe
+ */
+public class MenuSearchIndex {
+
+    private static final int SCORE_NOM_EXACT = 100;
+    private static final int SCORE_NOM_PREFIXE = 60;
+    private static final int SCORE_NOM_CONTIENT = 30;
+    private static final int SCORE_NOM_APPROCHE = 20;
+    private static final int BONUS_DEBUT_NOM = 50;
+
+    // platId -> entrée indexée
+    private final Map<Long, Entree> entrees = new HashMap<>();
+
+    // token normalisé -> ids des plats (trié pour la recherche par préfixe)
+    private final TreeMap<String, Set<Long>> tokensNom = new TreeMap<>();
+    private final TreeMap<String, Set<Long>> tokensDescription = new TreeMap<>();
+
+    // trigramme -> tokens qui le contiennent (sous-chaîne + approximatif)
+    private final Map<String, Set<String>> trigrammes = new HashMap<>();
+
+    private boolean construit = false;
+
+    // ==================== MISE À JOUR ====================
+
+    /**
+     * Reconstruit entièrement l'index
+     */
+    public synchronized void rebuild(Collection<Plat> plats) {
+        entrees.clear();
+        tokensNom.clear();
+        tokensDescription.clear();
+        trigrammes.clear();
+        for (Plat plat : plats) {
+            put(plat);
+        }
+        construit = true;
+    }
+
+    /**
+     * Ajoute ou remplace un plat dans l'index
+     */
+    public synchronized void put(Plat plat) {
+        if (plat == null || plat.getId() == null) {
+            return;
+        }
+        remove(plat.getId());
+
+        Entree entree = new Entree(plat, normalize(plat.getNom()),
+                tokenize(plat.getNom()), tokenize(plat.getDescription()));
+        entrees.put(plat.getId(), entree);
+
+        for (String token : entree.tokensNom) {
+            tokensNom.computeIfAbsent(token, k -> new HashSet<>()).add(plat.getId());
+            indexTrigrammes(token);
+        }
+        for (String token : entree.tokensDescription) {
+            tokensDescription.computeIfAbsent(token, k -> new HashSet<>()).add(plat.getId());
+            indexTrigrammes(token);
+        }
+    }
+
+    /**
+     * Retire un plat de l'index
+     */
+    public synchronized void remove(Long platId) {
+        Entree ancienne = entrees.remove(platId);
+        if (ancienne == null) {
+            return;
+        }
+        unindex(tokensNom, ancienne.tokensNom, platId);
+        unindex(tokensDescription, ancienne.tokensDescription, platId);
+    }
+
+    public synchronized boolean isConstruit() {
+        return construit;
+    }
+
+    public synchronized void invalidate() {
+        construit = false;
+    }
+
+    public synchronized int size() {
+        return entrees.size();
+    }
+
+    // ==================== RECHERCHE ====================
+
+    /**
+     * Recherche classée : chaque mot saisi doit correspondre (nom ou description)
+     * Exact > préfixe > sous-chaîne > approximatif, le nom pèse plus que la description
+     */
+    public synchronized List<Plat> search(String query, int limit) {
+        List<String> termes = tokenize(query);
+        if (termes.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        Map<Long, Integer> scores = null;
+        for (String terme : termes) {
+            Map<Long, Integer> scoresTerme = scoreTerme(terme);
+            if (scores == null) {
+                scores = scoresTerme;
+            } else {
+                // ET logique : on garde uniquement les plats trouvés pour tous les termes
+                Map<Long, Integer> cumul = new HashMap<>();
+                for (Map.Entry<Long, Integer> e : scores.entrySet()) {
+                    Integer s = scoresTerme.get(e.getKey());
+                    if (s != null) {
+                        cumul.put(e.getKey(), e.getValue() + s);
+                    }
+                }
+                scores = cumul;
+            }
+            if (scores.isEmpty()) {
+                return new ArrayList<>();
+            }
+        }
+
+        String requeteNormalisee = String.join(" ", termes);
+        List<Map.Entry<Long, Integer>> classement = new ArrayList<>(scores.entrySet());
+        for (Map.Entry<Long, Integer> e : classement) {
+            if (entrees.get(e.getKey()).nomNormalise.startsWith(requeteNormalisee)) {
+                e.setValue(e.getValue() + BONUS_DEBUT_NOM);
+            }
+        }
+        classement.sort((a, b) -> {
+            int cmp = Integer.compare(b.getValue(), a.getValue());
+            return cmp != 0 ? cmp : entrees.get(a.getKey()).nomNormalise
+                    .compareTo(entrees.get(b.getKey()).nomNormalise);
+        });
+
+        List<Plat> resultats = new ArrayList<>(Math.min(limit, classement.size()));
+        for (int i = 0; i < classement.size() && resultats.size() < limit; i++) {
+            resultats.add(entrees.get(classement.get(i).getKey()).plat);
+        }
+        return resultats;
+    }
+
+    private Map<Long, Integer> scoreTerme(String terme) {
+        Map<Long, Integer> scores = new HashMap<>();
+
+        // 1. Préfixe (inclut l'égalité exacte)
+        for (Map.Entry<String, Set<Long>> e : prefixe(tokensNom, terme).entrySet()) {
+            int score = e.getKey().equals(terme) ? SCORE_NOM_EXACT : SCORE_NOM_PREFIXE;
+            bump(scores, e.getValue(), score);
+        }
+        for (Map.Entry<String, Set<Long>> e : prefixe(tokensDescription, terme).entrySet()) {
+            int score = e.getKey().equals(terme) ? SCORE_NOM_EXACT : SCORE_NOM_PREFIXE;
+            bump(scores, e.getValue(), score / 4);
+        }
+
+        // 2. Sous-chaîne et approximatif (termes d'au moins 3 lettres)
+        if (terme.length() >= 3) {
+            int distanceMax = terme.length() <= 4 ? 1 : 2;
+            for (String candidat : candidats(terme)) {
+                int score;
+                if (candidat.startsWith(terme)) {
+                    continue; // déjà compté en préfixe
+                } else if (candidat.contains(terme)) {
+                    score = SCORE_NOM_CONTIENT;
+                } else if (Math.abs(candidat.length() - terme.length()) <= distanceMax
+                        && distance(terme, candidat, distanceMax) <= distanceMax) {
+                    score = SCORE_NOM_APPROCHE;
+                } else {
+                    continue;
+                }
+                Set<Long> nom = tokensNom.get(candidat);
+                if (nom != null) {
+                    bump(scores, nom, score);
+                }
+                Set<Long> desc = tokensDescription.get(candidat);
+                if (desc != null) {
+                    bump(scores, desc, score / 4);
+                }
+            }
+        }
+        return scores;
+    }
+
+    private static void bump(Map<Long, Integer> scores, Set<Long> ids, int score) {
+        for (Long id : ids) {
+            scores.merge(id, score, Math::max);
+        }
+    }
+
+    private static SortedMap<String, Set<Long>> prefixe(TreeMap<String, Set<Long>> index, String terme) {
+        return index.subMap(terme, true, terme + Character.MAX_VALUE, false);
+    }
+
+    /**
+     * Tokens partageant au moins un trigramme avec le terme
+     */
+    private Set<String> candidats(String terme) {
+        Set<String> candidats = new HashSet<>();
+        for (String tri : trigrammesDe(terme)) {
+            Set<String> tokens = trigrammes.get(tri);
+            if (tokens != null) {
+                candidats.addAll(tokens);
+            }
+        }
+        return candidats;
+    }
+
+    // ==================== OUTILS ====================
+
+    /**
+     * Minuscules sans accents : "Crème Brûlée" -> "creme brulee"
+     */
+    public static String normalize(String texte) {
+        if (texte == null) {
+            return "";
+        }
+        String decompose = Normalizer.normalize(texte, Normalizer.Form.NFD);
+        StringBuilder sb = new StringBuilder(decompose.length());
+        for (int i = 0; i < decompose.length(); i++) {
+            char c = decompose.charAt(i);
+            if (Character.getType(c) == Character.NON_SPACING_MARK) {
+                continue;
+            }
+            switch (c) {
+                case 'œ': case 'Œ': sb.append("oe"); break;
+                case 'æ': case 'Æ': sb.append("ae"); break;
+                default: sb.append(Character.toLowerCase(c));
+            }
+        }
+        return sb.toString().trim();
+    }
+
+    static List<String> tokenize(String texte) {
+        List<String> tokens = new ArrayList<>();
+        String normalise = normalize(texte);
+        int debut = -1;
+        for (int i = 0; i <= normalise.length(); i++) {
+            boolean lettre = i < normalise.length() && Character.isLetterOrDigit(normalise.charAt(i));
+            if (lettre && debut < 0) {
+                debut = i;
+            } else if (!lettre && debut >= 0) {
+                tokens.add(normalise.substring(debut, i));
+                debut = -1;
+            }
+        }
+        return tokens;
+    }
+
+    private void indexTrigrammes(String token) {
+        for (String tri : trigrammesDe(token)) {
+            trigrammes.computeIfAbsent(tri, k -> new HashSet<>()).add(token);
+        }
+    }
+
+    private void unindex(TreeMap<String, Set<Long>> index, List<String> tokens, Long platId) {
+        for (String token : tokens) {
+            Set<Long> ids = index.get(token);
+            if (ids == null) {
+                continue;
+            }
+            ids.remove(platId);
+            if (ids.isEmpty()) {
+                index.remove(token);
+                if (!tokensNom.containsKey(token) && !tokensDescription.containsKey(token)) {
+                    for (String tri : trigrammesDe(token)) {
+                        Set<String> t = trigrammes.get(tri);
+                        if (t != null && t.remove(token) && t.isEmpty()) {
+                            trigrammes.remove(tri);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private static List<String> trigrammesDe(String token) {
+        List<String> tris = new ArrayList<>();
+        for (int i = 0; i + 3 <= token.length(); i++) {
+            tris.add(token.substring(i, i + 3));
+        }
+        return tris;
+    }
+
+    /**
+     * Distance de Levenshtein bornée (arrêt dès que max est dépassé)
+     */
+    static int distance(String a, String b, int max) {
+        int[] prec = new int[b.length() + 1];
+        int[] cour = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            prec[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            cour[0] = i;
+            int minLigne = cour[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int cout = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                cour[j] = Math.min(Math.min(cour[j - 1] + 1, prec[j] + 1), prec[j - 1] + cout);
+                minLigne = Math.min(minLigne, cour[j]);
+            }
+            if (minLigne > max) {
+                return max + 1;
+            }
+            int[] tmp = prec;
+            prec = cour;
+            cour = tmp;
+        }
+        return prec[b.length()];
+    }
+
+    private static final class Entree {
+        final Plat plat;
+        final String nomNormalise;
+        final List<String> tokensNom;
+        final List<String> tokensDescription;
+
+        Entree(Plat plat, String nomNormalise, List<String> tokensNom, List<String> tokensDescription) {
+            this.plat = plat;
+            this.nomNormalise = nomNormalise;
+            this.tokensNom = tokensNom;
+            this.tokensDescription = tokensDescription;
+        }
+    }
+}
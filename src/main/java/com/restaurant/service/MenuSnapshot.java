@@ -0,0 +1,99 @@
+package com.restaurant.service;
+
+import com.restaurant.model.Categorie;
+import com.restaurant.model.Plat;
+import com.restaurant.util.LongIntMap;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Photo immuable et versionnée du menu (catégories + plats)
+ * Partagée par tous les écrans de prise de commande, remplacée d'un bloc
+ * à chaque modification de la carte : la prise de commande ne fait plus de requête
+ */
+public final class MenuSnapshot {
+
+    private final long version;
+    private final List<Categorie> categories;
+    private final List<List<Plat>> platsParCategorie; // même ordre que categories
+    private final Plat[] plats;
+    private final LongIntMap categorieIndex; // categorie id -> position dans categories
+    private final LongIntMap platIndex;      // plat id -> position dans plats
+
+    private MenuSnapshot(long version, List<Categorie> categories, List<List<Plat>> platsParCategorie,
+                         Plat[] plats, LongIntMap categorieIndex, LongIntMap platIndex) {
+        this.version = version;
+        this.categories = categories;
+        this.platsParCategorie = platsParCategorie;
+        this.plats = plats;
+        this.categorieIndex = categorieIndex;
+        this.platIndex = platIndex;
+    }
+
+    /**
+     * Construit la photo à partir d'entités détachées (plats avec catégorie chargée)
+     */
+    static MenuSnapshot build(long version, List<Categorie> categories, List<Plat> plats) {
+        LongIntMap categorieIndex = new LongIntMap(categories.size());
+        List<List<Plat>> groupes = new ArrayList<>(categories.size());
+        for (int i = 0; i < categories.size(); i++) {
+            categorieIndex.put(categories.get(i).getId(), i);
+            groupes.add(new ArrayList<>());
+        }
+
+        Plat[] tableau = plats.toArray(new Plat[0]);
+        LongIntMap platIndex = new LongIntMap(tableau.length);
+        for (int i = 0; i < tableau.length; i++) {
+            Plat plat = tableau[i];
+            platIndex.put(plat.getId(), i);
+            int pos = plat.getCategorie() != null ? categorieIndex.get(plat.getCategorie().getId()) : -1;
+            if (pos >= 0) {
+                groupes.get(pos).add(plat);
+            }
+        }
+
+        List<List<Plat>> figes = new ArrayList<>(groupes.size());
+        for (List<Plat> groupe : groupes) {
+            figes.add(Collections.unmodifiableList(groupe));
+        }
+
+        return new MenuSnapshot(version, Collections.unmodifiableList(new ArrayList<>(categories)),
+                Collections.unmodifiableList(figes), tableau, categorieIndex, platIndex);
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public List<Categorie> getCategories() {
+        return categories;
+    }
+
+    /**
+     * Plats d'une catégorie (triés par nom), liste vide si inconnue
+     */
+    public List<Plat> getPlats(Categorie categorie) {
+        return categorie == null || categorie.getId() == null
+                ? Collections.emptyList()
+                : getPlatsByCategorieId(categorie.getId());
+    }
+
+    public List<Plat> getPlatsByCategorieId(long categorieId) {
+        int pos = categorieIndex.get(categorieId);
+        return pos >= 0 ? platsParCategorie.get(pos) : Collections.emptyList();
+    }
+
+    /**
+     * Plat par id, null si absent du menu
+     */
+    public Plat getPlat(long platId) {
+        int pos = platIndex.get(platId);
+        return pos >= 0 ? plats[pos] : null;
+    }
+
+    public int getPlatCount() {
+        return plats.length;
+    }
+}
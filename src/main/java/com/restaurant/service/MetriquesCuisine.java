@@ -0,0 +1,112 @@
+package com.restaurant.service;
+
+import com.restaurant.event.EventBus;
+import com.restaurant.event.TransitionEvent;
+import com.restaurant.model.Commande;
+import com.restaurant.model.enums.StatutCommande;
+import com.restaurant.util.LatencyHistogram;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Temps passés dans chaque statut (SLA cuisine), alimentés par les transitions
+ * - un histogramme par statut quitté, un par catégorie de plat pour la préparation
+ * - p50/p95 lus en temps constant, sans parcourir les listes de commandes
+ */
+public final class MetriquesCuisine {
+
+    private static final MetriquesCuisine INSTANCE = new MetriquesCuisine();
+
+    private final Map<StatutCommande, LatencyHistogram> parStatut = new EnumMap<>(StatutCommande.class);
+    private final Map<Long, LatencyHistogram> preparationParCategorie = new ConcurrentHashMap<>();
+    private volatile boolean amorce = false;
+    // Transitions enregistrées en direct avant l'amorçage (commande, statut quitté) : la reprise les saute
+    private final Set<Long> enDirect = ConcurrentHashMap.newKeySet();
+
+    private MetriquesCuisine() {
+        for (StatutCommande statut : StatutCommande.values()) {
+            parStatut.put(statut, new LatencyHistogram());
+        }
+        EventBus.getInstance().subscribe(TransitionEvent.class, this::enregistrer);
+    }
+
+    public static MetriquesCuisine getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Enregistre la durée passée dans le statut quitté
+     */
+    void enregistrer(TransitionEvent evenement) {
+        long duree = evenement.getDureeDepuisSecondes();
+        if (duree < 0) {
+            return;
+        }
+        if (!amorce) {
+            enDirect.add(cle(evenement.getCommandeId(), evenement.getDepuis()));
+        }
+        parStatut.get(evenement.getDepuis()).record(duree);
+        if (evenement.getDepuis() == StatutCommande.EN_PREPARATION) {
+            for (long categorieId : evenement.getCategorieIds()) {
+                preparationParCategorie.computeIfAbsent(categorieId, k -> new LatencyHistogram()).record(duree);
+            }
+        }
+    }
+
+    /**
+     * Reprise à partir des horodatages persistés (une seule fois, au premier écran cuisine)
+     * Les transitions déjà reçues en direct depuis le démarrage ne sont pas comptées une seconde fois
+     */
+    public synchronized void amorcer(List<Commande> commandes) {
+        if (amorce) {
+            return;
+        }
+        for (Commande commande : commandes) {
+            enregistrerDuree(commande, StatutCommande.EN_ATTENTE, commande.getDateEntree(StatutCommande.EN_ATTENTE),
+                    commande.getDateEnPreparation());
+            enregistrerDuree(commande, StatutCommande.EN_PREPARATION, commande.getDateEnPreparation(),
+                    commande.getDatePret());
+            enregistrerDuree(commande, StatutCommande.PRET, commande.getDatePret(), commande.getDateServi());
+        }
+        amorce = true;
+        enDirect.clear();
+    }
+
+    private void enregistrerDuree(Commande commande, StatutCommande statut, LocalDateTime entree,
+                                  LocalDateTime sortie) {
+        if (entree != null && sortie != null && !enDirect.contains(cle(commande.getId(), statut))) {
+            parStatut.get(statut).record(Math.max(0, Duration.between(entree, sortie).getSeconds()));
+        }
+    }
+
+    private static long cle(long commandeId, StatutCommande statut) {
+        return commandeId * StatutCommande.values().length + statut.ordinal();
+    }
+
+    // ==================== LECTURE ====================
+
+    public LatencyHistogram getHistogramme(StatutCommande statut) {
+        return parStatut.get(statut);
+    }
+
+    /**
+     * Percentile (secondes) du temps passé dans un statut
+     */
+    public long getPercentile(StatutCommande statut, double p) {
+        return parStatut.get(statut).getPercentile(p);
+    }
+
+    /**
+     * Histogrammes de temps de préparation par catégorie (id)
+     */
+    public Map<Long, LatencyHistogram> getPreparationParCategorie() {
+        return Collections.unmodifiableMap(preparationParCategorie);
+    }
+}
@@ -0,0 +1,208 @@
+package com.restaurant.service;
+
+import com.restaurant.config.DatabaseConfig;
+import com.restaurant.dao.CommandeDAO;
+import com.restaurant.event.EventBus;
+import com.restaurant.event.ModificationDistanteEvent;
+import com.restaurant.event.TransitionEvent;
+import com.restaurant.exception.DatabaseException;
+import com.restaurant.model.enums.StatutCommande;
+import com.restaurant.util.LongIntMap;
+import com.restaurant.util.SpaceSaving;
+
+import javax.persistence.EntityManager;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Plats les plus vendus, tenus en continu en mémoire bornée (Space-Saving)
+ * - un compteur pour tout l'historique, un par jour de création sur les JOURS_CONSERVES derniers jours
+ * - alimenté par les commandes soldées (TransitionEvent vers PAYEE, y compris des autres postes) :
+ *   leurs lignes sont lues en une requête à la consultation suivante
+ * - construit depuis l'historique au premier usage, reconstruit si des messages de poste sont perdus :
+ *   cumuls par plat calculés par la base avant la fenêtre, détail par commande seulement dans la fenêtre
+ * Classement exact jusqu'à CAPACITE plats vendus, approché au-delà (voir Classement.getErreur) ;
+ * CaisseService.auditerTopPlats le recalcule exactement
+ */
+public final class PlatsPopulaires {
+
+    private static final PlatsPopulaires INSTANCE = new PlatsPopulaires();
+
+    private static final int CAPACITE = 64;
+    private static final int JOURS_CONSERVES = 7;
+
+    private SpaceSaving toutesDates = new SpaceSaving(CAPACITE);
+    private final TreeMap<LocalDate, SpaceSaving> parJour = new TreeMap<>();
+    // Dernier nom lu par plat (borné par la carte)
+    private final Map<Long, String> noms = new HashMap<>();
+
+    // Commandes de la fenêtre déjà comptées, avec la lecture qui les a comptées : une commande soldée
+    // pendant une reconstruction est lue avec l'historique puis signalée, elle n'est comptée qu'une fois
+    // (vidé quand la fenêtre avance : borné par l'activité des JOURS_CONSERVES derniers jours)
+    private LongIntMap comptees = new LongIntMap(1024);
+    private int lecture;
+    private LocalDate debutFenetre;
+
+    private final Set<Long> aAjouter = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean aReconstruire = new AtomicBoolean(true);
+
+    private PlatsPopulaires() {
+        EventBus bus = EventBus.getInstance();
+        bus.subscribe(TransitionEvent.class, e -> {
+            if (e.getVers() == StatutCommande.PAYEE) {
+                aAjouter.add(e.getCommandeId());
+            }
+        });
+        bus.subscribe(ModificationDistanteEvent.class, e -> {
+            if (e.isResynchroniser()) {
+                invaliderTout();
+            }
+        });
+    }
+
+    public static PlatsPopulaires getInstance() {
+        return INSTANCE;
+    }
+
+    public void invaliderTout() {
+        aReconstruire.set(true);
+    }
+
+    /**
+     * Plats les plus vendus, toutes dates
+     */
+    public synchronized List<Classement> getTop(int n) throws DatabaseException {
+        actualiser();
+        return classement(toutesDates, n);
+    }
+
+    /**
+     * Plats les plus vendus des commandes créées ce jour-là ; null si le jour n'est plus suivi
+     */
+    public synchronized List<Classement> getTopJour(LocalDate jour, int n) throws DatabaseException {
+        actualiser();
+        if (jour.isBefore(premierJourSuivi())) {
+            return null;
+        }
+        SpaceSaving compteur = parJour.get(jour);
+        return compteur != null ? classement(compteur, n) : new ArrayList<>();
+    }
+
+    private List<Classement> classement(SpaceSaving compteur, int n) {
+        List<Classement> classement = new ArrayList<>();
+        for (SpaceSaving.Compteur c : compteur.top(n)) {
+            classement.add(new Classement(c.getCle(), noms.get(c.getCle()), c.getCompte(), c.getErreur()));
+        }
+        return classement;
+    }
+
+    private static LocalDate premierJourSuivi() {
+        return LocalDate.now().minusDays(JOURS_CONSERVES - 1);
+    }
+
+    /**
+     * Ajoute les commandes soldées depuis la dernière lecture, ou reconstruit depuis l'historique :
+     * cumuls par plat avant la fenêtre suivie, détail par commande dans la fenêtre
+     */
+    private void actualiser() throws DatabaseException {
+        LocalDate premierJour = premierJourSuivi();
+        if (!premierJour.equals(debutFenetre)) {
+            // La fenêtre avance : les commandes comptées avant n'ont plus à être reconnues
+            debutFenetre = premierJour;
+            comptees = new LongIntMap(1024);
+            parJour.headMap(premierJour).clear();
+        }
+        boolean complet = aReconstruire.getAndSet(false);
+        List<Long> ids = null;
+        if (complet) {
+            aAjouter.clear();
+        } else if (!aAjouter.isEmpty()) {
+            ids = new ArrayList<>(aAjouter);
+            aAjouter.removeAll(ids);
+        } else {
+            return;
+        }
+
+        EntityManager localEM = DatabaseConfig.getEntityManager();
+        try {
+            CommandeDAO commandeDAO = new CommandeDAO(localEM);
+            LocalDateTime debut = premierJour.atStartOfDay();
+            List<Object[]> anciennes = complet ? commandeDAO.sommerQuantitesParPlatAvant(debut) : null;
+            List<Object[]> lignes = commandeDAO.sommerQuantitesParCommandeEtPlat(ids, debut);
+            if (complet) {
+                toutesDates = new SpaceSaving(CAPACITE);
+                parJour.clear();
+                noms.clear();
+                comptees = new LongIntMap(1024);
+                for (Object[] ligne : anciennes) {
+                    long platId = ((Number) ligne[0]).longValue();
+                    noms.put(platId, (String) ligne[1]);
+                    toutesDates.add(platId, ((Number) ligne[2]).longValue());
+                }
+            }
+            lecture++;
+            for (Object[] ligne : lignes) {
+                long commandeId = ((Number) ligne[0]).longValue();
+                int compteePar = comptees.get(commandeId);
+                if (compteePar != -1 && compteePar != lecture) {
+                    continue;
+                }
+                comptees.put(commandeId, lecture);
+                LocalDate jour = ligne[1] instanceof Date ? ((Date) ligne[1]).toLocalDate() : (LocalDate) ligne[1];
+                long platId = ((Number) ligne[2]).longValue();
+                long quantite = ((Number) ligne[4]).longValue();
+                noms.put(platId, (String) ligne[3]);
+                toutesDates.add(platId, quantite);
+                if (!jour.isBefore(premierJour)) {
+                    parJour.computeIfAbsent(jour, j -> new SpaceSaving(CAPACITE)).add(platId, quantite);
+                }
+            }
+        } catch (DatabaseException e) {
+            // Rien n'est perdu : la prochaine consultation recommencera
+            if (complet) {
+                aReconstruire.set(true);
+            } else {
+                aAjouter.addAll(ids);
+            }
+            throw e;
+        } finally {
+            localEM.close();
+        }
+    }
+
+    /**
+     * Quantité vendue d'un plat : réelle dans [quantite - erreur, quantite]
+     */
+    public static final class Classement {
+        private final long platId;
+        private final String nom;
+        private final long quantite;
+        private final long erreur;
+
+        Classement(long platId, String nom, long quantite, long erreur) {
+            this.platId = platId;
+            this.nom = nom;
+            this.quantite = quantite;
+            this.erreur = erreur;
+        }
+
+        public long getPlatId() { return platId; }
+        public String getNom() { return nom; }
+        public long getQuantite() { return quantite; }
+        public long getErreur() { return erreur; }
+
+        @Override
+        public String toString() {
+            return nom + ": " + quantite + (erreur > 0 ? " (surestimé d'au plus " + erreur + ")" : "");
+        }
+    }
+}
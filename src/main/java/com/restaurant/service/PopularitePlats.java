@@ -0,0 +1,190 @@
+package com.restaurant.service;
+
+import com.restaurant.config.AppConfig;
+import com.restaurant.config.DatabaseConfig;
+import com.restaurant.config.ErrorLogger;
+import com.restaurant.dao.PopularitePlatDAO;
+import com.restaurant.exception.DatabaseException;
+import com.restaurant.model.Plat;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityTransaction;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Popularité des plats à la prise de commande (ordre « les plus commandés d'abord »)
+ * - compteurs en mémoire incrémentés à chaque ajout de plat, lus sans requête
+ * - décroissance exponentielle (demi-vie popularite.demi_vie.jours) « vers l'avant » :
+ *   un ajout pèse 2^((t - origine) / demi-vie), l'ordre des plats ne change donc pas avec le temps
+ *   et aucun score n'est recalculé entre deux ajouts
+ * - sauvegardés toutes les popularite.sauvegarde.min minutes : le poste ajoute ses incréments
+ *   en base puis relit les scores de tous les postes
+ */
+public final class PopularitePlats {
+
+    public static final String CLE_DEMI_VIE = "popularite.demi_vie.jours";
+    public static final String CLE_SAUVEGARDE = "popularite.sauvegarde.min";
+    private static final int DEMI_VIE_DEFAUT = 14;
+    private static final int SAUVEGARDE_DEFAUT = 5;
+    // Au-delà (en demi-vies), l'origine est avancée : les poids restent loin des limites d'un double
+    private static final double ECART_MAX = 64;
+
+    private static final PopularitePlats INSTANCE = new PopularitePlats();
+
+    private static ScheduledExecutorService planificateur;
+
+    private final double demiVie = Math.max(1, AppConfig.getInt(CLE_DEMI_VIE, DEMI_VIE_DEFAUT)) * 86400.0;
+    private long origine = secondes(LocalDateTime.now());
+    // Scores relus en base et incréments non sauvegardés, rapportés à l'origine
+    private final Map<Long, Double> scores = new HashMap<>();
+    private final Map<Long, Double> increments = new HashMap<>();
+    // Une sauvegarde à la fois (périodique, fermeture)
+    private final Object verrouSauvegarde = new Object();
+
+    private PopularitePlats() {
+    }
+
+    public static PopularitePlats getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Plat ajouté à une commande
+     */
+    public synchronized void enregistrer(long platId, int quantite) {
+        double poids = Math.pow(2, (secondes(LocalDateTime.now()) - origine) / demiVie);
+        increments.merge(platId, quantite * poids, Double::sum);
+    }
+
+    /**
+     * Plats triés du plus commandé au moins commandé (à égalité : par nom)
+     */
+    public List<Plat> trier(List<Plat> plats) {
+        Map<Long, Double> actuels = new HashMap<>();
+        synchronized (this) {
+            for (Plat plat : plats) {
+                actuels.put(plat.getId(), score(plat.getId()));
+            }
+        }
+        List<Plat> tries = new ArrayList<>(plats);
+        tries.sort(Comparator.comparing((Plat plat) -> actuels.get(plat.getId())).reversed()
+                .thenComparing(Plat::getNom, String.CASE_INSENSITIVE_ORDER));
+        return tries;
+    }
+
+    private double score(Long platId) {
+        return scores.getOrDefault(platId, 0.0) + increments.getOrDefault(platId, 0.0);
+    }
+
+    /**
+     * Ajoute les incréments du poste en base puis relit les scores de tous les postes
+     * Un échec garde les incréments pour la sauvegarde suivante
+     */
+    public void sauvegarder() throws DatabaseException {
+        synchronized (verrouSauvegarde) {
+            sauvegarderIncrements();
+        }
+    }
+
+    private void sauvegarderIncrements() throws DatabaseException {
+        LocalDateTime maintenant = LocalDateTime.now();
+        long t = secondes(maintenant);
+        Map<Long, Double> aEcrire;
+        double facteur;
+        synchronized (this) {
+            aEcrire = new HashMap<>(increments);
+            increments.clear();
+            facteur = Math.pow(2, -(t - origine) / demiVie);
+        }
+
+        EntityManager localEM = DatabaseConfig.getEntityManager();
+        try {
+            PopularitePlatDAO dao = new PopularitePlatDAO(localEM);
+            if (!aEcrire.isEmpty()) {
+                EntityTransaction transaction = localEM.getTransaction();
+                try {
+                    transaction.begin();
+                    for (Map.Entry<Long, Double> increment : aEcrire.entrySet()) {
+                        dao.ajouter(increment.getKey(), increment.getValue() * facteur, maintenant, demiVie);
+                    }
+                    transaction.commit();
+                } catch (DatabaseException | RuntimeException e) {
+                    if (transaction.isActive()) {
+                        transaction.rollback();
+                    }
+                    synchronized (this) {
+                        aEcrire.forEach((platId, valeur) -> increments.merge(platId, valeur, Double::sum));
+                    }
+                    throw e instanceof DatabaseException ? (DatabaseException) e
+                            : new DatabaseException("Erreur sauvegarde de la popularité des plats", e);
+                }
+            }
+
+            List<Object[]> lus = dao.findScores();
+            synchronized (this) {
+                if ((t - origine) / demiVie > ECART_MAX) {
+                    double recalage = Math.pow(2, -(t - origine) / demiVie);
+                    increments.replaceAll((platId, valeur) -> valeur * recalage);
+                    origine = t;
+                }
+                scores.clear();
+                for (Object[] ligne : lus) {
+                    long date = secondes((LocalDateTime) ligne[2]);
+                    scores.put((Long) ligne[0], (Double) ligne[1] * Math.pow(2, (date - origine) / demiVie));
+                }
+            }
+        } finally {
+            localEM.close();
+        }
+    }
+
+    private static long secondes(LocalDateTime date) {
+        return date.atZone(ZoneId.systemDefault()).toEpochSecond();
+    }
+
+    // ==================== SAUVEGARDE PÉRIODIQUE ====================
+
+    /**
+     * Lit les scores au démarrage (arrière-plan), puis sauvegarde toutes les popularite.sauvegarde.min minutes
+     */
+    public static synchronized void demarrerSauvegarde() {
+        if (planificateur != null) {
+            return;
+        }
+        long periode = Math.max(1, AppConfig.getInt(CLE_SAUVEGARDE, SAUVEGARDE_DEFAUT));
+        planificateur = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "popularite-plats");
+            thread.setDaemon(true);
+            return thread;
+        });
+        planificateur.scheduleWithFixedDelay(PopularitePlats::sauvegardeAutomatique, 0, periode, TimeUnit.MINUTES);
+    }
+
+    /**
+     * Arrête la sauvegarde périodique et sauvegarde une dernière fois (avant la fermeture de la base)
+     */
+    public static synchronized void arreterSauvegarde() {
+        if (planificateur != null) {
+            planificateur.shutdownNow();
+            planificateur = null;
+            sauvegardeAutomatique();
+        }
+    }
+
+    private static void sauvegardeAutomatique() {
+        try {
+            INSTANCE.sauvegarder();
+        } catch (Exception e) {
+            ErrorLogger.logError("PopularitePlats.sauvegarde", e);
+        }
+    }
+}
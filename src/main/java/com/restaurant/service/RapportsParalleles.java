@@ -0,0 +1,133 @@
+package com.restaurant.service;
+
+import com.restaurant.config.DatabaseConfig;
+import com.restaurant.exception.DatabaseException;
+
+import javax.persistence.EntityManager;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BinaryOperator;
+import java.util.function.Supplier;
+
+/**
+ * Rapports calculés par tranches de dates en parallèle
+ * - chaque tranche est lue sur son propre EntityManager (sa connexion), dans un pool dédié :
+ *   les attentes JDBC n'occupent pas le pool commun
+ * - les agrégats partiels (sommes, histogrammes, cumuls par plat) sont combinés deux à deux ;
+ *   le combinateur doit être associatif, l'ordre des tranches n'étant pas garanti
+ * - un top-K se calcule après combinaison des cumuls complets (un top-K partiel n'est pas fusionnable)
+ */
+final class RapportsParalleles {
+
+    // Connexions simultanées : le pool Hibernate en garde 20, l'interface doit en conserver
+    private static final int PARALLELISME = Math.max(1, Math.min(8, Runtime.getRuntime().availableProcessors()));
+
+    private static final ForkJoinPool POOL = new ForkJoinPool(PARALLELISME, pool -> {
+        ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+        thread.setName("rapports-" + thread.getPoolIndex());
+        thread.setDaemon(true);
+        return thread;
+    }, null, false);
+
+    private RapportsParalleles() {
+    }
+
+    /**
+     * Calcul d'une tranche sur l'EntityManager qui lui est dédié
+     */
+    @FunctionalInterface
+    interface Tranche<P, A> {
+        A calculer(EntityManager entityManager, P partition) throws DatabaseException;
+    }
+
+    /**
+     * Calcule chaque partition en parallèle puis combine les résultats
+     * @param neutre agrégat vide (aucune partition)
+     */
+    static <P, A> A agreger(List<P> partitions, Tranche<P, A> tranche, BinaryOperator<A> combiner,
+                            Supplier<A> neutre) throws DatabaseException {
+        if (partitions.isEmpty()) {
+            return neutre.get();
+        }
+        try {
+            return POOL.invoke(new Tache<>(partitions, 0, partitions.size(), tranche, combiner));
+        } catch (EchecTranche e) {
+            throw e.echec;
+        }
+    }
+
+    /**
+     * Découpe [debut, fin[ en tranches de jours entiers (bords exceptés), au plus deux par connexion
+     * pour équilibrer les tranches inégalement chargées
+     */
+    static List<LocalDateTime[]> decouper(LocalDateTime debut, LocalDateTime fin) {
+        List<LocalDateTime[]> tranches = new ArrayList<>();
+        if (!debut.isBefore(fin)) {
+            return tranches;
+        }
+        LocalDate premier = debut.toLocalDate();
+        long jours = fin.toLocalDate().toEpochDay() - premier.toEpochDay() + 1;
+        int nombre = (int) Math.min(jours, PARALLELISME * 2L);
+        LocalDateTime a = debut;
+        for (int i = 1; i <= nombre; i++) {
+            LocalDateTime b = i == nombre ? fin : premier.plusDays(jours * i / nombre).atStartOfDay();
+            if (b.isAfter(a)) {
+                tranches.add(new LocalDateTime[]{a, b});
+                a = b;
+            }
+        }
+        return tranches;
+    }
+
+    private static final class Tache<P, A> extends RecursiveTask<A> {
+        private final List<P> partitions;
+        private final int debut;
+        private final int fin;
+        private final Tranche<P, A> tranche;
+        private final BinaryOperator<A> combiner;
+
+        Tache(List<P> partitions, int debut, int fin, Tranche<P, A> tranche, BinaryOperator<A> combiner) {
+            this.partitions = partitions;
+            this.debut = debut;
+            this.fin = fin;
+            this.tranche = tranche;
+            this.combiner = combiner;
+        }
+
+        @Override
+        protected A compute() {
+            if (fin - debut > 1) {
+                int milieu = (debut + fin) >>> 1;
+                Tache<P, A> gauche = new Tache<>(partitions, debut, milieu, tranche, combiner);
+                gauche.fork();
+                A droite = new Tache<>(partitions, milieu, fin, tranche, combiner).compute();
+                return combiner.apply(gauche.join(), droite);
+            }
+            EntityManager localEM = DatabaseConfig.getEntityManager();
+            try {
+                return tranche.calculer(localEM, partitions.get(debut));
+            } catch (DatabaseException e) {
+                throw new EchecTranche(e);
+            } finally {
+                localEM.close();
+            }
+        }
+    }
+
+    /**
+     * Transporte l'échec d'une tranche jusqu'à l'appelant
+     */
+    private static final class EchecTranche extends RuntimeException {
+        private final DatabaseException echec;
+
+        EchecTranche(DatabaseException echec) {
+            super(echec);
+            this.echec = echec;
+        }
+    }
+}
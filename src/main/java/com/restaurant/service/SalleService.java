@@ -4,11 +4,18 @@ import com.restaurant.config.DatabaseConfig;
 import com.restaurant.config.ErrorLogger;
 import com.restaurant.dao.CommandeDAO;
 import com.restaurant.dao.TableDAO;
+import com.restaurant.event.CommandeModifieeEvent;
+import com.restaurant.event.EventBus;
+import com.restaurant.event.TableModifieeEvent;
+import com.restaurant.event.TransitionEvent;
 import com.restaurant.exception.DatabaseException;
 import com.restaurant.exception.ValidationException;
+import com.restaurant.journal.JournalCommandes;
 import com.restaurant.model.Commande;
 import com.restaurant.model.TableResto;
 import com.restaurant.model.enums.StatutCommande;
+import com.restaurant.readmodel.TableSalle;
+import com.restaurant.readmodel.VueSalle;
 import javax.persistence.EntityManager;
 import javax.persistence.EntityTransaction;
 import javax.persistence.TypedQuery;
@@ -20,6 +27,10 @@ public class SalleService {
     private TableDAO tableDAO;
     private CommandeDAO commandeDAO;
 
+    private final CommandeWorkflow workflow = CommandeWorkflow.getInstance();
+    private final JournalCommandes journal = JournalCommandes.getInstance();
+    private final VueSalle vueSalle = VueSalle.getInstance();
+
     public SalleService() {
         this.entityManager = DatabaseConfig.getEntityManager();
         this.tableDAO = new TableDAO(entityManager);
@@ -39,17 +50,20 @@ public class SalleService {
             T result = callback.execute();
 
             transaction.commit();
+            journal.valider();
             return result;
 
         } catch (ValidationException ve) {
             if (transaction != null && transaction.isActive()) {
                 transaction.rollback();
             }
+            journal.annuler();
             throw ve;
         } catch (Exception e) {
             if (transaction != null && transaction.isActive()) {
                 transaction.rollback();
             }
+            journal.annuler();
             ErrorLogger.logError(context, e);
             throw new DatabaseException("Erreur lors de l'opération: " + context, e);
         }
@@ -149,10 +163,12 @@ public class SalleService {
             throw new ValidationException("Une table avec le numéro " + numero + " existe déjà");
         }
 
-        return executeWithTransaction("SalleService.createTable", () -> {
+        TableResto creee = executeWithTransaction("SalleService.createTable", () -> {
             TableResto table = new TableResto(numero, capacite);
             return tableDAO.save(table);
         });
+        EventBus.getInstance().publish(new TableModifieeEvent(creee.getId(), false));
+        return creee;
     }
 
     /**
@@ -179,9 +195,11 @@ public class SalleService {
             table.setCapacite(capacite);
         }
 
-        return executeWithTransaction("SalleService.updateTable", () -> {
+        TableResto modifiee = executeWithTransaction("SalleService.updateTable", () -> {
             return tableDAO.save(table);
         });
+        EventBus.getInstance().publish(new TableModifieeEvent(id, false));
+        return modifiee;
     }
 
     /**
@@ -202,6 +220,7 @@ public class SalleService {
             tableDAO.delete(id);
             return null;
         });
+        EventBus.getInstance().publish(new TableModifieeEvent(id, true));
     }
 
     /**
@@ -234,8 +253,8 @@ public class SalleService {
      */
     public long countTablesOccupees() throws DatabaseException {
         try {
-            return getAllTables().stream()
-                    .filter(TableResto::isOccupee)
+            return vueSalle.lister().stream()
+                    .filter(TableSalle::isOccupee)
                     .count();
         } catch (DatabaseException e) {
             ErrorLogger.logError("SalleService.countTablesOccupees", e);
@@ -248,7 +267,7 @@ public class SalleService {
      */
     public long countTablesLibres() throws DatabaseException {
         try {
-            return getAllTables().stream()
+            return vueSalle.lister().stream()
                     .filter(table -> !table.isOccupee())
                     .count();
         } catch (DatabaseException e) {
@@ -266,9 +285,21 @@ public class SalleService {
         if (table == null) {
             throw new ValidationException("Table requise");
         }
+        return startNewCommande(table.getId());
+    }
+
+    /**
+     * Crée une nouvelle commande pour une table (par id, depuis le plan de salle)
+     */
+    public Commande startNewCommande(Long tableId)
+            throws ValidationException, DatabaseException {
+
+        if (tableId == null) {
+            throw new ValidationException("Table requise");
+        }
 
         // ✅ Recharger la table AVEC ses commandes avant de vérifier
-        TableResto refreshedTable = getTableById(table.getId());
+        TableResto refreshedTable = getTableById(tableId);
         if (refreshedTable == null) {
             throw new ValidationException("Table introuvable");
         }
@@ -278,12 +309,16 @@ public class SalleService {
             throw new ValidationException("La table est déjà occupée");
         }
 
-        return executeWithTransaction("SalleService.startNewCommande", () -> {
+        Commande creee = executeWithTransaction("SalleService.startNewCommande", () -> {
             Commande commande = new Commande(refreshedTable);
             System.out.println("[DEBUG SalleService.startNewCommande] Création commande pour Table " +
                     refreshedTable.getNumeroTable());
-            return commandeDAO.save(commande);
+            Commande enregistree = commandeDAO.save(commande);
+            journal.creation(enregistree);
+            return enregistree;
         });
+        workflow.publier(workflow.modification(creee, CommandeModifieeEvent.Nature.CREEE));
+        return creee;
     }
 
     /**
@@ -307,81 +342,54 @@ public class SalleService {
      * Libère une table (marque commande comme FINALISEE)
      */
     public void liberateTable(TableResto table) throws ValidationException, DatabaseException {
-        Commande commande = getActiveCommande(table);
-        if (commande == null) {
-            throw new ValidationException("Aucune commande active");
+        if (table == null) {
+            throw new ValidationException("Table requise");
         }
 
-        if (!commande.getStatut().equals(StatutCommande.PAYEE)) {
-            throw new ValidationException("La commande doit être payée avant de libérer la table");
+        // Commande pouvant être finalisée (payée) selon la machine à états
+        Commande commande = null;
+        for (Commande c : table.getCommandes()) {
+            if (workflow.peutTransitionner(c.getStatut(), StatutCommande.FINALISEE)) {
+                commande = c;
+                break;
+            }
+        }
+        if (commande == null) {
+            throw new ValidationException(getActiveCommande(table) != null
+                    ? "La commande doit être payée avant de libérer la table"
+                    : "Aucune commande active");
         }
+        workflow.valider(commande, StatutCommande.FINALISEE);
 
-        executeWithTransaction("SalleService.liberateTable", () -> {
-            commande.setStatut(StatutCommande.FINALISEE);
-            commandeDAO.save(commande);
-            return null;
+        Commande aFinaliser = commande;
+        TransitionEvent transition = executeWithTransaction("SalleService.liberateTable", () -> {
+            TransitionEvent evenement = workflow.appliquer(aFinaliser, StatutCommande.FINALISEE);
+            commandeDAO.save(aFinaliser);
+            return evenement;
         });
+        workflow.publier(transition);
     }
 
     /**
-     * ✅ FIX: Récupère toutes les tables avec leur statut
-     * Les commandes sont déjà chargées via getAllTables() avec FETCH
+     * Plan de salle : tables avec leur statut (modèle de lecture, projections plates)
+     * Seules les tables touchées depuis la dernière lecture sont relues
      */
-    public List<TableAvecStatut> getAllTablesWithStatus() throws DatabaseException {
-        List<TableResto> tables = getAllTables();
-
-        System.out.println("[DEBUG SalleService.getAllTablesWithStatus] " + tables.size() + " tables");
-
-        return tables.stream()
-                .map(table -> {
-                    try {
-                        System.out.println("[DEBUG SalleService.getAllTablesWithStatus]   Table " +
-                                table.getNumeroTable() + " - " + table.getCommandes().size() +
-                                " commande(s)");
-
-                        String status = getTableStatus(table);
-                        return new TableAvecStatut(table, status);
-                    } catch (DatabaseException e) {
-                        ErrorLogger.logError("SalleService.getAllTablesWithStatus", e);
-                        return new TableAvecStatut(table, "ERREUR");
-                    }
-                })
-                .toList();
+    public List<TableSalle> getAllTablesWithStatus() throws DatabaseException {
+        return vueSalle.lister();
     }
 
-    // ==================== DTO ====================
-
     /**
-     * DTO pour afficher une table avec son statut
+     * Force une relecture complète du plan (changements faits sur d'autres postes)
      */
-    public static class TableAvecStatut {
-        private TableResto table;
-        private String statut;
-
-        public TableAvecStatut(TableResto table, String statut) {
-            this.table = table;
-            this.statut = statut;
-        }
-
-        public TableResto getTable() {
-            return table;
-        }
-
-        public String getStatut() {
-            return statut;
-        }
-
-        public String getNumeroTable() {
-            return table != null ? table.getNumeroTable().toString() : "";
-        }
-
-        public String getCapacite() {
-            return table != null ? table.getCapacite().toString() : "";
-        }
+    public void rafraichirPlan() {
+        vueSalle.invaliderTout();
+    }
 
-        @Override
-        public String toString() {
-            return "Table " + getNumeroTable() + " - " + statut;
-        }
+    /**
+     * Commande par id, relue en base (cache vidé comme pour getTableById)
+     */
+    public Commande getCommandeById(Long id) throws DatabaseException {
+        entityManager.clear();
+        return commandeDAO.findById(id);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,313 @@
+package com.restaurant.service;
+
+import com.restaurant.config.AppConfig;
+import com.restaurant.config.ErrorLogger;
+import com.restaurant.event.CommandeModifieeEvent;
+import com.restaurant.event.CommandeUrgenteEvent;
+import com.restaurant.event.EventBus;
+import com.restaurant.event.TransitionEvent;
+import com.restaurant.model.Categorie;
+import com.restaurant.model.Commande;
+import com.restaurant.model.enums.StatutCommande;
+import com.restaurant.readmodel.TicketCuisine;
+import com.restaurant.util.LongIntMap;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Minuteur des tickets en attente : file de priorité ordonnée par échéance d'urgence
+ * - alimenté par les événements commande (création, lignes, transitions), sans requête
+ * - un seul réveil programmé, sur l'échéance la plus proche : l'alerte part à l'instant
+ *   exact où le ticket franchit son seuil
+ * - seuil par catégorie (cuisine.urgence.minutes.&lt;categorie&gt;), sinon cuisine.urgence.minutes
+ * - filet de sécurité : synchroniser, appelé par chaque relecture de l'écran cuisine
+ *   (CuisineService.refreshAll). Les événements locaux et relayés suffisent en temps normal ;
+ *   une perte détectée par le relais relance aussitôt une relecture. La relecture périodique
+ *   (10 s, 60 s relais actif) ne rattrape que les postes sans relais ou un message perdu non
+ *   suivi d'un autre. Pas de requête propre : les alertes ne sont affichées que par cet écran
+ * Mises à jour en O(log n) ; les entrées remplacées sont ignorées à la sortie de file
+ */
+public final class SurveillanceUrgences {
+
+    public static final String CLE_SEUIL = "cuisine.urgence.minutes";
+    private static final int SEUIL_DEFAUT_MINUTES = 10;
+
+    private static final SurveillanceUrgences INSTANCE = new SurveillanceUrgences();
+
+    private final int seuilDefautMinutes = Math.max(1, AppConfig.getInt(CLE_SEUIL, SEUIL_DEFAUT_MINUTES));
+
+    // commande id -> ticket courant ; la file peut contenir d'anciens tickets (suppression paresseuse)
+    private final Map<Long, Ticket> tickets = new HashMap<>();
+    private final PriorityQueue<Ticket> echeances =
+            new PriorityQueue<>((a, b) -> Long.compare(a.echeanceMillis, b.echeanceMillis));
+    private final Set<Long> urgentes = ConcurrentHashMap.newKeySet();
+
+    private final ScheduledThreadPoolExecutor minuteur;
+    private ScheduledFuture<?> reveil;
+    private long reveilMillis = Long.MAX_VALUE;
+
+    // seuils par catégorie, recalculés quand la photo du menu change
+    private long versionMenu = -1;
+    private LongIntMap seuilsCategorie = new LongIntMap(4);
+
+    private SurveillanceUrgences() {
+        minuteur = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread thread = new Thread(r, "cuisine-urgences");
+            thread.setDaemon(true);
+            return thread;
+        });
+        minuteur.setRemoveOnCancelPolicy(true);
+
+        EventBus bus = EventBus.getInstance();
+        bus.subscribe(TransitionEvent.class, this::surTransition);
+        bus.subscribe(CommandeModifieeEvent.class, this::surModification);
+    }
+
+    public static SurveillanceUrgences getInstance() {
+        return INSTANCE;
+    }
+
+    // ==================== ÉVÉNEMENTS ====================
+
+    private void surTransition(TransitionEvent evenement) {
+        if (evenement.getDepuis() == StatutCommande.EN_ATTENTE || evenement.isStatutFinal()) {
+            retirer(evenement.getCommandeId());
+        }
+    }
+
+    private void surModification(CommandeModifieeEvent evenement) {
+        switch (evenement.getNature()) {
+            case CREEE:
+            case LIGNES:
+                suivre(evenement.getCommandeId(), evenement.getDateCommande(), evenement.getCategorieIds());
+                break;
+            case SUPPRIMEE:
+                retirer(evenement.getCommandeId());
+                break;
+            default:
+                break;
+        }
+    }
+
+    // ==================== TICKETS ====================
+
+    /**
+     * Suit une commande en attente (idempotent : sans effet si début et seuil sont inchangés)
+     */
+    public void suivre(Commande commande) {
+        if (commande == null || commande.getId() == null || commande.getStatut() != StatutCommande.EN_ATTENTE) {
+            return;
+        }
+        suivre(commande.getId(), commande.getDateEntree(StatutCommande.EN_ATTENTE),
+                CommandeWorkflow.categoriesDe(commande));
+    }
+
+    public synchronized void suivre(long commandeId, LocalDateTime debut, long[] categorieIds) {
+        if (debut == null) {
+            return;
+        }
+        int seuil = seuilMinutes(categorieIds);
+        long debutMillis = debut.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+
+        Ticket actuel = tickets.get(commandeId);
+        if (actuel != null && actuel.debutMillis == debutMillis && actuel.seuilMinutes == seuil) {
+            return;
+        }
+        Ticket ticket = new Ticket(commandeId, debutMillis, seuil);
+        tickets.put(commandeId, ticket);
+        if (!urgentes.contains(commandeId) || ticket.echeanceMillis > System.currentTimeMillis()) {
+            urgentes.remove(commandeId);
+            echeances.add(ticket);
+            compacterSiNecessaire();
+            reprogrammer();
+        }
+    }
+
+    /**
+     * Arrête de suivre une commande (envoyée en cuisine, annulée, supprimée)
+     */
+    public synchronized void retirer(long commandeId) {
+        if (tickets.remove(commandeId) != null) {
+            urgentes.remove(commandeId);
+            reprogrammer();
+        }
+    }
+
+    /**
+     * Aligne les tickets sur la liste d'attente lue en base (autres postes, démarrage)
+     * Les tickets créés après la lecture (événements plus récents) sont conservés
+     * Réconciliation volontairement portée par la relecture de l'écran cuisine (cf. en-tête)
+     */
+    public void synchroniser(Collection<TicketCuisine> enAttente, long luLeMillis) {
+        Set<Long> presents = new HashSet<>();
+        for (TicketCuisine ticket : enAttente) {
+            if (ticket.getStatut() == StatutCommande.EN_ATTENTE) {
+                suivre(ticket.getId(), ticket.getEntree(), ticket.getCategorieIds());
+                presents.add(ticket.getId());
+            }
+        }
+        synchronized (this) {
+            List<Long> disparus = new ArrayList<>();
+            for (Ticket ticket : tickets.values()) {
+                if (!presents.contains(ticket.commandeId) && ticket.creeLeMillis < luLeMillis) {
+                    disparus.add(ticket.commandeId);
+                }
+            }
+            for (Long id : disparus) {
+                retirer(id);
+            }
+        }
+    }
+
+    public boolean isUrgente(long commandeId) {
+        return urgentes.contains(commandeId);
+    }
+
+    public Set<Long> getUrgentes() {
+        return Collections.unmodifiableSet(urgentes);
+    }
+
+    public synchronized int getNombreSuivis() {
+        return tickets.size();
+    }
+
+    public int getSeuilDefautMinutes() {
+        return seuilDefautMinutes;
+    }
+
+    // ==================== MINUTEUR ====================
+
+    /**
+     * Programme un seul réveil, sur l'échéance la plus proche
+     */
+    private void reprogrammer() {
+        Ticket tete = echeances.peek();
+        while (tete != null && !estCourant(tete)) {
+            echeances.poll();
+            tete = echeances.peek();
+        }
+        long prochaine = tete != null ? tete.echeanceMillis : Long.MAX_VALUE;
+        if (prochaine == reveilMillis) {
+            return;
+        }
+        if (reveil != null) {
+            reveil.cancel(false);
+            reveil = null;
+        }
+        reveilMillis = prochaine;
+        if (tete != null) {
+            long delai = Math.max(0, prochaine - System.currentTimeMillis());
+            reveil = minuteur.schedule(this::declencher, delai, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void declencher() {
+        List<CommandeUrgenteEvent> alertes = new ArrayList<>();
+        synchronized (this) {
+            long maintenant = System.currentTimeMillis();
+            Ticket tete;
+            while ((tete = echeances.peek()) != null && tete.echeanceMillis <= maintenant) {
+                echeances.poll();
+                if (estCourant(tete) && urgentes.add(tete.commandeId)) {
+                    alertes.add(new CommandeUrgenteEvent(tete.commandeId,
+                            LocalDateTime.ofInstant(Instant.ofEpochMilli(tete.echeanceMillis), ZoneId.systemDefault()),
+                            tete.seuilMinutes));
+                }
+            }
+            reveil = null;
+            reveilMillis = Long.MAX_VALUE;
+            reprogrammer();
+        }
+        for (CommandeUrgenteEvent alerte : alertes) {
+            EventBus.getInstance().publish(alerte);
+        }
+    }
+
+    private boolean estCourant(Ticket ticket) {
+        return tickets.get(ticket.commandeId) == ticket;
+    }
+
+    /**
+     * Purge les entrées périmées quand elles dominent la file
+     */
+    private void compacterSiNecessaire() {
+        if (echeances.size() <= 2 * tickets.size() + 64) {
+            return;
+        }
+        Iterator<Ticket> it = echeances.iterator();
+        while (it.hasNext()) {
+            if (!estCourant(it.next())) {
+                it.remove();
+            }
+        }
+    }
+
+    // ==================== SEUILS ====================
+
+    /**
+     * Seuil du ticket : le plus court parmi ses catégories, sinon le seuil par défaut
+     */
+    private int seuilMinutes(long[] categorieIds) {
+        if (categorieIds == null || categorieIds.length == 0) {
+            return seuilDefautMinutes;
+        }
+        LongIntMap seuils = seuilsCategorie();
+        int seuil = Integer.MAX_VALUE;
+        for (long id : categorieIds) {
+            int s = seuils.get(id);
+            seuil = Math.min(seuil, s > 0 ? s : seuilDefautMinutes);
+        }
+        return seuil;
+    }
+
+    private LongIntMap seuilsCategorie() {
+        MenuSnapshot menu = CarteService.menuCourant();
+        if (menu == null || menu.getVersion() == versionMenu) {
+            return seuilsCategorie;
+        }
+        LongIntMap seuils = new LongIntMap(menu.getCategories().size());
+        for (Categorie categorie : menu.getCategories()) {
+            String cle = CLE_SEUIL + "." + MenuSearchIndex.normalize(categorie.getNom()).replace(' ', '-');
+            int minutes = AppConfig.getInt(cle, seuilDefautMinutes);
+            if (minutes > 0) {
+                seuils.put(categorie.getId(), minutes);
+            } else {
+                ErrorLogger.logDebug("Seuil d'urgence ignoré pour " + cle + " : " + minutes);
+            }
+        }
+        seuilsCategorie = seuils;
+        versionMenu = menu.getVersion();
+        return seuils;
+    }
+
+    private static final class Ticket {
+        final long commandeId;
+        final long debutMillis;
+        final int seuilMinutes;
+        final long echeanceMillis;
+        final long creeLeMillis = System.currentTimeMillis();
+
+        Ticket(long commandeId, long debutMillis, int seuilMinutes) {
+            this.commandeId = commandeId;
+            this.debutMillis = debutMillis;
+            this.seuilMinutes = seuilMinutes;
+            this.echeanceMillis = debutMillis + TimeUnit.MINUTES.toMillis(seuilMinutes);
+        }
+    }
+}
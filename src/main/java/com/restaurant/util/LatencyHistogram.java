@@ -0,0 +1,91 @@
+package com.restaurant.util;
+
+import java.util.Arrays;
+
+/**
+ * Histogramme de durées à buckets log-linéaires (principe HdrHistogram)
+ * - valeurs entières (secondes), précision relative de 6% au pire, quelle que soit l'échelle
+ * - enregistrement et lecture d'un percentile en temps constant (tableau de taille fixe)
+ * Thread-safe (méthodes synchronisées, appels très courts)
+ */
+public class LatencyHistogram {
+
+    // Valeurs < SOUS_BUCKETS stockées exactement, puis SOUS_BUCKETS/2 buckets par puissance de 2
+    private static final int BITS_SOUS_BUCKETS = 5;
+    private static final int SOUS_BUCKETS = 1 << BITS_SOUS_BUCKETS;          // 32
+    private static final int DEMI = SOUS_BUCKETS / 2;                          // 16
+    private static final int EXPOSANT_MAX = 63 - BITS_SOUS_BUCKETS;
+
+    private final long[] compteurs = new long[SOUS_BUCKETS + EXPOSANT_MAX * DEMI];
+    private long total;
+    private long somme;
+    private long max;
+
+    public synchronized void record(long valeur) {
+        if (valeur < 0) {
+            valeur = 0;
+        }
+        compteurs[index(valeur)]++;
+        total++;
+        somme += valeur;
+        max = Math.max(max, valeur);
+    }
+
+    public synchronized long getCount() {
+        return total;
+    }
+
+    public synchronized long getMax() {
+        return max;
+    }
+
+    public synchronized double getMean() {
+        return total == 0 ? 0.0 : (double) somme / total;
+    }
+
+    /**
+     * Valeur sous laquelle se trouvent p% des mesures (borne haute du bucket), 0 si vide
+     */
+    public synchronized long getPercentile(double p) {
+        if (total == 0) {
+            return 0;
+        }
+        long rang = Math.max(1, (long) Math.ceil(total * Math.min(100.0, Math.max(0.0, p)) / 100.0));
+        long cumul = 0;
+        for (int i = 0; i < compteurs.length; i++) {
+            cumul += compteurs[i];
+            if (cumul >= rang) {
+                return Math.min(max, borneHaute(i));
+            }
+        }
+        return max;
+    }
+
+    public synchronized void reset() {
+        Arrays.fill(compteurs, 0);
+        total = 0;
+        somme = 0;
+        max = 0;
+    }
+
+    // ==================== BUCKETS ====================
+
+    static int index(long valeur) {
+        if (valeur < SOUS_BUCKETS) {
+            return (int) valeur;
+        }
+        // décalage tel que (valeur >> decalage) soit dans [DEMI, SOUS_BUCKETS[
+        int decalage = 63 - Long.numberOfLeadingZeros(valeur) - (BITS_SOUS_BUCKETS - 1);
+        int sousIndex = (int) (valeur >>> decalage) - DEMI;
+        return SOUS_BUCKETS + (decalage - 1) * DEMI + sousIndex;
+    }
+
+    static long borneHaute(int index) {
+        if (index < SOUS_BUCKETS) {
+            return index;
+        }
+        int decalage = (index - SOUS_BUCKETS) / DEMI + 1;
+        long sousIndex = (index - SOUS_BUCKETS) % DEMI + DEMI;
+        return ((sousIndex + 1) << decalage) - 1;
+    }
+}
@@ -0,0 +1,106 @@
+package com.restaurant.util;
+
+import javafx.collections.ObservableList;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+
+/**
+ * Mise à jour minimale d'une ObservableList à partir d'une nouvelle lecture
+ * - éléments appariés par clé (id), remplacés seulement si leur version a changé
+ * - suppressions, insertions et déplacements unitaires : les lignes inchangées
+ *   ne sont pas recréées et la sélection des TableView est conservée
+ * Pensé pour des listes d'écran (quelques dizaines d'éléments), à appeler sur le thread UI
+ */
+public final class ListeDiff {
+
+    private ListeDiff() {
+    }
+
+    /**
+     * Bilan d'une mise à jour
+     */
+    public static final class Bilan {
+        private int ajouts;
+        private int suppressions;
+        private int remplacements;
+        private int deplacements;
+
+        public int getAjouts() { return ajouts; }
+        public int getSuppressions() { return suppressions; }
+        public int getRemplacements() { return remplacements; }
+        public int getDeplacements() { return deplacements; }
+
+        public boolean isVide() {
+            return ajouts + suppressions + remplacements + deplacements == 0;
+        }
+
+        @Override
+        public String toString() {
+            return "+" + ajouts + " -" + suppressions + " ~" + remplacements + " ↕" + deplacements;
+        }
+    }
+
+    /**
+     * Aligne liste sur nouvelle (même contenu, même ordre)
+     * @param cle       identité d'un élément (id)
+     * @param memeVersion vrai si l'élément affiché est à jour par rapport au nouveau
+     */
+    public static <T, K> Bilan appliquer(ObservableList<T> liste, List<? extends T> nouvelle,
+                                         Function<? super T, K> cle, BiPredicate<? super T, ? super T> memeVersion) {
+        Bilan bilan = new Bilan();
+
+        // 1. Suppressions (éléments absents de la nouvelle lecture)
+        Set<K> cles = new HashSet<>(nouvelle.size() * 2);
+        for (T element : nouvelle) {
+            cles.add(cle.apply(element));
+        }
+        for (int i = liste.size() - 1; i >= 0; i--) {
+            if (!cles.contains(cle.apply(liste.get(i)))) {
+                liste.remove(i);
+                bilan.suppressions++;
+            }
+        }
+
+        // 2. Parcours dans l'ordre cible : en place, déplacé ou nouveau
+        for (int i = 0; i < nouvelle.size(); i++) {
+            T nouveau = nouvelle.get(i);
+            K k = cle.apply(nouveau);
+
+            int pos = -1;
+            for (int j = i; j < liste.size(); j++) {
+                if (Objects.equals(cle.apply(liste.get(j)), k)) {
+                    pos = j;
+                    break;
+                }
+            }
+
+            if (pos < 0) {
+                liste.add(i, nouveau);
+                bilan.ajouts++;
+                continue;
+            }
+            if (pos != i) {
+                T deplace = liste.remove(pos);
+                liste.add(i, memeVersion.test(deplace, nouveau) ? deplace : nouveau);
+                bilan.deplacements++;
+                continue;
+            }
+            if (!memeVersion.test(liste.get(i), nouveau)) {
+                liste.set(i, nouveau);
+                bilan.remplacements++;
+            }
+        }
+
+        // 3. Doublons éventuels restés en fin de liste
+        if (liste.size() > nouvelle.size()) {
+            bilan.suppressions += liste.size() - nouvelle.size();
+            liste.remove(nouvelle.size(), liste.size());
+        }
+        return bilan;
+    }
+}
@@ -0,0 +1,15 @@
+package com.restaurant.util;
+
+/**
+ * Mélange de bits pour les tables à clés long (évite les collisions sur des ids consécutifs)
+ */
+final class LongHash {
+
+    private LongHash() {
+    }
+
+    static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
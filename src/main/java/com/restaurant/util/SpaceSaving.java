@@ -0,0 +1,95 @@
+package com.restaurant.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Éléments les plus fréquents d'un flux pondéré, en mémoire bornée (algorithme Space-Saving)
+ * - au plus « capacite » compteurs ; une clé absente, flux plein, remplace le plus petit compteur
+ *   et en hérite (sa valeur devient la borne d'erreur de la nouvelle clé)
+ * - tout élément de poids total > total / capacite est suivi ; un compte surestime d'au plus son erreur
+ * - exact tant que le nombre de clés distinctes ne dépasse pas la capacité
+ * Capacité de quelques dizaines : recherche linéaire. Thread-safe (méthodes synchronisées)
+ */
+public class SpaceSaving {
+
+    private final long[] cles;
+    private final long[] comptes;
+    private final long[] erreurs;
+    private int taille;
+    private long total;
+
+    public SpaceSaving(int capacite) {
+        if (capacite <= 0) {
+            throw new IllegalArgumentException("Capacité invalide: " + capacite);
+        }
+        cles = new long[capacite];
+        comptes = new long[capacite];
+        erreurs = new long[capacite];
+    }
+
+    public synchronized void add(long cle, long poids) {
+        if (poids <= 0) {
+            return;
+        }
+        total += poids;
+        int min = 0;
+        for (int i = 0; i < taille; i++) {
+            if (cles[i] == cle) {
+                comptes[i] += poids;
+                return;
+            }
+            if (comptes[i] < comptes[min]) {
+                min = i;
+            }
+        }
+        if (taille < cles.length) {
+            cles[taille] = cle;
+            comptes[taille] = poids;
+            erreurs[taille] = 0;
+            taille++;
+            return;
+        }
+        cles[min] = cle;
+        erreurs[min] = comptes[min];
+        comptes[min] += poids;
+    }
+
+    /**
+     * Somme des poids reçus
+     */
+    public synchronized long getTotal() {
+        return total;
+    }
+
+    /**
+     * Les n plus gros compteurs, du plus grand au plus petit
+     */
+    public synchronized List<Compteur> top(int n) {
+        List<Compteur> top = new ArrayList<>(taille);
+        for (int i = 0; i < taille; i++) {
+            top.add(new Compteur(cles[i], comptes[i], erreurs[i]));
+        }
+        top.sort((a, b) -> Long.compare(b.compte, a.compte));
+        return top.size() > n ? new ArrayList<>(top.subList(0, Math.max(0, n))) : top;
+    }
+
+    /**
+     * Compte estimé d'une clé suivie : réel dans [compte - erreur, compte]
+     */
+    public static final class Compteur {
+        private final long cle;
+        private final long compte;
+        private final long erreur;
+
+        Compteur(long cle, long compte, long erreur) {
+            this.cle = cle;
+            this.compte = compte;
+            this.erreur = erreur;
+        }
+
+        public long getCle() { return cle; }
+        public long getCompte() { return compte; }
+        public long getErreur() { return erreur; }
+    }
+}
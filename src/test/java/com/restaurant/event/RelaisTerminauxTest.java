@@ -0,0 +1,135 @@
+package com.restaurant.event;
+
+import com.restaurant.model.enums.StatutCommande;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Relais entre postes : format des messages (aller-retour) et suivi des séquences sur un canal
+ * local (trou détecté, message en retard ou en double ignoré)
+ */
+class RelaisTerminauxTest {
+
+    private static final long AUTRE_POSTE = 0xCAFEL;
+
+    private CanalLocal emetteur;
+    private Runnable desabonnement;
+
+    @AfterEach
+    void fermer() {
+        if (desabonnement != null) {
+            desabonnement.run();
+        }
+        if (emetteur != null) {
+            emetteur.close();
+        }
+        RelaisTerminaux.arreter();
+    }
+
+    @Test
+    void transitionAllerRetour() {
+        LocalDateTime horodatage = LocalDateTime.of(2026, 3, 14, 12, 30, 15);
+        TransitionEvent t = (TransitionEvent) allerRetour(new TransitionEvent(42L, 7L,
+                StatutCommande.EN_ATTENTE, StatutCommande.EN_PREPARATION, horodatage, "poste", false,
+                horodatage.minusMinutes(4), new long[]{3L, 5L}));
+
+        assertEquals(42L, t.getCommandeId());
+        assertEquals(7L, t.getTableId());
+        assertEquals(StatutCommande.EN_ATTENTE, t.getDepuis());
+        assertEquals(StatutCommande.EN_PREPARATION, t.getVers());
+        assertEquals(horodatage, t.getHorodatage());
+        assertFalse(t.isStatutFinal());
+        assertEquals(horodatage.minusMinutes(4), t.getEntreeDepuis());
+        assertArrayEquals(new long[]{3L, 5L}, t.getCategorieIds());
+        // Le terminal reçu est celui de l'en-tête
+        assertEquals(Long.toHexString(AUTRE_POSTE), t.getTerminal());
+    }
+
+    @Test
+    void champsNulsEtListesVides() {
+        TransitionEvent t = (TransitionEvent) allerRetour(new TransitionEvent(1L, null,
+                StatutCommande.SERVI, StatutCommande.PAYEE, LocalDateTime.of(2026, 1, 2, 3, 4), "poste", true,
+                null, null));
+        assertNull(t.getTableId());
+        assertNull(t.getEntreeDepuis());
+        assertNull(t.getCategorieIds());
+        assertTrue(t.isStatutFinal());
+
+        CommandeModifieeEvent c = (CommandeModifieeEvent) allerRetour(new CommandeModifieeEvent(9L, null,
+                CommandeModifieeEvent.Nature.PAIEMENT, LocalDateTime.of(2026, 1, 2, 3, 4), null, new long[0]));
+        assertEquals(9L, c.getCommandeId());
+        assertNull(c.getTableId());
+        assertEquals(CommandeModifieeEvent.Nature.PAIEMENT, c.getNature());
+        assertNull(c.getDateCommande());
+        assertArrayEquals(new long[0], c.getCategorieIds());
+
+        TableModifieeEvent m = (TableModifieeEvent) allerRetour(new TableModifieeEvent(12L, true));
+        assertEquals(12L, m.getTableId());
+        assertTrue(m.isSupprimee());
+    }
+
+    @Test
+    void evenementNonRelayeNonEncode() {
+        assertNull(RelaisTerminaux.encoder(AUTRE_POSTE, 1, "autre"));
+    }
+
+    @Test
+    void trouDetecteEtRetardIgnore() throws Exception {
+        RelaisTerminaux relais = RelaisTerminaux.demarrer(new CanalLocal("relais-test"));
+        BlockingQueue<ModificationDistanteEvent> recues = new LinkedBlockingQueue<>();
+        desabonnement = EventBus.getInstance().subscribe(ModificationDistanteEvent.class, recues::add);
+        emetteur = new CanalLocal("relais-test");
+        emetteur.ouvrir(message -> { });
+
+        envoyer(1, 101);
+        envoyer(2, 102);
+        envoyer(4, 104);
+        // Le 3 arrive après le 4, puis le 4 en double : ni appliqués, ni pris pour une perte
+        envoyer(3, 103);
+        envoyer(4, 104);
+        envoyer(5, 105);
+
+        assertRecue(recues.poll(5, TimeUnit.SECONDS), 101, false);
+        assertRecue(recues.poll(5, TimeUnit.SECONDS), 102, false);
+        assertRecue(recues.poll(5, TimeUnit.SECONDS), 104, true);
+        assertRecue(recues.poll(5, TimeUnit.SECONDS), 105, false);
+        assertNull(recues.poll(200, TimeUnit.MILLISECONDS));
+
+        assertEquals(1, relais.getPertes());
+        assertEquals(2, relais.getHorsSequence());
+        assertEquals(6, relais.getRecus());
+    }
+
+    // ==================== OUTILS ====================
+
+    private static Object allerRetour(Object evenement) {
+        String message = RelaisTerminaux.encoder(AUTRE_POSTE, 1, evenement);
+        assertNotNull(message);
+        return RelaisTerminaux.decoder(message.split("\\|", -1));
+    }
+
+    private void envoyer(long numero, long tableId) throws IOException {
+        String message = RelaisTerminaux.encoder(AUTRE_POSTE, numero, new TableModifieeEvent(tableId, false));
+        emetteur.envoyer(message.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void assertRecue(ModificationDistanteEvent recue, long tableId, boolean resynchroniser) {
+        assertNotNull(recue);
+        assertEquals(tableId, ((TableModifieeEvent) recue.getEvenement()).getTableId());
+        assertEquals(resynchroniser, recue.isResynchroniser());
+    }
+}
@@ -0,0 +1,272 @@
+package com.restaurant.journal;
+
+import com.restaurant.model.Commande;
+import com.restaurant.model.LigneCommande;
+import com.restaurant.model.Money;
+import com.restaurant.model.Plat;
+import com.restaurant.model.enums.StatutCommande;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Journal des commandes : relecture d'une fin de segment abîmée (arrêt brutal, fichier tronqué,
+ * octet altéré), reprise de l'écriture après corruption, issue des transactions et état des
+ * lignes à la relecture
+ */
+class JournalCommandesTest {
+
+    private static final int TAILLE_SEGMENT = 64 * 1024;
+
+    @TempDir
+    Path repertoire;
+
+    @Test
+    void enregistrementMisAZeroEnFinDeSegment() throws IOException {
+        JournalCommandes journal = ouvrir();
+        int[] fins = ecrire(journal, 3);
+        journal.fermer();
+
+        // Écriture interrompue avant la longueur : l'enregistrement reste à zéro, fin propre des données
+        Path segment = segments().get(0);
+        ecrireOctets(segment, fins[1], new byte[fins[2] - fins[1]]);
+
+        LecteurJournal.Fin fin = LecteurJournal.lireSegment(segment, null, null);
+        assertFalse(fin.corrompue);
+        assertEquals(2, fin.derniereSequence);
+        assertEquals(fins[1], fin.position);
+
+        // Reprise dans le même segment, à la place de l'enregistrement perdu
+        journal = ouvrir();
+        ecrire(journal, 1);
+        journal.fermer();
+        assertEquals(1, segments().size());
+        assertEquals(List.of(1L, 2L, 3L), sequences());
+        assertTrue(parcourir(new ArrayList<>()).getAnomalies().isEmpty());
+    }
+
+    @Test
+    void enregistrementTronqueEnFinDeSegment() throws IOException {
+        JournalCommandes journal = ouvrir();
+        int[] fins = ecrire(journal, 3);
+        journal.fermer();
+
+        // Fichier coupé au milieu du dernier enregistrement : sa longueur dépasse la fin du fichier
+        Path segment = segments().get(0);
+        try (FileChannel canal = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            canal.truncate(fins[2] - 4);
+        }
+
+        LecteurJournal.Fin fin = LecteurJournal.lireSegment(segment, null, null);
+        assertTrue(fin.corrompue);
+        assertEquals(2, fin.derniereSequence);
+        assertEquals(fins[1], fin.position);
+
+        List<EntreeJournal> entrees = new ArrayList<>();
+        LecteurJournal.Bilan bilan = parcourir(entrees);
+        assertEquals(2, entrees.size());
+        assertEquals(1, bilan.getAnomalies().size());
+    }
+
+    @Test
+    void octetAltereRejeteParLeCrc() throws IOException {
+        JournalCommandes journal = ouvrir();
+        int[] fins = ecrire(journal, 3);
+        journal.fermer();
+
+        // Un octet du corps du 2e enregistrement : longueur plausible, CRC faux
+        Path segment = segments().get(0);
+        inverserOctet(segment, fins[0] + LecteurJournal.ENTETE + LecteurJournal.CORPS_MIN);
+
+        LecteurJournal.Fin fin = LecteurJournal.lireSegment(segment, null, null);
+        assertTrue(fin.corrompue);
+        assertEquals(1, fin.derniereSequence);
+        assertEquals(fins[0], fin.position);
+
+        List<EntreeJournal> entrees = new ArrayList<>();
+        LecteurJournal.Bilan bilan = parcourir(entrees);
+        assertEquals(1, entrees.size());
+        assertEquals(1, bilan.getAnomalies().size());
+        assertTrue(bilan.getAnomalies().get(0).contains("octet " + fins[0]));
+    }
+
+    @Test
+    void reouvertureApresCorruptionContinueLaSequence() throws IOException {
+        JournalCommandes journal = ouvrir();
+        int[] fins = ecrire(journal, 3);
+        journal.fermer();
+        inverserOctet(segments().get(0), fins[1] + LecteurJournal.ENTETE + LecteurJournal.CORPS_MIN);
+
+        // Fin illisible gardée pour l'analyse : nouveau segment, à la suite de la dernière séquence lisible
+        journal = ouvrir();
+        ecrire(journal, 2);
+        assertEquals(4, journal.getSequence());
+        journal.fermer();
+
+        List<Path> segments = segments();
+        assertEquals(2, segments.size());
+        assertEquals(String.format("%016d%s", 3, LecteurJournal.EXTENSION), segments.get(1).getFileName().toString());
+        assertEquals(List.of(1L, 2L, 3L, 4L), sequences());
+
+        // Le segment neuf se relit normalement : une réouverture suivante y reprend
+        journal = ouvrir();
+        ecrire(journal, 1);
+        journal.fermer();
+        assertEquals(2, segments().size());
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L), sequences());
+    }
+
+    @Test
+    void issueDesOperationsSelonLesMarqueurs() throws IOException {
+        JournalCommandes journal = ouvrir();
+        transition(journal, 1);
+        transition(journal, 1);
+        journal.valider();
+        transition(journal, 2);
+        journal.annuler();
+        transition(journal, 3);
+        journal.fermer();
+
+        // La transaction en cours au moment de l'arrêt n'a pas de marqueur : en suspens
+        RejeuJournal rejeu = RejeuJournal.charger(repertoire);
+        List<EntreeJournal> operations = rejeu.getOperations();
+        assertEquals(4, operations.size());
+        List<RejeuJournal.Issue> issues = new ArrayList<>();
+        for (EntreeJournal operation : operations) {
+            assertFalse(operation.getType().isMarqueur());
+            issues.add(rejeu.getIssue(operation));
+        }
+        assertEquals(List.of(RejeuJournal.Issue.VALIDE, RejeuJournal.Issue.VALIDE, RejeuJournal.Issue.ANNULE,
+                RejeuJournal.Issue.SUSPENS), issues);
+        assertEquals(List.of(1L, 1L, 2L, 3L), commandes(operations));
+    }
+
+    @Test
+    void marqueurApresReouvertureDuJournal() throws IOException {
+        JournalCommandes journal = ouvrir();
+        transition(journal, 7);
+        journal.fermer();
+
+        // Le marqueur suit la transaction du thread, même écrit après une réouverture
+        journal.valider();
+        journal.fermer();
+
+        RejeuJournal rejeu = RejeuJournal.charger(repertoire);
+        assertEquals(1, rejeu.getOperations().size());
+        assertEquals(RejeuJournal.Issue.VALIDE, rejeu.getIssue(rejeu.getOperations().get(0)));
+        assertTrue(rejeu.getBilans().get(0).getAnomalies().isEmpty());
+    }
+
+    @Test
+    void retraitDUneLigneParmiDeuxDuMemePlat() throws IOException {
+        Commande commande = new Commande();
+        commande.setId(5L);
+        Plat plat = new Plat("Soupe", Money.ofCents(650), null, null);
+        plat.setId(3L);
+        LigneCommande premiere = ligne(commande, plat, 11L, 2);
+        LigneCommande seconde = ligne(commande, plat, 12L, 1);
+
+        JournalCommandes journal = ouvrir();
+        journal.ligneAjoutee(commande, premiere);
+        journal.ligneAjoutee(commande, seconde);
+        journal.valider();
+        seconde.setQuantite(3);
+        journal.quantite(commande, seconde);
+        journal.ligneRetiree(commande, premiere);
+        journal.valider();
+        journal.fermer();
+
+        // Seule la ligne retirée disparaît : l'autre ligne du même plat garde sa quantité
+        Map<Long, RejeuJournal.EtatCommande> etats = RejeuJournal.charger(repertoire).reconstruire(false);
+        RejeuJournal.EtatCommande etat = etats.get(5L);
+        assertEquals(List.of(12L), new ArrayList<>(etat.lignes.keySet()));
+        assertEquals(3, etat.lignes.get(12L)[0]);
+        assertEquals(3L, etat.lignes.get(12L)[2]);
+        assertEquals(3 * 650, etat.totalCents());
+    }
+
+    // ==================== OUTILS ====================
+
+    private static LigneCommande ligne(Commande commande, Plat plat, long id, int quantite) {
+        LigneCommande ligne = new LigneCommande(commande, plat, quantite);
+        ligne.setId(id);
+        return ligne;
+    }
+
+    private JournalCommandes ouvrir() {
+        return new JournalCommandes(true, repertoire, TAILLE_SEGMENT, TimeUnit.HOURS.toMillis(24), false);
+    }
+
+    private static void transition(JournalCommandes journal, long commandeId) {
+        journal.transition(commandeId, StatutCommande.EN_ATTENTE, StatutCommande.EN_PREPARATION, LocalDateTime.now());
+    }
+
+    /**
+     * Écrit n transitions validées une à une ; fin des données (octet) après chacune
+     */
+    private int[] ecrire(JournalCommandes journal, int n) throws IOException {
+        int[] fins = new int[n];
+        for (int i = 0; i < n; i++) {
+            transition(journal, 100 + i);
+            List<Path> segments = segments();
+            fins[i] = LecteurJournal.lireSegment(segments.get(segments.size() - 1), null, null).position;
+        }
+        assertTrue(journal.isActif());
+        return fins;
+    }
+
+    private List<Path> segments() throws IOException {
+        return LecteurJournal.segments(repertoire);
+    }
+
+    private LecteurJournal.Bilan parcourir(List<EntreeJournal> entrees) throws IOException {
+        return LecteurJournal.parcourir(repertoire, entrees::add);
+    }
+
+    private List<Long> sequences() throws IOException {
+        List<EntreeJournal> entrees = new ArrayList<>();
+        parcourir(entrees);
+        List<Long> sequences = new ArrayList<>();
+        for (EntreeJournal entree : entrees) {
+            sequences.add(entree.getSequence());
+        }
+        return sequences;
+    }
+
+    private static List<Long> commandes(List<EntreeJournal> operations) {
+        List<Long> commandes = new ArrayList<>();
+        for (EntreeJournal operation : operations) {
+            commandes.add(operation.getCommandeId());
+        }
+        return commandes;
+    }
+
+    private static void ecrireOctets(Path segment, int position, byte[] octets) throws IOException {
+        try (FileChannel canal = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            canal.write(ByteBuffer.wrap(octets), position);
+        }
+    }
+
+    private static void inverserOctet(Path segment, int position) throws IOException {
+        try (FileChannel canal = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer octet = ByteBuffer.allocate(1);
+            canal.read(octet, position);
+            octet.put(0, (byte) ~octet.get(0));
+            canal.write(octet.rewind(), position);
+        }
+    }
+}
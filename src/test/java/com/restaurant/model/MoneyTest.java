@@ -0,0 +1,46 @@
+package com.restaurant.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Division au centime : même arrondi que BigDecimal HALF_UP, calcul entier
+ */
+class MoneyTest {
+
+    @Test
+    void divisionArrondieAuCentimeLePlusProche() {
+        assertEquals(333, Money.ofCents(1000).divide(3).getCents());
+        assertEquals(667, Money.ofCents(2000).divide(3).getCents());
+        assertEquals(5, Money.ofCents(9).divide(2).getCents());
+        assertEquals(-5, Money.ofCents(-9).divide(2).getCents());
+        assertEquals(-5, Money.ofCents(9).divide(-2).getCents());
+        assertEquals(0, Money.ofCents(1000).divide(0).getCents());
+    }
+
+    @Test
+    void divisionIdentiqueABigDecimalHalfUp() {
+        for (long cents = -1000; cents <= 1000; cents += 7) {
+            for (long diviseur = -13; diviseur <= 13; diviseur++) {
+                if (diviseur == 0) {
+                    continue;
+                }
+                long attendu = BigDecimal.valueOf(cents)
+                        .divide(BigDecimal.valueOf(diviseur), 0, RoundingMode.HALF_UP).longValueExact();
+                assertEquals(attendu, Money.ofCents(cents).divide(diviseur).getCents(), cents + " / " + diviseur);
+            }
+        }
+    }
+
+    @Test
+    void divisionExacteAuDelaDeLaPrecisionDunDouble() {
+        // 2^53 + 1 centimes : un double ne représente pas ce montant
+        long cents = (1L << 53) + 1;
+        assertEquals(cents, Money.ofCents(cents).divide(1).getCents());
+        assertEquals((cents + 1) / 2, Money.ofCents(cents).divide(2).getCents());
+    }
+}
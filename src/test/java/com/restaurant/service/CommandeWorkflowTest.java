@@ -0,0 +1,107 @@
+package com.restaurant.service;
+
+import com.restaurant.exception.ValidationException;
+import com.restaurant.model.Commande;
+import com.restaurant.model.LigneCommande;
+import com.restaurant.model.Money;
+import com.restaurant.model.Plat;
+import com.restaurant.model.enums.StatutCommande;
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Machine à états des commandes : table des transitions (masques de bits) et gardes
+ */
+class CommandeWorkflowTest {
+
+    private final CommandeWorkflow workflow = CommandeWorkflow.getInstance();
+
+    @Test
+    void tableDesTransitions() {
+        attendre(StatutCommande.EN_ATTENTE, StatutCommande.EN_PREPARATION, StatutCommande.ANNULEE);
+        attendre(StatutCommande.EN_PREPARATION, StatutCommande.PRET, StatutCommande.ANNULEE);
+        attendre(StatutCommande.PRET, StatutCommande.SERVI, StatutCommande.ANNULEE);
+        attendre(StatutCommande.SERVI, StatutCommande.PAYEE);
+        attendre(StatutCommande.PAYEE, StatutCommande.FINALISEE);
+        attendre(StatutCommande.FINALISEE);
+        attendre(StatutCommande.ANNULEE);
+    }
+
+    @Test
+    void statutsTerminaux() {
+        for (StatutCommande statut : StatutCommande.values()) {
+            boolean terminal = statut == StatutCommande.FINALISEE || statut == StatutCommande.ANNULEE;
+            assertEquals(terminal, workflow.estTerminal(statut), statut.name());
+        }
+    }
+
+    @Test
+    void transitionInterditeRefusee() {
+        Commande commande = commande(StatutCommande.EN_ATTENTE, 1200);
+        ValidationException e = assertThrows(ValidationException.class,
+                () -> workflow.valider(commande, StatutCommande.SERVI));
+        assertTrue(e.getMessage().startsWith("Transition interdite"));
+
+        // Depuis un statut terminal, le message donne le statut atteint
+        Commande annulee = commande(StatutCommande.ANNULEE, 1200);
+        e = assertThrows(ValidationException.class, () -> workflow.valider(annulee, StatutCommande.EN_PREPARATION));
+        assertEquals("Commande déjà annulée", e.getMessage());
+    }
+
+    @Test
+    void commandeVideNonEnvoyeeEnCuisine() {
+        assertThrows(ValidationException.class,
+                () -> workflow.valider(commande(StatutCommande.EN_ATTENTE, 0), StatutCommande.EN_PREPARATION));
+        assertDoesNotThrow(
+                () -> workflow.valider(commande(StatutCommande.EN_ATTENTE, 1200), StatutCommande.EN_PREPARATION));
+        // Annuler une commande vide reste permis
+        assertDoesNotThrow(() -> workflow.valider(commande(StatutCommande.EN_ATTENTE, 0), StatutCommande.ANNULEE));
+    }
+
+    @Test
+    void pasDePaiementSurUnTotalNul() {
+        Commande offerte = commande(StatutCommande.SERVI, 1200);
+        offerte.setRemiseAppliquee(Money.ofCents(1200));
+        assertThrows(ValidationException.class, () -> workflow.valider(offerte, StatutCommande.PAYEE));
+
+        Commande remisee = commande(StatutCommande.SERVI, 1200);
+        remisee.setRemiseAppliquee(Money.ofCents(200));
+        assertDoesNotThrow(() -> workflow.valider(remisee, StatutCommande.PAYEE));
+    }
+
+    @Test
+    void parametresRequis() {
+        assertThrows(ValidationException.class, () -> workflow.valider(null, StatutCommande.PRET));
+        assertThrows(ValidationException.class,
+                () -> workflow.valider(commande(StatutCommande.EN_PREPARATION, 1200), null));
+    }
+
+    // ==================== OUTILS ====================
+
+    private void attendre(StatutCommande depuis, StatutCommande... atteignables) {
+        Set<StatutCommande> attendus = atteignables.length == 0
+                ? EnumSet.noneOf(StatutCommande.class) : EnumSet.of(atteignables[0], atteignables);
+        for (StatutCommande vers : StatutCommande.values()) {
+            assertEquals(attendus.contains(vers), workflow.peutTransitionner(depuis, vers), depuis + " → " + vers);
+        }
+    }
+
+    /**
+     * Commande dans un statut donné, d'une ligne au prix indiqué (aucune ligne si 0)
+     */
+    private static Commande commande(StatutCommande statut, long prixCents) {
+        Commande commande = new Commande();
+        if (prixCents > 0) {
+            commande.addLigne(new LigneCommande(commande, new Plat("Plat", Money.ofCents(prixCents), null, null), 1));
+        }
+        commande.setStatut(statut);
+        return commande;
+    }
+}
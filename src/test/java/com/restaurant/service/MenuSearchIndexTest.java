@@ -0,0 +1,96 @@
+package com.restaurant.service;
+
+import com.restaurant.model.Money;
+import com.restaurant.model.Plat;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Index de recherche du menu : préfixe, accents et casse, classement nom/description
+ */
+class MenuSearchIndexTest {
+
+    private final MenuSearchIndex index = new MenuSearchIndex();
+
+    @BeforeEach
+    void construire() {
+        index.rebuild(List.of(
+                plat(1L, "Pâtes carbonara", "Lardons, crème, parmesan"),
+                plat(2L, "Crème brûlée", "Dessert à la vanille"),
+                plat(3L, "Œuf mayonnaise", null),
+                plat(4L, "Pavé de saumon", "Sauce à l'oseille"),
+                plat(5L, "Tarte aux pommes", "Pâte feuilletée")));
+    }
+
+    @Test
+    void prefixe() {
+        // Préfixe du nom d'abord, puis de la description ("Pâte feuilletée")
+        assertEquals(List.of(1L, 4L, 5L), ids(index.search("pa", 10)));
+        assertEquals(List.of(1L), ids(index.search("pa", 1)));
+        assertEquals(List.of(5L), ids(index.search("tar", 10)));
+        assertEquals(List.of(4L), ids(index.search("pav sau", 10)));
+    }
+
+    @Test
+    void accentsEtCasseIgnores() {
+        assertEquals(List.of(1L), ids(index.search("pates", 10)).subList(0, 1));
+        assertEquals(List.of(2L), ids(index.search("CREME BRULEE", 10)));
+        assertEquals(List.of(2L), ids(index.search("brûlée", 10)));
+        assertEquals(List.of(3L), ids(index.search("oeuf", 10)));
+        assertEquals("creme brulee", MenuSearchIndex.normalize("  Crème Brûlée "));
+    }
+
+    @Test
+    void nomAvantDescription() {
+        // "creme" : nom du n°2, description du n°1
+        assertEquals(List.of(2L, 1L), ids(index.search("crème", 10)));
+        // "pate" : préfixe du nom du n°1, mot exact de la description du n°5
+        List<Long> pate = ids(index.search("pate", 10));
+        assertEquals(1L, pate.get(0));
+        assertTrue(pate.contains(5L));
+    }
+
+    @Test
+    void tousLesMotsRequis() {
+        assertEquals(List.of(), ids(index.search("pates saumon", 10)));
+        assertEquals(List.of(), ids(index.search("   ", 10)));
+    }
+
+    @Test
+    void fauteDeFrappeTolereeSurLesMotsLongs() {
+        assertEquals(List.of(1L), ids(index.search("carbonnara", 10)));
+    }
+
+    @Test
+    void miseAJourPlatParPlat() {
+        index.remove(4L);
+        assertEquals(List.of(1L, 5L), ids(index.search("pa", 10)));
+
+        index.put(plat(1L, "Lasagnes", null));
+        assertEquals(List.of(), ids(index.search("carbonara", 10)));
+        assertEquals(List.of(1L), ids(index.search("lasa", 10)));
+        assertEquals(4, index.size());
+    }
+
+    // ==================== OUTILS ====================
+
+    private static Plat plat(long id, String nom, String description) {
+        Plat plat = new Plat(nom, Money.ofCents(1000), description, null);
+        plat.setId(id);
+        return plat;
+    }
+
+    private static List<Long> ids(List<Plat> plats) {
+        List<Long> ids = new ArrayList<>();
+        for (Plat plat : plats) {
+            ids.add(plat.getId());
+        }
+        return ids;
+    }
+}
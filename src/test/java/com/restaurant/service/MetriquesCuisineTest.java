@@ -0,0 +1,50 @@
+package com.restaurant.service;
+
+import com.restaurant.event.EventBus;
+import com.restaurant.event.TransitionEvent;
+import com.restaurant.model.Commande;
+import com.restaurant.model.enums.StatutCommande;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Amorçage des temps de cuisine : une transition reçue en direct avant l'amorçage n'est pas recomptée
+ */
+class MetriquesCuisineTest {
+
+    @Test
+    void amorcageSansDoubleCompte() {
+        MetriquesCuisine metriques = MetriquesCuisine.getInstance();
+        long attente = metriques.getHistogramme(StatutCommande.EN_ATTENTE).getCount();
+        long preparation = metriques.getHistogramme(StatutCommande.EN_PREPARATION).getCount();
+        LocalDateTime debut = LocalDateTime.now().minusMinutes(30);
+
+        // Commande 1 passée en préparation pendant la session, avant l'ouverture de l'écran cuisine
+        EventBus.getInstance().publish(new TransitionEvent(1L, null, StatutCommande.EN_ATTENTE,
+                StatutCommande.EN_PREPARATION, debut.plusMinutes(5), "test", false, debut, new long[0]));
+
+        metriques.amorcer(List.of(commande(1L, debut, debut.plusMinutes(5), null),
+                commande(2L, debut, debut.plusMinutes(2), debut.plusMinutes(12))));
+
+        // Attente : l'événement de la commande 1, l'horodatage de la commande 2 ; préparation : commande 2
+        assertEquals(attente + 2, metriques.getHistogramme(StatutCommande.EN_ATTENTE).getCount());
+        assertEquals(preparation + 1, metriques.getHistogramme(StatutCommande.EN_PREPARATION).getCount());
+
+        // Amorçage unique
+        metriques.amorcer(List.of(commande(3L, debut, debut.plusMinutes(1), null)));
+        assertEquals(attente + 2, metriques.getHistogramme(StatutCommande.EN_ATTENTE).getCount());
+    }
+
+    private static Commande commande(long id, LocalDateTime creation, LocalDateTime preparation, LocalDateTime pret) {
+        Commande commande = new Commande();
+        commande.setId(id);
+        commande.setDateCommande(creation);
+        commande.setDateEnPreparation(preparation);
+        commande.setDatePret(pret);
+        return commande;
+    }
+}
@@ -0,0 +1,152 @@
+package com.restaurant.test;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+/**
+ * "Qui doit encore payer" sur une base de fin de saison (500 000 paiements)
+ * - ancienne requête : NOT IN (SELECT commande_id FROM paiement), anti-jointure sur tous les paiements
+ * - NOT EXISTS corrélé, appuyé sur l'index de la clé étrangère paiement.commande_id
+ * - solde maintenu : index (resteAPayer, statut) ne visitant que les commandes dues,
+ *   à condition d'écrire la borne ">= 0.01" (une borne stricte "> 0" parcourt les commandes soldées)
+ * Schéma identique aux colonnes générées par Hibernate ; base temporaire, indépendante de ./data
+ */
+public class CommandesNonPayeesBenchmark {
+
+    private static final int PAIEMENTS = 500_000;
+    private static final int SERVIES_DUES = 300;
+    private static final int PAYEES_SANS_PAIEMENT = 20;
+    private static final int REPETITIONS = 7;
+
+    private static final String COLONNES = "SELECT c.id, c.table_id, c.total, c.statut FROM commande c ";
+
+    public static void main(String[] args) throws Exception {
+        System.out.println("\n========== BENCHMARK COMMANDES NON PAYÉES ==========\n");
+        Path repertoire = Files.createTempDirectory("non-payees-bench");
+        String url = "jdbc:h2:" + repertoire.resolve("bench") + ";CACHE_SIZE=131072";
+
+        try (Connection c = DriverManager.getConnection(url, "sa", "")) {
+            long debut = System.nanoTime();
+            preparer(c);
+            System.out.printf("Base : %,d commandes payées (un paiement chacune), %d servies dues, "
+                            + "%d payées sans paiement (%.1f s)%n%n", PAIEMENTS, SERVIES_DUES, PAYEES_SANS_PAIEMENT,
+                    (System.nanoTime() - debut) / 1e9);
+
+            int attendu = SERVIES_DUES + PAYEES_SANS_PAIEMENT;
+            mesurer(c, "NOT IN (ancienne requête)", attendu, COLONNES
+                    + "WHERE c.statut = 'SERVI' OR (c.statut = 'PAYEE' AND c.id NOT IN "
+                    + "(SELECT p.commande_id FROM paiement p)) ORDER BY c.dateCreation");
+            mesurer(c, "NOT EXISTS + index clé étrangère", attendu, COLONNES
+                    + "WHERE c.statut = 'SERVI' OR (c.statut = 'PAYEE' AND NOT EXISTS "
+                    + "(SELECT 1 FROM paiement p WHERE p.commande_id = c.id)) ORDER BY c.dateCreation");
+            // Borne stricte : l'index est parcouru depuis reste = 0, donc sur toutes les commandes soldées
+            mesurer(c, "Solde, borne stricte (> 0)", attendu, COLONNES
+                    + "WHERE c.resteAPayer > 0 AND c.statut IN ('SERVI', 'PAYEE') ORDER BY c.dateCreation");
+            // Requête de CommandeDAO.findCommandesNonPayees
+            mesurer(c, "Solde, borne incluse (>= 0.01)", attendu, COLONNES
+                    + "WHERE c.resteAPayer >= 0.01 AND c.statut IN ('SERVI', 'PAYEE') ORDER BY c.dateCreation");
+
+            try (Statement st = c.createStatement();
+                 ResultSet rs = st.executeQuery("EXPLAIN " + COLONNES
+                         + "WHERE c.resteAPayer >= 0.01 AND c.statut IN ('SERVI', 'PAYEE')")) {
+                rs.next();
+                System.out.println("Plan (solde) :\n" + rs.getString(1) + "\n");
+            }
+        }
+        System.out.println("========== FIN BENCHMARK ==========\n");
+    }
+
+    private static void preparer(Connection c) throws SQLException {
+        try (Statement st = c.createStatement()) {
+            st.execute("CREATE TABLE commande (id BIGINT AUTO_INCREMENT PRIMARY KEY, "
+                    + "dateCreation TIMESTAMP NOT NULL, dateModification TIMESTAMP NOT NULL, "
+                    + "table_id BIGINT NOT NULL, statut VARCHAR(255) NOT NULL, "
+                    + "remiseAppliquee NUMERIC(12, 2), total NUMERIC(12, 2), "
+                    + "montantPaye NUMERIC(12, 2), resteAPayer NUMERIC(12, 2))");
+            st.execute("CREATE TABLE paiement (id BIGINT AUTO_INCREMENT PRIMARY KEY, "
+                    + "dateCreation TIMESTAMP NOT NULL, dateModification TIMESTAMP NOT NULL, "
+                    + "commande_id BIGINT NOT NULL REFERENCES commande(id), montant NUMERIC(12, 2) NOT NULL, "
+                    + "modePaiement VARCHAR(50) NOT NULL, datePaiement TIMESTAMP NOT NULL)");
+            st.execute("CREATE INDEX idx_commande_reste ON commande(resteAPayer, statut)");
+        }
+
+        c.setAutoCommit(false);
+        LocalDateTime origine = LocalDateTime.now().minusDays(365);
+        int total = PAIEMENTS + SERVIES_DUES + PAYEES_SANS_PAIEMENT;
+        try (PreparedStatement commande = c.prepareStatement("INSERT INTO commande (id, dateCreation, "
+                + "dateModification, table_id, statut, remiseAppliquee, total, montantPaye, resteAPayer) "
+                + "VALUES (?, ?, ?, ?, ?, 0, 42.50, ?, ?)");
+             PreparedStatement paiement = c.prepareStatement("INSERT INTO paiement (dateCreation, "
+                     + "dateModification, commande_id, montant, modePaiement, datePaiement) "
+                     + "VALUES (?, ?, ?, 42.50, 'CARTE', ?)")) {
+            for (int i = 1; i <= total; i++) {
+                Timestamp date = Timestamp.valueOf(origine.plusSeconds(i * 60L));
+                boolean payee = i <= PAIEMENTS;
+                boolean servie = i > PAIEMENTS && i <= PAIEMENTS + SERVIES_DUES;
+                commande.setLong(1, i);
+                commande.setTimestamp(2, date);
+                commande.setTimestamp(3, date);
+                commande.setLong(4, 1 + i % 40);
+                commande.setString(5, servie ? "SERVI" : "PAYEE");
+                commande.setBigDecimal(6, payee ? new BigDecimal("42.50") : BigDecimal.ZERO);
+                commande.setBigDecimal(7, payee ? BigDecimal.ZERO : new BigDecimal("42.50"));
+                commande.addBatch();
+                if (payee) {
+                    paiement.setTimestamp(1, date);
+                    paiement.setTimestamp(2, date);
+                    paiement.setLong(3, i);
+                    paiement.setTimestamp(4, date);
+                    paiement.addBatch();
+                }
+                if (i % 10_000 == 0) {
+                    commande.executeBatch();
+                    paiement.executeBatch();
+                    c.commit();
+                }
+            }
+            commande.executeBatch();
+            paiement.executeBatch();
+            c.commit();
+        }
+        c.setAutoCommit(true);
+        try (Statement st = c.createStatement()) {
+            st.execute("ANALYZE");
+        }
+    }
+
+    private static void mesurer(Connection c, String titre, int attendu, String requete) throws SQLException {
+        long[] durees = new long[REPETITIONS];
+        int lignes = 0;
+        try (PreparedStatement ps = c.prepareStatement(requete);
+             PreparedStatement ecriture = c.prepareStatement(
+                     "UPDATE commande SET dateModification = CURRENT_TIMESTAMP WHERE id = ?")) {
+            for (int i = 0; i < REPETITIONS; i++) {
+                // Une écriture entre deux lectures, comme en service : H2 ne resservira pas un résultat en cache
+                ecriture.setLong(1, 1 + i);
+                ecriture.executeUpdate();
+                long debut = System.nanoTime();
+                lignes = 0;
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        lignes++;
+                    }
+                }
+                durees[i] = System.nanoTime() - debut;
+            }
+        }
+        Arrays.sort(durees);
+        System.out.printf("%-36s : %4d commandes%s   médiane %9.2f ms   min %9.2f ms%n", titre, lignes,
+                lignes == attendu ? "" : " (attendu " + attendu + ")",
+                durees[REPETITIONS / 2] / 1e6, durees[0] / 1e6);
+    }
+}
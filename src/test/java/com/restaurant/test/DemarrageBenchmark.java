@@ -0,0 +1,143 @@
+package com.restaurant.test;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Démarrage à froid de l'application jusqu'à l'écran Salle, sans puis avec l'archive AppCDS
+ * - chaque essai lance un nouveau processus (demarrage.scenario=salle : fermeture une fois la Salle affichée)
+ *   et relève la ligne « Démarrage (ms) : ... » de Main
+ * - première image : fenêtre affichée (attente de la base) ; interactif : écran Salle affiché
+ * - jar, dépendances, archive et runtime réduit produits par mvn -Pcds package [-Dcds.jlink=true]
+ * Lancé dans le répertoire courant (ou celui passé en 2e argument) : sa base ./data et son restaurant.properties
+ * Affichage requis ; le premier essai de chaque configuration (caches disque) n'est pas compté
+ */
+public class DemarrageBenchmark {
+
+    private static final int ESSAIS = 5;
+    private static final long DELAI_SECONDES = 180;
+    private static final Pattern MESURE = Pattern.compile("premiere_image=(\\d+).*interactif=(\\d+)");
+
+    public static void main(String[] args) throws Exception {
+        int essais = args.length > 0 ? Integer.parseInt(args[0]) : ESSAIS;
+        File repertoire = new File(args.length > 1 ? args[1] : ".").getAbsoluteFile();
+
+        System.out.println("\n========== BENCHMARK DÉMARRAGE ==========\n");
+        Path cible = Paths.get("target").toAbsolutePath();
+        Path jar = trouverJar(cible);
+        if (jar == null) {
+            System.out.println("Jar exécutable introuvable dans " + cible + " : lancer mvn -Pcds package");
+            return;
+        }
+        Path runtime = cible.resolve("runtime/bin/java");
+        Path archive = cible.resolve("restmanager.jsa");
+
+        // Même JDK et mêmes jars qu'à l'entraînement, sinon l'archive est ignorée
+        List<String> commande = new ArrayList<>();
+        if (Files.isExecutable(runtime)) {
+            commande.add(runtime.toString());
+            System.out.println("Runtime réduit : " + runtime.getParent().getParent());
+        } else {
+            commande.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+            commande.addAll(Arrays.asList("--module-path", cible.resolve("javafx").toString(),
+                    "--add-modules", "javafx.controls,javafx.fxml"));
+        }
+        System.out.println("Jar : " + jar + "\nBase : " + repertoire + "\n");
+
+        mesurer("Sans archive AppCDS", commande, null, jar, repertoire, essais);
+        if (Files.isRegularFile(archive)) {
+            mesurer("Avec archive AppCDS", commande, archive, jar, repertoire, essais);
+        } else {
+            System.out.println("Archive " + archive + " absente : mvn -Pcds package");
+        }
+        System.out.println("\n========== FIN BENCHMARK ==========\n");
+    }
+
+    private static Path trouverJar(Path cible) throws IOException {
+        if (!Files.isDirectory(cible)) {
+            return null;
+        }
+        try (Stream<Path> fichiers = Files.list(cible)) {
+            return fichiers.filter(f -> f.getFileName().toString().matches("restmanager-.*\\.jar"))
+                    .filter(f -> !f.getFileName().toString().endsWith("-sources.jar"))
+                    .findFirst().orElse(null);
+        }
+    }
+
+    private static void mesurer(String titre, List<String> java, Path archive, Path jar, File repertoire,
+                                int essais) throws Exception {
+        List<String> commande = new ArrayList<>(java);
+        if (archive != null) {
+            commande.add("-XX:SharedArchiveFile=" + archive);
+        }
+        commande.addAll(Arrays.asList("-Ddemarrage.scenario=salle", "-jar", jar.toString()));
+
+        long[] premiereImage = new long[essais];
+        long[] interactif = new long[essais];
+        for (int i = -1; i < essais; i++) {
+            long[] mesure = lancer(commande, repertoire);
+            if (mesure == null) {
+                System.out.println(titre + " : pas de mesure (voir la sortie ci-dessus)");
+                return;
+            }
+            if (i >= 0) {
+                premiereImage[i] = mesure[0];
+                interactif[i] = mesure[1];
+            }
+        }
+        Arrays.sort(premiereImage);
+        Arrays.sort(interactif);
+        System.out.printf("%-22s : première image médiane %6d ms  min %6d ms   |   Salle interactive médiane %6d ms  min %6d ms%n",
+                titre, premiereImage[essais / 2], premiereImage[0], interactif[essais / 2], interactif[0]);
+    }
+
+    /**
+     * Un démarrage complet : {première image, interactif} en ms depuis le lancement de la JVM, null si échec
+     */
+    private static long[] lancer(List<String> commande, File repertoire) throws Exception {
+        Process processus = new ProcessBuilder(commande).directory(repertoire).redirectErrorStream(true).start();
+        // Démarrage bloqué (base indisponible : la fenêtre reste ouverte) : arrêté au bout du délai
+        Thread garde = new Thread(() -> {
+            try {
+                if (!processus.waitFor(DELAI_SECONDES, TimeUnit.SECONDS)) {
+                    processus.destroyForcibly();
+                }
+            } catch (InterruptedException ignored) {
+                processus.destroyForcibly();
+            }
+        });
+        garde.setDaemon(true);
+        garde.start();
+        List<String> sortie = new ArrayList<>();
+        long[] mesure = null;
+        try (BufferedReader lecteur = new BufferedReader(
+                new InputStreamReader(processus.getInputStream(), StandardCharsets.UTF_8))) {
+            String ligne;
+            while ((ligne = lecteur.readLine()) != null) {
+                sortie.add(ligne);
+                Matcher m = MESURE.matcher(ligne);
+                if (mesure == null && m.find()) {
+                    mesure = new long[]{Long.parseLong(m.group(1)), Long.parseLong(m.group(2))};
+                }
+            }
+        }
+        processus.waitFor();
+        if (mesure == null) {
+            sortie.stream().skip(Math.max(0, sortie.size() - 20)).forEach(l -> System.out.println("   " + l));
+        }
+        return mesure;
+    }
+}
@@ -0,0 +1,175 @@
+package com.restaurant.test;
+
+import com.restaurant.config.ServeurBaseDeDonnees;
+import org.h2.tools.Server;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.InputStreamReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+
+/**
+ * Latence d'un poste client : serveur TCP explicite (db.mode=serveur/client) contre AUTO_SERVER
+ * - lecture par clé et petite transaction d'écriture, comme un écran de salle ou de caisse
+ * - AUTO_SERVER : la base est ouverte par un autre processus (premier poste lancé),
+ *   puis ce processus est tué pour mesurer la pause de bascule
+ * Base temporaire, indépendante de ./data
+ */
+public class H2ModeBenchmark {
+
+    private static final int LIGNES = 5_000;
+    private static final int LECTURES = 5_000;
+    private static final int ECRITURES = 500;
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 2 && "proprietaire".equals(args[0])) {
+            proprietaireAutoServeur(args[1]);
+            return;
+        }
+
+        System.out.println("\n========== BENCHMARK MODES H2 ==========\n");
+        Path repertoire = Files.createTempDirectory("h2-bench");
+
+        // 1️⃣ Serveur explicite : le poste serveur en direct, les autres en TCP
+        String direct = "jdbc:h2:" + repertoire.resolve("explicite") + ";CACHE_SIZE=65536";
+        try (Connection proprietaire = DriverManager.getConnection(direct, "sa", "")) {
+            preparer(proprietaire);
+            int port = portLibre();
+            Server serveur = Server.createTcpServer("-tcpPort", String.valueOf(port),
+                    "-baseDir", repertoire.toString(), "-ifExists").start();
+            try {
+                mesurer("Serveur explicite - poste serveur (direct)", proprietaire);
+                try (Connection client = DriverManager.getConnection(
+                        "jdbc:h2:tcp://localhost:" + port + "/explicite", "sa", "")) {
+                    mesurer("Serveur explicite - poste client (TCP)", client);
+                }
+            } finally {
+                serveur.stop();
+            }
+        }
+
+        // 2️⃣ AUTO_SERVER : un autre processus a ouvert la base en premier
+        String auto = "jdbc:h2:" + repertoire.resolve("auto") + ";AUTO_SERVER=TRUE";
+        try (Connection c = DriverManager.getConnection(auto, "sa", "")) {
+            preparer(c);
+        }
+        Process autre = new ProcessBuilder(new File(System.getProperty("java.home"), "bin/java").getPath(),
+                "-cp", System.getProperty("java.class.path"), H2ModeBenchmark.class.getName(),
+                "proprietaire", repertoire.resolve("auto").toString())
+                .redirectErrorStream(true).start();
+        BufferedReader sortie = new BufferedReader(new InputStreamReader(autre.getInputStream()));
+        String ligne;
+        while ((ligne = sortie.readLine()) != null && !ligne.equals("PRET")) {
+            System.out.println("   [autre poste] " + ligne);
+        }
+
+        try (Connection client = DriverManager.getConnection(auto, "sa", "")) {
+            mesurer("AUTO_SERVER - poste client (TCP vers le premier poste)", client);
+
+            // 3️⃣ Le premier poste se ferme brutalement : combien de temps sans base ?
+            autre.destroyForcibly().waitFor();
+            long debut = System.nanoTime();
+            int tentatives = 0;
+            while (true) {
+                tentatives++;
+                try (Connection reprise = DriverManager.getConnection(auto, "sa", "");
+                     Statement st = reprise.createStatement()) {
+                    st.executeQuery("SELECT COUNT(*) FROM COMMANDE_BENCH").close();
+                    break;
+                } catch (SQLException e) {
+                    Thread.sleep(10);
+                }
+            }
+            System.out.printf("AUTO_SERVER - bascule après fermeture du premier poste : %.0f ms (%d tentative(s))%n%n",
+                    (System.nanoTime() - debut) / 1e6, tentatives);
+        } finally {
+            autre.destroyForcibly();
+        }
+
+        System.out.println("Serveur explicite : pas de bascule, le serveur ne dépend d'aucun écran ouvert");
+        System.out.println("========== FIN BENCHMARK ==========\n");
+    }
+
+    /**
+     * Processus fils : premier poste lancé en AUTO_SERVER, garde la base ouverte
+     */
+    private static void proprietaireAutoServeur(String base) throws Exception {
+        try (Connection c = DriverManager.getConnection("jdbc:h2:" + base + ";AUTO_SERVER=TRUE", "sa", "")) {
+            c.createStatement().executeQuery("SELECT 1").close();
+            System.out.println("PRET");
+            System.out.flush();
+            Thread.currentThread().join();
+        }
+    }
+
+    private static void preparer(Connection c) throws SQLException {
+        try (Statement st = c.createStatement()) {
+            st.execute("CREATE TABLE IF NOT EXISTS COMMANDE_BENCH(ID BIGINT PRIMARY KEY, STATUT VARCHAR(20), TOTAL BIGINT)");
+            st.execute("DELETE FROM COMMANDE_BENCH");
+        }
+        try (PreparedStatement ps = c.prepareStatement("INSERT INTO COMMANDE_BENCH VALUES(?, 'SERVI', ?)")) {
+            for (int i = 0; i < LIGNES; i++) {
+                ps.setLong(1, i);
+                ps.setLong(2, i * 100L);
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+    }
+
+    private static void mesurer(String titre, Connection c) throws SQLException {
+        long[] lectures = new long[LECTURES];
+        try (PreparedStatement ps = c.prepareStatement("SELECT STATUT, TOTAL FROM COMMANDE_BENCH WHERE ID = ?")) {
+            for (int i = 0; i < LECTURES; i++) {
+                long debut = System.nanoTime();
+                ps.setLong(1, (i * 7919L) % LIGNES);
+                try (ResultSet rs = ps.executeQuery()) {
+                    rs.next();
+                }
+                lectures[i] = System.nanoTime() - debut;
+            }
+        }
+
+        long[] ecritures = new long[ECRITURES];
+        boolean autoCommit = c.getAutoCommit();
+        c.setAutoCommit(false);
+        try (PreparedStatement ps = c.prepareStatement("UPDATE COMMANDE_BENCH SET TOTAL = TOTAL + 1 WHERE ID = ?")) {
+            for (int i = 0; i < ECRITURES; i++) {
+                long debut = System.nanoTime();
+                ps.setLong(1, i);
+                ps.executeUpdate();
+                c.commit();
+                ecritures[i] = System.nanoTime() - debut;
+            }
+        } finally {
+            c.setAutoCommit(autoCommit);
+        }
+
+        System.out.println(titre);
+        System.out.printf("   lecture par clé   : p50 %6.1f µs   p95 %6.1f µs%n", centile(lectures, 50), centile(lectures, 95));
+        System.out.printf("   écriture + commit : p50 %6.1f µs   p95 %6.1f µs%n%n", centile(ecritures, 50), centile(ecritures, 95));
+    }
+
+    private static double centile(long[] durees, int p) {
+        long[] tri = durees.clone();
+        Arrays.sort(tri);
+        return tri[Math.min(tri.length - 1, tri.length * p / 100)] / 1000.0;
+    }
+
+    private static int portLibre() throws Exception {
+        for (int port = 19092; port < 19192; port++) {
+            if (ServeurBaseDeDonnees.portLibre(port)) {
+                return port;
+            }
+        }
+        throw new IllegalStateException("Aucun port libre pour le serveur de test");
+    }
+}
@@ -0,0 +1,151 @@
+package com.restaurant.util;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Mise à jour minimale d'une liste affichée : insertion, suppression, déplacement et
+ * changement de version, les éléments inchangés restant les mêmes objets
+ */
+class ListeDiffTest {
+
+    @Test
+    void insertion() {
+        ObservableList<Element> liste = liste(e(1, 0), e(3, 0));
+        Element premier = liste.get(0);
+        Element dernier = liste.get(1);
+
+        ListeDiff.Bilan bilan = appliquer(liste, e(1, 0), e(2, 0), e(3, 0), e(4, 0));
+
+        assertEquals(List.of(1L, 2L, 3L, 4L), ids(liste));
+        assertEquals(2, bilan.getAjouts());
+        assertEquals(0, bilan.getSuppressions() + bilan.getRemplacements() + bilan.getDeplacements());
+        assertSame(premier, liste.get(0));
+        assertSame(dernier, liste.get(2));
+    }
+
+    @Test
+    void suppression() {
+        ObservableList<Element> liste = liste(e(1, 0), e(2, 0), e(3, 0), e(4, 0));
+        Element troisieme = liste.get(2);
+
+        ListeDiff.Bilan bilan = appliquer(liste, e(1, 0), e(3, 0));
+
+        assertEquals(List.of(1L, 3L), ids(liste));
+        assertEquals(2, bilan.getSuppressions());
+        assertEquals(0, bilan.getAjouts() + bilan.getRemplacements() + bilan.getDeplacements());
+        assertSame(troisieme, liste.get(1));
+    }
+
+    @Test
+    void deplacement() {
+        ObservableList<Element> liste = liste(e(1, 0), e(2, 0), e(3, 0));
+        Element troisieme = liste.get(2);
+
+        ListeDiff.Bilan bilan = appliquer(liste, e(3, 0), e(1, 0), e(2, 0));
+
+        assertEquals(List.of(3L, 1L, 2L), ids(liste));
+        assertEquals(1, bilan.getDeplacements());
+        assertEquals(0, bilan.getAjouts() + bilan.getSuppressions() + bilan.getRemplacements());
+        // Déplacé sans changement : l'objet affiché est conservé
+        assertSame(troisieme, liste.get(0));
+    }
+
+    @Test
+    void changementDeVersion() {
+        ObservableList<Element> liste = liste(e(1, 0), e(2, 0), e(3, 0));
+        Element premier = liste.get(0);
+        Element nouveau = e(2, 1);
+
+        ListeDiff.Bilan bilan = appliquer(liste, e(1, 0), nouveau, e(3, 0));
+
+        assertEquals(1, bilan.getRemplacements());
+        assertEquals(0, bilan.getAjouts() + bilan.getSuppressions() + bilan.getDeplacements());
+        assertSame(nouveau, liste.get(1));
+        assertSame(premier, liste.get(0));
+    }
+
+    @Test
+    void deplacementEtChangementDeVersion() {
+        ObservableList<Element> liste = liste(e(1, 0), e(2, 0));
+        Element nouveau = e(2, 5);
+
+        ListeDiff.Bilan bilan = appliquer(liste, nouveau, e(1, 0));
+
+        assertEquals(List.of(2L, 1L), ids(liste));
+        assertEquals(1, bilan.getDeplacements());
+        assertSame(nouveau, liste.get(0));
+    }
+
+    @Test
+    void lectureIdentiqueSansChangement() {
+        ObservableList<Element> liste = liste(e(1, 0), e(2, 0));
+        int[] notifications = new int[1];
+        liste.addListener((ListChangeListener<Element>) c -> notifications[0]++);
+
+        assertTrue(appliquer(liste, e(1, 0), e(2, 0)).isVide());
+        assertEquals(0, notifications[0]);
+    }
+
+    @Test
+    void toutEnUneFois() {
+        ObservableList<Element> liste = liste(e(1, 0), e(2, 0), e(3, 0), e(4, 0));
+
+        ListeDiff.Bilan bilan = appliquer(liste, e(4, 0), e(5, 0), e(2, 1), e(1, 0));
+
+        assertEquals(List.of(4L, 5L, 2L, 1L), ids(liste));
+        assertEquals(List.of(0, 0, 1, 0), versions(liste));
+        assertEquals(1, bilan.getSuppressions());
+        assertEquals(1, bilan.getAjouts());
+    }
+
+    // ==================== OUTILS ====================
+
+    private static final class Element {
+        final long id;
+        final int version;
+
+        Element(long id, int version) {
+            this.id = id;
+            this.version = version;
+        }
+    }
+
+    private static Element e(long id, int version) {
+        return new Element(id, version);
+    }
+
+    private static ObservableList<Element> liste(Element... elements) {
+        return FXCollections.observableArrayList(elements);
+    }
+
+    private static ListeDiff.Bilan appliquer(ObservableList<Element> liste, Element... lecture) {
+        return ListeDiff.appliquer(liste, List.of(lecture), element -> element.id,
+                (affiche, lu) -> affiche.version == lu.version);
+    }
+
+    private static List<Long> ids(List<Element> liste) {
+        List<Long> ids = new ArrayList<>();
+        for (Element element : liste) {
+            ids.add(element.id);
+        }
+        return ids;
+    }
+
+    private static List<Integer> versions(List<Element> liste) {
+        List<Integer> versions = new ArrayList<>();
+        for (Element element : liste) {
+            versions.add(element.version);
+        }
+        return versions;
+    }
+}
@@ -0,0 +1,71 @@
+package com.restaurant.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Table long -> int : lecture et remplacement au fil des agrandissements, valeur d'absence
+ */
+class LongIntMapTest {
+
+    @Test
+    void lectureApresAgrandissement() {
+        LongIntMap map = new LongIntMap(1);
+        for (int i = 0; i < 1000; i++) {
+            map.put(i * 1_000_003L, i);
+        }
+        assertEquals(1000, map.size());
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i, map.get(i * 1_000_003L));
+            assertTrue(map.containsKey(i * 1_000_003L));
+        }
+        assertEquals(-1, map.get(7));
+        assertFalse(map.containsKey(7));
+    }
+
+    @Test
+    void remplacementSansDoublon() {
+        LongIntMap map = new LongIntMap(2);
+        for (int tour = 0; tour < 3; tour++) {
+            for (long cle = -50; cle < 50; cle++) {
+                map.put(cle, tour);
+            }
+        }
+        assertEquals(100, map.size());
+        assertEquals(2, map.get(-50));
+        assertEquals(2, map.get(49));
+    }
+
+    @Test
+    void valeurDAbsenceChoisie() {
+        LongIntMap map = new LongIntMap(4, 0);
+        assertEquals(0, map.get(Long.MIN_VALUE));
+        map.put(Long.MIN_VALUE, 9);
+        map.put(Long.MAX_VALUE, 8);
+        assertEquals(9, map.get(Long.MIN_VALUE));
+        assertEquals(8, map.get(Long.MAX_VALUE));
+    }
+
+    @Test
+    void clesAleatoiresCommeUneHashMap() {
+        Random aleatoire = new Random(7);
+        LongIntMap map = new LongIntMap(4);
+        Map<Long, Integer> reference = new HashMap<>();
+        for (int i = 0; i < 10_000; i++) {
+            long cle = i % 2 == 0 ? aleatoire.nextLong() : aleatoire.nextInt(500);
+            map.put(cle, i);
+            reference.put(cle, i);
+        }
+        assertEquals(reference.size(), map.size());
+        for (Map.Entry<Long, Integer> e : reference.entrySet()) {
+            assertEquals((int) e.getValue(), map.get(e.getKey()));
+        }
+    }
+}
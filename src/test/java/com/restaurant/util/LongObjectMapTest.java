@@ -0,0 +1,100 @@
+package com.restaurant.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Table long -> objet : lecture, remplacement et suppression (décalage arrière) au fil des
+ * agrandissements, comparées à une HashMap
+ */
+class LongObjectMapTest {
+
+    @Test
+    void lectureApresAgrandissement() {
+        LongObjectMap<String> map = new LongObjectMap<>(2);
+        for (long cle = -500; cle < 500; cle++) {
+            assertNull(map.put(cle, "v" + cle));
+        }
+        assertEquals(1000, map.size());
+        for (long cle = -500; cle < 500; cle++) {
+            assertEquals("v" + cle, map.get(cle));
+        }
+        assertNull(map.get(500));
+        assertEquals("v7", map.put(7, "w7"));
+        assertEquals("w7", map.get(7));
+        assertEquals(1000, map.size());
+    }
+
+    @Test
+    void suppressionsApresAgrandissement() {
+        LongObjectMap<Long> map = new LongObjectMap<>(2);
+        for (long cle = 0; cle < 1000; cle++) {
+            map.put(cle, cle);
+        }
+        // Une clé sur trois retirée : les chaînes de sondage doivent rester continues
+        for (long cle = 0; cle < 1000; cle += 3) {
+            assertEquals(cle, map.remove(cle));
+        }
+        assertNull(map.remove(0));
+        for (long cle = 0; cle < 1000; cle++) {
+            assertEquals(cle % 3 == 0 ? null : (Long) cle, map.get(cle));
+        }
+        assertEquals(666, map.size());
+    }
+
+    @Test
+    void operationsAleatoiresCommeUneHashMap() {
+        Random aleatoire = new Random(42);
+        LongObjectMap<Integer> map = new LongObjectMap<>();
+        Map<Long, Integer> reference = new HashMap<>();
+        List<Long> cles = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            // Peu de clés distinctes : beaucoup de remplacements et de suppressions de clés présentes
+            long cle = aleatoire.nextInt(2000) - 1000L;
+            if (i % 5 == 0) {
+                cle = aleatoire.nextLong();
+                cles.add(cle);
+            }
+            if (aleatoire.nextInt(3) == 0) {
+                assertEquals(reference.remove(cle), map.remove(cle));
+            } else {
+                assertEquals(reference.put(cle, i), map.put(cle, i));
+            }
+            assertEquals(reference.size(), map.size());
+        }
+        for (long cle = -1000; cle < 1000; cle++) {
+            assertEquals(reference.get(cle), map.get(cle));
+        }
+        for (Long cle : cles) {
+            assertEquals(reference.get(cle), map.get(cle));
+        }
+    }
+
+    @Test
+    void viderPuisReutiliser() {
+        LongObjectMap<String> map = new LongObjectMap<>(4);
+        for (long cle = 0; cle < 100; cle++) {
+            map.put(cle, "a");
+        }
+        map.clear();
+        assertEquals(0, map.size());
+        assertNull(map.get(5));
+        map.put(5, "b");
+        assertEquals("b", map.get(5));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    void valeurNullRefusee() {
+        assertThrows(IllegalArgumentException.class, () -> new LongObjectMap<String>().put(1, null));
+    }
+}